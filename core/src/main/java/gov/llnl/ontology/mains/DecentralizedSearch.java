@@ -1,5 +1,6 @@
 package gov.llnl.ontology.mains;
 
+import gov.llnl.ontology.wordnet.LandmarkDistanceOracle;
 import gov.llnl.ontology.wordnet.OntologyReader;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.TagLinkedOntologyReader;
@@ -13,12 +14,14 @@ import edu.ucla.sspace.common.ArgOptions;
 import edu.ucla.sspace.matrix.ArrayMatrix;
 import edu.ucla.sspace.matrix.Matrix;
 import edu.ucla.sspace.util.Pair;
+import edu.ucla.sspace.util.SerializableUtil;
 
 import graph.edu.ucla.sspace.graph.Graph;
 import graph.edu.ucla.sspace.graph.SimpleEdge;
 import graph.edu.ucla.sspace.graph.SparseUndirectedGraph;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.util.Map;
 import java.util.Set;
@@ -48,21 +51,57 @@ public class DecentralizedSearch {
                           true, "INT", "Required");
         options.addOption('n', "numSynsets",
                           "Specifies the number of synsets",
-                          true, "INT", "Required");
+                          true, "INT", "Distance Options");
         options.addOption('s', "synsetDistances",
                           "Specifies the shortest path lengths between any " +
                           "two synsets",
-                          true, "FILE", "Required");
+                          true, "FILE", "Distance Options");
+        options.addOption('o', "distanceOracle",
+                          "Specifies a serialized LandmarkDistanceOracle " +
+                          "to use in place of the synset distances",
+                          true, "FILE", "Distance Options");
+        options.addOption('k', "numLandmarks",
+                          "Builds a LandmarkDistanceOracle with the given " +
+                          "number of landmarks to use in place of the " +
+                          "synset distances",
+                          true, "INT", "Distance Options");
+        options.addOption('e', "exactDistances",
+                          "Set to refine the estimates of a " +
+                          "LandmarkDistanceOracle to exact distances",
+                          false, null, "Distance Options");
         options.parseOptions(args);
 
-        OntologyReader reader = WordNetCorpusReader.initialize(
+        // Exactly one source of synset distances must be given.
+        int numSources = (options.hasOption('o') ? 1 : 0) +
+                         (options.hasOption('k') ? 1 : 0) +
+                         (options.hasOption('s') ? 1 : 0);
+        if (numSources != 1 ||
+            options.hasOption('s') != options.hasOption('n')) {
+            System.out.println(
+                    "usage: java DecentralizedSearch [OPTIONS]\n" +
+                    "Exactly one of -o, -k, or -s with -n must be given.\n" +
+                    options.prettyPrint());
+            System.exit(1);
+        }
+
+        WordNetCorpusReader wordnet = WordNetCorpusReader.initialize(
                 options.getStringOption('d'));
-        reader = new TagLinkedOntologyReader(reader, readTagMapping(
-                    options.getStringOption('t')));
+        OntologyReader reader = new TagLinkedOntologyReader(
+                wordnet, readTagMapping(options.getStringOption('t')));
         Set<Pair<Set<String>>> tagPairs = readTagPairs(
                     options.getStringOption('p'));
         TagGraph tagGraph = readTagGraph(options.getStringOption('g'));
-        DistanceMatrix distanceMatrix = readSynsetDistances(
+        SynsetDistances distanceMatrix;
+        if (options.hasOption('o') || options.hasOption('k')) {
+            LandmarkDistanceOracle oracle = (options.hasOption('o'))
+                ? SerializableUtil.load(new File(options.getStringOption('o')),
+                                        LandmarkDistanceOracle.class)
+                : LandmarkDistanceOracle.build(
+                        wordnet, options.getIntOption('k'));
+            oracle.setExactRefinement(options.hasOption('e'));
+            distanceMatrix = new OracleDistances(oracle);
+        } else
+            distanceMatrix = readSynsetDistances(
                     options.getStringOption('s'), options.getIntOption('n'),
                     reader);
         int maxLength = options.getIntOption('l');
@@ -78,7 +117,7 @@ public class DecentralizedSearch {
                                           Set<String> goalTags,
                                           int maxLength,
                                           TagGraph graph,
-                                          DistanceMatrix distanceMatrix,
+                                          SynsetDistances distanceMatrix,
                                           OntologyReader reader) {
         if (maxLength == 0)
             return Integer.MIN_VALUE;
@@ -101,7 +140,6 @@ public class DecentralizedSearch {
             }
         }
 
-        System.out.println("Selecting tag: " + bestNext);
         return searchFromNeighbors(
                 graph.neighbors(bestNext), goalTags, maxLength-1,
                 graph, distanceMatrix, reader);
@@ -164,7 +202,37 @@ public class DecentralizedSearch {
         return distances;
     }
 
-    public static class DistanceMatrix {
+    /**
+     * The distances between {@link Synset}s used to guide the search.
+     */
+    public interface SynsetDistances {
+
+        /**
+         * Returns the distance between {@code synset1} and {@code synset2}.
+         */
+        double get(Synset synset1, Synset synset2);
+    }
+
+    /**
+     * {@link SynsetDistances} estimated by a {@link LandmarkDistanceOracle}.
+     * Pairs without a known distance are treated as being infinitely far
+     * apart.
+     */
+    public static class OracleDistances implements SynsetDistances {
+
+        public LandmarkDistanceOracle oracle;
+
+        public OracleDistances(LandmarkDistanceOracle oracle) {
+            this.oracle = oracle;
+        }
+
+        public double get(Synset synset1, Synset synset2) {
+            int distance = oracle.distance(synset1, synset2);
+            return (distance < 0) ? Integer.MAX_VALUE : distance;
+        }
+    }
+
+    public static class DistanceMatrix implements SynsetDistances {
 
         public OntologyReader reader;
 
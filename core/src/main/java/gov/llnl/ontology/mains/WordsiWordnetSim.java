@@ -1,10 +1,12 @@
 package gov.llnl.ontology.mains;
 
+import gov.llnl.ontology.wordnet.BatchSynsetSimilarity;
 import gov.llnl.ontology.wordnet.OntologyReader;
 import gov.llnl.ontology.wordnet.WordNetCorpusReader;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
 import gov.llnl.ontology.wordnet.SynsetSimilarity;
+import gov.llnl.ontology.wordnet.sim.AbstractBatchSimilarity;
 
 import com.google.common.collect.Maps;
 
@@ -121,20 +123,27 @@ public class WordsiWordnetSim {
         // Compute the total pairwise similarity of each synset assigned to the
         // same cluster and output the total score, the number of comparisons,
         // and then the average score.
+        BatchSynsetSimilarity batchSim = AbstractBatchSimilarity.of(simFunc);
         List<Double> scores = new ArrayList<Double>();
         double objectiveScore = 0;
         for (String clusterId : clusterMap.keySet()) {
             Synset[] senses = clusterMap.get(clusterId).toArray(new Synset[0]);
             double numPairs = senses.length * (senses.length + 1) / 2.0;
+
+            // Only nouns are compared, so score each pair of noun senses once
+            // in one batch.
+            List<Synset> nounList = new ArrayList<Synset>();
+            for (Synset sense : senses)
+                if (sense.getPartOfSpeech() == PartsOfSpeech.NOUN)
+                    nounList.add(sense);
+            Synset[] nouns = nounList.toArray(new Synset[nounList.size()]);
+            double[][] sims = batchSim.pairwiseSimilarity(nouns);
+
             double totalSim = 0;
-            for (int i = 0; i < senses.length; ++i)
-                for (int j = i+1; j < senses.length; ++j) {
-                    if (senses[i].getPartOfSpeech() == PartsOfSpeech.NOUN &&
-                        senses[j].getPartOfSpeech() == PartsOfSpeech.NOUN) {
-                        double sim = simFunc.similarity(senses[i], senses[j]);
-                        totalSim += sim;
-                        scores.add(sim);
-                    }
+            for (double[] row : sims)
+                for (double sim : row) {
+                    totalSim += sim;
+                    scores.add(sim);
                 }
             objectiveScore += totalSim / numPairs;
         }
@@ -31,11 +31,11 @@ import gov.llnl.ontology.text.TextUtil;
 import gov.llnl.ontology.util.Counter;
 import gov.llnl.ontology.util.StringCounter;
 import gov.llnl.ontology.util.StringPair;
+import gov.llnl.ontology.wordnet.LemmaTrie;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Maps;
 
-import edu.ucla.sspace.text.CompoundWordIterator;
 import edu.ucla.sspace.util.ReflectionUtil;
 
 import org.apache.hadoop.conf.Configuration;
@@ -59,10 +59,8 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 
 /**
@@ -173,7 +171,21 @@ public class CompoundTokenCountMR extends CorpusTableMR {
          */
         private static final IntWritable ONE = new IntWritable(1);
 
-        private Set<String> wordList;
+        /**
+         * A trie over every compound in the word list, with the tokens of each
+         * compound joined by a single space.
+         */
+        private LemmaTrie compounds;
+
+        /**
+         * The compound word list entry for each id in {@code compounds}.
+         */
+        private String[] compoundForms;
+
+        /**
+         * The number of tokens in each compound in {@code compounds}.
+         */
+        private int[] compoundLengths;
 
         /**
          * {@inheritDoc}
@@ -184,9 +196,25 @@ public class CompoundTokenCountMR extends CorpusTableMR {
             BufferedReader br = new BufferedReader(
                     new FileReader(wordListPath.toString()));
 
-            wordList = Sets.newHashSet();
-            for (String line = null; (line = br.readLine()) != null; )
-                wordList.add(line.toLowerCase());
+            // Build the compound trie once per mapper rather than splitting
+            // the whole word list for every row.  Single words are skipped
+            // since they are emitted as is.
+            Map<String, String> wordList = Maps.newHashMap();
+            for (String line = null; (line = br.readLine()) != null; ) {
+                String entry = line.toLowerCase();
+                if (entry.split("\\s+").length > 1)
+                    wordList.put(entry.replaceAll("\\s+", " "), entry);
+            }
+            br.close();
+
+            compounds = new LemmaTrie(wordList.keySet());
+            compoundForms = new String[compounds.size()];
+            compoundLengths = new int[compounds.size()];
+            for (int id = 0; id < compounds.size(); ++id) {
+                String compound = compounds.getLemma(id);
+                compoundForms[id] = wordList.get(compound);
+                compoundLengths[id] = compound.split(" ").length;
+            }
         }
 
         /**
@@ -202,10 +230,18 @@ public class CompoundTokenCountMR extends CorpusTableMR {
                 for (StringPair tokenPos : sentence.taggedTokens())
                     if (tokenPos.x != null)
                         tokens.add(TextUtil.cleanTerm(tokenPos.x));
-                Iterator<String> iter = new CompoundWordIterator(
-                        tokens.iterator(), wordList);
-                while (iter.hasNext())
-                    counter.count(iter.next());
+
+                // Count the longest compound starting at each token, or the
+                // token itself if no compound starts with it.
+                for (int t = 0; t < tokens.size(); ) {
+                    int id = compounds.longestMatch(tokens, t, ' ');
+                    if (id < 0) {
+                        counter.count(tokens.get(t++));
+                    } else {
+                        counter.count(compoundForms[id]);
+                        t += compoundLengths[id];
+                    }
+                }
             }
 
             for (Map.Entry<String, Integer> entry : counter)
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.mapreduce.stats;
+
+import gov.llnl.ontology.mapreduce.CorpusTableMR;
+import gov.llnl.ontology.mapreduce.MRArgOptions;
+import gov.llnl.ontology.text.Annotation;
+import gov.llnl.ontology.text.Sentence;
+import gov.llnl.ontology.wordnet.FileBasedInformationContent;
+import gov.llnl.ontology.wordnet.HypernymIndex;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.TableMapper;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.mapreduce.lib.reduce.LongSumReducer;
+
+import java.io.IOException;
+
+import java.util.List;
+
+
+/**
+ * A map/reduce job that computes information content counts for every {@link
+ * Synset} from the word senses assigned to a corpus.  Each sense occurrence
+ * counts once towards the tagged {@link Synset} and once towards each of it's
+ * hypernym ancestors.  The counts are written by a single reducer in the
+ * format read by {@link FileBasedInformationContent}, so the reduce part can
+ * be loaded directly as a content file.
+ *
+ * @author Keith Stevens
+ */
+public class InformationContentMR extends CorpusTableMR {
+
+    /**
+     * The configuration key for setting the wordnet directory.
+     */
+    public static final String WORDNET_DIR = CONF_PREFIX + ".wordnetDir";
+
+    /**
+     * The configuration key for setting the label of the word sense column.
+     */
+    public static final String SENSE_LABEL = CONF_PREFIX + ".senseLabel";
+
+    /**
+     * A descriptive about string used in the help text.
+     */
+    public static final String ABOUT =
+        "Computes information content counts from the word senses assigned " +
+        "to a particular corpus.  If no corpus is specified, then all " +
+        "corpora will be used to compute the counts.  Each sense counts " +
+        "towards it's synset and every hypernym of the synset.  The counts " +
+        "will be stored in a single reduce part on hdfs under the specified " +
+        "<outdir> in the WordNet::Similarity information content format.";
+
+    /**
+     * Runs the {@link InformationContentMR}.
+     */
+    public static void main(String[] args) throws Exception {
+        ToolRunner.run(HBaseConfiguration.create(),
+                       new InformationContentMR(), args);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void addOptions(MRArgOptions options) {
+        options.addOption('d', "wordnetDir",
+                          "Specifies the directory in the existing " +
+                          "classpath for wordnet dictionary files.",
+                          true, "PATH", "Required");
+        options.addOption('l', "senseLabel",
+                          "Specifies the label of the word senses to count, " +
+                          "which is the name of the WordSenseDisambiguation " +
+                          "algorithm that assigned them.",
+                          true, "LABEL", "Required");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void validateOptions(MRArgOptions options) {
+        options.validate(ABOUT, "<outdir>", InformationContentMR.class,
+                         1, 'C', 'd', 'l');
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String jobName() {
+        return "Information Content";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setupConfiguration(MRArgOptions options, 
+                                      Configuration conf) {
+        conf.set(WORDNET_DIR, options.getStringOption('d'));
+        conf.set(SENSE_LABEL, options.getStringOption('l'));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Class mapperClass() {
+        return InformationContentMapper.class;
+    }
+
+    /**
+     * Returns the {@link Class} object for the Mapper Value of this task.
+     */
+    protected Class mapperKeyClass() {
+        return Text.class;
+    }
+
+    /**
+     * Returns the {@link Class} object for the Mapper Value of this task.
+     */
+    protected Class mapperValueClass() {
+        return LongWritable.class;
+    }
+
+    /**
+     * Sets up the Reducer for this job.  A single reducer is used so that the
+     * output forms one content file with a single header line.
+     */
+    protected void setupReducer(String tableName,
+                                Job job,
+                                MRArgOptions options) {
+        job.setCombinerClass(LongSumReducer.class);
+        job.setReducerClass(InformationContentReducer.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(LongWritable.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        TextOutputFormat.setOutputPath(
+                job, new Path(options.getPositionalArg(0)));
+        job.setNumReduceTasks(1);
+    }
+
+    /**
+     * The main {@link TableMapper} that does the work.  Counts are accumulated
+     * in an array indexed by the dense {@link HypernymIndex} ids and emitted
+     * once the mapper has seen every row in it's split.
+     */
+    public static class InformationContentMapper
+            extends CorpusTableMR.CorpusTableMapper<Text, LongWritable> {
+
+        /**
+         * The {@link WordNetCorpusReader} used to find tagged {@link Synset}s.
+         */
+        private WordNetCorpusReader wordnet;
+
+        /**
+         * The label of the word senses to count.
+         */
+        private String senseLabel;
+
+        /**
+         * The {@link HypernymIndex} providing ids and ancestors for each {@link
+         * Synset}.
+         */
+        private HypernymIndex index;
+
+        /**
+         * The propagated count for each {@link Synset} in {@link #index}.
+         */
+        private long[] counts;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void setup(Context context, Configuration conf) {
+            wordnet = WordNetCorpusReader.initialize(
+                    conf.get(WORDNET_DIR), true);
+            senseLabel = conf.get(SENSE_LABEL);
+            index = wordnet.getHypernymIndex();
+            counts = new long[index.size()];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void map(ImmutableBytesWritable key,
+                        Result row, 
+                        Context context) {
+            context.setStatus("Counting senses");
+            // Reject any rows that should not be processed.
+            if (!table.shouldProcessRow(row))
+                return;
+
+            List<Sentence> sentences = table.wordSenses(row, senseLabel);
+            // Skip any documents without word senses.
+            if (sentences == null)
+                return;
+
+            for (Sentence sentence : sentences)
+                for (Annotation annotation : sentence) {
+                    if (annotation == null || !annotation.hasSense())
+                        continue;
+
+                    Synset synset = wordnet.getSynsetBySenseKey(
+                            annotation.sense());
+                    int id = (synset == null) ? -1 : index.indexOf(synset);
+                    if (id < 0) {
+                        context.getCounter("InformationContentMR",
+                                           "Unknown Sense").increment(1);
+                        continue;
+                    }
+
+                    // Count the sense for the synset and every ancestor of
+                    // the synset, each exactly once.
+                    counts[id]++;
+                    for (int ancestorId : index.ancestorIds(id))
+                        counts[ancestorId]++;
+                    context.getCounter("InformationContentMR", "Sense")
+                        .increment(1);
+                }
+            context.getCounter("InformationContentMR", "Documents")
+                .increment(1);
+        }
+
+        /**
+         * Emits the count of each {@link Synset} that was seen by this mapper.
+         */
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException {
+            for (int id = 0; id < counts.length; ++id)
+                if (counts[id] > 0)
+                    context.write(new Text(FileBasedInformationContent
+                                    .contentKey(index.getSynset(id))),
+                                  new LongWritable(counts[id]));
+            table.close();
+        }
+    }
+
+    /**
+     * Sums the counts for each {@link Synset} and writes the content file
+     * header before the first count.
+     */
+    public static class InformationContentReducer
+            extends Reducer<Text, LongWritable, Text, LongWritable> {
+
+        /**
+         * {@inheritDoc}
+         */
+        protected void setup(Context context)
+                throws IOException, InterruptedException {
+            context.write(new Text(FileBasedInformationContent.HEADER), null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        protected void reduce(Text key,
+                              Iterable<LongWritable> values,
+                              Context context)
+                throws IOException, InterruptedException {
+            long sum = 0;
+            for (LongWritable value : values)
+                sum += value.get();
+            context.write(key, new LongWritable(sum));
+        }
+    }
+}
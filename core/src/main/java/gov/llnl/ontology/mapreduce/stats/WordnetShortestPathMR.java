@@ -25,6 +25,7 @@ package gov.llnl.ontology.mapreduce.stats;
 
 import gov.llnl.ontology.mapreduce.table.CorpusTable;
 import gov.llnl.ontology.text.hbase.LineDocInputFormat;
+import gov.llnl.ontology.wordnet.HypernymPathSearch;
 import gov.llnl.ontology.wordnet.OntologyReader;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.SynsetRelations;
@@ -40,6 +41,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
@@ -47,6 +49,7 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
@@ -61,6 +64,19 @@ import java.util.Set;
  * A Map/Reduce job that computes the shortest path between every wordnet
  * synset.
  *
+ * </p>
+ *
+ * By default, every pair of synsets is written to a file which the mappers
+ * split up, computing the distance for each pair independently.  In single
+ * source mode, each mapper is instead given a range of source synset ids.  It
+ * loads the hierarchy once and uses a {@link HypernymPathSearch} to find the
+ * distance from each source to every synset in one pass.  Each source is
+ * written to a {@link SequenceFileOutputFormat} as the source id and a row of
+ * distances, one unsigned byte per target id, with {@link #NO_PATH} marking
+ * targets that have no path or are further than 254 links away.  The name of
+ * the synset with each id is written, one per line, to {@link #SYNSET_IDS}
+ * under the output directory.
+ *
  * @author Keith Stevens
  */
 public class WordnetShortestPathMR extends Configured implements Tool {
@@ -82,6 +98,29 @@ public class WordnetShortestPathMR extends Configured implements Tool {
      */
     public static final String TEMP_TERM_PAIR_PATH = "wordnet-pair-file";
 
+    /**
+     * A temp directory for the source id ranges used in single source mode.
+     */
+    public static final String TEMP_SOURCE_RANGE_PATH =
+        "wordnet-source-ranges";
+
+    /**
+     * The file under the output directory that lists the name of the synset
+     * with each id in single source mode.
+     */
+    public static final String SYNSET_IDS = "synset-ids";
+
+    /**
+     * The distance written for targets without a path in single source mode.
+     */
+    public static final int NO_PATH = 255;
+
+    /**
+     * The default number of source ranges, and thus mappers, used in single
+     * source mode.
+     */
+    public static final int DEFAULT_NUM_PARTITIONS = 64;
+
     /**
      * Runs the {@link IngestCorpusMR}.
      */
@@ -99,6 +138,15 @@ public class WordnetShortestPathMR extends Configured implements Tool {
         options.addOption('w', "wordnetDir",
                           "The directory path to the wordnet data files",
                           true, "PATH", "Required");
+        options.addOption('s', "singleSource",
+                          "Set to compute a row of distances for each " +
+                          "source synset instead of distances for each pair",
+                          false, null, "Optional");
+        options.addOption('p', "numPartitions",
+                          "The number of source ranges to split the " +
+                          "synsets into in single source mode (Default: " +
+                          DEFAULT_NUM_PARTITIONS + ")",
+                          true, "INT", "Optional");
 
         options.parseOptions(args);
         if (!options.hasOption('w')) {
@@ -107,6 +155,9 @@ public class WordnetShortestPathMR extends Configured implements Tool {
                     options.prettyPrint());
         }
 
+        if (options.hasOption('s'))
+            return runSingleSource(options);
+
         // Open the wordnet reader and gather the set of all Synsets known by
         // the ontology.
         OntologyReader reader = WordNetCorpusReader.initialize(
@@ -156,6 +207,64 @@ public class WordnetShortestPathMR extends Configured implements Tool {
         return 0;
     }
 
+    /**
+     * Runs the job in single source mode.  The driver only writes one small
+     * file per source id range, so each range is handled by it's own mapper.
+     */
+    private int runSingleSource(ArgOptions options) throws Exception {
+        WordNetCorpusReader reader = WordNetCorpusReader.initialize(
+                options.getStringOption('w'));
+        HypernymPathSearch search =
+            HypernymPathSearch.build(reader.allSynsets());
+        int numSynsets = search.size();
+        int numPartitions = Math.max(1, Math.min(numSynsets,
+                    options.getIntOption('p', DEFAULT_NUM_PARTITIONS)));
+
+        // Write each range of source ids to a separate file.
+        Configuration conf = getConf();
+        FileSystem fs = FileSystem.get(conf);
+        Path rangePath = new Path(TEMP_SOURCE_RANGE_PATH);
+        fs.delete(rangePath, true);
+        for (int p = 0; p < numPartitions; ++p) {
+            int start = (int) ((long) numSynsets * p / numPartitions);
+            int end = (int) ((long) numSynsets * (p + 1) / numPartitions);
+            PrintStream outStream = new PrintStream(
+                    fs.create(new Path(rangePath, "range-" + p)));
+            outStream.printf("%d %d\n", start, end);
+            outStream.close();
+        }
+
+        conf.set(WORDNET, options.getStringOption('w'));
+
+        Job job = new Job(conf, "Compute Wordnet Single Source Shortest Paths");
+        job.setJarByClass(WordnetShortestPathMR.class);
+
+        job.setMapperClass(SingleSourceMapper.class);
+        job.setInputFormatClass(LineDocInputFormat.class);
+        FileInputFormat.addInputPath(job, rangePath);
+
+        // The mappers write each row directly.
+        job.setNumReduceTasks(0);
+        job.setOutputKeyClass(IntWritable.class);
+        job.setOutputValueClass(BytesWritable.class);
+        job.setOutputFormatClass(SequenceFileOutputFormat.class);
+        Path outPath = new Path(options.getPositionalArg(0));
+        SequenceFileOutputFormat.setOutputPath(job, outPath);
+
+        boolean success = job.waitForCompletion(true);
+        fs.delete(rangePath, true);
+        if (!success)
+            return 1;
+
+        // Record the synset for each id so that the rows can be read back.
+        PrintStream idStream = new PrintStream(
+                fs.create(new Path(outPath, SYNSET_IDS)));
+        for (int id = 0; id < numSynsets; ++id)
+            idStream.println(search.getSynset(id).getName());
+        idStream.close();
+        return 0;
+    }
+
     /**
      * Creates a new temporary file on HDFS that will store the {@link Synset}
      * name pairs to be used for finding the shortest distance between all
@@ -202,4 +311,63 @@ public class WordnetShortestPathMR extends Configured implements Tool {
             context.write(value, new IntWritable(shortestPath));
         }
     }
+
+    /**
+     * The {@link Mapper} used in single source mode.  Each input line holds a
+     * start and end source id, and every source in that range is written with
+     * it's row of distances.
+     */
+    public static class SingleSourceMapper
+            extends Mapper<LongWritable, Text, IntWritable, BytesWritable> {
+
+        /**
+         * The search over the hierarchy, built once per mapper.
+         */
+        private HypernymPathSearch search;
+
+        /**
+         * The distances from the current source.
+         */
+        private int[] distances;
+
+        /**
+         * The distances from the current source as unsigned bytes.
+         */
+        private byte[] row;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void setup(Context context)
+                throws IOException, InterruptedException {
+            Configuration conf = context.getConfiguration();
+            OntologyReader reader = WordNetCorpusReader.initialize(
+                    conf.get(WORDNET));
+            search = HypernymPathSearch.build(reader.allSynsets());
+            distances = new int[search.size()];
+            row = new byte[search.size()];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void map(LongWritable key, Text value, Context context)
+                throws IOException, InterruptedException {
+            String[] range = value.toString().trim().split("\\s+");
+            int start = Integer.parseInt(range[0]);
+            int end = Integer.parseInt(range[1]);
+            for (int source = start; source < end; ++source) {
+                search.distances(source, distances);
+                for (int target = 0; target < distances.length; ++target) {
+                    int distance = distances[target];
+                    row[target] = (byte) ((distance < 0 || distance >= NO_PATH)
+                        ? NO_PATH
+                        : distance);
+                }
+                context.write(new IntWritable(source), new BytesWritable(row));
+                context.getCounter("WordnetShortestPathMR", "Sources")
+                    .increment(1);
+            }
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.util;
+
+import edu.ucla.sspace.util.WorkQueue;
+import edu.ucla.sspace.util.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * A collection of helper methods for running tasks on the shared {@link
+ * WorkQueue}.
+ *
+ * @author Keith Stevens
+ */
+public class WorkQueueUtil {
+
+    /**
+     * Runs each task in {@code tasks} on the shared {@link WorkQueue} and
+     * waits for them all to finish.  The {@link WorkQueue} itself does not
+     * report failed tasks, so the first {@link RuntimeException} or {@link
+     * Error} thrown by any task is rethrown in the calling thread once every
+     * task is done.
+     *
+     * </p>
+     *
+     * A {@link WorkQueue} never runs work in the thread that waits on it, so a
+     * worker that waited on it's own queue could block every worker.  When
+     * called from a {@link WorkerThread}, the tasks are instead run one after
+     * another in the calling thread, and a failure is thrown as soon as it
+     * happens.
+     */
+    public static void run(List<Runnable> tasks) {
+        if (Thread.currentThread() instanceof WorkerThread) {
+            for (Runnable task : tasks)
+                task.run();
+            return;
+        }
+
+        final AtomicReference<Throwable> failure =
+            new AtomicReference<Throwable>();
+        List<Runnable> guardedTasks = new ArrayList<Runnable>(tasks.size());
+        for (final Runnable task : tasks)
+            guardedTasks.add(new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            });
+        WorkQueue.getWorkQueue().run(guardedTasks);
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+    }
+}
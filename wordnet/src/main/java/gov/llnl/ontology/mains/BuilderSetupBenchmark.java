@@ -0,0 +1,80 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.OntologyReader;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.builder.TermToAdd;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * Times the setup phase of the WordNet builders, which checks how many parents
+ * of each term to add are already in WordNet, using the WordNet dictionary in
+ * {@code args[0]}.  {@code args[1]} optionally gives the number of terms to
+ * add, which defaults to 1000.
+ *
+ * @author Keith Stevens
+ */
+public class BuilderSetupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numTerms = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        OntologyReader reader = WordNetCorpusReader.initialize(args[0]);
+
+        // Create terms whose parents are a mix of existing nouns and other new
+        // terms, as the builders would see from extracted evidence.
+        List<String> nouns = new ArrayList<String>(
+                reader.wordnetTerms(PartsOfSpeech.NOUN));
+        Collections.sort(nouns);
+        Random random = new Random(1);
+        Set<String> known = new HashSet<String>();
+        List<TermToAdd> terms = new ArrayList<TermToAdd>();
+        for (int i = 0; i < numTerms; ++i) {
+            String[] parents = new String[5];
+            double[] scores = new double[parents.length];
+            for (int p = 0; p < parents.length; ++p) {
+                parents[p] = (p % 2 == 0 && !nouns.isEmpty())
+                    ? nouns.get(random.nextInt(nouns.size()))
+                    : "term" + random.nextInt(numTerms);
+                scores[p] = random.nextDouble();
+            }
+            String term = "term" + i;
+            known.add(term);
+            terms.add(new TermToAdd(term, parents, scores,
+                                    new HashMap<String, Double>()));
+        }
+
+        for (int round = 0; round < 3; ++round) {
+            long start = System.nanoTime();
+            int inWordNet = 0;
+            for (TermToAdd term : terms) {
+                term.numParentsInWordNet = 0;
+                term.numParentsToAdd = 0;
+                term.checkParentsInWordNet(reader);
+                term.checkParentsInList(known);
+                inWordNet += term.numParentsInWordNet;
+            }
+            Collections.sort(terms);
+            long setup = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int numSynsets = 0;
+            for (PartsOfSpeech pos : PartsOfSpeech.values())
+                numSynsets += reader.allSynsets(pos).size();
+            long allSynsets = System.nanoTime() - start;
+
+            System.out.printf("round %d: setup %d terms (%d parents in " +
+                              "wordnet) %.1f ms, allSynsets(pos) over %d " +
+                              "synsets %.3f ms\n",
+                              round, terms.size(), inWordNet, setup / 1e6,
+                              numSynsets, allSynsets / 1e6);
+        }
+    }
+}
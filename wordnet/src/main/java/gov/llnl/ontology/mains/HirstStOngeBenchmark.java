@@ -0,0 +1,85 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.sim.HirstStOngeSimilarity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Times the {@link HirstStOngeSimilarity} over random pairs of noun {@link
+ * Synset}s and over pairs joined by a short random walk, using the WordNet
+ * dictionary in {@code args[0]}.  {@code args[1]} optionally gives the number
+ * of pairs of each kind, which defaults to 10000.
+ *
+ * @author Keith Stevens
+ */
+public class HirstStOngeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numPairs = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        long start = System.nanoTime();
+        WordNetCorpusReader reader = WordNetCorpusReader.initialize(args[0]);
+        System.out.printf("load %.1f ms\n", (System.nanoTime() - start) / 1e6);
+
+        List<Synset> synsets = new ArrayList<Synset>(
+                reader.allSynsets(PartsOfSpeech.NOUN));
+        Collections.sort(synsets, new Comparator<Synset>() {
+            public int compare(Synset s1, Synset s2) {
+                return s1.getName().compareTo(s2.getName());
+            }
+        });
+        Random random = new Random(1);
+        Synset[] first = new Synset[2 * numPairs];
+        Synset[] second = new Synset[2 * numPairs];
+        for (int i = 0; i < numPairs; ++i) {
+            first[i] = synsets.get(random.nextInt(synsets.size()));
+            second[i] = synsets.get(random.nextInt(synsets.size()));
+        }
+
+        // Pair each synset with the end of a random walk of up to three
+        // links so that most of these pairs have a valid path.
+        for (int i = numPairs; i < 2 * numPairs; ++i) {
+            first[i] = synsets.get(random.nextInt(synsets.size()));
+            second[i] = first[i];
+            for (int step = 0; step < 3; ++step) {
+                List<Synset> related = new ArrayList<Synset>(
+                        second[i].allRelations());
+                if (related.isEmpty())
+                    break;
+                Collections.sort(related, new Comparator<Synset>() {
+                    public int compare(Synset s1, Synset s2) {
+                        return s1.getName().compareTo(s2.getName());
+                    }
+                });
+                second[i] = related.get(random.nextInt(related.size()));
+            }
+        }
+
+        HirstStOngeSimilarity hso = new HirstStOngeSimilarity();
+        for (int round = 0; round < 3; ++round) {
+            start = System.nanoTime();
+            double randomTotal = 0;
+            for (int i = 0; i < numPairs; ++i)
+                randomTotal += hso.similarity(first[i], second[i]);
+            long randomTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double walkTotal = 0;
+            for (int i = numPairs; i < 2 * numPairs; ++i)
+                walkTotal += hso.similarity(first[i], second[i]);
+            long walkTime = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d pairs, random %.1f ms (total " +
+                              "%.4f), walk %.1f ms (total %.4f)\n",
+                              round, numPairs, randomTime / 1e6, randomTotal,
+                              walkTime / 1e6, walkTotal);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.HypernymIndex;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetRelations;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.sim.WuPalmerSimilarity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Times lowest common hypernym, hypernym status, path distance, and Wu-Palmer
+ * similarity queries over random pairs of noun {@link Synset}s, using the WordNet
+ * dictionary in {@code args[0]}.  The lowest common hypernyms are also found
+ * and hypernym status checked directly with the allocation free {@link
+ * HypernymIndex} methods.  {@code args[1]} optionally gives the number
+ * of pairs, which defaults to 100000.
+ *
+ * @author Keith Stevens
+ */
+public class HypernymQueryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numPairs = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+        long start = System.nanoTime();
+        WordNetCorpusReader reader = WordNetCorpusReader.initialize(args[0]);
+        System.out.printf("load %.1f ms\n", (System.nanoTime() - start) / 1e6);
+
+        List<Synset> synsets = new ArrayList<Synset>(
+                reader.allSynsets(PartsOfSpeech.NOUN));
+        Collections.sort(synsets, new Comparator<Synset>() {
+            public int compare(Synset s1, Synset s2) {
+                return s1.getName().compareTo(s2.getName());
+            }
+        });
+        Random random = new Random(1);
+        Synset[] first = new Synset[numPairs];
+        Synset[] second = new Synset[numPairs];
+        for (int i = 0; i < numPairs; ++i) {
+            first[i] = synsets.get(random.nextInt(synsets.size()));
+            second[i] = synsets.get(random.nextInt(synsets.size()));
+        }
+
+        HypernymIndex index = reader.getHypernymIndex();
+        int[] firstIds = new int[numPairs];
+        int[] secondIds = new int[numPairs];
+        for (int i = 0; i < numPairs; ++i) {
+            firstIds[i] = index.indexOf(first[i]);
+            secondIds[i] = index.indexOf(second[i]);
+        }
+        int[] subsumers = new int[16];
+
+        WuPalmerSimilarity wup = new WuPalmerSimilarity();
+        for (int round = 0; round < 3; ++round) {
+            start = System.nanoTime();
+            int numSubsumers = 0;
+            for (int i = 0; i < numPairs; ++i)
+                numSubsumers += SynsetRelations.lowestCommonHypernyms(
+                        first[i], second[i]).size();
+            long lcs = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int numSubsumerIds = 0;
+            for (int i = 0; i < numPairs; ++i)
+                numSubsumerIds += index.lowestCommonHypernyms(
+                        firstIds[i], secondIds[i], subsumers);
+            long lcsIds = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int known = 0;
+            for (int i = 0; i < numPairs; ++i)
+                if (SynsetRelations.getHypernymStatus(
+                            new Synset[] {first[i]},
+                            new Synset[] {second[i]}) ==
+                        SynsetRelations.HypernymStatus.KNOWN_HYPERNYM)
+                    known++;
+            long status = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int knownIds = 0;
+            int[] childIds = new int[1];
+            int[] ancestorIds = new int[1];
+            for (int i = 0; i < numPairs; ++i) {
+                childIds[0] = firstIds[i];
+                ancestorIds[0] = secondIds[i];
+                if (index.isHypernym(childIds, ancestorIds))
+                    knownIds++;
+            }
+            long statusIds = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long pathTotal = 0;
+            for (int i = 0; i < numPairs; ++i)
+                pathTotal += SynsetRelations.shortestPathDistance(
+                        first[i], second[i]) +
+                    SynsetRelations.longestPathDistance(first[i], second[i]);
+            long paths = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double total = 0;
+            for (int i = 0; i < numPairs; ++i)
+                total += wup.similarity(first[i], second[i]);
+            long similarity = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d pairs, lcs %.1f ms (%d " +
+                              "subsumers), lcs ids %.1f ms (%d subsumers), " +
+                              "hypernym status %.1f ms (%d " +
+                              "known), is hypernym ids %.1f ms (%d known), " +
+                              "paths %.1f ms (total %d), wup %.1f ms (total %.3f), max " +
+                              "depth %d\n",
+                              round, numPairs, lcs / 1e6, numSubsumers,
+                              lcsIds / 1e6, numSubsumerIds,
+                              status / 1e6, known, statusIds / 1e6, knownIds,
+                              paths / 1e6, pathTotal,
+                              similarity / 1e6, total,
+                              reader.getMaxDepth(PartsOfSpeech.NOUN));
+        }
+    }
+}
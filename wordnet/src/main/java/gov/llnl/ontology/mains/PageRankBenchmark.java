@@ -0,0 +1,102 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.PageRankSolver;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.TransitionMatrix;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Times the {@link PageRankSolver} over the full graph of the WordNet
+ * dictionary in {@code args[0]} with 1, 2, 4, and so on threads, up to the
+ * optional maximum in {@code args[1]}, which defaults to the number of
+ * available processors.  {@code args[2]} optionally gives the number of timed
+ * rounds for each thread count, which defaults to 3.  Each round personalizes
+ * the page rank on a few random {@link Synset}s, as done by the personalized
+ * page rank disambiguation, and checks that the scores match the single
+ * threaded scores exactly.
+ *
+ * @author Keith Stevens
+ */
+public class PageRankBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = (args.length > 1)
+            ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        int numRounds = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+        long start = System.nanoTime();
+        WordNetCorpusReader reader = WordNetCorpusReader.initialize(args[0]);
+        System.out.printf("load %.1f ms\n", (System.nanoTime() - start) / 1e6);
+
+        // Build the same graph used by the personalized page rank
+        // disambiguation, in a fixed order.
+        List<Synset> synsets = new ArrayList<Synset>();
+        Map<Synset, Integer> synsetMap = new HashMap<Synset, Integer>();
+        for (String lemma : reader.wordnetTerms())
+            for (Synset synset : reader.getSynsets(lemma))
+                if (!synsetMap.containsKey(synset)) {
+                    synsetMap.put(synset, synsetMap.size());
+                    synsets.add(synset);
+                }
+        Collections.sort(synsets, new Comparator<Synset>() {
+            public int compare(Synset s1, Synset s2) {
+                return s1.getName().compareTo(s2.getName());
+            }
+        });
+        for (int i = 0; i < synsets.size(); ++i)
+            synsetMap.put(synsets.get(i), i);
+
+        start = System.nanoTime();
+        TransitionMatrix matrix = TransitionMatrix.build(synsets, synsetMap);
+        System.out.printf("matrix %d rows, %.1f ms\n",
+                          matrix.size(), (System.nanoTime() - start) / 1e6);
+
+        Random random = new Random(1);
+        double[][] teleports = new double[numRounds][matrix.size()];
+        for (double[] teleport : teleports)
+            for (int i = 0; i < 5; ++i)
+                teleport[random.nextInt(teleport.length)] += .2;
+
+        double[][] expected = new double[numRounds][];
+        double baseTime = 0;
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+            PageRankSolver solver = new PageRankSolver(1e-6, 100, numThreads);
+            // Warm up the solver before timing.
+            solver.solve(matrix, teleports[0], .85);
+
+            boolean same = true;
+            int iterations = 0;
+            start = System.nanoTime();
+            for (int round = 0; round < numRounds; ++round) {
+                PageRankSolver.Result result = solver.solve(
+                        matrix, teleports[round], .85);
+                iterations += result.getIterations();
+                if (expected[round] == null)
+                    expected[round] = result.getRanks();
+                else
+                    same &= Arrays.equals(
+                            expected[round], result.getRanks());
+            }
+            double time = (System.nanoTime() - start) / 1e6 / numRounds;
+            if (numThreads == 1)
+                baseTime = time;
+            System.out.printf("threads %d: %.1f ms per solve, %d iterations, " +
+                              "speedup %.2f, identical %b\n",
+                              numThreads, time, iterations / numRounds,
+                              baseTime / time, same);
+        }
+
+        // The shared work queue threads would otherwise keep the jvm alive.
+        System.exit(0);
+    }
+}
@@ -0,0 +1,120 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.text.Annotation;
+import gov.llnl.ontology.text.Sentence;
+import gov.llnl.ontology.text.corpora.SenseEvalAllWordsDocumentReader;
+import gov.llnl.ontology.text.corpora.SenseEvalTaggedAllWordsDocumentReader;
+import gov.llnl.ontology.wordnet.PageRankSolver;
+import gov.llnl.ontology.wordnet.PersonalizedPageRank;
+import gov.llnl.ontology.wordnet.PushPageRankSolver;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+import gov.llnl.ontology.wordnet.wsd.PersonalizedPageRankWSD;
+import gov.llnl.ontology.wordnet.wsd.WordSenseDisambiguation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compares the exact {@link PageRankSolver} against the approximate {@link
+ * PushPageRankSolver} when disambiguating a SenseEval corpus with {@link
+ * PersonalizedPageRankWSD}, using the WordNet dictionary in {@code args[0]}.
+ * {@code args[1]} names the corpus file and {@code args[2]} the format of the
+ * corpus, either {@code allwords} for {@link SenseEvalAllWordsDocumentReader}
+ * or {@code tagged} for {@link SenseEvalTaggedAllWordsDocumentReader}.  Any
+ * remaining arguments give the push epsilons to try, which default to 1e-4,
+ * 1e-5, 1e-6, and 1e-7.  For each solver the time spent and the fraction of
+ * disambiguated words given the same sense as the exact solver are reported.
+ * The readers do not carry answer keys, so the exact solver serves as the
+ * reference.
+ *
+ * @author Keith Stevens
+ */
+public class PersonalizedPageRankBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        WordNetCorpusReader wordnet = WordNetCorpusReader.initialize(args[0]);
+        System.out.printf("load %.1f ms\n", (System.nanoTime() - start) / 1e6);
+
+        List<Sentence> sentences;
+        if (args[2].equals("allwords")) {
+            SenseEvalAllWordsDocumentReader reader =
+                new SenseEvalAllWordsDocumentReader();
+            reader.parse(args[1]);
+            sentences = reader.sentences();
+        } else if (args[2].equals("tagged")) {
+            SenseEvalTaggedAllWordsDocumentReader reader =
+                new SenseEvalTaggedAllWordsDocumentReader();
+            reader.parse(args[1]);
+            sentences = reader.sentences();
+        } else
+            throw new IllegalArgumentException(
+                    "Unknown corpus format: " + args[2]);
+
+        // The readers do not record token spans, which the sliding window
+        // requires, so give each token it's position as a span.
+        for (Sentence sentence : sentences) {
+            int i = 0;
+            for (Annotation annot : sentence) {
+                annot.setSpan(i, i + 1);
+                ++i;
+            }
+        }
+
+        List<Double> epsilons = new ArrayList<Double>();
+        for (int i = 3; i < args.length; ++i)
+            epsilons.add(Double.parseDouble(args[i]));
+        if (epsilons.isEmpty())
+            for (double epsilon = 1e-4; epsilon > 5e-8; epsilon /= 10)
+                epsilons.add(epsilon);
+
+        List<String> expected = disambiguate(
+                wordnet, sentences, new PageRankSolver(), "power");
+        for (double epsilon : epsilons) {
+            List<String> senses = disambiguate(
+                    wordnet, sentences, new PushPageRankSolver(epsilon),
+                    String.format("push %.0e", epsilon));
+            int same = 0;
+            int total = 0;
+            for (int i = 0; i < senses.size(); ++i) {
+                if (expected.get(i).length() == 0)
+                    continue;
+                total++;
+                if (senses.get(i).equals(expected.get(i)))
+                    same++;
+            }
+            System.out.printf("  agreement with power %.4f over %d senses\n",
+                              same / (double) total, total);
+        }
+    }
+
+    /**
+     * Disambiguates every word in {@code sentences} with {@code solver} and
+     * returns the sense chosen for each word, or an empty string for words
+     * that were not disambiguated.
+     */
+    private static List<String> disambiguate(WordNetCorpusReader wordnet,
+                                             List<Sentence> sentences,
+                                             PersonalizedPageRank solver,
+                                             String name) {
+        WordSenseDisambiguation wsd = new PersonalizedPageRankWSD(solver);
+        long start = System.nanoTime();
+        wsd.setup(wordnet);
+        double setupTime = (System.nanoTime() - start) / 1e6;
+
+        List<String> senses = new ArrayList<String>();
+        start = System.nanoTime();
+        for (Sentence sentence : sentences)
+            for (Annotation annot : wsd.disambiguate(sentence)) {
+                String sense = annot.sense();
+                senses.add((sense == null) ? "" : sense);
+            }
+        double time = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%s: setup %.1f ms, %d words in %.1f ms, " +
+                          "%.3f ms per word\n",
+                          name, setupTime, senses.size(), time,
+                          time / senses.size());
+        return senses;
+    }
+}
@@ -0,0 +1,36 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.OntologyReader;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+import gov.llnl.ontology.wordnet.WordNetCorpusWriter;
+
+
+/**
+ * Loads the WordNet dictionary stored in {@code args[0]} and saves a binary
+ * snapshot of it to {@code args[1]}.  If no output file is given, the snapshot
+ * is saved in the dictionary directory so that future loads will use it.
+ *
+ * @author Keith Stevens
+ */
+public class SaveWordNetSnapshot {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println(
+                    "usage: java SaveWordNetSnapshot <dictDir> [snapshotFile]");
+            System.exit(1);
+        }
+
+        String outFile = (args.length > 1)
+            ? args[1]
+            : args[0] + "/" + WordNetCorpusReader.SNAPSHOT_FILE;
+
+        long start = System.currentTimeMillis();
+        OntologyReader reader = WordNetCorpusReader.initialize(args[0]);
+        System.err.printf("Loaded the dictionary in %d ms\n",
+                          System.currentTimeMillis() - start);
+
+        new WordNetCorpusWriter().saveSnapshot(reader, outFile);
+        System.err.printf("Saved a snapshot to %s\n", outFile);
+    }
+}
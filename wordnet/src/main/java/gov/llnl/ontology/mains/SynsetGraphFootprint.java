@@ -0,0 +1,50 @@
+package gov.llnl.ontology.mains;
+
+import gov.llnl.ontology.wordnet.OntologyReader;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetGraph;
+import gov.llnl.ontology.wordnet.WordNetCorpusReader;
+
+import java.util.Set;
+
+
+/**
+ * Reports the heap used by the WordNet dictionary in {@code args[0]} when the
+ * relations are stored in a compact {@link SynsetGraph} and when every {@link
+ * Synset} stores it's relations in it's own map.
+ *
+ * @author Keith Stevens
+ */
+public class SynsetGraphFootprint {
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; ++i) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ie) {
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws Exception {
+        long base = usedMemory();
+        OntologyReader reader = WordNetCorpusReader.initialize(args[0]);
+        Set<Synset> synsets = reader.allSynsets();
+        long compact = usedMemory() - base;
+
+        // Removing a relation that does not exist forces each synset to copy
+        // it's relations out of the graph and into a local map.
+        for (Synset synset : synsets)
+            synset.removeRelation("", synset);
+        long expanded = usedMemory() - base;
+
+        System.out.printf("synsets: %d\n", synsets.size());
+        System.out.printf("per synset maps: %d KB\n", expanded / 1024);
+        System.out.printf("synset graph:    %d KB\n", compact / 1024);
+        System.out.printf("saved:           %d KB\n",
+                          (expanded - compact) / 1024);
+    }
+}
@@ -138,6 +138,13 @@ public class BaseLemma implements Lemma {
         return key;
     }
 
+    /**
+     * Returns the syntactic marker for this {@link Lemma}.
+     */
+    public String getSyntacticMarker() {
+        return syntacticMarker;
+    }
+
     /**
      * Sets the key for this {@link Lemma}.
      */
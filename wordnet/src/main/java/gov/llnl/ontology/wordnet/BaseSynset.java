@@ -24,11 +24,10 @@
 package gov.llnl.ontology.wordnet;
 
 import edu.ucla.sspace.util.Duple;
-import edu.ucla.sspace.util.HashMultiMap;
-import edu.ucla.sspace.util.MultiMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,22 +46,37 @@ import java.util.HashSet;
 public class BaseSynset implements Synset {
 
     /**
-     * The {@link Relation}s associated with this {@link Synset}.
+     * An empty relation mapping shared by all {@link Synset}s without
+     * relations.
      */
-    private MultiMap<String, Synset> relations;
+    private static final Map<String, Set<Synset>> NO_RELATIONS =
+        Collections.emptyMap();
+
+    /**
+     * The {@link Relation}s associated with this {@link Synset}.  The map and
+     * it's sets are never modified once assigned; every change builds a new
+     * map that is published through this volatile field, so readers never see
+     * a partially applied change.  While the relations are stored in a {@link
+     * SynsetGraph}, this is a {@link SynsetGraph.Row} view of the graph.
+     */
+    private volatile Map<String, Set<Synset>> relations;
 
     /**
      * The {@link Attribute}s associated with this {@link Synset}.
      */
     private Map<String, Attribute> attributes;
 
-    private Map<String, String> morphyMap;
+    /**
+     * The cache used to find the base lemma for a surface form when selecting
+     * a sense key.  This may be {@code null}.
+     */
+    private MorphyCache morphyCache;
 
     /**
      * The total number of {@link Relation}s that this {@link Synset} has with
      * others.
      */
-    private int numRelations;
+    private volatile int numRelations;
 
     /**
      * The sense key which uniquely identifies the {@link Synset}.
@@ -137,6 +151,24 @@ public class BaseSynset implements Synset {
      */
     private int minDepth;
 
+    /**
+     * The position of this {@link Synset} in a {@link HypernymIndex}, or
+     * {@code null} if it is not indexed.
+     */
+    private volatile HypernymIndex.Slot hypernymSlot;
+
+    /**
+     * The signature of this {@link Synset}'s gloss, or {@code null} if it has
+     * not been computed since the gloss last changed.
+     */
+    private volatile GlossSignature glossSignature;
+
+    /**
+     * The extended gloss of this {@link Synset}, or {@code null} if it has not
+     * been computed since the relations last changed.
+     */
+    private volatile GlossSignature.Extended extendedGloss;
+
     /**
      * Creates a {@link BaseSynset} with a byte offset value.
      */
@@ -148,10 +180,9 @@ public class BaseSynset implements Synset {
         pos = WordNetCorpusReader.POS_MAP.get(namePosId[1]);
         senseNumber = Integer.parseInt(namePosId[2]);
 
-        relations = new HashMultiMap<String, Synset>();
+        relations = NO_RELATIONS;
         attributes = new HashMap<String, Attribute>();
         relatedForms = new HashMap<Synset, RelatedForm>();
-        morphyMap = new HashMap<String, String>();
         examples = new ArrayList<String>();
         frameIds = new int[0];
         lemmaIds = new int[0];
@@ -172,10 +203,9 @@ public class BaseSynset implements Synset {
         this.offset = offset;
         this.pos = pos;
 
-        relations = new HashMultiMap<String, Synset>();
+        relations = NO_RELATIONS;
         attributes = new HashMap<String, Attribute>();
         relatedForms = new HashMap<Synset, RelatedForm>();
-        morphyMap = new HashMap<String, String>();
         examples = new ArrayList<String>();
         lemmas = new ArrayList<Lemma>();
         senseKeys = new ArrayList<String>();
@@ -199,10 +229,11 @@ public class BaseSynset implements Synset {
     }
 
     /**
-     * {@inheritDoc}
+     * Sets the {@link MorphyCache} used to resolve surface forms in {@link
+     * #getSenseKey(String)}.
      */
-    public void addMorphyMapping(String original, String lemma) {
-        morphyMap.put(original, lemma);
+    void setMorphyCache(MorphyCache morphyCache) {
+        this.morphyCache = morphyCache;
     }
 
     /**
@@ -241,7 +272,9 @@ public class BaseSynset implements Synset {
         if (senseKeys.size() == 1)
             return senseKeys.get(0);
 
-        String lemma = morphyMap.get(base);
+        String lemma = (morphyCache == null)
+            ? null
+            : morphyCache.getLemma(base, this);
         lemma = (lemma == null) ? base : lemma;
         for (String senseKey : senseKeys)
             if (senseKey.startsWith(lemma))
@@ -302,14 +335,20 @@ public class BaseSynset implements Synset {
      * {@inheritDoc}
      */
     public Set<String> getKnownRelationTypes() {
-        return relations.keySet();
+        return Collections.unmodifiableSet(relations.keySet());
     }
 
     /**
      * {@inheritDoc}
      */
     public Collection<Synset> allRelations() {
-        return relations.values();
+        Map<String, Set<Synset>> r = relations;
+        if (r instanceof SynsetGraph.Row)
+            return ((SynsetGraph.Row) r).allRelations();
+        List<Synset> all = new ArrayList<Synset>();
+        for (Set<Synset> related : r.values())
+            all.addAll(related);
+        return all;
     }
 
     /**
@@ -320,6 +359,145 @@ public class BaseSynset implements Synset {
         return (r == null) ? new HashSet<Synset>() : r;
     }
 
+    /**
+     * Stores the relations of this {@link Synset} in {@code row}, which must
+     * hold the same relations as this {@link Synset}.  This should only be
+     * called by {@link SynsetGraph}.
+     */
+    synchronized void attach(SynsetGraph.Row row) {
+        SynsetGraph current = getGraph();
+        if (current != null && current != row.getGraph())
+            current.invalidate();
+        relations = row;
+    }
+
+    /**
+     * Returns the {@link SynsetGraph} holding the relations of this {@link
+     * Synset}, or {@code null} if the relations are stored locally.
+     */
+    SynsetGraph getGraph() {
+        Map<String, Set<Synset>> r = relations;
+        return (r instanceof SynsetGraph.Row)
+            ? ((SynsetGraph.Row) r).getGraph()
+            : null;
+    }
+
+    /**
+     * Returns the dense id of this {@link Synset} in {@code graph}, or -1 if
+     * it's relations are not stored in {@code graph}.
+     */
+    int getGraphId(SynsetGraph graph) {
+        Map<String, Set<Synset>> r = relations;
+        return (r instanceof SynsetGraph.Row &&
+                ((SynsetGraph.Row) r).getGraph() == graph)
+            ? ((SynsetGraph.Row) r).getId()
+            : -1;
+    }
+
+    /**
+     * Records the position of this {@link Synset} in a {@link HypernymIndex}.
+     * This should only be called by {@link HypernymIndex}.
+     */
+    void attach(HypernymIndex.Slot slot) {
+        HypernymIndex.Slot current = hypernymSlot;
+        if (current != null && current.index != slot.index)
+            current.index.invalidate();
+        hypernymSlot = slot;
+    }
+
+    /**
+     * Returns the position of this {@link Synset} in a {@link HypernymIndex},
+     * or {@code null} if it is not indexed.
+     */
+    HypernymIndex.Slot getHypernymSlot() {
+        return hypernymSlot;
+    }
+
+    /**
+     * Returns the {@link GlossSignature} of this {@link Synset}'s gloss,
+     * computing it if the gloss has changed.
+     */
+    GlossSignature getGlossSignature() {
+        GlossSignature signature = glossSignature;
+        if (signature == null) {
+            signature = GlossSignature.create(getGloss());
+            glossSignature = signature;
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the extended gloss of this {@link Synset}, computing it if the
+     * relations of this {@link Synset} or the gloss of any member have
+     * changed.
+     */
+    GlossSignature.Extended getExtendedGloss() {
+        GlossSignature.Extended extended = extendedGloss;
+        if (extended == null || !extended.isCurrent()) {
+            extended = GlossSignature.createExtended(this);
+            extendedGloss = extended;
+        }
+        return extended;
+    }
+
+    /**
+     * Marks the {@link HypernymIndex} holding this {@link Synset} as out of
+     * date and drops the cached depths, if {@code relation} is the hypernym
+     * relation.
+     */
+    private void hypernymsChanged(String relation) {
+        if (!Relation.HYPERNYM.toString().equals(relation))
+            return;
+        HypernymIndex.Slot slot = hypernymSlot;
+        if (slot != null)
+            slot.index.invalidate();
+        minDepth = -1;
+        maxDepth = -1;
+    }
+
+    /**
+     * Counts a change to the relations or gloss of this {@link Synset} in the
+     * {@link HypernymIndex} holding it, if any.  This is called after the
+     * change is visible.
+     */
+    private void contentChanged() {
+        HypernymIndex.Slot slot = hypernymSlot;
+        if (slot != null)
+            slot.index.modified();
+    }
+
+    /**
+     * Returns a modifiable copy of the current relations, with a new set for
+     * each relation.  If the relations are stored in a {@link SynsetGraph},
+     * the graph is marked as out of date since it will no longer reflect the
+     * relations of this {@link Synset}.  This must be called while holding
+     * the lock on this {@link Synset}.
+     */
+    private Map<String, Set<Synset>> copyRelations() {
+        Map<String, Set<Synset>> current = relations;
+        if (current instanceof SynsetGraph.Row)
+            ((SynsetGraph.Row) current).getGraph().invalidate();
+        Map<String, Set<Synset>> copy = new HashMap<String, Set<Synset>>();
+        for (Map.Entry<String, Set<Synset>> e : current.entrySet())
+            copy.put(e.getKey(), new HashSet<Synset>(e.getValue()));
+        return copy;
+    }
+
+    /**
+     * Publishes {@code copy} as the new relations for this {@link Synset}.
+     * Empty relation sets are dropped and every set is made read only.  This
+     * must be called while holding the lock on this {@link Synset}.
+     */
+    private void publishRelations(Map<String, Set<Synset>> copy) {
+        Map<String, Set<Synset>> published =
+            new HashMap<String, Set<Synset>>();
+        for (Map.Entry<String, Set<Synset>> e : copy.entrySet())
+            if (!e.getValue().isEmpty())
+                published.put(e.getKey(),
+                              Collections.unmodifiableSet(e.getValue()));
+        relations = (published.isEmpty()) ? NO_RELATIONS : published;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -410,6 +588,8 @@ public class BaseSynset implements Synset {
      */
     public void setDefinition(String definition) {
         this.definition = definition;
+        glossSignature = null;
+        contentChanged();
     }
 
     /**
@@ -423,6 +603,8 @@ public class BaseSynset implements Synset {
      */
     public void addExample(String example) {
         examples.add(example);
+        glossSignature = null;
+        contentChanged();
     }
 
     /**
@@ -445,14 +627,38 @@ public class BaseSynset implements Synset {
     /**
      * {@inheritDoc}
      */
-    public boolean addRelation(String relation, Synset synset) {
+    public synchronized boolean addRelation(String relation, Synset synset) {
         if (relation == null || synset == null)
             return false;
 
-        boolean added = relations.put(relation.intern(), synset);
-        if (added)
-            numRelations++;
-        return added;
+        // Avoid copying the relations when the link already exists.
+        Set<Synset> current = relations.get(relation);
+        if (current != null && current.contains(synset))
+            return false;
+
+        Set<Synset> related = (current == null)
+            ? new HashSet<Synset>()
+            : new HashSet<Synset>(current);
+        related.add(synset);
+        hypernymsChanged(relation);
+        extendedGloss = null;
+
+        if (relations instanceof SynsetGraph.Row) {
+            Map<String, Set<Synset>> copy = copyRelations();
+            copy.put(relation.intern(), related);
+            publishRelations(copy);
+        } else {
+            // Copy only the set for this relation, the other sets are never
+            // modified so they can be shared with the new mapping.
+            Map<String, Set<Synset>> updated =
+                new HashMap<String, Set<Synset>>(relations);
+            updated.put(relation.intern(),
+                        Collections.unmodifiableSet(related));
+            relations = updated;
+        }
+        numRelations++;
+        contentChanged();
+        return true;
     }
 
     /**
@@ -465,11 +671,20 @@ public class BaseSynset implements Synset {
     /**
      * {@inheritDoc}
      */
-    public boolean removeRelation(String relation, Synset synset) {
-        boolean removed = relations.remove(relation, synset);
-        if (removed)
-            numRelations--;
-        return removed;
+    public synchronized boolean removeRelation(String relation,
+                                               Synset synset) {
+        Set<Synset> current = relations.get(relation);
+        if (current == null || !current.contains(synset))
+            return false;
+
+        hypernymsChanged(relation);
+        extendedGloss = null;
+        Map<String, Set<Synset>> copy = copyRelations();
+        copy.get(relation).remove(synset);
+        publishRelations(copy);
+        numRelations--;
+        contentChanged();
+        return true;
     }
 
     /**
@@ -478,7 +693,7 @@ public class BaseSynset implements Synset {
     public String getGloss() {
         StringBuilder sb = new StringBuilder();
         sb.append(getDefinition());
-        for (String example : examples)
+        for (String example : getExamples())
             sb.append(" ; ").append(" \"").append(example).append("\" ");
         return sb.toString();
     }
@@ -487,6 +702,9 @@ public class BaseSynset implements Synset {
      * {@inheritDoc}
      */
     public int getMaxDepth() {
+        HypernymIndex.Slot slot = hypernymSlot;
+        if (slot != null && slot.index.isCurrent())
+            return slot.index.getMaxDepth(slot.id);
         if (maxDepth > -1)
             return maxDepth;
 
@@ -504,6 +722,9 @@ public class BaseSynset implements Synset {
      * {@inheritDoc}
      */
     public int getMinDepth() {
+        HypernymIndex.Slot slot = hypernymSlot;
+        if (slot != null && slot.index.isCurrent())
+            return slot.index.getMinDepth(slot.id);
         if (minDepth > -1)
             return minDepth;
 
@@ -516,10 +737,10 @@ public class BaseSynset implements Synset {
 
         // Store the best depth found so far, or 0 if this synset has no
         // parents.
-        maxDepth = (bestParentDepth == Integer.MAX_VALUE) 
+        minDepth = (bestParentDepth == Integer.MAX_VALUE) 
             ? 0
             : 1 + bestParentDepth;
-        return maxDepth;
+        return minDepth;
     }
 
     /**
@@ -552,56 +773,61 @@ public class BaseSynset implements Synset {
             throw new IllegalArgumentException(
                     "Cannot merge synsets with different parts of speech.");
 
-        Set<Duple<String, Synset>> toRemove =
-            new HashSet<Duple<String, Synset>>();
-        for (String relation : getKnownRelationTypes()) {
-            Set<Synset> links = relations.get(relation);
-            if (links.contains(synset))
-                toRemove.add(new Duple<String, Synset>(relation, synset));
-        }
-        for (Duple<String, Synset> r : toRemove)
-            relations.remove(r.x, r.y);
-
-        // For any relation held by the other synset, add those relations to the
-        // current synset. Also, For any synsets pointing to the other synset,
-        // change their relation to point to this synset.
-        for (String relation : synset.getKnownRelationTypes()) {
-            // Iterate through all of the synsets related to the other synset.
-            // Since most relations are reflexive, we can simply inspect the
-            // relations for these related synsets and replace the mapping
-            // from the related synset to the other synset with this current
-            // synset.
-            for (Synset related : synset.getRelations(relation)) {
-                // If the related synset is actuall this synset, don'tmake
-                // the link as it would create a cycle.
-                if (related == this)
-                    continue;
-
-                // Add the relation to this synset.
-                relations.put(relation, related);
-                numRelations++;
-
-                // If there is no reflexive version, skip inspection.
-                Relation rel = Relation.fromId(relation);
-                if (rel == null || rel.reflexive() == null)
-                    continue;
-
-                // Find the synsets that the related synset points to for this
-                // relation.  Replace the mapping from that sysnet to the other
-                // synset with this current synset.
-                Set<Synset> inwardRelations = related.getRelations(
-                        rel.reflexive());
-                if (inwardRelations.contains(synset)) {
-                    inwardRelations.remove(synset);
-                    inwardRelations.add(this);
+        List<Duple<Relation, Synset>> inward =
+            new ArrayList<Duple<Relation, Synset>>();
+        synchronized (this) {
+            hypernymsChanged(Relation.HYPERNYM.toString());
+            extendedGloss = null;
+
+            // Remove any links to the other synset.
+            Map<String, Set<Synset>> copy = copyRelations();
+            for (Set<Synset> links : copy.values())
+                if (links.remove(synset))
+                    numRelations--;
+
+            // For any relation held by the other synset, add those relations
+            // to the current synset.
+            for (String relation : synset.getKnownRelationTypes()) {
+                for (Synset related : synset.getRelations(relation)) {
+                    // If the related synset is actuall this synset, don'tmake
+                    // the link as it would create a cycle.
+                    if (related == this)
+                        continue;
+
+                    // Add the relation to this synset.
+                    Set<Synset> links = copy.get(relation);
+                    if (links == null) {
+                        links = new HashSet<Synset>();
+                        copy.put(relation.intern(), links);
+                    }
+                    if (links.add(related))
+                        numRelations++;
+
+                    // Remember any reflexive links that need to be updated.
+                    Relation rel = Relation.fromId(relation);
+                    if (rel != null && rel.reflexive() != null)
+                        inward.add(new Duple<Relation, Synset>(
+                                    rel.reflexive(), related));
                 }
             }
+            publishRelations(copy);
         }
+        contentChanged();
+
+        // For any synsets pointing to the other synset, change their relation
+        // to point to this synset.  Since most relations are reflexive, we can
+        // simply inspect the relations for these related synsets and replace
+        // the mapping from the related synset to the other synset with this
+        // current synset.  This is done without holding the lock on this
+        // synset so that two synsets never lock each other.
+        for (Duple<Relation, Synset> link : inward)
+            if (link.y.removeRelation(link.x, synset))
+                link.y.addRelation(link.x, this);
 
         // Copy over the examples and the gloss to this synset.
         for (String example : synset.getExamples())
-            examples.add(example);
-        this.definition += "; " + synset.getDefinition();
+            addExample(example);
+        setDefinition(getDefinition() + "; " + synset.getDefinition());
 
         // Copy over the lemmas for the other synset.  Assume this synset
         // maintains it's base lemma.
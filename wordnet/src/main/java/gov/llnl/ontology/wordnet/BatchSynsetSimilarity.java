@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import edu.ucla.sspace.util.Duple;
+
+import java.util.List;
+
+
+/**
+ * A {@link SynsetSimilarity} that can compare many {@link Synset}s at once.
+ * Implementations compute any per {@link Synset} data, such as gloss tokens or
+ * information content, once for each row and column instead of once for every
+ * pair, and may compute large batches in parallel.
+ *
+ * @author Keith Stevens
+ */
+public interface BatchSynsetSimilarity extends SynsetSimilarity {
+
+    /**
+     * Returns a matrix whose entry {@code [i][j]} is the similarity between
+     * {@code rows[i]} and {@code cols[j]}.
+     */
+    double[][] similarity(Synset[] rows, Synset[] cols);
+
+    /**
+     * Returns the similarity between every pair of distinct positions in
+     * {@code synsets}, scoring each pair only once.  Row {@code i} of the
+     * returned array has {@code synsets.length - i - 1} entries, and the
+     * similarity between {@code synsets[i]} and {@code synsets[j]}, for {@code
+     * i < j}, is stored in {@code [i][j - i - 1]}.
+     */
+    double[][] pairwiseSimilarity(Synset[] synsets);
+
+    /**
+     * Returns the {@code k} {@link Synset}s in {@code candidates} that are most
+     * similar to {@code synset}, paired with their similarity, in order of
+     * decreasing similarity.  Ties are broken by the position in {@code
+     * candidates}.  Fewer than {@code k} pairs are returned if there are fewer
+     * candidates.
+     */
+    List<Duple<Synset, Double>> topK(Synset synset,
+                                     Synset[] candidates,
+                                     int k);
+}
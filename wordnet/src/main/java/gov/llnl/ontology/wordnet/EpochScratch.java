@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+
+/**
+ * Reusable buffers for searches over the dense ids of a graph of {@link
+ * Synset}s.  Each search takes a new epoch number and stamps every id it
+ * reaches with it.  An entry in the other buffers is only valid when it's
+ * stamp matches the current epoch, so the buffers never need to be cleared
+ * between searches and a search allocates nothing.  Instances are meant to be
+ * held in a {@link ThreadLocal}.
+ *
+ * </p>
+ *
+ * Subclasses create their buffers in {@link #allocate} and zero every stamp
+ * array in {@link #clearStamps}.
+ *
+ * @author Keith Stevens
+ */
+public abstract class EpochScratch {
+
+    /**
+     * The number of ids the buffers can hold.
+     */
+    private int capacity;
+
+    /**
+     * The epoch of the current search.
+     */
+    private int epoch;
+
+    /**
+     * Grows the buffers to hold at least {@code size} ids.
+     */
+    protected final void ensureCapacity(int size) {
+        if (capacity >= size)
+            return;
+        capacity = Math.max(size, capacity + (capacity >> 1));
+        allocate(capacity);
+        epoch = 0;
+    }
+
+    /**
+     * Returns a new epoch number, clearing the stamps if the numbers wrap
+     * around.
+     */
+    protected final int nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            clearStamps();
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    /**
+     * Replaces the buffers with new, zeroed buffers that hold {@code
+     * capacity} ids.
+     */
+    protected abstract void allocate(int capacity);
+
+    /**
+     * Sets every stamp to zero.
+     */
+    protected abstract void clearStamps();
+}
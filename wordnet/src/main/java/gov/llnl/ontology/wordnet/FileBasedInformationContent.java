@@ -30,7 +30,10 @@ import java.io.FileReader;
 import java.io.IOError;
 import java.io.IOException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -40,19 +43,50 @@ import java.util.Map;
  * content count.  This is the typical format used content files distributed
  * with the WordNet::Similarity perl package.
  *
+ * </p>
+ *
+ * Content values and information content values are stored in arrays indexed
+ * by the dense ids of the {@link HypernymIndex} that holds each {@link Synset},
+ * with the information content computed once when the arrays are built.  If
+ * the hierarchy is modified and the {@link Synset}s are moved to a new {@link
+ * HypernymIndex}, the arrays are rebuilt for the new index on the next lookup.
+ *
  * @author Keith Stevens
  */
 public class FileBasedInformationContent implements InformationContent {
 
     /**
-     * The content for each known synset.
+     * The header line written at the start of content files generated by this
+     * package.  The first line of every content file is skipped when loading.
      */
-    private Map<Synset, Double> synsetContent;
+    public static final String HEADER = "wnver::c-cat";
+
+    /**
+     * The {@link Synset}s listed in the content file.
+     */
+    private final Synset[] known;
+
+    /**
+     * The content for each {@link Synset} in {@link #known}.
+     */
+    private final double[] knownContent;
+
+    /**
+     * A mapping from each {@link Synset} in {@link #known} to it's position.
+     * This is only used for {@link Synset}s that are not part of a current
+     * {@link HypernymIndex}.
+     */
+    private final Map<Synset, Integer> knownIds;
 
     /**
      * The total content for each part of speech.
      */
-    private double[] posContent;
+    private final double[] posContent;
+
+    /**
+     * The content arrays for the most recently used {@link HypernymIndex}.
+     */
+    private volatile ContentTable table;
 
     /**
      * Creates a {@link FileBasedInformationContent} from the provided file
@@ -64,9 +98,18 @@ public class FileBasedInformationContent implements InformationContent {
      *         incorrect content file is being used.
      */
     public FileBasedInformationContent(String icFilename) {
+        this(icFilename, WordNetCorpusReader.getWordNet());
+    }
+
+    /**
+     * Creates a {@link FileBasedInformationContent} from the provided file
+     * name using the {@link Synset}s in {@code wordnet}.
+     */
+    FileBasedInformationContent(String icFilename,
+                                WordNetCorpusReader wordnet) {
         posContent = new double[WordNetCorpusReader.POS_TAGS.length];
-        synsetContent = new HashMap<Synset, Double>();
-        WordNetCorpusReader wordnet = WordNetCorpusReader.getWordNet();
+        List<Synset> synsets = new ArrayList<Synset>();
+        List<Double> contents = new ArrayList<Double>();
 
         try {
             // Read in each line of the content file.  Each line, except for the
@@ -103,20 +146,81 @@ public class FileBasedInformationContent implements InformationContent {
                             "check that the correct file is being used");
 
                 // Save the values
-                synsetContent.put(synset, value);
+                synsets.add(synset);
+                contents.add(value);
                 posContent[pos.ordinal()] += value;
             }
+            br.close();
         } catch (IOException ioe) {
             throw new IOError(ioe);
         }
+
+        // Keep only the last value listed for each synset, as the map based
+        // implementation did.
+        knownIds = new HashMap<Synset, Integer>();
+        known = new Synset[synsets.size()];
+        knownContent = new double[synsets.size()];
+        int numKnown = 0;
+        for (int i = 0; i < synsets.size(); ++i) {
+            Integer id = knownIds.get(synsets.get(i));
+            if (id == null) {
+                id = numKnown++;
+                knownIds.put(synsets.get(i), id);
+                known[id] = synsets.get(i);
+            }
+            knownContent[id] = contents.get(i);
+        }
+
+        table = new ContentTable(wordnet.getHypernymIndex());
+    }
+
+    /**
+     * Returns the token used to identify {@code synset} in a content file,
+     * which is the eight digit byte offset of {@code synset} followed by it's
+     * part of speech tag.
+     */
+    public static String contentKey(Synset synset) {
+        return String.format("%08d%s", synset.getId(),
+                WordNetCorpusReader.POS_TAGS[
+                    synset.getPartOfSpeech().ordinal()]);
+    }
+
+    /**
+     * Returns the position of {@code synset} in the content arrays of {@code
+     * t}, or -1 if it is not covered by {@code t}.
+     */
+    private static int idOf(ContentTable t, Synset synset) {
+        int id = t.index.indexOf(synset);
+        return (id < t.content.length) ? id : -1;
+    }
+
+    /**
+     * Returns the content table covering {@code synset}, rebuilding the table
+     * if {@code synset} has moved to a newer {@link HypernymIndex}, or {@code
+     * null} if no table covers {@code synset}.
+     */
+    private ContentTable tableFor(Synset synset) {
+        ContentTable t = table;
+        if (idOf(t, synset) >= 0)
+            return t;
+
+        HypernymIndex current = HypernymIndex.of(synset);
+        if (current == null || current == t.index)
+            return null;
+        t = new ContentTable(current);
+        table = t;
+        return (idOf(t, synset) >= 0) ? t : null;
     }
 
     /**
      * {@inheritDoc}
      */
     public double contentForSynset(Synset synset) {
-        Double content = synsetContent.get(synset);
-        return (content == null) ? -1 : content;
+        ContentTable t = tableFor(synset);
+        if (t != null)
+            return t.content[idOf(t, synset)];
+        Integer id = knownIds.get(synset);
+        return (id == null) ? -1 : knownContent[id];
     }
 
     /**
@@ -130,8 +234,63 @@ public class FileBasedInformationContent implements InformationContent {
      * {@inheritDoc}
      */
     public double informationContent(Synset synset) {
-        double content = contentForSynset(synset);
-        double posContent = contentForPartOfSpeech(synset.getPartOfSpeech());
-        return (content == -1) ? -1 : -Math.log(content / posContent);
+        ContentTable t = tableFor(synset);
+        if (t != null)
+            return t.ic[idOf(t, synset)];
+        Integer id = knownIds.get(synset);
+        return (id == null) ? -1 : informationContent(
+                knownContent[id], synset.getPartOfSpeech());
+    }
+
+    /**
+     * Returns the information content of a {@link Synset} with {@code
+     * content} and part of speech {@code pos}.
+     */
+    private double informationContent(double content, PartsOfSpeech pos) {
+        return (content == -1)
+            ? -1
+            : -Math.log(content / posContent[pos.ordinal()]);
+    }
+
+    /**
+     * The content and information content of each {@link Synset} in a {@link
+     * HypernymIndex}, indexed by dense id.  {@link Synset}s without a content
+     * value have a value of -1 in both arrays.
+     */
+    private class ContentTable {
+
+        /**
+         * The {@link HypernymIndex} providing the dense ids.
+         */
+        final HypernymIndex index;
+
+        /**
+         * The content of each {@link Synset}.
+         */
+        final double[] content;
+
+        /**
+         * The information content of each {@link Synset}.
+         */
+        final double[] ic;
+
+        /**
+         * Creates a new {@link ContentTable} for {@code index}.
+         */
+        ContentTable(HypernymIndex index) {
+            this.index = index;
+            content = new double[index.size()];
+            ic = new double[index.size()];
+            Arrays.fill(content, -1);
+            Arrays.fill(ic, -1);
+            for (int i = 0; i < known.length && known[i] != null; ++i) {
+                int id = index.indexOf(known[i]);
+                if (id < 0 || id >= content.length)
+                    continue;
+                content[id] = knownContent[i];
+                ic[id] = informationContent(
+                        knownContent[i], known[i].getPartOfSpeech());
+            }
+        }
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import com.google.common.collect.Sets;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * The whitespace separated tokens of a {@link Synset}'s gloss, with each
+ * token replaced by an interned integer id.  Gloss overlap measures such as
+ * Lesk compare these id arrays instead of splitting and comparing strings for
+ * every pair.
+ *
+ * </p>
+ *
+ * A {@link BaseSynset} computes it's signature once and keeps it until it's
+ * gloss changes.  It also keeps the signatures of it's extended gloss, which
+ * is made up of it's own gloss and the glosses of every related {@link
+ * Synset}, until it's relations change.  Signatures for other {@link Synset}
+ * implementations are computed on each request.
+ *
+ * @author Keith Stevens
+ */
+public class GlossSignature {
+
+    /**
+     * The id of every token seen in a gloss.
+     */
+    private static final ConcurrentMap<String, Integer> TOKEN_IDS =
+        new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * The token ids in gloss order.
+     */
+    private final int[] tokens;
+
+    /**
+     * The token ids in sorted order, including duplicates.
+     */
+    private final int[] sortedTokens;
+
+    /**
+     * Returns the {@link GlossSignature} of {@code synset}'s gloss.
+     */
+    public static GlossSignature of(Synset synset) {
+        if (synset instanceof BaseSynset)
+            return ((BaseSynset) synset).getGlossSignature();
+        return create(synset.getGloss());
+    }
+
+    /**
+     * Returns the {@link GlossSignature}s of {@code synset} and of each
+     * distinct {@link Synset} related to it.
+     */
+    public static GlossSignature[] extended(Synset synset) {
+        if (synset instanceof BaseSynset)
+            return ((BaseSynset) synset).getExtendedGloss().signatures;
+        return createExtended(synset).signatures;
+    }
+
+    /**
+     * Returns a new {@link GlossSignature} for the tokens of {@code gloss},
+     * split on whitespace exactly as {@code gloss.split("\\s+")} would.
+     */
+    public static GlossSignature create(String gloss) {
+        String[] tokenStrings = gloss.split("\\s+");
+        int[] tokens = new int[tokenStrings.length];
+        for (int i = 0; i < tokens.length; ++i)
+            tokens[i] = tokenId(tokenStrings[i]);
+        return new GlossSignature(tokens);
+    }
+
+    /**
+     * Returns a new {@link Extended} gloss for {@code synset}.
+     */
+    static Extended createExtended(Synset synset) {
+        Set<Synset> synsets = Sets.newHashSet(synset.allRelations());
+        synsets.add(synset);
+        Synset[] members = synsets.toArray(new Synset[synsets.size()]);
+        GlossSignature[] signatures = new GlossSignature[members.length];
+        for (int i = 0; i < members.length; ++i)
+            signatures[i] = of(members[i]);
+        return new Extended(members, signatures);
+    }
+
+    /**
+     * Returns the interned id for {@code token}.
+     */
+    private static int tokenId(String token) {
+        Integer id = TOKEN_IDS.get(token);
+        if (id != null)
+            return id;
+        synchronized (TOKEN_IDS) {
+            id = TOKEN_IDS.get(token);
+            if (id == null) {
+                id = TOKEN_IDS.size();
+                TOKEN_IDS.put(token, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Creates a new {@link GlossSignature} from token ids in gloss order.
+     */
+    private GlossSignature(int[] tokens) {
+        this.tokens = tokens;
+        this.sortedTokens = Arrays.copyOf(tokens, tokens.length);
+        Arrays.sort(sortedTokens);
+    }
+
+    /**
+     * Returns the number of tokens in the gloss.
+     */
+    public int size() {
+        return tokens.length;
+    }
+
+    /**
+     * Returns the number of tokens in this gloss that also occur in {@code
+     * other}.  Repeated tokens in this gloss are each counted.  This matches
+     * {@code StringUtils.tokenOverlap} and is computed by merging the sorted
+     * token ids.
+     */
+    public int overlap(GlossSignature other) {
+        int[] a = sortedTokens;
+        int[] b = other.sortedTokens;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else {
+                count++;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum, over every pair of positions holding the same token in
+     * the two glosses, of the squared length of the run of matching tokens
+     * that starts at those positions.  This matches {@code
+     * StringUtils.tokenOverlapExp}.  Each diagonal of the match matrix is
+     * walked backwards once, so the run length at each position extends the
+     * run that follows it.
+     */
+    public int overlapExp(GlossSignature other) {
+        int[] a = tokens;
+        int[] b = other.tokens;
+        int score = 0;
+        for (int offset = 1 - a.length; offset < b.length; ++offset) {
+            int start = Math.max(0, -offset);
+            int end = Math.min(a.length, b.length - offset);
+            int run = 0;
+            for (int i = end - 1; i >= start; --i) {
+                if (a[i] == b[i + offset]) {
+                    run++;
+                    score += run * run;
+                } else
+                    run = 0;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Returns the sum of {@link #overlapExp} over every pair of glosses from
+     * {@code glosses1} and {@code glosses2}.
+     */
+    public static int overlapExp(GlossSignature[] glosses1,
+                                 GlossSignature[] glosses2) {
+        int score = 0;
+        for (GlossSignature gloss1 : glosses1)
+            for (GlossSignature gloss2 : glosses2)
+                score += gloss1.overlapExp(gloss2);
+        return score;
+    }
+
+    /**
+     * The extended gloss of a {@link Synset}: the {@link Synset} and it's
+     * related {@link Synset}s, along with the signature of each one's gloss.
+     */
+    static class Extended {
+
+        final Synset[] synsets;
+
+        final GlossSignature[] signatures;
+
+        Extended(Synset[] synsets, GlossSignature[] signatures) {
+            this.synsets = synsets;
+            this.signatures = signatures;
+        }
+
+        /**
+         * Returns {@code true} if none of the member {@link BaseSynset}s have
+         * changed their gloss since this was created.
+         */
+        boolean isCurrent() {
+            for (int i = 0; i < synsets.length; ++i)
+                if (synsets[i] instanceof BaseSynset &&
+                    ((BaseSynset) synsets[i]).getGlossSignature() !=
+                        signatures[i])
+                    return false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Computes hypernym path distances over the dense ids of a {@link
+ * HypernymIndex}.  The distance from a {@link Synset} to each of it's
+ * ancestors is found with a single pass over it's closure, which the index
+ * stores in topological order, relaxing the edges to each ancestor's parents.
+ * Both the shortest and the longest distances are exact, since every path in
+ * the hierarchy moves to a strictly shallower {@link Synset}.
+ *
+ * </p>
+ *
+ * Distances are written to per thread scratch arrays that are sized to the
+ * index and reused across calls.  Each call takes a new epoch number and
+ * stamps every {@link Synset} it reaches with it, so the arrays never need to
+ * be cleared and a query allocates nothing.
+ *
+ * @author Keith Stevens
+ */
+public class HypernymDistances {
+
+    /**
+     * The scratch buffers for each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH =
+        new ThreadLocal<Scratch>() {
+            protected Scratch initialValue() {
+                return new Scratch();
+            }
+        };
+
+    /**
+     * Uninstantiable.
+     */
+    private HypernymDistances() {
+    }
+
+    /**
+     * Returns the length of the shortest, or if {@code findMax} is {@code
+     * true} the longest, path connecting {@link Synset}s {@code id1} and
+     * {@code id2} through a common ancestor, where a {@link Synset} is it's
+     * own ancestor.  When there is no common ancestor, this returns -1 for
+     * the shortest path and 0 for the longest, matching {@link
+     * SynsetRelations#shortestPathDistance} and {@link
+     * SynsetRelations#longestPathDistance}.
+     */
+    public static int pathDistance(HypernymIndex index,
+                                   int id1,
+                                   int id2,
+                                   boolean findMax) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(index.size());
+        int epoch = scratch.nextEpoch();
+        computeDistances(index, id1, findMax,
+                         scratch.distances1, scratch.stamps1, epoch);
+        computeDistances(index, id2, findMax,
+                         scratch.distances2, scratch.stamps2, epoch);
+
+        int bestDistance = (findMax) ? 0 : Integer.MAX_VALUE;
+        bestDistance = joinDistance(
+                scratch, id2, epoch, findMax, bestDistance);
+        for (int ancestorId : index.ancestorIds(id2))
+            bestDistance = joinDistance(
+                    scratch, ancestorId, epoch, findMax, bestDistance);
+        return (bestDistance == Integer.MAX_VALUE) ? -1 : bestDistance;
+    }
+
+    /**
+     * Returns {@code bestDistance} updated with the path through {@code
+     * shared}, if {@code shared} was reached from both {@link Synset}s.
+     */
+    private static int joinDistance(Scratch scratch,
+                                    int shared,
+                                    int epoch,
+                                    boolean findMax,
+                                    int bestDistance) {
+        if (scratch.stamps1[shared] != epoch)
+            return bestDistance;
+        int distance = scratch.distances1[shared] + scratch.distances2[shared];
+        return (findMax)
+            ? Math.max(bestDistance, distance)
+            : Math.min(bestDistance, distance);
+    }
+
+    /**
+     * Returns a mapping from {@link Synset} {@code id} and each of it's
+     * ancestors to the shortest, or if {@code findMax} is {@code true} the
+     * longest, distance to that ancestor.
+     */
+    public static Map<Synset, Integer> parentDistances(HypernymIndex index,
+                                                       int id,
+                                                       boolean findMax) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(index.size());
+        int epoch = scratch.nextEpoch();
+        computeDistances(index, id, findMax,
+                         scratch.distances1, scratch.stamps1, epoch);
+
+        int[] ancestorIds = index.ancestorIds(id);
+        Map<Synset, Integer> distanceMap = new HashMap<Synset, Integer>(
+                2 * (ancestorIds.length + 1));
+        distanceMap.put(index.getSynset(id), 0);
+        for (int ancestorId : ancestorIds)
+            distanceMap.put(index.getSynset(ancestorId),
+                            scratch.distances1[ancestorId]);
+        return distanceMap;
+    }
+
+    /**
+     * Stores the distance from {@link Synset} {@code id} to itself and each
+     * of it's ancestors in {@code distances}, and stamps each of them with
+     * {@code epoch}.  Each {@link Synset} is visited after all of it's
+     * children on the way up from {@code id}, so it's distance is final by
+     * the time it is used to relax it's parents.
+     */
+    private static void computeDistances(HypernymIndex index,
+                                         int id,
+                                         boolean findMax,
+                                         int[] distances,
+                                         int[] stamps,
+                                         int epoch) {
+        stamps[id] = epoch;
+        distances[id] = 0;
+        relaxParents(index, id, findMax, distances, stamps, epoch);
+        for (int ancestorId : index.ancestorIds(id))
+            relaxParents(index, ancestorId, findMax, distances, stamps, epoch);
+    }
+
+    /**
+     * Updates the distance of each parent of {@link Synset} {@code id} with
+     * the path through {@code id}.
+     */
+    private static void relaxParents(HypernymIndex index,
+                                     int id,
+                                     boolean findMax,
+                                     int[] distances,
+                                     int[] stamps,
+                                     int epoch) {
+        int distance = distances[id] + 1;
+        for (int parentId : index.parentIds(id)) {
+            if (stamps[parentId] != epoch) {
+                stamps[parentId] = epoch;
+                distances[parentId] = distance;
+            } else if (findMax) {
+                distances[parentId] = Math.max(distances[parentId], distance);
+            } else {
+                distances[parentId] = Math.min(distances[parentId], distance);
+            }
+        }
+    }
+
+    /**
+     * The reusable distance and stamp arrays for a single thread.
+     */
+    private static class Scratch extends EpochScratch {
+
+        int[] distances1 = new int[0];
+
+        int[] stamps1 = new int[0];
+
+        int[] distances2 = new int[0];
+
+        int[] stamps2 = new int[0];
+
+        protected void allocate(int capacity) {
+            distances1 = new int[capacity];
+            stamps1 = new int[capacity];
+            distances2 = new int[capacity];
+            stamps2 = new int[capacity];
+        }
+
+        protected void clearStamps() {
+            Arrays.fill(stamps1, 0);
+            Arrays.fill(stamps2, 0);
+        }
+    }
+}
@@ -0,0 +1,801 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A precomputed table of the IS-A hierarchy for a fixed set of {@link
+ * Synset}s.  Every {@link Synset} is given a dense id, and the minimum and
+ * maximum depth of each {@link Synset} is stored in primitive arrays.  The
+ * hypernym closure of each {@link Synset}, i.e. every {@link Synset} that
+ * appears on some path from it to a root, is stored as an array of ids
+ * ordered from the deepest ancestor to the shallowest.  Depth queries are
+ * answered in constant time and ancestor queries with a binary search, instead
+ * of recursively walking or materializing the parent paths, which grow
+ * exponentially in regions with multiple inheritance.  Since closures are
+ * ordered by depth, the lowest common hypernyms of two {@link Synset}s are the
+ * first ids shared by both closures, which are found with a single merge that
+ * stops as soon as the shared depth drops and needs no allocation.
+ *
+ * </p>
+ *
+ * To answer ancestor queries in near constant time, every {@link Synset}
+ * present when the index is built is also numbered in a post-order walk down
+ * the hyponym links.  Each {@link Synset} is labelled with the runs of post
+ * order numbers held by itself and it's descendants.  Descendants reached
+ * through the walk's own tree form a single run, so most labels hold one
+ * interval and only {@link Synset}s with descendants that have multiple
+ * parents need more.  {@link Synset}s added later are answered from their
+ * closures.
+ *
+ * </p>
+ *
+ * {@link BaseSynset}s in an index can answer {@link Synset#getMaxDepth} and
+ * {@link Synset#getMinDepth} from the index.  Changing the hypernyms of any
+ * such {@link BaseSynset} marks the index as no longer current, after which
+ * {@link #of} no longer returns it.  New leaf {@link Synset}s whose parents
+ * are already indexed can be appended with {@link #add}.  The owning reader
+ * makes all such additions while holding it's lock, so any number of threads
+ * may query the index while it is being extended.
+ *
+ * @author Keith Stevens
+ */
+public class HypernymIndex {
+
+    /**
+     * The closure shared by all {@link Synset}s without parents.
+     */
+    private static final int[] NO_ANCESTORS = new int[0];
+
+    /**
+     * Marks a {@link Synset} whose closure is being computed, so that cycles
+     * in the hierarchy are broken instead of followed.
+     */
+    private static final int[] VISITING = new int[0];
+
+    /**
+     * The {@link Synset} for each dense id.
+     */
+    private Synset[] synsets;
+
+    /**
+     * The minimum depth of each {@link Synset}.
+     */
+    private int[] minDepths;
+
+    /**
+     * The maximum depth of each {@link Synset}.
+     */
+    private int[] maxDepths;
+
+    /**
+     * The ids of the parents of each {@link Synset}.
+     */
+    private int[][] parents;
+
+    /**
+     * The ids of every ancestor of each {@link Synset}, sorted by {@link
+     * #order}.
+     */
+    private int[][] ancestors;
+
+    /**
+     * The number of indexed {@link Synset}s.
+     */
+    private int size;
+
+    /**
+     * The number of {@link Synset}s that were indexed when the index was
+     * built.  Only these have a post order number and interval label.
+     */
+    private final int numLabelled;
+
+    /**
+     * The post order number of each labelled {@link Synset}.
+     */
+    private final int[] postOrder;
+
+    /**
+     * The first interval of each labelled {@link Synset} in {@code
+     * intervals}, with one extra entry marking the end of the last label.
+     */
+    private final int[] intervalStart;
+
+    /**
+     * The inclusive bounds of every interval, stored as consecutive start and
+     * end pairs.  The intervals of a single label are sorted and disjoint.
+     */
+    private final int[] intervals;
+
+    /**
+     * The maximum depth of any indexed {@link Synset} for each part of speech.
+     */
+    private final int[] posMaxDepths;
+
+    /**
+     * A mapping from {@link Synset}s that cannot store their own id to their
+     * dense id.  This is empty when every {@link Synset} is a {@link
+     * BaseSynset}.
+     */
+    private final Map<Synset, Integer> otherIds;
+
+    /**
+     * Set to {@code false} once any member {@link Synset} modifies it's
+     * hypernyms.
+     */
+    private volatile boolean current;
+
+    /**
+     * The number of times any member {@link Synset} has changed it's
+     * relations or gloss.
+     */
+    private final AtomicLong modifications;
+
+    /**
+     * Creates a new {@link HypernymIndex} over every {@link Synset} in {@code
+     * synsets} and all of their ancestors.  Each {@link BaseSynset} in the
+     * index is attached to it.
+     */
+    public static HypernymIndex build(Collection<Synset> synsets) {
+        return new HypernymIndex(synsets);
+    }
+
+    /**
+     * Returns the current {@link HypernymIndex} holding {@code synset}, or
+     * {@code null} if {@code synset} is not part of an index or it's index has
+     * been invalidated by a modification.
+     */
+    public static HypernymIndex of(Synset synset) {
+        if (!(synset instanceof BaseSynset))
+            return null;
+        Slot slot = ((BaseSynset) synset).getHypernymSlot();
+        return (slot != null && slot.index.current) ? slot.index : null;
+    }
+
+    /**
+     * Creates a new {@link HypernymIndex}.  See {@link #build}.
+     */
+    private HypernymIndex(Collection<Synset> roots) {
+        // Assign a dense id to each synset, following hypernyms so that every
+        // ancestor also has an id.
+        Map<Synset, Integer> ids = new IdentityHashMap<Synset, Integer>();
+        List<Synset> synsetList = Lists.newArrayList();
+        for (Synset synset : roots)
+            if (!ids.containsKey(synset)) {
+                ids.put(synset, synsetList.size());
+                synsetList.add(synset);
+            }
+        for (int i = 0; i < synsetList.size(); ++i)
+            for (Synset parent : synsetList.get(i).getParents())
+                if (!ids.containsKey(parent)) {
+                    ids.put(parent, synsetList.size());
+                    synsetList.add(parent);
+                }
+
+        size = synsetList.size();
+        synsets = synsetList.toArray(new Synset[size]);
+        minDepths = new int[size];
+        maxDepths = new int[size];
+        parents = new int[size][];
+        ancestors = new int[size][];
+        posMaxDepths = new int[PartsOfSpeech.values().length];
+        for (int id = 0; id < size; ++id)
+            if (ancestors[id] == null)
+                computeClosure(id, ids);
+
+        // Label every synset with the post order numbers of it's descendants.
+        numLabelled = size;
+        postOrder = numberPostOrder();
+        intervalStart = new int[size + 1];
+        intervals = labelIntervals();
+
+        // Attach the index to each base synset.  Any other synset types are
+        // tracked by a separate id map.
+        otherIds = new IdentityHashMap<Synset, Integer>();
+        modifications = new AtomicLong();
+        current = true;
+        for (int id = 0; id < size; ++id) {
+            if (synsets[id] instanceof BaseSynset)
+                ((BaseSynset) synsets[id]).attach(new Slot(this, id));
+            else
+                otherIds.put(synsets[id], id);
+        }
+    }
+
+    /**
+     * Computes the depths and closure of {@code id} after first computing
+     * them for each of it's parents.  A parent that is still being computed
+     * is part of a cycle and is ignored.
+     */
+    private void computeClosure(int id, Map<Synset, Integer> ids) {
+        ancestors[id] = VISITING;
+        Set<Synset> parentSynsets = synsets[id].getParents();
+        int[] parentIds = new int[parentSynsets.size()];
+        int numParents = 0;
+        for (Synset parent : parentSynsets) {
+            int parentId = ids.get(parent);
+            if (ancestors[parentId] == null)
+                computeClosure(parentId, ids);
+            if (ancestors[parentId] != VISITING)
+                parentIds[numParents++] = parentId;
+        }
+        setClosure(id, parentIds, numParents);
+    }
+
+    /**
+     * Returns the post order number of each {@link Synset} from a depth first
+     * walk down the hyponym links, starting from each root.  The walk follows
+     * the same parent links as the closures.
+     */
+    private int[] numberPostOrder() {
+        // Invert the parent links into compressed rows of child ids.
+        int[] childStart = new int[size + 1];
+        for (int id = 0; id < size; ++id)
+            for (int parentId : parents[id])
+                childStart[parentId + 1]++;
+        for (int id = 0; id < size; ++id)
+            childStart[id + 1] += childStart[id];
+        int[] children = new int[childStart[size]];
+        int[] nextChild = Arrays.copyOf(childStart, size);
+        for (int id = 0; id < size; ++id)
+            for (int parentId : parents[id])
+                children[nextChild[parentId]++] = id;
+
+        // Walk from the roots first so that every tree is numbered
+        // contiguously, then from any synsets only reachable through a cycle.
+        System.arraycopy(childStart, 0, nextChild, 0, size);
+        int[] numbers = new int[size];
+        boolean[] seen = new boolean[size];
+        int[] stack = new int[size];
+        int number = 0;
+        for (int pass = 0; pass < 2; ++pass) {
+            for (int start = 0; start < size; ++start) {
+                if (seen[start] || (pass == 0 && parents[start].length > 0))
+                    continue;
+                int top = 0;
+                stack[top++] = start;
+                seen[start] = true;
+                while (top > 0) {
+                    int id = stack[top - 1];
+                    if (nextChild[id] < childStart[id + 1]) {
+                        int child = children[nextChild[id]++];
+                        if (!seen[child]) {
+                            seen[child] = true;
+                            stack[top++] = child;
+                        }
+                    } else {
+                        numbers[id] = number++;
+                        top--;
+                    }
+                }
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Fills {@code intervalStart} and returns the interval bounds labelling
+     * each {@link Synset} with the post order numbers of itself and it's
+     * descendants, which are exactly the {@link Synset}s whose closures hold
+     * it.
+     */
+    private int[] labelIntervals() {
+        // Gather the post order numbers of the descendants of each synset
+        // into compressed rows.
+        int[] numberStart = new int[size + 1];
+        for (int id = 0; id < size; ++id) {
+            numberStart[id + 1]++;
+            for (int ancestorId : ancestors[id])
+                numberStart[ancestorId + 1]++;
+        }
+        for (int id = 0; id < size; ++id)
+            numberStart[id + 1] += numberStart[id];
+        int[] numbers = new int[numberStart[size]];
+        int[] next = Arrays.copyOf(numberStart, size);
+        for (int id = 0; id < size; ++id) {
+            numbers[next[id]++] = postOrder[id];
+            for (int ancestorId : ancestors[id])
+                numbers[next[ancestorId]++] = postOrder[id];
+        }
+
+        // Sort each row and count the runs of consecutive numbers.
+        int numIntervals = 0;
+        for (int id = 0; id < size; ++id) {
+            Arrays.sort(numbers, numberStart[id], numberStart[id + 1]);
+            for (int i = numberStart[id]; i < numberStart[id + 1]; ++i)
+                if (i == numberStart[id] || numbers[i] != numbers[i-1] + 1)
+                    numIntervals++;
+        }
+
+        // Store each run as an inclusive interval.
+        int[] bounds = new int[2 * numIntervals];
+        int interval = 0;
+        for (int id = 0; id < size; ++id) {
+            intervalStart[id] = interval;
+            for (int i = numberStart[id]; i < numberStart[id + 1]; ++i) {
+                if (i == numberStart[id] || numbers[i] != numbers[i-1] + 1) {
+                    bounds[2 * interval] = numbers[i];
+                    interval++;
+                }
+                bounds[2 * interval - 1] = numbers[i];
+            }
+        }
+        intervalStart[size] = interval;
+        return bounds;
+    }
+
+    /**
+     * Stores the depths and closure of {@code id} given the ids of it's
+     * parents, whose closures must already be known.
+     */
+    private void setClosure(int id, int[] parentIds, int numParents) {
+        parents[id] = (numParents == parentIds.length)
+            ? parentIds
+            : Arrays.copyOf(parentIds, numParents);
+        if (numParents == 0) {
+            minDepths[id] = 0;
+            maxDepths[id] = 0;
+            ancestors[id] = NO_ANCESTORS;
+        } else {
+            // The closure is the union of each parent and it's closure.
+            int minDepth = Integer.MAX_VALUE;
+            int maxDepth = 0;
+            int total = numParents;
+            for (int p = 0; p < numParents; ++p) {
+                int parentId = parentIds[p];
+                minDepth = Math.min(minDepth, minDepths[parentId]);
+                maxDepth = Math.max(maxDepth, maxDepths[parentId]);
+                total += ancestors[parentId].length;
+            }
+
+            long[] keys = new long[total];
+            int offset = 0;
+            for (int p = 0; p < numParents; ++p) {
+                for (int ancestorId : ancestors[parentIds[p]])
+                    keys[offset++] = order(ancestorId);
+                keys[offset++] = order(parentIds[p]);
+            }
+            Arrays.sort(keys);
+
+            // Drop the ancestors shared by several parents.
+            int[] closure = new int[total];
+            int unique = 0;
+            for (int i = 0; i < keys.length; ++i)
+                if (i == 0 || keys[i-1] != keys[i])
+                    closure[unique++] = (int) keys[i];
+
+            minDepths[id] = minDepth + 1;
+            maxDepths[id] = maxDepth + 1;
+            ancestors[id] = (unique == closure.length)
+                ? closure
+                : Arrays.copyOf(closure, unique);
+        }
+
+        int pos = synsets[id].getPartOfSpeech().ordinal();
+        posMaxDepths[pos] = Math.max(posMaxDepths[pos], maxDepths[id]);
+    }
+
+    /**
+     * Returns the sort key of {@link Synset} {@code id} within a closure.
+     * Keys order ids by decreasing maximum depth and then by increasing id.
+     * The maximum depth of an indexed {@link Synset} never changes while the
+     * index is current, so the keys of existing closures stay valid as new
+     * {@link Synset}s are added.
+     */
+    private long order(int id) {
+        return ((long) (Integer.MAX_VALUE - maxDepths[id]) << 32) | id;
+    }
+
+    /**
+     * Adds {@code synset} to this index if each of it's parents is already
+     * indexed and returns {@code true} if {@code synset} is now indexed.  Only
+     * {@link BaseSynset}s can be added.  This should only be called by the
+     * owning reader while holding it's lock.
+     */
+    boolean add(Synset synset) {
+        if (indexOf(synset) >= 0)
+            return true;
+        if (!(synset instanceof BaseSynset))
+            return false;
+
+        Set<Synset> parentSynsets = synset.getParents();
+        int[] parentIds = new int[parentSynsets.size()];
+        int numParents = 0;
+        for (Synset parent : parentSynsets) {
+            int parentId = indexOf(parent);
+            if (parentId < 0)
+                return false;
+            parentIds[numParents++] = parentId;
+        }
+
+        // Grow the tables before writing the new entry.  Queries for older
+        // ids read the same values from either copy.
+        if (size == synsets.length) {
+            int capacity = size + (size >> 1) + 1;
+            synsets = Arrays.copyOf(synsets, capacity);
+            minDepths = Arrays.copyOf(minDepths, capacity);
+            maxDepths = Arrays.copyOf(maxDepths, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            ancestors = Arrays.copyOf(ancestors, capacity);
+        }
+
+        int id = size;
+        synsets[id] = synset;
+        setClosure(id, parentIds, numParents);
+        size++;
+        ((BaseSynset) synset).attach(new Slot(this, id));
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if no {@link Synset} in this index has modified
+     * it's hypernyms since the index was built.
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * Marks this index as out of date.  This is called by member {@link
+     * Synset}s before they modify their hypernyms.
+     */
+    void invalidate() {
+        current = false;
+    }
+
+    /**
+     * Returns the number of times any {@link BaseSynset} in this index has
+     * changed any of it's relations or it's gloss since the index was built.
+     * Unlike {@link #isCurrent}, this also counts changes that leave the
+     * hierarchy intact, so callers that cache values derived from relations
+     * or glosses can tell when those values may be stale.
+     */
+    public long getModificationCount() {
+        return modifications.get();
+    }
+
+    /**
+     * Counts a change to the relations or gloss of a member {@link Synset}.
+     * This is called by member {@link Synset}s after any such change.
+     */
+    void modified() {
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of {@link Synset}s in this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the dense id of {@code synset}, or -1 if it is not part of this
+     * index.
+     */
+    public int indexOf(Synset synset) {
+        if (synset instanceof BaseSynset) {
+            Slot slot = ((BaseSynset) synset).getHypernymSlot();
+            return (slot != null && slot.index == this) ? slot.id : -1;
+        }
+        Integer id = otherIds.get(synset);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Returns the {@link Synset} with dense id {@code id}.
+     */
+    public Synset getSynset(int id) {
+        return synsets[id];
+    }
+
+    /**
+     * Returns the length of the shortest path from {@link Synset} {@code id}
+     * to a root of the hierarchy.
+     */
+    public int getMinDepth(int id) {
+        return minDepths[id];
+    }
+
+    /**
+     * Returns the length of the longest path from {@link Synset} {@code id}
+     * to a root of the hierarchy.
+     */
+    public int getMaxDepth(int id) {
+        return maxDepths[id];
+    }
+
+    /**
+     * Returns the maximum depth of any indexed {@link Synset} with the given
+     * part of speech.
+     */
+    public int getMaxDepth(PartsOfSpeech pos) {
+        return posMaxDepths[pos.ordinal()];
+    }
+
+    /**
+     * Returns {@code true} if {@link Synset} {@code ancestorId} lies on some
+     * path from {@link Synset} {@code id} to a root of the hierarchy.  A
+     * {@link Synset} is never it's own ancestor.
+     */
+    public boolean isAncestor(int ancestorId, int id) {
+        if (ancestorId == id)
+            return false;
+        if (ancestorId < numLabelled && id < numLabelled)
+            return labelContains(ancestorId, postOrder[id]);
+
+        int[] closure = ancestors[id];
+        long key = order(ancestorId);
+        int low = 0;
+        int high = closure.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = order(closure[mid]);
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the interval label of {@link Synset} {@code id}
+     * contains the post order number {@code number}.
+     */
+    private boolean labelContains(int id, int number) {
+        int low = intervalStart[id];
+        int high = intervalStart[id + 1] - 1;
+        // Most labels are a single interval.
+        if (low == high)
+            return intervals[2 * low] <= number &&
+                   number <= intervals[2 * low + 1];
+
+        // Find the last interval starting at or before number.
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (intervals[2 * mid] <= number)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+        return high >= intervalStart[id] && number <= intervals[2 * high + 1];
+    }
+
+    /**
+     * Returns {@code true} if some {@link Synset} in {@code ancestorIds} is an
+     * ancestor of some {@link Synset} in {@code childIds}.  {@link Synset}s
+     * listed in {@code childIds} are never counted as ancestors, matching
+     * {@link SynsetRelations#getHypernymStatus}.  This lets labelling jobs
+     * check every sense of two terms at once without allocating.
+     */
+    public boolean isHypernym(int[] childIds, int[] ancestorIds) {
+        for (int ancestorId : ancestorIds) {
+            if (contains(childIds, ancestorId))
+                continue;
+            for (int childId : childIds)
+                if (isAncestor(ancestorId, childId))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if {@code ids} contains {@code id}.
+     */
+    private static boolean contains(int[] ids, int id) {
+        for (int other : ids)
+            if (other == id)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if {@code ancestor} lies on some path from {@code
+     * synset} to a root of the hierarchy.  This returns {@code false} if
+     * either {@link Synset} is not indexed.
+     */
+    public boolean isAncestor(Synset ancestor, Synset synset) {
+        int ancestorId = indexOf(ancestor);
+        int id = indexOf(synset);
+        return ancestorId >= 0 && id >= 0 && isAncestor(ancestorId, id);
+    }
+
+    /**
+     * Returns the ids of the parents of {@link Synset} {@code id}.  The
+     * returned array must not be modified.
+     */
+    int[] parentIds(int id) {
+        return parents[id];
+    }
+
+    /**
+     * Returns the ids of every ancestor of {@link Synset} {@code id}, ordered
+     * from the deepest to the shallowest.  A parent always comes after each
+     * of it's children, so this is a topological order of the ancestors.  The
+     * returned array is shared with the index and must not be modified, but
+     * unlike {@link #getAncestors(int)} no list is allocated, so this is the
+     * cheaper choice for code that only needs the dense ids.
+     */
+    public int[] ancestorIds(int id) {
+        return ancestors[id];
+    }
+
+    /**
+     * Returns every ancestor of {@link Synset} {@code id}, ordered from the
+     * deepest to the shallowest.
+     */
+    public List<Synset> getAncestors(int id) {
+        int[] closure = ancestors[id];
+        List<Synset> result = Lists.newArrayListWithCapacity(closure.length);
+        for (int ancestorId : closure)
+            result.add(synsets[ancestorId]);
+        return result;
+    }
+
+    /**
+     * Returns the deepest {@link Synset}s that subsume both {@link Synset}
+     * {@code id1} and {@link Synset} {@code id2}, where a {@link Synset}
+     * subsumes itself.  Depth is measured with the maximum depth, so every
+     * returned {@link Synset} has the same maximum depth.
+     */
+    public List<Synset> lowestCommonHypernyms(int id1, int id2) {
+        int[] subsumerIds = new int[Math.min(
+                ancestors[id1].length, ancestors[id2].length) + 1];
+        int numSubsumers = lowestCommonHypernyms(id1, id2, subsumerIds);
+        List<Synset> subsumers = Lists.newArrayListWithCapacity(numSubsumers);
+        for (int i = 0; i < numSubsumers; ++i)
+            subsumers.add(synsets[subsumerIds[i]]);
+        return subsumers;
+    }
+
+    /**
+     * Stores the ids of the deepest {@link Synset}s that subsume both {@link
+     * Synset} {@code id1} and {@link Synset} {@code id2} in {@code subsumers}
+     * and returns the number of such {@link Synset}s.  If {@code subsumers} is
+     * too short, only the first ids are stored.  See {@link
+     * #lowestCommonHypernyms(int, int)}.
+     */
+    public int lowestCommonHypernyms(int id1, int id2, int[] subsumers) {
+        // Every common ancestor of a synset and one of it's descendants is
+        // also an ancestor of the synset itself, so the synset alone is the
+        // deepest subsumer.
+        int subsumer = selfSubsumer(id1, id2);
+        if (subsumer >= 0) {
+            if (subsumers.length > 0)
+                subsumers[0] = subsumer;
+            return 1;
+        }
+
+        int[] closure1 = ancestors[id1];
+        int[] closure2 = ancestors[id2];
+        int bestDepth = -1;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < closure1.length && j < closure2.length) {
+            // Once a subsumer is found, stop as soon as either closure moves
+            // on to shallower synsets.
+            if (count > 0 && (maxDepths[closure1[i]] < bestDepth ||
+                              maxDepths[closure2[j]] < bestDepth))
+                break;
+
+            long key1 = order(closure1[i]);
+            long key2 = order(closure2[j]);
+            if (key1 < key2)
+                i++;
+            else if (key1 > key2)
+                j++;
+            else {
+                bestDepth = maxDepths[closure1[i]];
+                if (count < subsumers.length)
+                    subsumers[count] = closure1[i];
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the id of one of the deepest {@link Synset}s that subsume both
+     * {@link Synset} {@code id1} and {@link Synset} {@code id2}, or -1 if
+     * they have no common ancestor.  This does not allocate.
+     */
+    public int lowestCommonHypernym(int id1, int id2) {
+        int subsumer = selfSubsumer(id1, id2);
+        if (subsumer >= 0)
+            return subsumer;
+
+        int[] closure1 = ancestors[id1];
+        int[] closure2 = ancestors[id2];
+        int i = 0;
+        int j = 0;
+        while (i < closure1.length && j < closure2.length) {
+            long key1 = order(closure1[i]);
+            long key2 = order(closure2[j]);
+            if (key1 < key2)
+                i++;
+            else if (key1 > key2)
+                j++;
+            else
+                return closure1[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code id1} if it equals or is an ancestor of {@code id2},
+     * {@code id2} if it is an ancestor of {@code id1}, and -1 otherwise.
+     */
+    private int selfSubsumer(int id1, int id2) {
+        if (id1 == id2 || isAncestor(id1, id2))
+            return id1;
+        if (isAncestor(id2, id1))
+            return id2;
+        return -1;
+    }
+
+    /**
+     * The position of a {@link BaseSynset} in a {@link HypernymIndex}.  Both
+     * values are stored together so that a {@link BaseSynset} never pairs
+     * it's id with the wrong index.
+     */
+    static class Slot {
+
+        /**
+         * The index holding the {@link Synset}.
+         */
+        final HypernymIndex index;
+
+        /**
+         * The dense id of the {@link Synset} in {@code index}.
+         */
+        final int id;
+
+        /**
+         * Creates a new {@link Slot}.
+         */
+        Slot(HypernymIndex index, int id) {
+            this.index = index;
+            this.id = id;
+        }
+    }
+}
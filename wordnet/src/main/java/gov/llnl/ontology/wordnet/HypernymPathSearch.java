@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Computes the shortest path distance, as defined by {@link
+ * SynsetRelations#shortestPathDistance}, from one {@link Synset} to every
+ * other {@link Synset} in a single pass.  The hierarchy is stored as int
+ * adjacency arrays of parent and child links.  A search first walks up from
+ * the source to find the distance to each ancestor, and then walks down from
+ * every ancestor at once, level by level, so that each {@link Synset} is
+ * first reached through the common ancestor giving it's shortest path.
+ *
+ * </p>
+ *
+ * Ids are assigned in order of part of speech, offset, and name, so the same
+ * dictionary produces the same ids in every process.  This lets a search be
+ * split across many processes, each responsible for a range of sources.
+ *
+ * @author Keith Stevens
+ */
+public class HypernymPathSearch {
+
+    /**
+     * The scratch buffers for each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH =
+        new ThreadLocal<Scratch>() {
+            protected Scratch initialValue() {
+                return new Scratch();
+            }
+        };
+
+    /**
+     * Orders {@link Synset}s by part of speech, offset, and name.
+     */
+    private static final Comparator<Synset> SYNSET_ORDER =
+        new Comparator<Synset>() {
+            public int compare(Synset s1, Synset s2) {
+                int diff = s1.getPartOfSpeech().ordinal() -
+                           s2.getPartOfSpeech().ordinal();
+                if (diff != 0)
+                    return diff;
+                if (s1.getId() != s2.getId())
+                    return (s1.getId() < s2.getId()) ? -1 : 1;
+                return nameOf(s1).compareTo(nameOf(s2));
+            }
+        };
+
+    /**
+     * The {@link Synset} with each id.
+     */
+    private final Synset[] synsets;
+
+    /**
+     * A mapping from each {@link Synset} to it's id.
+     */
+    private final Map<Synset, Integer> ids;
+
+    /**
+     * The offset into {@link #parents} of each {@link Synset}'s parents.
+     */
+    private final int[] parentStarts;
+
+    /**
+     * The ids of each {@link Synset}'s parents.
+     */
+    private final int[] parents;
+
+    /**
+     * The offset into {@link #children} of each {@link Synset}'s children.
+     */
+    private final int[] childStarts;
+
+    /**
+     * The ids of each {@link Synset}'s children.
+     */
+    private final int[] children;
+
+    /**
+     * Creates a new {@link HypernymPathSearch} over every {@link Synset} in
+     * {@code synsets} and all of their ancestors.
+     */
+    public static HypernymPathSearch build(Collection<Synset> synsets) {
+        return new HypernymPathSearch(synsets);
+    }
+
+    /**
+     * Creates a new {@link HypernymPathSearch}.  See {@link #build}.
+     */
+    private HypernymPathSearch(Collection<Synset> roots) {
+        // Gather every synset and it's ancestors, and then sort them so that
+        // the ids do not depend on the iteration order of the collection.
+        Map<Synset, Integer> seen = new IdentityHashMap<Synset, Integer>();
+        List<Synset> synsetList = new ArrayList<Synset>();
+        for (Synset synset : roots)
+            if (seen.put(synset, 0) == null)
+                synsetList.add(synset);
+        for (int i = 0; i < synsetList.size(); ++i)
+            for (Synset parent : synsetList.get(i).getParents())
+                if (seen.put(parent, 0) == null)
+                    synsetList.add(parent);
+        Collections.sort(synsetList, SYNSET_ORDER);
+
+        int size = synsetList.size();
+        synsets = synsetList.toArray(new Synset[size]);
+        ids = new IdentityHashMap<Synset, Integer>();
+        for (int id = 0; id < size; ++id)
+            ids.put(synsets[id], id);
+
+        // Store the parent links of each synset, and then invert them to get
+        // the child links.
+        parentStarts = new int[size + 1];
+        for (int id = 0; id < size; ++id)
+            parentStarts[id + 1] = parentStarts[id] + numParents(id);
+        parents = new int[parentStarts[size]];
+        int[] childCounts = new int[size];
+        for (int id = 0; id < size; ++id) {
+            int p = parentStarts[id];
+            for (Synset parent : synsets[id].getParents()) {
+                int parentId = ids.get(parent);
+                if (parentId == id)
+                    continue;
+                parents[p++] = parentId;
+                childCounts[parentId]++;
+            }
+        }
+
+        childStarts = new int[size + 1];
+        for (int id = 0; id < size; ++id)
+            childStarts[id + 1] = childStarts[id] + childCounts[id];
+        children = new int[childStarts[size]];
+        int[] next = Arrays.copyOf(childStarts, size);
+        for (int id = 0; id < size; ++id)
+            for (int p = parentStarts[id]; p < parentStarts[id + 1]; ++p)
+                children[next[parents[p]]++] = id;
+    }
+
+    /**
+     * Returns the number of distinct parents of {@link Synset} {@code id},
+     * excluding itself.
+     */
+    private int numParents(int id) {
+        int count = 0;
+        for (Synset parent : synsets[id].getParents())
+            if (parent != synsets[id])
+                count++;
+        return count;
+    }
+
+    /**
+     * Returns the name of {@code synset}, or an empty string if it has no
+     * lemmas.
+     */
+    private static String nameOf(Synset synset) {
+        return (synset.getLemmas().isEmpty()) ? "" : synset.getName();
+    }
+
+    /**
+     * Returns the number of {@link Synset}s in this search.
+     */
+    public int size() {
+        return synsets.length;
+    }
+
+    /**
+     * Returns the {@link Synset} with id {@code id}.
+     */
+    public Synset getSynset(int id) {
+        return synsets[id];
+    }
+
+    /**
+     * Returns the id of {@code synset}, or -1 if it is not part of this search.
+     */
+    public int indexOf(Synset synset) {
+        Integer id = ids.get(synset);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Stores the shortest path distance from {@link Synset} {@code source} to
+     * every {@link Synset} in {@code distances}, which must hold at least
+     * {@link #size} values.  {@link Synset}s that share no ancestor with
+     * {@code source} are given a distance of -1.  Returns the number of
+     * {@link Synset}s with a path to {@code source}.
+     */
+    public int distances(int source, int[] distances) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(synsets.length);
+        int epoch = scratch.nextEpoch();
+        int[] up = scratch.up;
+        int[] stamps = scratch.stamps;
+
+        // Walk up from the source.  The ancestors are queued in order of
+        // their distance from the source.
+        int[] ancestors = scratch.ancestors;
+        stamps[source] = epoch;
+        up[source] = 0;
+        ancestors[0] = source;
+        int numAncestors = 1;
+        for (int a = 0; a < numAncestors; ++a) {
+            int id = ancestors[a];
+            for (int p = parentStarts[id]; p < parentStarts[id + 1]; ++p) {
+                int parent = parents[p];
+                if (stamps[parent] == epoch)
+                    continue;
+                stamps[parent] = epoch;
+                up[parent] = up[id] + 1;
+                ancestors[numAncestors++] = parent;
+            }
+        }
+
+        // Walk down from every ancestor one level at a time.  Each ancestor
+        // joins the frontier at the level of it's distance from the source,
+        // so every synset is first reached by it's shortest path.
+        Arrays.fill(distances, 0, synsets.length, -1);
+        int[] frontier = scratch.frontier;
+        int[] next = scratch.next;
+        int frontierSize = 0;
+        int nextAncestor = 0;
+        int reached = 0;
+        for (int level = 0;
+             frontierSize > 0 || nextAncestor < numAncestors;
+             ++level) {
+            while (nextAncestor < numAncestors &&
+                   up[ancestors[nextAncestor]] == level) {
+                int ancestor = ancestors[nextAncestor++];
+                if (distances[ancestor] >= 0)
+                    continue;
+                distances[ancestor] = level;
+                frontier[frontierSize++] = ancestor;
+            }
+            reached += frontierSize;
+
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; ++f) {
+                int id = frontier[f];
+                for (int c = childStarts[id]; c < childStarts[id + 1]; ++c) {
+                    int child = children[c];
+                    if (distances[child] >= 0)
+                        continue;
+                    distances[child] = level + 1;
+                    next[nextSize++] = child;
+                }
+            }
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+        return reached;
+    }
+
+    /**
+     * Reusable buffers for a search.
+     */
+    private static class Scratch extends EpochScratch {
+
+        int[] up = new int[0];
+
+        int[] stamps = new int[0];
+
+        int[] ancestors = new int[0];
+
+        int[] frontier = new int[0];
+
+        int[] next = new int[0];
+
+        protected void allocate(int capacity) {
+            up = new int[capacity];
+            stamps = new int[capacity];
+            ancestors = new int[capacity];
+            frontier = new int[capacity];
+            next = new int[capacity];
+        }
+
+        protected void clearStamps() {
+            Arrays.fill(stamps, 0);
+        }
+    }
+}
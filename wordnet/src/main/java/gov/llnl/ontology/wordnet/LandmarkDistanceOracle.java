@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An approximate shortest path distance oracle for {@link Synset}s, using the
+ * same distance as {@link SynsetRelations#shortestPathDistance}: the length of
+ * the shortest path that climbs from each {@link Synset} to a common ancestor,
+ * where a {@link Synset} is it's own ancestor.  A small number of landmark
+ * {@link Synset}s are chosen and the hypernym distance from every descendant
+ * of each landmark up to that landmark is stored in a byte array.  Any
+ * landmark l that is an ancestor of two {@link Synset}s u and v joins them
+ * with a path through a common ancestor, so
+ *
+ * <pre>
+ *   d(u, v) &lt;= d(u, l) + d(v, l)
+ * </pre>
+ *
+ * and each estimate costs O(k) for k landmarks while the oracle needs O(kn)
+ * space, rather than the O(n<sup>2</sup>) space needed for all pairs
+ * distances.  The estimate is exact whenever a landmark is the common ancestor
+ * giving the shortest path.  When exact refinement is enabled, {@link
+ * #distance} instead walks up from both {@link Synset}s, and stops climbing
+ * from the second once no shorter path can be found.
+ *
+ * </p>
+ *
+ * Every root of the hierarchy that has children is always a landmark, so any
+ * two {@link Synset}s with a common ancestor have a finite upper bound.  The
+ * remaining landmarks are chosen in decreasing order of their number of
+ * children, skipping any {@link Synset} that is a parent or child of an
+ * already chosen landmark so that landmarks are spread throughout the
+ * hierarchy.  Distances
+ * longer than {@link #MAX_DISTANCE} are not recorded.  The oracle reflects the
+ * hierarchy at the time it was built.  It is {@link Serializable}, and once
+ * deserialized {@link Synset}s are matched to the oracle by their names.
+ *
+ * @author Keith Stevens
+ */
+public class LandmarkDistanceOracle implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * The longest distance that can be stored for a landmark.
+     */
+    public static final int MAX_DISTANCE = 254;
+
+    /**
+     * The stored distance for {@link Synset}s that do not descend from a
+     * landmark.
+     */
+    private static final int UNREACHABLE = 255;
+
+    /**
+     * The scratch buffers for each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH =
+        new ThreadLocal<Scratch>() {
+            protected Scratch initialValue() {
+                return new Scratch();
+            }
+        };
+
+    /**
+     * The name of each {@link Synset}, indexed by id.
+     */
+    private final String[] names;
+
+    /**
+     * The offset into {@link #parents} of each {@link Synset}'s parents.  The
+     * final entry is the total number of parent entries.
+     */
+    private final int[] parentStarts;
+
+    /**
+     * The ids of the parents of each {@link Synset}.
+     */
+    private final int[] parents;
+
+    /**
+     * The id of each landmark.
+     */
+    private final int[] landmarks;
+
+    /**
+     * The hypernym distance from every {@link Synset} up to each landmark,
+     * stored as an unsigned byte.
+     */
+    private final byte[][] distances;
+
+    /**
+     * Set to {@code true} if {@link #distance} should return exact distances.
+     */
+    private volatile boolean exactRefinement;
+
+    /**
+     * The {@link HypernymIndex} whose ids match the ids of this oracle, or
+     * {@code null} if the oracle was deserialized.
+     */
+    private transient HypernymIndex index;
+
+    /**
+     * A mapping from {@link Synset} names to ids, created when first needed.
+     */
+    private transient volatile Map<String, Integer> nameIds;
+
+    /**
+     * Creates a new {@link LandmarkDistanceOracle} with up to {@code
+     * numLandmarks} landmarks over every {@link Synset} in {@code reader}.
+     * Every root with children is a landmark, even if there are more than
+     * {@code numLandmarks} roots.
+     */
+    public static LandmarkDistanceOracle build(WordNetCorpusReader reader,
+                                               int numLandmarks) {
+        return build(reader.getHypernymIndex(), numLandmarks);
+    }
+
+    /**
+     * Creates a new {@link LandmarkDistanceOracle} with up to {@code
+     * numLandmarks} landmarks over every {@link Synset} in {@code index}.
+     * Every root with children is a landmark, even if there are more than
+     * {@code numLandmarks} roots.
+     */
+    public static LandmarkDistanceOracle build(HypernymIndex index,
+                                               int numLandmarks) {
+        if (numLandmarks < 1)
+            throw new IllegalArgumentException(
+                    "At least one landmark must be used");
+        return new LandmarkDistanceOracle(index, numLandmarks);
+    }
+
+    /**
+     * Creates a new {@link LandmarkDistanceOracle}.  See {@link #build}.
+     */
+    private LandmarkDistanceOracle(HypernymIndex index, int numLandmarks) {
+        this.index = index;
+        int size = index.size();
+        names = new String[size];
+        for (int id = 0; id < size; ++id)
+            names[id] = nameOf(index.getSynset(id));
+
+        // Store the parent links of each synset, and then invert them to get
+        // the child links used to search down from each landmark.
+        parentStarts = new int[size + 1];
+        for (int id = 0; id < size; ++id)
+            parentStarts[id + 1] =
+                parentStarts[id] + index.parentIds(id).length;
+        parents = new int[parentStarts[size]];
+        int[] childCounts = new int[size];
+        for (int id = 0; id < size; ++id) {
+            int p = parentStarts[id];
+            for (int parentId : index.parentIds(id)) {
+                parents[p++] = parentId;
+                childCounts[parentId]++;
+            }
+        }
+        int[] childStarts = new int[size + 1];
+        for (int id = 0; id < size; ++id)
+            childStarts[id + 1] = childStarts[id] + childCounts[id];
+        int[] children = new int[childStarts[size]];
+        int[] next = Arrays.copyOf(childStarts, size);
+        for (int id = 0; id < size; ++id)
+            for (int p = parentStarts[id]; p < parentStarts[id + 1]; ++p)
+                children[next[parents[p]]++] = id;
+
+        // Order the candidates by decreasing number of children.  Ties keep
+        // id order so that the same hierarchy always selects the same
+        // landmarks.
+        Integer[] candidates = new Integer[size];
+        for (int id = 0; id < size; ++id)
+            candidates[id] = id;
+        final int[] candidateCounts = childCounts;
+        Arrays.sort(candidates, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int d = candidateCounts[b] - candidateCounts[a];
+                return (d != 0) ? d : a - b;
+            }
+        });
+
+        // Every root with children is a landmark, so that any two synsets
+        // with a common ancestor share at least one landmark.  The remaining
+        // landmarks are chosen greedily, skipping any candidate that is a
+        // parent or child of a chosen landmark.
+        List<Integer> chosen = new ArrayList<Integer>();
+        List<byte[]> chosenDistances = new ArrayList<byte[]>();
+        boolean[] nearLandmark = new boolean[size];
+        int[] queue = new int[size];
+        for (int id = 0; id < size; ++id)
+            if (parentStarts[id] == parentStarts[id + 1] &&
+                childCounts[id] > 0)
+                choose(id, childStarts, children, chosen, chosenDistances,
+                       nearLandmark, queue);
+        for (int c = 0; c < size && chosen.size() < numLandmarks; ++c)
+            if (!nearLandmark[candidates[c]])
+                choose(candidates[c], childStarts, children, chosen,
+                       chosenDistances, nearLandmark, queue);
+
+        landmarks = new int[chosen.size()];
+        for (int l = 0; l < landmarks.length; ++l)
+            landmarks[l] = chosen.get(l);
+        distances = chosenDistances.toArray(new byte[landmarks.length][]);
+    }
+
+    /**
+     * Adds {@code landmark} to {@code chosen}, stores it's distances in {@code
+     * chosenDistances}, and marks it along with it's parents and children in
+     * {@code nearLandmark}.
+     */
+    private void choose(int landmark,
+                        int[] childStarts,
+                        int[] children,
+                        List<Integer> chosen,
+                        List<byte[]> chosenDistances,
+                        boolean[] nearLandmark,
+                        int[] queue) {
+        byte[] landmarkDistances = new byte[nearLandmark.length];
+        search(landmark, childStarts, children, landmarkDistances, queue);
+        chosen.add(landmark);
+        chosenDistances.add(landmarkDistances);
+
+        nearLandmark[landmark] = true;
+        for (int n = childStarts[landmark]; n < childStarts[landmark + 1]; ++n)
+            nearLandmark[children[n]] = true;
+        for (int p = parentStarts[landmark];
+                 p < parentStarts[landmark + 1]; ++p)
+            nearLandmark[parents[p]] = true;
+    }
+
+    /**
+     * Stores the length of the shortest hypernym path from every descendant
+     * of {@code landmark} up to {@code landmark} in {@code landmarkDistances},
+     * by searching breadth first along the child links.
+     */
+    private static void search(int landmark,
+                               int[] childStarts,
+                               int[] children,
+                               byte[] landmarkDistances,
+                               int[] queue) {
+        Arrays.fill(landmarkDistances, (byte) UNREACHABLE);
+        landmarkDistances[landmark] = 0;
+        queue[0] = landmark;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int id = queue[head++];
+            int distance = landmarkDistances[id] & 0xff;
+            if (distance == MAX_DISTANCE)
+                continue;
+            for (int c = childStarts[id]; c < childStarts[id + 1]; ++c) {
+                int child = children[c];
+                if ((landmarkDistances[child] & 0xff) != UNREACHABLE)
+                    continue;
+                landmarkDistances[child] = (byte) (distance + 1);
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Returns the name used to match {@code synset} after deserialization.
+     */
+    private static String nameOf(Synset synset) {
+        return (synset.getLemmas().isEmpty()) ? null : synset.getName();
+    }
+
+    /**
+     * Returns the id of {@code synset}, or -1 if it is not part of this
+     * oracle.
+     */
+    private int idOf(Synset synset) {
+        HypernymIndex idx = index;
+        if (idx != null) {
+            int id = idx.indexOf(synset);
+            if (id >= 0 && id < names.length)
+                return id;
+        }
+
+        String name = nameOf(synset);
+        if (name == null)
+            return -1;
+        Integer id = nameIds().get(name);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Returns the mapping from {@link Synset} names to ids.
+     */
+    private Map<String, Integer> nameIds() {
+        Map<String, Integer> ids = nameIds;
+        if (ids == null) {
+            ids = new HashMap<String, Integer>();
+            for (int id = 0; id < names.length; ++id)
+                if (names[id] != null)
+                    ids.put(names[id], id);
+            nameIds = ids;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the number of {@link Synset}s covered by this oracle.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of landmarks.
+     */
+    public int numLandmarks() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the name of each landmark {@link Synset}.
+     */
+    public String[] getLandmarkNames() {
+        String[] landmarkNames = new String[landmarks.length];
+        for (int l = 0; l < landmarks.length; ++l)
+            landmarkNames[l] = names[landmarks[l]];
+        return landmarkNames;
+    }
+
+    /**
+     * Returns {@code true} if {@link #distance} returns exact distances.
+     */
+    public boolean isExactRefinement() {
+        return exactRefinement;
+    }
+
+    /**
+     * Sets whether {@link #distance} returns exact distances instead of the
+     * landmark upper bound.
+     */
+    public void setExactRefinement(boolean exactRefinement) {
+        this.exactRefinement = exactRefinement;
+    }
+
+    /**
+     * Returns the distance between {@code synset1} and {@code synset2}.  This
+     * is the exact distance if exact refinement is enabled, and the landmark
+     * upper bound otherwise.  -1 is returned when no distance is known.
+     */
+    public int distance(Synset synset1, Synset synset2) {
+        return (exactRefinement)
+            ? exactDistance(synset1, synset2)
+            : upperBound(synset1, synset2);
+    }
+
+    /**
+     * Returns the smallest landmark upper bound on the distance between {@code
+     * synset1} and {@code synset2}, or -1 if either {@link Synset} is unknown
+     * or no landmark is an ancestor of both of them.
+     */
+    public int upperBound(Synset synset1, Synset synset2) {
+        int id1 = idOf(synset1);
+        int id2 = idOf(synset2);
+        if (id1 < 0 || id2 < 0)
+            return -1;
+        if (id1 == id2)
+            return 0;
+        int upper = upperBound(id1, id2);
+        return (upper == Integer.MAX_VALUE) ? -1 : upper;
+    }
+
+    /**
+     * Returns the length of the shortest path between {@code synset1} and
+     * {@code synset2} through a common ancestor, or -1 if they share no
+     * ancestor or either is unknown.  This matches {@link
+     * SynsetRelations#shortestPathDistance}.
+     */
+    public int exactDistance(Synset synset1, Synset synset2) {
+        int id1 = idOf(synset1);
+        int id2 = idOf(synset2);
+        if (id1 < 0 || id2 < 0)
+            return -1;
+        if (id1 == id2)
+            return 0;
+        int distance = search(id1, id2, upperBound(id1, id2));
+        return (distance == Integer.MAX_VALUE) ? -1 : distance;
+    }
+
+    /**
+     * Returns the smallest landmark upper bound on the distance between
+     * {@code id1} and {@code id2}, or {@link Integer#MAX_VALUE} if no landmark
+     * is an ancestor of both.
+     */
+    private int upperBound(int id1, int id2) {
+        int upper = Integer.MAX_VALUE;
+        for (byte[] landmarkDistances : distances) {
+            int d1 = landmarkDistances[id1] & 0xff;
+            int d2 = landmarkDistances[id2] & 0xff;
+            if (d1 != UNREACHABLE && d2 != UNREACHABLE)
+                upper = Math.min(upper, d1 + d2);
+        }
+        return upper;
+    }
+
+    /**
+     * Returns the length of the shortest path from {@code id1} to {@code id2}
+     * through a common ancestor, or {@code bound} if there is no shorter
+     * path.  The ancestors of {@code id1} are found first, and then the
+     * ancestors of {@code id2} are searched breadth first until they are too
+     * far away to give a path shorter than the best one found.
+     */
+    private int search(int id1, int id2, int bound) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(names.length);
+        int epoch = scratch.nextEpoch();
+        int[] queue = scratch.queue;
+        int[] depths1 = scratch.depths1;
+        int[] stamps1 = scratch.stamps1;
+        int[] stamps2 = scratch.stamps2;
+
+        stamps1[id1] = epoch;
+        depths1[id1] = 0;
+        queue[0] = id1;
+        int tail = 1;
+        for (int head = 0; head < tail; ++head) {
+            int id = queue[head];
+            for (int p = parentStarts[id]; p < parentStarts[id + 1]; ++p) {
+                int parent = parents[p];
+                if (stamps1[parent] == epoch)
+                    continue;
+                stamps1[parent] = epoch;
+                depths1[parent] = depths1[id] + 1;
+                queue[tail++] = parent;
+            }
+        }
+
+        // Climb from the second synset one level at a time.  An ancestor at
+        // depth d can only improve the best path if d is less than it.
+        int best = bound;
+        stamps2[id2] = epoch;
+        queue[0] = id2;
+        int levelStart = 0;
+        int levelEnd = 1;
+        for (int depth = 0; levelStart < levelEnd && depth < best; ++depth) {
+            tail = levelEnd;
+            for (int q = levelStart; q < levelEnd; ++q) {
+                int id = queue[q];
+                if (stamps1[id] == epoch)
+                    best = Math.min(best, depths1[id] + depth);
+                for (int p = parentStarts[id];
+                         p < parentStarts[id + 1]; ++p) {
+                    int parent = parents[p];
+                    if (stamps2[parent] == epoch)
+                        continue;
+                    stamps2[parent] = epoch;
+                    queue[tail++] = parent;
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = tail;
+        }
+        return best;
+    }
+
+    /**
+     * Reusable buffers for the exact search.
+     */
+    private static class Scratch extends EpochScratch {
+
+        int[] queue = new int[0];
+
+        int[] depths1 = new int[0];
+
+        int[] stamps1 = new int[0];
+
+        int[] stamps2 = new int[0];
+
+        protected void allocate(int capacity) {
+            queue = new int[capacity];
+            depths1 = new int[capacity];
+            stamps1 = new int[capacity];
+            stamps2 = new int[capacity];
+        }
+
+        protected void clearStamps() {
+            Arrays.fill(stamps1, 0);
+            Arrays.fill(stamps2, 0);
+        }
+    }
+}
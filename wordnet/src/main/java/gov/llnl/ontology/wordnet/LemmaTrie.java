@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+
+/**
+ * An immutable, array backed trie over a set of lemmas.  Each lemma is given a
+ * dense id equal to it's position in sorted order, and lookups return these
+ * ids, so no intermediate strings are created while searching.  Besides exact
+ * lookups, the trie supports prefix queries, bounded edit distance queries,
+ * lookups that treat runs of whitespace as a single separator character, such
+ * as the underscores used in WordNet compounds, and longest match lookups over
+ * a sequence of tokens for compound detection.
+ *
+ * </p>
+ *
+ * Nodes are numbered in breadth first order.  The edges leaving node {@code
+ * n} are stored in {@code edgeStart[n]} to {@code edgeStart[n+1]} of {@code
+ * edgeChars} and {@code edgeTargets}, sorted by character.
+ *
+ * @author Keith Stevens
+ */
+public class LemmaTrie {
+
+    /**
+     * The lemmas in sorted order.  A lemma's id is it's index.
+     */
+    private final String[] lemmas;
+
+    /**
+     * The first edge of each node, with one extra entry marking the end of the
+     * last node's edges.
+     */
+    private final int[] edgeStart;
+
+    /**
+     * The character labelling each edge.
+     */
+    private final char[] edgeChars;
+
+    /**
+     * The node each edge leads to.
+     */
+    private final int[] edgeTargets;
+
+    /**
+     * The id of the lemma ending at each node, or -1.
+     */
+    private final int[] nodeLemma;
+
+    /**
+     * Creates a new {@link LemmaTrie} over {@code lemmas}.
+     */
+    public LemmaTrie(Collection<String> lemmas) {
+        this.lemmas = new TreeSet<String>(lemmas).toArray(new String[0]);
+
+        // A trie over n lemmas has at most one node per character plus the
+        // root.
+        int maxNodes = 1;
+        for (String lemma : this.lemmas)
+            maxNodes += lemma.length();
+        int[] starts = new int[maxNodes + 1];
+        char[] chars = new char[maxNodes];
+        int[] targets = new int[maxNodes];
+        int[] values = new int[maxNodes];
+
+        // Each queued node covers the lemmas in [lo, hi) that share a prefix
+        // of length depth.
+        int[] queueLo = new int[maxNodes];
+        int[] queueHi = new int[maxNodes];
+        int[] queueDepth = new int[maxNodes];
+        queueLo[0] = 0;
+        queueHi[0] = this.lemmas.length;
+        queueDepth[0] = 0;
+        int numNodes = 1;
+        int numEdges = 0;
+        for (int node = 0; node < numNodes; ++node) {
+            int lo = queueLo[node];
+            int hi = queueHi[node];
+            int depth = queueDepth[node];
+            starts[node] = numEdges;
+            values[node] = -1;
+
+            // Sorting puts the lemma equal to the prefix first.
+            if (lo < hi && this.lemmas[lo].length() == depth)
+                values[node] = lo++;
+
+            // Group the remaining lemmas by their next character.
+            while (lo < hi) {
+                char c = this.lemmas[lo].charAt(depth);
+                int end = lo + 1;
+                while (end < hi && this.lemmas[end].charAt(depth) == c)
+                    end++;
+                chars[numEdges] = c;
+                targets[numEdges] = numNodes;
+                numEdges++;
+                queueLo[numNodes] = lo;
+                queueHi[numNodes] = end;
+                queueDepth[numNodes] = depth + 1;
+                numNodes++;
+                lo = end;
+            }
+        }
+        starts[numNodes] = numEdges;
+
+        edgeStart = Arrays.copyOf(starts, numNodes + 1);
+        edgeChars = Arrays.copyOf(chars, numEdges);
+        edgeTargets = Arrays.copyOf(targets, numEdges);
+        nodeLemma = Arrays.copyOf(values, numNodes);
+    }
+
+    /**
+     * Returns the number of lemmas in the trie.
+     */
+    public int size() {
+        return lemmas.length;
+    }
+
+    /**
+     * Returns the number of nodes in the trie.
+     */
+    public int numNodes() {
+        return nodeLemma.length;
+    }
+
+    /**
+     * Returns the lemma with id {@code id}.
+     */
+    public String getLemma(int id) {
+        return lemmas[id];
+    }
+
+    /**
+     * Returns the node reached from {@code node} by {@code c}, or -1.
+     */
+    private int child(int node, char c) {
+        int lo = edgeStart[node];
+        int hi = edgeStart[node+1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c)
+                lo = mid + 1;
+            else if (midChar > c)
+                hi = mid - 1;
+            else
+                return edgeTargets[mid];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the node reached by {@code chars} from {@code node}, or -1.
+     */
+    private int walk(int node, CharSequence chars) {
+        for (int i = 0; i < chars.length() && node >= 0; ++i)
+            node = child(node, chars.charAt(i));
+        return node;
+    }
+
+    /**
+     * Returns the id of {@code lemma}, or -1 if it is not in the trie.
+     */
+    public int indexOf(CharSequence lemma) {
+        int node = walk(0, lemma);
+        return (node < 0) ? -1 : nodeLemma[node];
+    }
+
+    /**
+     * Returns the id of {@code form} after each run of whitespace in it has
+     * been replaced by {@code separator}, or -1 if there is no such lemma.
+     * This is equivalent to {@code indexOf(form.replaceAll("\\s+",
+     * separator))} without creating the replaced string.
+     */
+    public int indexOf(CharSequence form, char separator) {
+        int node = 0;
+        boolean inSpace = false;
+        for (int i = 0; i < form.length() && node >= 0; ++i) {
+            char c = form.charAt(i);
+            if (isSpace(c)) {
+                if (!inSpace)
+                    node = child(node, separator);
+                inSpace = true;
+            } else {
+                node = child(node, c);
+                inSpace = false;
+            }
+        }
+        return (node < 0) ? -1 : nodeLemma[node];
+    }
+
+    /**
+     * Returns {@code true} if {@code c} is matched by the {@code \\s} regular
+     * expression class.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' ||
+               c == '\f' || c == '\r';
+    }
+
+    /**
+     * Returns the id of the longest lemma formed by joining {@code tokens},
+     * starting at {@code start}, with {@code separator}, or -1 if no lemma
+     * starts with {@code tokens.get(start)}.
+     */
+    public int longestMatch(List<? extends CharSequence> tokens,
+                            int start,
+                            char separator) {
+        int best = -1;
+        int node = 0;
+        for (int t = start; t < tokens.size() && node >= 0; ++t) {
+            if (t > start)
+                node = child(node, separator);
+            if (node >= 0)
+                node = walk(node, tokens.get(t));
+            if (node >= 0 && nodeLemma[node] >= 0)
+                best = nodeLemma[node];
+        }
+        return best;
+    }
+
+    /**
+     * Returns the ids of every lemma starting with {@code prefix}, in sorted
+     * order.
+     */
+    public int[] withPrefix(CharSequence prefix) {
+        int node = walk(0, prefix);
+        if (node < 0 || lemmas.length == 0)
+            return new int[0];
+
+        // Lemma ids follow sorted order, so the lemmas below a node form a
+        // contiguous range.  The first is found by following the first edge
+        // of each node and the last by following the last edge.
+        int n = node;
+        while (nodeLemma[n] < 0)
+            n = edgeTargets[edgeStart[n]];
+        int first = nodeLemma[n];
+        n = node;
+        while (edgeStart[n] < edgeStart[n+1])
+            n = edgeTargets[edgeStart[n+1] - 1];
+        int last = nodeLemma[n];
+
+        int[] ids = new int[last - first + 1];
+        for (int i = 0; i < ids.length; ++i)
+            ids[i] = first + i;
+        return ids;
+    }
+
+    /**
+     * Returns the ids of every lemma within {@code maxEdits} insertions,
+     * deletions, or substitutions of {@code form}, in sorted order.
+     */
+    public int[] withinDistance(CharSequence form, int maxEdits) {
+        // Search the trie depth first, keeping one row of the edit distance
+        // table for each node on the current path.
+        int maxDepth = 0;
+        for (String lemma : lemmas)
+            maxDepth = Math.max(maxDepth, lemma.length());
+        int[][] rows = new int[maxDepth + 1][form.length() + 1];
+        for (int i = 0; i <= form.length(); ++i)
+            rows[0][i] = i;
+
+        BitSet found = new BitSet(lemmas.length);
+        search(0, 0, form, maxEdits, rows, found);
+
+        int[] ids = new int[found.cardinality()];
+        for (int i = 0, id = found.nextSetBit(0); id >= 0;
+                id = found.nextSetBit(id+1))
+            ids[i++] = id;
+        return ids;
+    }
+
+    /**
+     * Adds every lemma below {@code node} that is within {@code maxEdits} of
+     * {@code form} to {@code found}.  {@code rows[depth]} holds the edit
+     * distances between the prefix ending at {@code node} and each prefix of
+     * {@code form}.
+     */
+    private void search(int node,
+                        int depth,
+                        CharSequence form,
+                        int maxEdits,
+                        int[][] rows,
+                        BitSet found) {
+        int width = form.length() + 1;
+        int[] row = rows[depth];
+        if (nodeLemma[node] >= 0 && row[width-1] <= maxEdits)
+            found.set(nodeLemma[node]);
+
+        for (int e = edgeStart[node]; e < edgeStart[node+1]; ++e) {
+            char c = edgeChars[e];
+            int[] next = rows[depth+1];
+            next[0] = row[0] + 1;
+            int rowMin = next[0];
+            for (int i = 1; i < width; ++i) {
+                int cost = (form.charAt(i-1) == c) ? 0 : 1;
+                next[i] = Math.min(Math.min(next[i-1] + 1, row[i] + 1),
+                                   row[i-1] + cost);
+                rowMin = Math.min(rowMin, next[i]);
+            }
+
+            // Every lemma below the child is at least rowMin edits away.
+            if (rowMin <= maxEdits)
+                search(edgeTargets[e], depth + 1, form, maxEdits, rows, found);
+        }
+    }
+}
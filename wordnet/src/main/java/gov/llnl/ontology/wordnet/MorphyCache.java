@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A size bounded, thread safe cache from a surface form and part of speech to
+ * the {@link Synset}s that morphy resolves the form to, along with the base
+ * lemma used to reach each {@link Synset}.  This replaces recording the morphy
+ * mapping inside every {@link Synset} that is returned from a lookup, which
+ * grows without bound in long running jobs that see many surface forms.
+ *
+ * </p>
+ *
+ * The cache is split into a fixed number of segments, each guarded by it's own
+ * lock and evicting the least recently used entry once the segment is full.
+ * Missing entries are resolved by the owning {@link WordNetCorpusReader}.  Hit,
+ * miss, and eviction counts are tracked for reporting.
+ *
+ * @author Keith Stevens
+ */
+public class MorphyCache {
+
+    /**
+     * The default maximum number of entries held by a {@link MorphyCache}.
+     */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    /**
+     * The number of independently locked segments.
+     */
+    private static final int NUM_SEGMENTS = 16;
+
+    /**
+     * The reader used to resolve missing entries.
+     */
+    private final WordNetCorpusReader reader;
+
+    /**
+     * The least recently used segments of the cache.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    private final AtomicLong hits;
+
+    /**
+     * The number of lookups that had to be resolved by the reader.
+     */
+    private final AtomicLong misses;
+
+    /**
+     * The number of entries evicted to keep the cache within it's capacity.
+     */
+    private final AtomicLong evictions;
+
+    /**
+     * The number of times the cache has been cleared.  Entries resolved before
+     * a clear are not stored, as they may refer to an old lemma mapping.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Creates a new {@link MorphyCache} holding at most {@code capacity}
+     * entries that resolves missing entries with {@code reader}.
+     */
+    MorphyCache(WordNetCorpusReader reader, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException(
+                    "The morphy cache capacity must be positive");
+        this.reader = reader;
+        int segmentCapacity = Math.max(1, capacity / NUM_SEGMENTS);
+        segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; ++i)
+            segments[i] = new Segment(segmentCapacity);
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+        generation = new AtomicLong();
+    }
+
+    /**
+     * Returns the {@link Entry} for {@code form} and {@code pos}, resolving
+     * and caching it if it is not already cached.
+     */
+    Entry lookup(String form, PartsOfSpeech pos) {
+        Key key = new Key(form, pos);
+        Segment segment = segmentFor(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+
+        // Resolve the entry without holding the lock.  Two threads may both
+        // resolve the same form, but they will produce equal entries.  If the
+        // cache is cleared while resolving, the entry may be out of date so it
+        // is returned but not cached.
+        misses.incrementAndGet();
+        long resolvedGeneration = generation.get();
+        entry = reader.resolveMorphy(form, pos);
+        synchronized (segment) {
+            if (resolvedGeneration == generation.get())
+                segment.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the base lemma that {@code form} was resolved to when finding
+     * {@code synset}, or {@code null} if {@code synset} is not one of the
+     * {@link Synset}s for {@code form}.
+     */
+    public String getLemma(String form, Synset synset) {
+        return lookup(form, synset.getPartOfSpeech()).getLemma(synset);
+    }
+
+    /**
+     * Removes every entry from the cache.  This must be called whenever the
+     * lemma mappings of the reader change.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that were not cached.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted from the cache.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     */
+    public double hitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total == 0) ? 0 : h / (double) total;
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     */
+    public String toString() {
+        return String.format(
+                "MorphyCache[size=%d, hits=%d, misses=%d, evictions=%d, " +
+                "hitRate=%.3f]",
+                size(), hits(), misses(), evictions(), hitRate());
+    }
+
+    /**
+     * Returns the segment responsible for {@code key}.
+     */
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & 0x7fffffff) % NUM_SEGMENTS];
+    }
+
+    /**
+     * The resolved {@link Synset}s for a surface form and the base lemma used
+     * to reach each of them.
+     */
+    static class Entry {
+
+        /**
+         * The resolved {@link Synset}s, in the order returned by the reader.
+         * This array is shared by every lookup and must not be modified.
+         */
+        final Synset[] synsets;
+
+        /**
+         * The base lemma used to reach each {@link Synset}.
+         */
+        final String[] lemmas;
+
+        /**
+         * Creates a new {@link Entry}.
+         */
+        Entry(Synset[] synsets, String[] lemmas) {
+            this.synsets = synsets;
+            this.lemmas = lemmas;
+        }
+
+        /**
+         * Returns the base lemma used to reach {@code synset}, or {@code null}
+         * if {@code synset} is not part of this entry.
+         */
+        String getLemma(Synset synset) {
+            for (int i = 0; i < synsets.length; ++i)
+                if (synsets[i] == synset)
+                    return lemmas[i];
+            return null;
+        }
+    }
+
+    /**
+     * A cache key combining a surface form and a part of speech.
+     */
+    private static class Key {
+
+        private final String form;
+
+        private final PartsOfSpeech pos;
+
+        public Key(String form, PartsOfSpeech pos) {
+            this.form = form;
+            this.pos = pos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return pos == other.pos && form.equals(other.form);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode() {
+            return 31 * form.hashCode() + pos.ordinal();
+        }
+    }
+
+    /**
+     * A single least recently used segment of the cache.  All access must be
+     * synchronized on the segment.
+     */
+    private class Segment extends LinkedHashMap<Key, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        public Segment(int capacity) {
+            super(16, .75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,780 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * A versioned layer of changes on top of an {@link OntologyReader}.  Every
+ * modification made through an {@link OntologyOverlay}, such as adding or
+ * removing a {@link Synset} or linking two {@link Synset}s, is recorded in the
+ * overlay and never applied to the base {@link OntologyReader}, which must not
+ * be modified while overlays on it are in use.  This lets a search keep many
+ * candidate ontologies alive at once without copying WordNet.
+ *
+ * </p>
+ *
+ * Overlays form a persistent chain.  {@link #fork()} freezes the current
+ * overlay and returns a new, empty overlay stacked on top of it in constant
+ * time.  Discarding a fork simply means dropping the reference to it.  A
+ * frozen overlay can no longer be modified, so any number of forks, possibly
+ * in different threads, can safely share it.  Lookups walk the chain from the
+ * newest layer to the base, so their cost grows with the number of forks
+ * between an overlay and the base.
+ *
+ * </p>
+ *
+ * Relations on {@link Synset}s in the base are stored in the {@link Synset}s
+ * themselves, so relations added through an overlay are only visible through
+ * {@link #getRelations(Synset, String)}.  {@link Synset}s created for an
+ * overlay can be linked directly, as they are not shared with the base.
+ *
+ * @author Keith Stevens
+ */
+public class OntologyOverlay implements OntologyReader {
+
+    /**
+     * The {@link OntologyReader} holding the unmodified ontology.
+     */
+    private final OntologyReader base;
+
+    /**
+     * The overlay that this overlay was forked from, or {@code null} if this
+     * overlay sits directly on {@code base}.
+     */
+    private final OntologyOverlay parent;
+
+    /**
+     * The lemma mappings changed in this layer.  Each value holds the
+     * complete set of {@link Synset}s for the lemma for each part of speech
+     * and is never modified once stored.
+     */
+    private final Map<String, Synset[][]> lemmaChanges;
+
+    /**
+     * The {@link Synset}s added, mapped to {@code true}, or removed, mapped
+     * to {@code false}, in this layer.
+     */
+    private final Map<Synset, Boolean> synsetChanges;
+
+    /**
+     * The relations changed in this layer.  Each inner set is the complete,
+     * read only set of related {@link Synset}s for a relation.
+     */
+    private final Map<Synset, Map<String, Set<Synset>>> relationChanges;
+
+    /**
+     * Set to {@code true} once this overlay has been forked, after which it
+     * may no longer be modified.
+     */
+    private volatile boolean frozen;
+
+    /**
+     * Creates a new, empty {@link OntologyOverlay} on top of {@code base}.
+     */
+    public OntologyOverlay(OntologyReader base) {
+        this(base, null);
+    }
+
+    /**
+     * Creates a new, empty {@link OntologyOverlay} on top of {@code parent}.
+     */
+    private OntologyOverlay(OntologyReader base, OntologyOverlay parent) {
+        this.base = base;
+        this.parent = parent;
+        lemmaChanges = Maps.newHashMap();
+        synsetChanges = Maps.newHashMap();
+        relationChanges = Maps.newHashMap();
+    }
+
+    /**
+     * Freezes this overlay and returns a new, modifiable overlay that starts
+     * with every change made to this overlay.
+     */
+    public OntologyOverlay fork() {
+        frozen = true;
+        return new OntologyOverlay(base, this);
+    }
+
+    /**
+     * Returns the {@link OntologyReader} that this overlay modifies.
+     */
+    public OntologyReader getBase() {
+        return base;
+    }
+
+    /**
+     * Returns {@code true} if this overlay has been forked and can no longer
+     * be modified.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Throws an {@link IllegalStateException} if this overlay is frozen.
+     */
+    private void checkModifiable() {
+        if (frozen)
+            throw new IllegalStateException(
+                    "Cannot modify an overlay that has been forked");
+    }
+
+    /**
+     * Returns the {@link Synset}s mapped to {@code lemma} in the newest layer
+     * that changed it, or {@code null} if no layer changed it.
+     */
+    private Synset[][] changedLemma(String lemma) {
+        for (OntologyOverlay o = this; o != null; o = o.parent) {
+            Synset[][] lemmaSynsets = o.lemmaChanges.get(lemma);
+            if (lemmaSynsets != null)
+                return lemmaSynsets;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the current {@link Synset}s mapped to {@code lemma} for each
+     * part of speech, or {@code null} if the lemma is unknown.
+     */
+    private Synset[][] currentLemma(String lemma) {
+        Synset[][] lemmaSynsets = changedLemma(lemma);
+        if (lemmaSynsets != null)
+            return lemmaSynsets;
+
+        boolean known = false;
+        PartsOfSpeech[] posValues = PartsOfSpeech.values();
+        lemmaSynsets = new Synset[posValues.length][];
+        for (PartsOfSpeech pos : posValues) {
+            Synset[] posSynsets = base.getSynsets(lemma, pos, false);
+            known |= posSynsets != null;
+            lemmaSynsets[pos.ordinal()] = (posSynsets == null)
+                ? new Synset[0]
+                : posSynsets;
+        }
+        return (known) ? lemmaSynsets : null;
+    }
+
+    /**
+     * Returns {@code true} if any layer has changed a lemma mapping.
+     */
+    private boolean hasLemmaChanges() {
+        for (OntologyOverlay o = this; o != null; o = o.parent)
+            if (!o.lemmaChanges.isEmpty())
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns every lemma whose mapping was changed in any layer.
+     */
+    private Set<String> changedLemmas() {
+        Set<String> lemmas = Sets.newHashSet();
+        for (OntologyOverlay o = this; o != null; o = o.parent)
+            lemmas.addAll(o.lemmaChanges.keySet());
+        return lemmas;
+    }
+
+    /**
+     * Returns every {@link Synset} that was added or removed in any layer.
+     */
+    private Set<Synset> changedSynsets() {
+        Set<Synset> synsets = Sets.newHashSet();
+        for (OntologyOverlay o = this; o != null; o = o.parent)
+            synsets.addAll(o.synsetChanges.keySet());
+        return synsets;
+    }
+
+    /**
+     * Returns {@code true} if the newest layer that changed {@code synset}
+     * added it, {@code false} if it removed it, or {@code null} if no layer
+     * changed it.
+     */
+    private Boolean changedSynset(Object synset) {
+        for (OntologyOverlay o = this; o != null; o = o.parent) {
+            Boolean added = o.synsetChanges.get(synset);
+            if (added != null)
+                return added;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link Synset} changes from every layer, keeping only the
+     * newest change for each {@link Synset}.
+     */
+    private Map<Synset, Boolean> allSynsetChanges() {
+        Map<Synset, Boolean> changes = Maps.newHashMap();
+        for (OntologyOverlay o = this; o != null; o = o.parent)
+            for (Map.Entry<Synset, Boolean> e : o.synsetChanges.entrySet())
+                if (!changes.containsKey(e.getKey()))
+                    changes.put(e.getKey(), e.getValue());
+        return changes;
+    }
+
+    /**
+     * Returns the {@link Synset}s related to {@code synset} by {@code
+     * relation}, including any changes made through this overlay.
+     */
+    public Set<Synset> getRelations(Synset synset, Relation relation) {
+        return getRelations(synset, relation.toString());
+    }
+
+    /**
+     * Returns the {@link Synset}s related to {@code synset} by {@code
+     * relation}, including any changes made through this overlay.
+     */
+    public Set<Synset> getRelations(Synset synset, String relation) {
+        for (OntologyOverlay o = this; o != null; o = o.parent) {
+            Map<String, Set<Synset>> changes = o.relationChanges.get(synset);
+            if (changes != null && changes.containsKey(relation))
+                return changes.get(relation);
+        }
+        return synset.getRelations(relation);
+    }
+
+    /**
+     * Records that {@code synset} is linked to {@code related} by {@code
+     * relation} in this overlay.  Returns {@code true} if the link is new.
+     */
+    public boolean addRelation(Synset synset,
+                               Relation relation,
+                               Synset related) {
+        return addRelation(synset, relation.toString(), related);
+    }
+
+    /**
+     * Records that {@code synset} is linked to {@code related} by {@code
+     * relation} in this overlay.  Returns {@code true} if the link is new.
+     */
+    public boolean addRelation(Synset synset,
+                               String relation,
+                               Synset related) {
+        checkModifiable();
+        Set<Synset> current = getRelations(synset, relation);
+        if (current.contains(related))
+            return false;
+        Set<Synset> updated = Sets.newHashSet(current);
+        updated.add(related);
+        setRelations(synset, relation, updated);
+        return true;
+    }
+
+    /**
+     * Records that {@code synset} is no longer linked to {@code related} by
+     * {@code relation} in this overlay.  Returns {@code true} if the link
+     * existed.
+     */
+    public boolean removeRelation(Synset synset,
+                                  Relation relation,
+                                  Synset related) {
+        return removeRelation(synset, relation.toString(), related);
+    }
+
+    /**
+     * Records that {@code synset} is no longer linked to {@code related} by
+     * {@code relation} in this overlay.  Returns {@code true} if the link
+     * existed.
+     */
+    public boolean removeRelation(Synset synset,
+                                  String relation,
+                                  Synset related) {
+        checkModifiable();
+        Set<Synset> current = getRelations(synset, relation);
+        if (!current.contains(related))
+            return false;
+        Set<Synset> updated = Sets.newHashSet(current);
+        updated.remove(related);
+        setRelations(synset, relation, updated);
+        return true;
+    }
+
+    /**
+     * Stores {@code related} as the complete set of {@link Synset}s linked to
+     * {@code synset} by {@code relation} in this layer.
+     */
+    private void setRelations(Synset synset,
+                              String relation,
+                              Set<Synset> related) {
+        Map<String, Set<Synset>> changes = relationChanges.get(synset);
+        if (changes == null) {
+            changes = Maps.newHashMap();
+            relationChanges.put(synset, changes);
+        }
+        changes.put(relation, Collections.unmodifiableSet(related));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator<String> morphy(String form) {
+        return base.morphy(form);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterator<String> morphy(String form, PartsOfSpeech pos) {
+        return base.morphy(form, pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addSynset(Synset synset) {
+        addSynset(synset, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addSynset(Synset synset, int index) {
+        checkModifiable();
+        int pos = synset.getPartOfSpeech().ordinal();
+        synsetChanges.put(synset, true);
+
+        Set<String> seenLemmas = Sets.newHashSet();
+        for (Lemma lemma : synset.getLemmas()) {
+            String lemmaName = lemma.getLemmaName().toLowerCase();
+            if (!seenLemmas.add(lemmaName))
+                continue;
+
+            Synset[][] lemmaSynsets = currentLemma(lemmaName);
+            if (lemmaSynsets == null) {
+                lemmaSynsets = new Synset[PartsOfSpeech.values().length][];
+                for (int i = 0; i < lemmaSynsets.length; ++i)
+                    lemmaSynsets[i] = new Synset[0];
+            } else
+                lemmaSynsets = lemmaSynsets.clone();
+
+            // Check that the index is valid.
+            Synset[] posSynsets = lemmaSynsets[pos];
+            if (index > posSynsets.length || index < -1)
+                throw new IllegalArgumentException(
+                        "Cannot add " + synset.getName() + " to lemma " + 
+                        lemmaName + " at position " + index + 
+                        " .    The index is out of bounds.");
+            int insertAt = (index == -1) ? posSynsets.length : index;
+
+            Synset[] newPosSynsets = new Synset[posSynsets.length + 1];
+            System.arraycopy(posSynsets, 0, newPosSynsets, 0, insertAt);
+            newPosSynsets[insertAt] = synset;
+            System.arraycopy(posSynsets, insertAt, newPosSynsets, insertAt+1,
+                             posSynsets.length - insertAt);
+            lemmaSynsets[pos] = newPosSynsets;
+            lemmaChanges.put(lemmaName, lemmaSynsets);
+        }
+    }
+
+    /**
+     * {@inheritDoc}  The reflexive links from related {@link Synset}s are
+     * removed in this overlay only.
+     */
+    public void removeSynset(Synset synset) {
+        checkModifiable();
+        synsetChanges.put(synset, false);
+
+        // Remove reflexive relations from other synsets to this synset.
+        for (String relationStr : synset.getKnownRelationTypes()) {
+            Relation relation = Relation.fromId(relationStr);
+            if (relation == null || relation.reflexive() == null)
+                continue;
+            for (Synset related : getRelations(synset, relation))
+                removeRelation(related, relation.reflexive(), synset);
+        }
+
+        // Remove synset from each lemma mapping.
+        Set<String> seenLemmas = Sets.newHashSet();
+        for (Lemma lemma : synset.getLemmas()) {
+            String lemmaName = lemma.getLemmaName().toLowerCase();
+            if (!seenLemmas.add(lemmaName))
+                continue;
+            Synset[][] lemmaSynsets = currentLemma(lemmaName);
+            if (lemmaSynsets == null) 
+                continue;
+            lemmaSynsets = lemmaSynsets.clone();
+            lemmaSynsets[synset.getPartOfSpeech().ordinal()] = without(
+                    lemmaSynsets[synset.getPartOfSpeech().ordinal()], synset);
+            lemmaChanges.put(lemmaName, lemmaSynsets);
+        }
+    }
+
+    /**
+     * {@inheritDoc}  Unlike {@link WordNetCorpusReader}, the sense numbers of
+     * the remaining {@link Synset}s are not changed, since they are shared
+     * with the base.
+     */
+    public void replaceSynset(Synset synset, Synset replacement) {
+        checkModifiable();
+        if (synset.getPartOfSpeech() != replacement.getPartOfSpeech())
+            throw new IllegalArgumentException(
+                    "Cannot replace a synset with another synset having a " +
+                    "different part of speech.");
+        synsetChanges.put(synset, false);
+        synsetChanges.put(replacement, true);
+
+        Set<String> replacementLemmas = Sets.newHashSet();
+        for (Lemma lemma : replacement.getLemmas())
+            replacementLemmas.add(lemma.getLemmaName().toLowerCase());
+
+        int pos = synset.getPartOfSpeech().ordinal();
+        Set<String> seenLemmas = Sets.newHashSet();
+        for (Lemma lemma : synset.getLemmas()) {
+            String lemmaName = lemma.getLemmaName().toLowerCase();
+            if (!seenLemmas.add(lemmaName))
+                continue;
+            Synset[][] lemmaSynsets = currentLemma(lemmaName);
+            if (lemmaSynsets == null)
+                continue;
+            lemmaSynsets = lemmaSynsets.clone();
+
+            // If the replacement is already mapped from this lemma, drop the
+            // old synset, otherwise point the mapping at the replacement.
+            if (replacementLemmas.contains(lemmaName))
+                lemmaSynsets[pos] = without(lemmaSynsets[pos], synset);
+            else {
+                lemmaSynsets[pos] = lemmaSynsets[pos].clone();
+                for (int s = 0; s < lemmaSynsets[pos].length; ++s)
+                    if (lemmaSynsets[pos][s] == synset)
+                        lemmaSynsets[pos][s] = replacement;
+            }
+            lemmaChanges.put(lemmaName, lemmaSynsets);
+        }
+    }
+
+    /**
+     * Returns a copy of {@code synsets} without {@code synset}.
+     */
+    private static Synset[] without(Synset[] synsets, Synset synset) {
+        List<Synset> kept = Lists.newArrayList();
+        for (Synset s : synsets)
+            if (s != synset)
+                kept.add(s);
+        return kept.toArray(new Synset[kept.size()]);
+    }
+
+    /**
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to this overlay.
+     */
+    public Set<String> wordnetTerms() {
+        return new LayeredSet<String>(base.wordnetTerms()) {
+            Boolean changed(Object term) {
+                return (term instanceof String &&
+                        changedLemma((String) term) != null) ? true : null;
+            }
+
+            Set<String> changedElements() {
+                return changedLemmas();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to this overlay.
+     */
+    public Set<String> wordnetTerms(final PartsOfSpeech pos) {
+        return new LayeredSet<String>(base.wordnetTerms(pos)) {
+            Boolean changed(Object term) {
+                if (!(term instanceof String))
+                    return null;
+                Synset[][] lemmaSynsets = changedLemma((String) term);
+                return (lemmaSynsets == null)
+                    ? null
+                    : lemmaSynsets[pos.ordinal()].length != 0;
+            }
+
+            Set<String> changedElements() {
+                return changedLemmas();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to this overlay.
+     */
+    public Set<Synset> allSynsets() {
+        return new LayeredSet<Synset>(base.allSynsets()) {
+            Boolean changed(Object synset) {
+                return changedSynset(synset);
+            }
+
+            Set<Synset> changedElements() {
+                return changedSynsets();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to this overlay.
+     */
+    public Set<Synset> allSynsets(final PartsOfSpeech pos) {
+        return new LayeredSet<Synset>(base.allSynsets(pos)) {
+            Boolean changed(Object synset) {
+                return (synset instanceof Synset &&
+                        ((Synset) synset).getPartOfSpeech() == pos)
+                    ? changedSynset(synset)
+                    : null;
+            }
+
+            Set<Synset> changedElements() {
+                return changedSynsets();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Synset[] getSynsets(String lemma) {
+        List<Synset> allSynsets = Lists.newArrayList();
+        for (PartsOfSpeech pos : PartsOfSpeech.values())
+            allSynsets.addAll(Arrays.asList(getSynsets(lemma, pos)));
+        return allSynsets.toArray(new Synset[allSynsets.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Synset[] getSynsets(String lemma, PartsOfSpeech pos) {
+        return getSynsets(lemma, pos, true);
+    }
+
+    /**
+     * {@inheritDoc}  Morphological variations are resolved by the base
+     * unless this overlay has changed the lemma or one of it's variations.
+     */
+    public Synset[] getSynsets(String lemma,
+                               PartsOfSpeech pos,
+                               boolean useMorphy) {
+        if (!useMorphy) {
+            Synset[][] lemmaSynsets = changedLemma(lemma);
+            return (lemmaSynsets == null)
+                ? base.getSynsets(lemma, pos, false)
+                : lemmaSynsets[pos.ordinal()];
+        }
+
+        // If pos is null, try searching with the fixed lemma.
+        if (pos == null)
+            return getSynsets(lemma.replaceAll("\\s+", "_"));
+
+        if (!hasLemmaChanges())
+            return base.getSynsets(lemma, pos, true);
+
+        // Only resolve the lemma here if the overlay changed one of the forms
+        // that morphy would consider.
+        String fixedLemma = lemma.replaceAll("\\s+", "_");
+        boolean changed = changedLemma(fixedLemma) != null;
+        List<String> forms = Lists.newArrayList();
+        for (Iterator<String> it = morphy(fixedLemma, pos); it.hasNext(); ) {
+            String form = it.next();
+            forms.add(form);
+            changed |= changedLemma(form) != null;
+        }
+        if (!changed)
+            return base.getSynsets(lemma, pos, true);
+
+        Synset[] synsets = getSynsets(fixedLemma, pos, false);
+        if (synsets != null && synsets.length > 0)
+            return synsets;
+
+        List<Synset> morphySynsets = Lists.newArrayList();
+        for (String form : forms) {
+            synsets = getSynsets(form, pos, false);
+            if (synsets != null)
+                morphySynsets.addAll(Arrays.asList(synsets));
+        }
+        return morphySynsets.toArray(new Synset[morphySynsets.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Synset getSynset(String fullSynsetName) {
+        fullSynsetName = fullSynsetName.trim();
+
+        int lastDot = fullSynsetName.lastIndexOf(".");
+        int secondDot = fullSynsetName.lastIndexOf(".", lastDot-1);
+        int senseNum = Integer.parseInt(fullSynsetName.substring(lastDot+1));
+        PartsOfSpeech pos = WordNetCorpusReader.POS_MAP.get(
+                fullSynsetName.substring(secondDot+1, lastDot));
+        String lemma = fullSynsetName.substring(0, secondDot);
+        return getSynset(lemma, pos, senseNum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Synset getSynset(String lemma, PartsOfSpeech pos, int senseNum) {
+        Synset[][] lemmaSynsets = changedLemma(lemma);
+        if (lemmaSynsets == null)
+            return base.getSynset(lemma, pos, senseNum);
+        Synset[] lemmaPosSynsets = lemmaSynsets[pos.ordinal()];
+        if (senseNum < 1 || senseNum > lemmaPosSynsets.length)
+            return null;
+        return lemmaPosSynsets[senseNum-1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Synset getSynsetBySenseKey(String senseKey) {
+        Map<Synset, Boolean> changes = allSynsetChanges();
+        for (Map.Entry<Synset, Boolean> e : changes.entrySet())
+            if (e.getValue() && e.getKey().getSenseKeys().contains(senseKey))
+                return e.getKey();
+        Synset synset = base.getSynsetBySenseKey(senseKey);
+        return (synset == null || changes.get(synset) == Boolean.FALSE)
+            ? null
+            : synset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getMaxDepth(PartsOfSpeech pos) {
+        int maxDepth = base.getMaxDepth(pos);
+        for (Map.Entry<Synset, Boolean> e : allSynsetChanges().entrySet())
+            if (e.getValue() && e.getKey().getPartOfSpeech() == pos)
+                maxDepth = Math.max(maxDepth, e.getKey().getMaxDepth());
+        return maxDepth;
+    }
+
+    /**
+     * A read only view of a {@link Set} from the base with the changes from
+     * every layer applied on top.  Nothing from the base is copied: an element
+     * is a member if the newest layer that changed it added it, or if no layer
+     * changed it and the base set contains it.
+     */
+    private abstract class LayeredSet<T> extends AbstractSet<T> {
+
+        private final Set<T> baseSet;
+
+        public LayeredSet(Set<T> baseSet) {
+            this.baseSet = baseSet;
+        }
+
+        /**
+         * Returns {@code true} if the newest layer that changed {@code
+         * element} added it, {@code false} if it removed it, or {@code null}
+         * if the base decides.
+         */
+        abstract Boolean changed(Object element);
+
+        /**
+         * Returns every element that any layer may have changed.
+         */
+        abstract Set<T> changedElements();
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean contains(Object o) {
+            Boolean added = changed(o);
+            return (added == null) ? baseSet.contains(o) : added;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            int size = baseSet.size();
+            for (T element : changedElements()) {
+                Boolean added = changed(element);
+                if (added == null)
+                    continue;
+                boolean inBase = baseSet.contains(element);
+                if (added && !inBase)
+                    size++;
+                else if (!added && inBase)
+                    size--;
+            }
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}  Members of the base set are returned first, followed
+         * by the elements that only the overlay added.
+         */
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                Iterator<T> baseIter = baseSet.iterator();
+                Iterator<T> addedIter = null;
+                T next = advance();
+
+                T advance() {
+                    while (baseIter.hasNext()) {
+                        T element = baseIter.next();
+                        if (changed(element) != Boolean.FALSE)
+                            return element;
+                    }
+                    if (addedIter == null)
+                        addedIter = changedElements().iterator();
+                    while (addedIter.hasNext()) {
+                        T element = addedIter.next();
+                        if (changed(element) == Boolean.TRUE &&
+                            !baseSet.contains(element))
+                            return element;
+                    }
+                    return null;
+                }
+
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                public T next() {
+                    if (next == null)
+                        throw new NoSuchElementException();
+                    T element = next;
+                    next = advance();
+                    return element;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException(
+                            "Cannot modify an OntologyOverlay through a view");
+                }
+            };
+        }
+    }
+}
@@ -153,6 +153,13 @@ public interface OntologyReader {
      */
     public Synset getSynset(String lemma, PartsOfSpeech pos, int senseNum);
 
+    /**
+     * Returns the {@link Synset} identified by {@code senseKey}, such as
+     * "dog%1:05:00::", or {@code null} if no {@link Synset} has that sense
+     * key.
+     */
+    public Synset getSynsetBySenseKey(String senseKey);
+
     /**
      * Returns the maximum depth of any {@link Synset} chain in this {@link
      * OntologyReader}.
@@ -135,6 +135,13 @@ public class OntologyReaderAdaptor implements OntologyReader {
         return reader.getSynset(lemma, pos, senseNum);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Synset getSynsetBySenseKey(String senseKey) {
+        return reader.getSynsetBySenseKey(senseKey);
+    }
+
     /**
      * {@inheriDoc}
      */
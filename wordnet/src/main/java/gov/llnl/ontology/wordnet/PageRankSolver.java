@@ -0,0 +1,787 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.util.WorkQueueUtil;
+
+import edu.ucla.sspace.util.WorkQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Computes PageRank scores by power iteration over a {@link TransitionMatrix}.
+ * Each iteration computes
+ *
+ * <pre>
+ *   r'[j] = w * sum_i P[i][j] r[i] + (w * d + (1 - w)) * t[j]
+ * </pre>
+ *
+ * where {@code w} is the probability of following a link, {@code t} is the
+ * vector of teleportation probabilities, and {@code d} is the total score of
+ * the dangling {@link Synset}s, whose score is redistributed according to
+ * {@code t} instead of being lost.  Scores are kept in two {@code double}
+ * arrays that are swapped after each iteration.  Iteration stops once the L1
+ * norm of the change in scores falls below the tolerance, or after the
+ * maximum number of iterations.
+ *
+ * </p>
+ *
+ * Rows are processed in fixed size chunks.  When more than one thread is
+ * requested, the chunks of each iteration are split between that many tasks
+ * on the shared {@link WorkQueue}.  Each row only reads the previous scores and
+ * writes it's own new score, so the tasks never contend for writes.  The
+ * change in scores is summed per chunk and the chunk sums are added in order,
+ * so the scores, the number of iterations, and the residual are identical no
+ * matter how many threads are used.  A solve started from within a task on
+ * the shared {@link WorkQueue}, such as a disambiguation of one document in a
+ * parallel run, processes every chunk in it's own thread instead of waiting on
+ * the queue it is already part of.
+ *
+ * </p>
+ *
+ * Several personalizations over the same graph can be solved together with
+ * {@link #score(TransitionOverlay, int[][], double[][], double, int[][])}.
+ * The scores are then kept as a dense block with one column per
+ * personalization, stored row by row, so each incoming link is read once per
+ * iteration for every column instead of once per column.
+ *
+ * @author Keith Stevens
+ */
+public class PageRankSolver implements PersonalizedPageRank {
+
+    /**
+     * The logger used to report convergence.
+     */
+    private static final Logger LOGGER =
+        Logger.getLogger(PageRankSolver.class.getName());
+
+    /**
+     * The system property used to set the convergence tolerance.
+     */
+    public static final String TOLERANCE_PROPERTY =
+        "gov.llnl.ontology.wordnet.pagerank.tolerance";
+
+    /**
+     * The system property used to set the maximum number of iterations.
+     */
+    public static final String MAX_ITERATIONS_PROPERTY =
+        "gov.llnl.ontology.wordnet.pagerank.maxIterations";
+
+    /**
+     * The system property used to set the number of threads used by default.
+     */
+    public static final String NUM_THREADS_PROPERTY =
+        "gov.llnl.ontology.wordnet.pagerank.numThreads";
+
+    /**
+     * The number of rows in each chunk of work.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The default convergence tolerance.
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    /**
+     * The default maximum number of iterations.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /**
+     * The largest L1 change in scores at which iteration stops.
+     */
+    private final double tolerance;
+
+    /**
+     * The maximum number of iterations.
+     */
+    private final int maxIterations;
+
+    /**
+     * The number of threads that process each iteration.
+     */
+    private final int numThreads;
+
+    /**
+     * Creates a new {@link PageRankSolver} using the tolerance, maximum
+     * number of iterations, and number of threads set by {@link
+     * #TOLERANCE_PROPERTY}, {@link #MAX_ITERATIONS_PROPERTY}, and {@link
+     * #NUM_THREADS_PROPERTY}.
+     */
+    public PageRankSolver() {
+        this(Integer.parseInt(System.getProperty(NUM_THREADS_PROPERTY, "1")));
+    }
+
+    /**
+     * Creates a new {@link PageRankSolver} that uses {@code numThreads}
+     * threads, and the tolerance and maximum number of iterations set by
+     * {@link #TOLERANCE_PROPERTY} and {@link #MAX_ITERATIONS_PROPERTY}.
+     */
+    public PageRankSolver(int numThreads) {
+        this(Double.parseDouble(System.getProperty(
+                        TOLERANCE_PROPERTY, "" + DEFAULT_TOLERANCE)),
+             Integer.parseInt(System.getProperty(
+                        MAX_ITERATIONS_PROPERTY, "" + DEFAULT_MAX_ITERATIONS)),
+             numThreads);
+    }
+
+    /**
+     * Creates a new single threaded {@link PageRankSolver} that stops once the
+     * L1 change in scores is at most {@code tolerance} or after {@code
+     * maxIterations} iterations.
+     */
+    public PageRankSolver(double tolerance, int maxIterations) {
+        this(tolerance, maxIterations, 1);
+    }
+
+    /**
+     * Creates a new {@link PageRankSolver} that stops once the L1 change in
+     * scores is at most {@code tolerance} or after {@code maxIterations}
+     * iterations, and that splits each iteration between {@code numThreads}
+     * threads.
+     */
+    public PageRankSolver(double tolerance, int maxIterations, int numThreads) {
+        if (maxIterations < 1)
+            throw new IllegalArgumentException(
+                    "At least one iteration must be allowed");
+        if (numThreads < 1)
+            throw new IllegalArgumentException(
+                    "At least one thread must be used");
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns a new {@link PageRankSolver} whose number of threads is set by
+     * the system property {@code threadsProperty}, or by {@link
+     * #NUM_THREADS_PROPERTY} if {@code threadsProperty} is not set.  This lets
+     * each user of the solver be configured separately.
+     */
+    public static PageRankSolver configure(String threadsProperty) {
+        return new PageRankSolver(Integer.parseInt(System.getProperty(
+                        threadsProperty,
+                        System.getProperty(NUM_THREADS_PROPERTY, "1"))));
+    }
+
+    /**
+     * Returns the convergence tolerance.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the maximum number of iterations.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Returns the number of threads that process each iteration.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Returns the PageRank scores over {@code matrix}, starting from {@code
+     * teleport} and teleporting according to {@code teleport}.
+     *
+     * @param matrix The transition probabilities between {@link Synset}s
+     * @param teleport The probability that a random surfer lands at each
+     *        {@link Synset} given that a random jump was made
+     * @param weight The probability of following a link rather than making a
+     *        random jump
+     */
+    public Result solve(TransitionMatrix matrix,
+                        double[] teleport,
+                        double weight) {
+        return solve(matrix, null, teleport, weight);
+    }
+
+    /**
+     * Returns the PageRank scores over the base matrix of {@code overlay}
+     * extended with it's extra nodes, starting from {@code teleport} and
+     * teleporting according to {@code teleport}.  The scores of the extra
+     * nodes follow the scores of the base rows.  Only the links held by {@code
+     * overlay} are visited beyond the shared base matrix.
+     *
+     * @param overlay The extra nodes and their links
+     * @param teleport The probability that a random surfer lands at each
+     *        node given that a random jump was made
+     * @param weight The probability of following a link rather than making a
+     *        random jump
+     */
+    public Result solve(TransitionOverlay overlay,
+                        double[] teleport,
+                        double weight) {
+        return solve(overlay.getBase(), overlay, teleport, weight);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * </p>
+     *
+     * This solves for the score of every node and then selects the queried
+     * nodes.
+     */
+    public double[] score(TransitionOverlay graph,
+                          int[] seeds,
+                          double[] seedWeights,
+                          double weight,
+                          int[] queries) {
+        double[] teleport = new double[graph.size()];
+        for (int i = 0; i < seeds.length; ++i)
+            teleport[seeds[i]] += seedWeights[i];
+        double[] ranks = solve(graph, teleport, weight).getRanks();
+
+        double[] scores = new double[queries.length];
+        for (int q = 0; q < queries.length; ++q)
+            scores[q] = ranks[queries[q]];
+        return scores;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * </p>
+     *
+     * Every personalization is iterated together as one block of scores,
+     * until each of them has converged or the maximum number of iterations is
+     * reached.  A single personalization gives exactly the same scores as
+     * {@link #score(TransitionOverlay, int[], double[], double, int[])}.
+     */
+    public double[][] score(TransitionOverlay graph,
+                            int[][] seeds,
+                            double[][] seedWeights,
+                            double weight,
+                            int[][] queries) {
+        int numColumns = seeds.length;
+        double[][] scores = new double[numColumns][];
+        if (numColumns == 0)
+            return scores;
+
+        double[] ranks = solveBlock(graph, seeds, seedWeights, weight);
+        for (int k = 0; k < numColumns; ++k) {
+            scores[k] = new double[queries[k].length];
+            for (int q = 0; q < queries[k].length; ++q)
+                scores[k][q] = ranks[queries[k][q] * numColumns + k];
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the block of scores for each personalization over {@code
+     * overlay}.  The score of node {@code j} for personalization {@code k} is
+     * stored at {@code j * seeds.length + k}.
+     */
+    private double[] solveBlock(TransitionOverlay overlay,
+                                int[][] seeds,
+                                double[][] seedWeights,
+                                final double weight) {
+        final TransitionMatrix matrix = overlay.getBase();
+        final TransitionOverlay extra = overlay;
+        final int numColumns = seeds.length;
+        final BlockTeleport teleport = new BlockTeleport(seeds, seedWeights);
+        int size = overlay.size();
+        // Index the overlay links before any task reads them.
+        overlay.getTargets();
+
+        double[] ranks = new double[size * numColumns];
+        for (int k = 0; k < numColumns; ++k)
+            for (int i = 0; i < seeds[k].length; ++i)
+                ranks[seeds[k][i] * numColumns + k] += seedWeights[k][i];
+        double[] next = new double[size * numColumns];
+        int numChunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final double[] chunkResiduals = new double[numChunks * numColumns];
+        final double[] jumps = new double[numColumns];
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && residual > tolerance) {
+            blockDanglingScores(matrix, overlay, ranks, jumps);
+            for (int k = 0; k < numColumns; ++k)
+                jumps[k] = weight * jumps[k] + (1 - weight);
+
+            final double[] current = ranks;
+            final double[] updated = next;
+            runChunks(numChunks, new ChunkStep() {
+                public void run(int startChunk, int endChunk) {
+                    int size = current.length / numColumns;
+                    for (int c = startChunk; c < endChunk; ++c)
+                        stepBlock(matrix, extra, teleport, weight, jumps,
+                                  current, updated, chunkResiduals,
+                                  c * numColumns, c * CHUNK_SIZE,
+                                  Math.min(size, (c + 1) * CHUNK_SIZE));
+                }
+            });
+
+            // The block has converged once every column has converged.
+            residual = 0;
+            for (int k = 0; k < numColumns; ++k) {
+                double columnResidual = 0;
+                for (int c = 0; c < numChunks; ++c)
+                    columnResidual += chunkResiduals[c * numColumns + k];
+                residual = Math.max(residual, columnResidual);
+            }
+
+            double[] swap = ranks;
+            ranks = next;
+            next = swap;
+            iterations++;
+        }
+
+        if (LOGGER.isLoggable(Level.FINE))
+            LOGGER.fine(String.format(
+                        "block pagerank: %d columns, %d iterations, " +
+                        "residual %g", numColumns, iterations, residual));
+        return ranks;
+    }
+
+    /**
+     * Stores the total score of the dangling nodes for each column of {@code
+     * ranks} in {@code dangling}.
+     */
+    static void blockDanglingScores(TransitionMatrix matrix,
+                                    TransitionOverlay overlay,
+                                    double[] ranks,
+                                    double[] dangling) {
+        int numColumns = dangling.length;
+        Arrays.fill(dangling, 0);
+        for (int row : matrix.getDanglingRows())
+            for (int k = 0; k < numColumns; ++k)
+                dangling[k] += ranks[row * numColumns + k];
+        for (int node : overlay.getDanglingNodes())
+            for (int k = 0; k < numColumns; ++k)
+                dangling[k] += ranks[node * numColumns + k];
+    }
+
+    /**
+     * Computes the new block of scores for rows {@code start} through {@code
+     * end} from {@code ranks} into {@code next}, and adds the L1 change in
+     * each column to {@code residuals}, starting at {@code offset}.  {@code
+     * jumps} holds the random jump probability for each column, including the
+     * dangling scores.
+     */
+    static void stepBlock(TransitionMatrix matrix,
+                          TransitionOverlay overlay,
+                          BlockTeleport teleport,
+                          double weight,
+                          double[] jumps,
+                          double[] ranks,
+                          double[] next,
+                          double[] residuals,
+                          int offset,
+                          int start,
+                          int end) {
+        int[] rowStarts = matrix.getRowStarts();
+        int[] sources = matrix.getSources();
+        double[] probabilities = matrix.getProbabilities();
+        int[] extraTargets = overlay.getTargets();
+        int[] extraStarts = overlay.getTargetStarts();
+        int[] extraSources = overlay.getSources();
+        double[] extraProbabilities = overlay.getProbabilities();
+        int baseSize = matrix.size();
+        int numColumns = jumps.length;
+        double[] scores = new double[numColumns];
+        Arrays.fill(residuals, offset, offset + numColumns, 0);
+
+        // Find the first overlay target and seed within the range.
+        int t = Arrays.binarySearch(extraTargets, start);
+        if (t < 0)
+            t = -t - 1;
+        int s = Arrays.binarySearch(teleport.rows, start);
+        if (s < 0)
+            s = -s - 1;
+
+        for (int j = start; j < end; ++j) {
+            Arrays.fill(scores, 0);
+            if (j < baseSize)
+                for (int l = rowStarts[j]; l < rowStarts[j + 1]; ++l) {
+                    double probability = probabilities[l];
+                    int source = sources[l] * numColumns;
+                    for (int k = 0; k < numColumns; ++k)
+                        scores[k] += probability * ranks[source + k];
+                }
+            if (t < extraTargets.length && extraTargets[t] == j) {
+                for (int l = extraStarts[t]; l < extraStarts[t + 1]; ++l) {
+                    double probability = extraProbabilities[l];
+                    int source = extraSources[l] * numColumns;
+                    for (int k = 0; k < numColumns; ++k)
+                        scores[k] += probability * ranks[source + k];
+                }
+                t++;
+            }
+            for (int k = 0; k < numColumns; ++k)
+                scores[k] *= weight;
+            if (s < teleport.rows.length && teleport.rows[s] == j) {
+                for (int e = teleport.starts[s];
+                         e < teleport.starts[s + 1]; ++e) {
+                    int k = teleport.columns[e];
+                    scores[k] += jumps[k] * teleport.weights[e];
+                }
+                s++;
+            }
+
+            int row = j * numColumns;
+            for (int k = 0; k < numColumns; ++k) {
+                residuals[offset + k] += Math.abs(scores[k] - ranks[row + k]);
+                next[row + k] = scores[k];
+            }
+        }
+    }
+
+    /**
+     * Returns the PageRank scores over {@code matrix} extended with {@code
+     * overlay}, which may be {@code null}.
+     */
+    private Result solve(final TransitionMatrix matrix,
+                         final TransitionOverlay overlay,
+                         final double[] teleport,
+                         final double weight) {
+        int size = (overlay == null) ? matrix.size() : overlay.size();
+        // Index the overlay links before any task reads them.
+        if (overlay != null)
+            overlay.getTargets();
+        double[] ranks = Arrays.copyOf(teleport, size);
+        double[] next = new double[size];
+        int numChunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final double[] chunkResiduals = new double[numChunks];
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && residual > tolerance) {
+            final double dangling = danglingScore(matrix, overlay, ranks);
+            final double[] current = ranks;
+            final double[] updated = next;
+            runChunks(numChunks, new ChunkStep() {
+                public void run(int startChunk, int endChunk) {
+                    stepChunks(matrix, overlay, teleport, weight, current,
+                               updated, dangling, chunkResiduals,
+                               startChunk, endChunk);
+                }
+            });
+            residual = 0;
+            for (double chunkResidual : chunkResiduals)
+                residual += chunkResidual;
+
+            double[] swap = ranks;
+            ranks = next;
+            next = swap;
+            iterations++;
+        }
+
+        Result result = new Result(ranks, iterations, residual,
+                                   residual <= tolerance);
+        if (LOGGER.isLoggable(Level.FINE))
+            LOGGER.fine(result.toString());
+        return result;
+    }
+
+    /**
+     * Returns the total score of the dangling {@link Synset}s in {@code matrix}
+     * and {@code overlay}, which may be {@code null}.
+     */
+    static double danglingScore(TransitionMatrix matrix,
+                                TransitionOverlay overlay,
+                                double[] ranks) {
+        double dangling = 0;
+        for (int row : matrix.getDanglingRows())
+            dangling += ranks[row];
+        if (overlay != null)
+            for (int node : overlay.getDanglingNodes())
+                dangling += ranks[node];
+        return dangling;
+    }
+
+    /**
+     * Runs {@code step} over chunks {@code 0} through {@code numChunks}.  When
+     * more than one thread is used, the chunks are split into contiguous
+     * ranges between tasks on the shared {@link WorkQueue}, which {@link
+     * WorkQueueUtil#run} runs inline if this is already a queue worker.
+     */
+    private void runChunks(int numChunks, final ChunkStep step) {
+        int numTasks = Math.min(numThreads, numChunks);
+        if (numTasks <= 1) {
+            step.run(0, numChunks);
+            return;
+        }
+
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int t = 0; t < numTasks; ++t) {
+            final int start = (int) ((long) numChunks * t / numTasks);
+            final int end = (int) ((long) numChunks * (t + 1) / numTasks);
+            tasks.add(new Runnable() {
+                public void run() {
+                    step.run(start, end);
+                }
+            });
+        }
+        WorkQueueUtil.run(tasks);
+    }
+
+    /**
+     * Computes the new scores of the rows in chunks {@code startChunk} through
+     * {@code endChunk}, storing the change in scores for each chunk in {@code
+     * chunkResiduals}.
+     */
+    static void stepChunks(TransitionMatrix matrix,
+                           TransitionOverlay overlay,
+                           double[] teleport,
+                           double weight,
+                           double[] ranks,
+                           double[] next,
+                           double dangling,
+                           double[] chunkResiduals,
+                           int startChunk,
+                           int endChunk) {
+        int size = ranks.length;
+        for (int c = startChunk; c < endChunk; ++c)
+            chunkResiduals[c] = step(
+                    matrix, overlay, teleport, weight, ranks, next,
+                    c * CHUNK_SIZE, Math.min(size, (c + 1) * CHUNK_SIZE),
+                    dangling);
+    }
+
+    /**
+     * Computes the new scores of rows {@code start} through {@code end} from
+     * {@code ranks} into {@code next}, and returns the L1 change in their
+     * scores.  Rows past the end of {@code matrix} belong to {@code overlay},
+     * which may be {@code null}.
+     */
+    static double step(TransitionMatrix matrix,
+                       TransitionOverlay overlay,
+                       double[] teleport,
+                       double weight,
+                       double[] ranks,
+                       double[] next,
+                       int start,
+                       int end,
+                       double dangling) {
+        int[] rowStarts = matrix.getRowStarts();
+        int[] sources = matrix.getSources();
+        double[] probabilities = matrix.getProbabilities();
+        int baseSize = matrix.size();
+        double jump = weight * dangling + (1 - weight);
+
+        // Find the first overlay target within the range.
+        int[] extraTargets = (overlay == null) ? null : overlay.getTargets();
+        int t = 0;
+        if (extraTargets != null) {
+            t = Arrays.binarySearch(extraTargets, start);
+            if (t < 0)
+                t = -t - 1;
+        }
+
+        double residual = 0;
+        for (int j = start; j < end; ++j) {
+            double score = 0;
+            if (j < baseSize)
+                for (int l = rowStarts[j]; l < rowStarts[j + 1]; ++l)
+                    score += probabilities[l] * ranks[sources[l]];
+            if (extraTargets != null &&
+                t < extraTargets.length && extraTargets[t] == j) {
+                int[] extraStarts = overlay.getTargetStarts();
+                int[] extraSources = overlay.getSources();
+                double[] extraProbabilities = overlay.getProbabilities();
+                for (int l = extraStarts[t]; l < extraStarts[t + 1]; ++l)
+                    score += extraProbabilities[l] * ranks[extraSources[l]];
+                t++;
+            }
+            double rank = weight * score + jump * teleport[j];
+            residual += Math.abs(rank - ranks[j]);
+            next[j] = rank;
+        }
+        return residual;
+    }
+
+    /**
+     * A range of chunks processed by a single task.
+     */
+    private interface ChunkStep {
+
+        /**
+         * Processes chunks {@code startChunk} through {@code endChunk}.
+         */
+        void run(int startChunk, int endChunk);
+    }
+
+    /**
+     * The teleport probabilities of a block of personalizations, stored by
+     * seed node.
+     */
+    static class BlockTeleport {
+
+        /**
+         * The seed nodes of any column, in increasing order.
+         */
+        final int[] rows;
+
+        /**
+         * The offset into {@link #columns} of the entries for each seed node.
+         * The final entry is the total number of entries.
+         */
+        final int[] starts;
+
+        /**
+         * The column of each entry.
+         */
+        final int[] columns;
+
+        /**
+         * The teleport probability of each entry.
+         */
+        final double[] weights;
+
+        /**
+         * Creates a new {@link BlockTeleport} where column {@code k} teleports
+         * to {@code seeds[k]} with the probabilities in {@code
+         * seedWeights[k]}.
+         */
+        BlockTeleport(int[][] seeds, double[][] seedWeights) {
+            // Sort the entries by seed node, keeping the entries for the same
+            // node in order of their column.
+            int numEntries = 0;
+            for (int[] columnSeeds : seeds)
+                numEntries += columnSeeds.length;
+            long[] keys = new long[numEntries];
+            int[] entryColumns = new int[numEntries];
+            double[] entryWeights = new double[numEntries];
+            int e = 0;
+            for (int k = 0; k < seeds.length; ++k)
+                for (int i = 0; i < seeds[k].length; ++i, ++e) {
+                    keys[e] = ((long) seeds[k][i] << 32) | e;
+                    entryColumns[e] = k;
+                    entryWeights[e] = seedWeights[k][i];
+                }
+            Arrays.sort(keys);
+
+            int[] uniqueRows = new int[numEntries];
+            int[] rowStarts = new int[numEntries + 1];
+            columns = new int[numEntries];
+            weights = new double[numEntries];
+            int numRows = 0;
+            for (int i = 0; i < numEntries; ++i) {
+                int row = (int) (keys[i] >>> 32);
+                int entry = (int) keys[i];
+                if (numRows == 0 || uniqueRows[numRows - 1] != row) {
+                    uniqueRows[numRows] = row;
+                    rowStarts[numRows++] = i;
+                }
+                columns[i] = entryColumns[entry];
+                weights[i] = entryWeights[entry];
+            }
+            rowStarts[numRows] = numEntries;
+            rows = Arrays.copyOf(uniqueRows, numRows);
+            starts = Arrays.copyOf(rowStarts, numRows + 1);
+        }
+    }
+
+    /**
+     * The scores computed by a {@link PageRankSolver} along with how the
+     * iteration ended.
+     */
+    public static class Result {
+
+        /**
+         * The score of each {@link Synset}.
+         */
+        private final double[] ranks;
+
+        /**
+         * The number of iterations performed.
+         */
+        private final int iterations;
+
+        /**
+         * The L1 change in scores during the final iteration.
+         */
+        private final double residual;
+
+        /**
+         * {@code true} if the residual fell within the tolerance.
+         */
+        private final boolean converged;
+
+        /**
+         * Creates a new {@link Result}.
+         */
+        public Result(double[] ranks,
+                      int iterations,
+                      double residual,
+                      boolean converged) {
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+        }
+
+        /**
+         * Returns the score of each {@link Synset}.
+         */
+        public double[] getRanks() {
+            return ranks;
+        }
+
+        /**
+         * Returns the number of iterations performed.
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Returns the L1 change in scores during the final iteration.
+         */
+        public double getResidual() {
+            return residual;
+        }
+
+        /**
+         * Returns {@code true} if the scores converged within the tolerance.
+         */
+        public boolean isConverged() {
+            return converged;
+        }
+
+        /**
+         * Returns a summary of how the iteration ended.
+         */
+        public String toString() {
+            return String.format(
+                    "PageRank[iterations=%d, residual=%.3g, converged=%s]",
+                    iterations, residual, converged);
+        }
+    }
+}
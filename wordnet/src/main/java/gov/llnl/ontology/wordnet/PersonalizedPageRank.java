@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+
+/**
+ * An interface for computing personalized PageRank scores over a shared {@link
+ * TransitionMatrix} extended with a {@link TransitionOverlay}.  The random
+ * surfer teleports to a small set of seed nodes, and only the scores of a few
+ * query nodes are returned, which lets an implementation avoid computing the
+ * score of every node in the graph.  Several personalizations over the same
+ * graph, such as one for each word in a sentence, can be scored in a single
+ * call, which lets an implementation share work between them.
+ *
+ * @author Keith Stevens
+ */
+public interface PersonalizedPageRank {
+
+    /**
+     * Returns the personalized PageRank score of each node in {@code queries}.
+     *
+     * @param graph The graph to rank
+     * @param seeds The nodes that the random surfer teleports to
+     * @param seedWeights The probability of teleporting to each seed, which
+     *        should sum to one
+     * @param weight The probability of following a link rather than making a
+     *        random jump
+     * @param queries The nodes whose scores should be returned
+     */
+    double[] score(TransitionOverlay graph,
+                   int[] seeds,
+                   double[] seedWeights,
+                   double weight,
+                   int[] queries);
+
+    /**
+     * Returns the personalized PageRank scores for several personalizations
+     * over the same graph.  Entry {@code k} of the result holds the score of
+     * each node in {@code queries[k]} when teleporting to {@code seeds[k]}
+     * with the probabilities in {@code seedWeights[k]}.
+     *
+     * @param graph The graph to rank
+     * @param seeds The nodes that the random surfer teleports to for each
+     *        personalization
+     * @param seedWeights The probability of teleporting to each seed, which
+     *        should sum to one for each personalization
+     * @param weight The probability of following a link rather than making a
+     *        random jump
+     * @param queries The nodes whose scores should be returned for each
+     *        personalization
+     */
+    double[][] score(TransitionOverlay graph,
+                     int[][] seeds,
+                     double[][] seedWeights,
+                     double weight,
+                     int[][] queries);
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * An approximate {@link PersonalizedPageRank} that pushes probability mass
+ * outward from the seed nodes, as described in the following paper:
+ *
+ * <ul>
+ *  <li style="font-family:Garamond, Georgia, serif">R. Andersen, F. Chung, and
+ *  K. Lang.  "Local graph partitioning using PageRank vectors", in
+ *  <i>Proceedings of the 47th Annual IEEE Symposium on Foundations of Computer
+ *  Science</i> 2006.
+ * </ul>
+ *
+ * </p>
+ *
+ * Each node keeps an estimated score and a residual, starting with the seed
+ * weights as the residual.  A node whose residual is larger than epsilon times
+ * it's number of outgoing links is pushed: the random jump share of it's
+ * residual is added to it's estimate and the rest is spread along it's links.
+ * The residual of a dangling node is spread over the seeds, just as {@link
+ * PageRankSolver} returns dangling scores to the teleport vector, so the
+ * estimates approach the same scores as epsilon goes to zero.  Only nodes
+ * near the seeds are ever visited, so the cost depends on epsilon and not on
+ * the size of the graph.
+ *
+ * </p>
+ *
+ * The epsilon is set by {@link #EPSILON_PROPERTY}.  This class is thread safe,
+ * each thread keeps it's own scratch buffers.
+ *
+ * @author Keith Stevens
+ */
+public class PushPageRankSolver implements PersonalizedPageRank {
+
+    /**
+     * The system property used to set the residual threshold.
+     */
+    public static final String EPSILON_PROPERTY =
+        "gov.llnl.ontology.wordnet.pagerank.push.epsilon";
+
+    /**
+     * The default residual threshold.
+     */
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    /**
+     * The logger used to report how much work each solve did.
+     */
+    private static final Logger LOGGER =
+        Logger.getLogger(PushPageRankSolver.class.getName());
+
+    /**
+     * The scratch buffers for each thread.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH =
+        new ThreadLocal<Scratch>() {
+            protected Scratch initialValue() {
+                return new Scratch();
+            }
+        };
+
+    /**
+     * The residual threshold for each outgoing link of a node.
+     */
+    private final double epsilon;
+
+    /**
+     * Creates a new {@link PushPageRankSolver} using the residual threshold
+     * set by {@link #EPSILON_PROPERTY}.
+     */
+    public PushPageRankSolver() {
+        this(Double.parseDouble(System.getProperty(
+                        EPSILON_PROPERTY, "" + DEFAULT_EPSILON)));
+    }
+
+    /**
+     * Creates a new {@link PushPageRankSolver} that stops once no node has a
+     * residual larger than {@code epsilon} times it's number of outgoing
+     * links.
+     */
+    public PushPageRankSolver(double epsilon) {
+        if (epsilon <= 0)
+            throw new IllegalArgumentException("epsilon must be positive");
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Returns the residual threshold.
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double[] score(TransitionOverlay graph,
+                          int[] seeds,
+                          double[] seedWeights,
+                          double weight,
+                          int[] queries) {
+        TransitionMatrix base = graph.getBase();
+        int baseSize = base.size();
+        int[] outStarts = base.getOutStarts();
+        int[] outTargets = base.getOutTargets();
+        double[] outProbabilities = base.getOutProbabilities();
+
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(graph.size());
+        int epoch = scratch.nextEpoch();
+        double[] estimates = scratch.estimates;
+        double[] residuals = scratch.residuals;
+        int[] stamps = scratch.stamps;
+        boolean[] queued = scratch.queued;
+        int[] queue = scratch.queue;
+        int head = 0;
+        int count = 0;
+
+        for (int i = 0; i < seeds.length; ++i) {
+            int seed = seeds[i];
+            if (stamps[seed] != epoch) {
+                stamps[seed] = epoch;
+                estimates[seed] = 0;
+                residuals[seed] = 0;
+            }
+            residuals[seed] += seedWeights[i];
+        }
+        for (int seed : seeds)
+            if (!queued[seed]) {
+                queued[seed] = true;
+                queue[(head + count++) % queue.length] = seed;
+            }
+
+        long pushes = 0;
+        int touched = 0;
+        while (count > 0) {
+            int u = queue[head];
+            head = (head + 1) % queue.length;
+            count--;
+            queued[u] = false;
+
+            int[] links;
+            double[] probabilities;
+            int start;
+            int end;
+            if (u < baseSize) {
+                links = outTargets;
+                probabilities = outProbabilities;
+                start = outStarts[u];
+                end = outStarts[u + 1];
+            } else {
+                links = graph.getOutLinks(u);
+                probabilities = graph.getOutProbabilities(u);
+                start = 0;
+                end = links.length;
+            }
+            // Skip seeds that started with a residual below the threshold.
+            double residual = residuals[u];
+            if (residual <= epsilon * Math.max(1, end - start))
+                continue;
+
+            estimates[u] += (1 - weight) * residual;
+            residuals[u] = 0;
+            double pushed = weight * residual;
+            pushes++;
+
+            // Dangling nodes return their mass to the seeds.
+            if (start == end) {
+                links = seeds;
+                probabilities = seedWeights;
+                start = 0;
+                end = seeds.length;
+            }
+            for (int l = start; l < end; ++l) {
+                int v = links[l];
+                if (stamps[v] != epoch) {
+                    stamps[v] = epoch;
+                    estimates[v] = 0;
+                    residuals[v] = 0;
+                    touched++;
+                }
+                residuals[v] += pushed * probabilities[l];
+                if (!queued[v] && residuals[v] > epsilon * outDegree(
+                            graph, outStarts, baseSize, v)) {
+                    queued[v] = true;
+                    queue[(head + count++) % queue.length] = v;
+                }
+            }
+        }
+
+        double[] scores = new double[queries.length];
+        for (int q = 0; q < queries.length; ++q)
+            if (stamps[queries[q]] == epoch)
+                scores[q] = estimates[queries[q]];
+
+        if (LOGGER.isLoggable(Level.FINE))
+            LOGGER.fine(String.format(
+                        "push pagerank: %d pushes, %d nodes touched",
+                        pushes, touched + seeds.length));
+        return scores;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * </p>
+     *
+     * Each personalization only visits the neighborhood of it's own seeds, so
+     * they are solved one after another.
+     */
+    public double[][] score(TransitionOverlay graph,
+                            int[][] seeds,
+                            double[][] seedWeights,
+                            double weight,
+                            int[][] queries) {
+        double[][] scores = new double[seeds.length][];
+        for (int k = 0; k < seeds.length; ++k)
+            scores[k] = score(
+                    graph, seeds[k], seedWeights[k], weight, queries[k]);
+        return scores;
+    }
+
+    /**
+     * Returns the number of outgoing links of {@code node}, or one if it has
+     * none.
+     */
+    private static int outDegree(TransitionOverlay graph,
+                                 int[] outStarts,
+                                 int baseSize,
+                                 int node) {
+        int degree = (node < baseSize)
+            ? outStarts[node + 1] - outStarts[node]
+            : graph.getOutLinks(node).length;
+        return Math.max(1, degree);
+    }
+
+    /**
+     * The estimates and residuals of a single thread.  The queue holds each
+     * node at most once, so it never needs more room than the number of
+     * nodes.
+     */
+    private static class Scratch extends EpochScratch {
+
+        double[] estimates = new double[0];
+
+        double[] residuals = new double[0];
+
+        int[] stamps = new int[0];
+
+        boolean[] queued = new boolean[0];
+
+        int[] queue = new int[0];
+
+        protected void allocate(int capacity) {
+            estimates = new double[capacity];
+            residuals = new double[capacity];
+            stamps = new int[capacity];
+            queued = new boolean[capacity];
+            queue = new int[capacity];
+        }
+
+        protected void clearStamps() {
+            Arrays.fill(stamps, 0);
+        }
+    }
+}
@@ -0,0 +1,634 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * An immutable, compressed sparse row (CSR) store for the relations between a
+ * fixed set of {@link Synset}s.  Every {@link Synset} is given a dense id in
+ * {@code [0, size())} and the outgoing relations of {@link Synset} {@code i}
+ * are stored in the edge range {@code [rowStart[i], rowStart[i+1])} of two
+ * parallel primitive arrays: the target ids and the relation type ids.
+ * Within a row, edges are sorted by relation type, so the {@link Synset}s for
+ * a single relation always form a contiguous slice.  Relation labels are
+ * mapped to type ids with a small symbol table.
+ *
+ * </p>
+ *
+ * {@link BaseSynset}s that are part of a graph release their own relation
+ * maps and answer {@link Synset#getRelations}, {@link Synset#allRelations},
+ * and {@link Synset#getKnownRelationTypes} with read only views over the
+ * graph.  Modifying the relations of any such {@link BaseSynset} copies it's
+ * row back into a private map and marks the graph as no longer current.
+ * Traversal heavy code can use {@link #of} to get the current graph for a
+ * {@link Synset} and then walk the primitive arrays directly, falling back to
+ * the {@link Synset} interface when no current graph exists.
+ *
+ * @author Keith Stevens
+ */
+public class SynsetGraph {
+
+    /**
+     * The {@link Synset} for each dense id.
+     */
+    private final Synset[] synsets;
+
+    /**
+     * The first edge index for each {@link Synset}, with one extra entry
+     * marking the end of the last row.
+     */
+    private final int[] rowStart;
+
+    /**
+     * The target {@link Synset} id of each edge.
+     */
+    private final int[] targets;
+
+    /**
+     * The relation type id of each edge.
+     */
+    private final byte[] types;
+
+    /**
+     * The first incoming edge index for each {@link Synset}, with one extra
+     * entry marking the end of the last row.  The incoming edges are built on
+     * first use.
+     */
+    private volatile int[] incomingRowStart;
+
+    /**
+     * The source {@link Synset} id of each incoming edge.
+     */
+    private int[] sources;
+
+    /**
+     * The relation type id of each incoming edge.
+     */
+    private byte[] sourceTypes;
+
+    /**
+     * The relation label for each relation type id.
+     */
+    private final String[] labels;
+
+    /**
+     * A mapping from relation labels to relation type ids.
+     */
+    private final Map<String, Integer> labelIds;
+
+    /**
+     * A mapping from {@link Synset}s that cannot store their own id to their
+     * dense id.  This is empty when every {@link Synset} is a {@link
+     * BaseSynset}.
+     */
+    private final Map<Synset, Integer> otherIds;
+
+    /**
+     * Set to {@code false} once any member {@link Synset} modifies it's
+     * relations.
+     */
+    private volatile boolean current;
+
+    /**
+     * Creates a new {@link SynsetGraph} from the relations held by every
+     * {@link Synset} in {@code roots} and every {@link Synset} reachable from
+     * them.  Each {@link BaseSynset} in the graph is attached to it.
+     */
+    public static SynsetGraph build(Collection<Synset> roots) {
+        return new SynsetGraph(roots);
+    }
+
+    /**
+     * Returns the current {@link SynsetGraph} holding {@code synset}, or
+     * {@code null} if {@code synset} is not part of a graph or it's graph has
+     * been invalidated by a modification.
+     */
+    public static SynsetGraph of(Synset synset) {
+        if (!(synset instanceof BaseSynset))
+            return null;
+        SynsetGraph graph = ((BaseSynset) synset).getGraph();
+        return (graph != null && graph.current) ? graph : null;
+    }
+
+    /**
+     * Creates a new {@link SynsetGraph}.  See {@link #build}.
+     */
+    private SynsetGraph(Collection<Synset> roots) {
+        // Assign a dense id to each synset, following relations so that every
+        // edge target also has an id.
+        Map<Synset, Integer> ids = new IdentityHashMap<Synset, Integer>();
+        List<Synset> synsetList = Lists.newArrayList();
+        for (Synset synset : roots)
+            if (!ids.containsKey(synset)) {
+                ids.put(synset, synsetList.size());
+                synsetList.add(synset);
+            }
+        for (int i = 0; i < synsetList.size(); ++i)
+            for (Synset related : synsetList.get(i).allRelations())
+                if (!ids.containsKey(related)) {
+                    ids.put(related, synsetList.size());
+                    synsetList.add(related);
+                }
+        synsets = synsetList.toArray(new Synset[synsetList.size()]);
+
+        // Build the relation symbol table and count the edges.
+        labelIds = Maps.newHashMap();
+        List<String> labelList = Lists.newArrayList();
+        int numEdges = 0;
+        for (Synset synset : synsets)
+            for (String label : synset.getKnownRelationTypes()) {
+                if (!labelIds.containsKey(label)) {
+                    if (labelList.size() > Byte.MAX_VALUE)
+                        throw new IllegalArgumentException(
+                                "Too many relation types for a SynsetGraph");
+                    labelIds.put(label, labelList.size());
+                    labelList.add(label);
+                }
+                numEdges += synset.getRelations(label).size();
+            }
+        labels = labelList.toArray(new String[labelList.size()]);
+
+        // Fill in the rows.  Each row is written in type id order so that the
+        // targets for a single relation are contiguous.
+        rowStart = new int[synsets.length + 1];
+        targets = new int[numEdges];
+        types = new byte[numEdges];
+        int edge = 0;
+        int[] rowTypes = new int[labels.length];
+        for (int i = 0; i < synsets.length; ++i) {
+            rowStart[i] = edge;
+            int numTypes = 0;
+            for (String label : synsets[i].getKnownRelationTypes())
+                rowTypes[numTypes++] = labelIds.get(label);
+            Arrays.sort(rowTypes, 0, numTypes);
+            for (int t = 0; t < numTypes; ++t) {
+                for (Synset related :
+                        synsets[i].getRelations(labels[rowTypes[t]])) {
+                    targets[edge] = ids.get(related);
+                    types[edge] = (byte) rowTypes[t];
+                    edge++;
+                }
+            }
+        }
+        rowStart[synsets.length] = edge;
+
+        // Attach the graph to each base synset, which releases the synset's
+        // own relation map.  Any other synset types are tracked by a separate
+        // id map.
+        otherIds = new IdentityHashMap<Synset, Integer>();
+        current = true;
+        for (int i = 0; i < synsets.length; ++i) {
+            if (synsets[i] instanceof BaseSynset)
+                ((BaseSynset) synsets[i]).attach(new Row(i));
+            else
+                otherIds.put(synsets[i], i);
+        }
+    }
+
+    /**
+     * Returns {@code true} if no {@link Synset} in this graph has modified
+     * it's relations since the graph was built.
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * Marks this graph as out of date.  This is called by member {@link
+     * Synset}s before they modify their relations.
+     */
+    void invalidate() {
+        current = false;
+    }
+
+    /**
+     * Returns the number of {@link Synset}s in this graph.
+     */
+    public int size() {
+        return synsets.length;
+    }
+
+    /**
+     * Returns the number of relation edges in this graph.
+     */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the dense id of {@code synset}, or -1 if it is not part of this
+     * graph.
+     */
+    public int indexOf(Synset synset) {
+        if (synset instanceof BaseSynset) {
+            return ((BaseSynset) synset).getGraphId(this);
+        }
+        Integer id = otherIds.get(synset);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Returns the {@link Synset} with dense id {@code id}.
+     */
+    public Synset getSynset(int id) {
+        return synsets[id];
+    }
+
+    /**
+     * Returns the number of distinct relation labels in this graph.
+     */
+    public int numRelationTypes() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the relation label for the type id {@code type}.
+     */
+    public String getRelationLabel(int type) {
+        return labels[type];
+    }
+
+    /**
+     * Returns the type id for {@code label}, or -1 if no edge in the graph has
+     * that label.
+     */
+    public int getRelationType(String label) {
+        Integer type = labelIds.get(label);
+        return (type == null) ? -1 : type;
+    }
+
+    /**
+     * Returns the row offsets of this graph.  The edges of {@link Synset}
+     * {@code i} are in {@code [rowStarts[i], rowStarts[i+1])}.  The returned
+     * array must not be modified.
+     */
+    public int[] getRowStarts() {
+        return rowStart;
+    }
+
+    /**
+     * Returns the target id of each edge.  The returned array must not be
+     * modified.
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the relation type id of each edge.  The returned array must not
+     * be modified.
+     */
+    public byte[] getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns the incoming row offsets of this graph.  The edges that point to
+     * {@link Synset} {@code i} are in {@code [incomingRowStarts[i],
+     * incomingRowStarts[i+1])} of {@link #getSources} and {@link
+     * #getSourceTypes}.  The incoming edges are built the first time any of
+     * these methods is called.  The returned array must not be modified.
+     */
+    public int[] getIncomingRowStarts() {
+        buildIncoming();
+        return incomingRowStart;
+    }
+
+    /**
+     * Returns the source id of each incoming edge.  The returned array must
+     * not be modified.
+     */
+    public int[] getSources() {
+        buildIncoming();
+        return sources;
+    }
+
+    /**
+     * Returns the relation type id of each incoming edge.  The returned array
+     * must not be modified.
+     */
+    public byte[] getSourceTypes() {
+        buildIncoming();
+        return sourceTypes;
+    }
+
+    /**
+     * Builds the transpose of the edge arrays with a counting sort on the
+     * target ids, if it has not already been built.
+     */
+    private void buildIncoming() {
+        if (incomingRowStart != null)
+            return;
+        synchronized (this) {
+            if (incomingRowStart != null)
+                return;
+            int[] starts = new int[synsets.length + 1];
+            for (int target : targets)
+                starts[target + 1]++;
+            for (int i = 0; i < synsets.length; ++i)
+                starts[i + 1] += starts[i];
+
+            int[] next = Arrays.copyOf(starts, synsets.length);
+            int[] edgeSources = new int[targets.length];
+            byte[] edgeTypes = new byte[targets.length];
+            for (int i = 0; i < synsets.length; ++i)
+                for (int e = rowStart[i]; e < rowStart[i+1]; ++e) {
+                    int slot = next[targets[e]]++;
+                    edgeSources[slot] = i;
+                    edgeTypes[slot] = types[e];
+                }
+            sources = edgeSources;
+            sourceTypes = edgeTypes;
+            incomingRowStart = starts;
+        }
+    }
+
+    /**
+     * Returns the first edge index of the edges from {@code id} with relation
+     * type {@code type}.  If there are no such edges, the returned index will
+     * equal {@link #typeEnd}.
+     */
+    public int typeStart(int id, int type) {
+        int e = rowStart[id];
+        int end = rowStart[id+1];
+        while (e < end && types[e] < type)
+            e++;
+        return e;
+    }
+
+    /**
+     * Returns one past the last edge index of the edges from {@code id} with
+     * relation type {@code type}.
+     */
+    public int typeEnd(int id, int type) {
+        int e = typeStart(id, type);
+        int end = rowStart[id+1];
+        while (e < end && types[e] == type)
+            e++;
+        return e;
+    }
+
+    /**
+     * Returns a read only view of the {@link Synset}s related to {@code id}
+     * by {@code label}.  An empty, modifiable set is returned if there are no
+     * such relations, matching the behavior of {@link BaseSynset}.
+     */
+    Set<Synset> relations(int id, String label) {
+        Integer type = labelIds.get(label);
+        if (type == null)
+            return new HashSet<Synset>();
+        int start = typeStart(id, type);
+        int end = typeEnd(id, type);
+        if (start == end)
+            return new HashSet<Synset>();
+        return new EdgeSet(start, end);
+    }
+
+    /**
+     * Returns a read only view of all {@link Synset}s related to {@code id}.
+     */
+    Collection<Synset> allRelations(int id) {
+        return new EdgeSet(rowStart[id], rowStart[id+1]);
+    }
+
+    /**
+     * Returns a read only view of the relation labels used by {@code id}.
+     */
+    Set<String> relationTypes(int id) {
+        return new LabelSet(rowStart[id], rowStart[id+1]);
+    }
+
+    /**
+     * A read only {@link Map} view over the relations of a single {@link
+     * Synset} in this graph, keyed by relation label.  {@link BaseSynset}
+     * stores one of these in place of it's own relation map.
+     */
+    class Row extends AbstractMap<String, Set<Synset>> {
+
+        /**
+         * The dense id of the {@link Synset} this row represents.
+         */
+        private final int id;
+
+        public Row(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Returns the {@link SynsetGraph} holding this row.
+         */
+        public SynsetGraph getGraph() {
+            return SynsetGraph.this;
+        }
+
+        /**
+         * Returns the dense id of the {@link Synset} for this row.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns a read only view of all {@link Synset}s in this row.
+         */
+        public Collection<Synset> allRelations() {
+            return SynsetGraph.this.allRelations(id);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Set<Synset> get(Object label) {
+            if (!(label instanceof String))
+                return null;
+            Set<Synset> related = relations(id, (String) label);
+            return (related.isEmpty()) ? null : related;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean containsKey(Object label) {
+            return get(label) != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Set<String> keySet() {
+            return relationTypes(id);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Set<Map.Entry<String, Set<Synset>>> entrySet() {
+            Set<Map.Entry<String, Set<Synset>>> entries =
+                new HashSet<Map.Entry<String, Set<Synset>>>();
+            for (String label : keySet())
+                entries.add(new SimpleImmutableEntry<String, Set<Synset>>(
+                            label, relations(id, label)));
+            return entries;
+        }
+    }
+
+    /**
+     * A read only {@link Set} over the targets of a contiguous range of edges.
+     */
+    private class EdgeSet extends AbstractSet<Synset> {
+
+        private final int start;
+
+        private final int end;
+
+        public EdgeSet(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean contains(Object o) {
+            for (int e = start; e < end; ++e)
+                if (synsets[targets[e]] == o)
+                    return true;
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            return end - start;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Iterator<Synset> iterator() {
+            return new Iterator<Synset>() {
+                int e = start;
+
+                public boolean hasNext() {
+                    return e < end;
+                }
+
+                public Synset next() {
+                    if (e >= end)
+                        throw new NoSuchElementException();
+                    return synsets[targets[e++]];
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException(
+                            "Cannot modify the relations of a SynsetGraph");
+                }
+            };
+        }
+    }
+
+    /**
+     * A read only {@link Set} over the distinct relation labels for a
+     * contiguous, type sorted range of edges.
+     */
+    private class LabelSet extends AbstractSet<String> {
+
+        private final int start;
+
+        private final int end;
+
+        public LabelSet(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean contains(Object o) {
+            Integer type = labelIds.get(o);
+            if (type == null)
+                return false;
+            for (int e = start; e < end; ++e)
+                if (types[e] == type)
+                    return true;
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            int count = 0;
+            for (int e = start; e < end; ++e)
+                if (e == start || types[e] != types[e-1])
+                    count++;
+            return count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                int e = start;
+
+                public boolean hasNext() {
+                    return e < end;
+                }
+
+                public String next() {
+                    if (e >= end)
+                        throw new NoSuchElementException();
+                    int type = types[e];
+                    while (e < end && types[e] == type)
+                        e++;
+                    return labels[type];
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException(
+                            "Cannot modify the relations of a SynsetGraph");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.Arrays;
+
+
+/**
+ * An open addressing hash table from non negative byte offsets to {@link
+ * Synset}s.  Offsets are stored as primitive ints with linear probing, so
+ * lookups never box the offset and the table uses two flat arrays instead of
+ * one entry object per {@link Synset}.
+ *
+ * </p>
+ *
+ * This class is not thread safe for writes, but any number of threads may
+ * call {@link #get(int)} once the table is no longer being modified.
+ *
+ * @author Keith Stevens
+ */
+class SynsetOffsetTable {
+
+    /**
+     * The key marking an empty slot.  Offsets are never negative.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The offsets stored in each slot, or {@link #EMPTY}.
+     */
+    private int[] offsets;
+
+    /**
+     * The {@link Synset} stored in each slot.
+     */
+    private Synset[] synsets;
+
+    /**
+     * The number of stored offsets.
+     */
+    private int size;
+
+    /**
+     * Creates an empty {@link SynsetOffsetTable}.
+     */
+    public SynsetOffsetTable() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty {@link SynsetOffsetTable} that can hold {@code
+     * expectedSize} offsets without growing.
+     */
+    public SynsetOffsetTable(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+        offsets = new int[capacity];
+        Arrays.fill(offsets, EMPTY);
+        synsets = new Synset[capacity];
+    }
+
+    /**
+     * Returns the slot holding {@code offset}, or the empty slot where it
+     * would be stored.
+     */
+    private int slot(int offset) {
+        int mask = offsets.length - 1;
+        // Mix the bits since offsets are byte positions that often share low
+        // order bits.
+        int h = offset * 0x9E3779B9;
+        int s = (h ^ (h >>> 16)) & mask;
+        while (offsets[s] != EMPTY && offsets[s] != offset)
+            s = (s + 1) & mask;
+        return s;
+    }
+
+    /**
+     * Returns the {@link Synset} stored for {@code offset}, or {@code null}
+     * if there is none.
+     */
+    public Synset get(int offset) {
+        if (offset < 0)
+            return null;
+        return synsets[slot(offset)];
+    }
+
+    /**
+     * Stores {@code synset} for {@code offset} and returns the {@link Synset}
+     * previously stored for it, if any.
+     */
+    public Synset put(int offset, Synset synset) {
+        if (offset < 0)
+            throw new IllegalArgumentException(
+                    "Synset offsets may not be negative: " + offset);
+        int s = slot(offset);
+        Synset old = synsets[s];
+        if (offsets[s] == EMPTY) {
+            offsets[s] = offset;
+            size++;
+        }
+        synsets[s] = synset;
+        if (size * 2 > offsets.length)
+            grow();
+        return old;
+    }
+
+    /**
+     * Stores every offset in {@code other} in this table.
+     */
+    public void putAll(SynsetOffsetTable other) {
+        for (int s = 0; s < other.offsets.length; ++s)
+            if (other.offsets[s] != EMPTY)
+                put(other.offsets[s], other.synsets[s]);
+    }
+
+    /**
+     * Returns the number of stored offsets.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts every offset.
+     */
+    private void grow() {
+        int[] oldOffsets = offsets;
+        Synset[] oldSynsets = synsets;
+        offsets = new int[oldOffsets.length * 2];
+        Arrays.fill(offsets, EMPTY);
+        synsets = new Synset[offsets.length];
+        for (int s = 0; s < oldOffsets.length; ++s) {
+            if (oldOffsets[s] != EMPTY) {
+                int n = slot(oldOffsets[s]);
+                offsets[n] = oldOffsets[s];
+                synsets[n] = oldSynsets[s];
+            }
+        }
+    }
+}
@@ -27,13 +27,10 @@ import gov.llnl.ontology.wordnet.DoubleVectorAttribute;
 import gov.llnl.ontology.wordnet.Synset;
 
 import edu.ucla.sspace.vector.CompactSparseVector;
-import edu.ucla.sspace.vector.SparseHashDoubleVector;
 import edu.ucla.sspace.vector.SparseDoubleVector;
 
 import java.util.List;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 
 /**
@@ -59,12 +56,19 @@ import java.util.Set;
  *     given transition probability {@link Attributes} through {@link
  *     setTransitionAttribute}. </li>
  *
- *     <li> The Page Rank algorithm is ran over the graph for a fixed number of
- *     iterations.  In each iteration, the page rank score is updated and used
+ *     <li> The Page Rank algorithm is ran over the graph until the scores
+ *     converge.  In each iteration, the page rank score is updated and used
  *     in conjunction with a set of random surfer probabilities. </li>
  * </ol>
  *
  * </p>
+ *
+ * The iteration itself is performed by a {@link PageRankSolver} over a {@link
+ * TransitionMatrix} built from the transition probability {@link Attribute}s.
+ * Callers that do not need the {@link Attribute}s can build a {@link
+ * TransitionMatrix} directly and use the solver.
+ *
+ * </p>
  * This implementation is designed such that Page Rank can be run over several
  * graphs that have the same core subgraph in parrallel.  Each {@link Synset} in
  * the graph is only given a set of transition probabilities.  As long as the
@@ -140,6 +144,8 @@ public class SynsetPagerank {
      * be computed.  It is recomended that a small number of values in {@link
      * sourceWeights} be set to a non zero value if {@link synsetList} contains
      * a large number of {@link Synset}s from the original word net graph.
+     * Each random jump gives every {@link Synset} it's share of {@code
+     * sourceWeights}, even a {@link Synset} that no link leads to.
      *
      * @param synsetList The set of {@link Sysnet}s over which to compute page
      *        rank scores
@@ -153,79 +159,36 @@ public class SynsetPagerank {
             List<Synset> synsetList,
             SparseDoubleVector sourceWeights,
             double weight) {
-        SparseDoubleVector pageRanks = sourceWeights;
-
-        // For now, just compute a fixed number of iterations.
-        for (int i = 0; i < 30; ++i) {
-            SparseDoubleVector newRanks = new SparseHashDoubleVector(
-                    pageRanks.length());
-
-            // While computing the new page rank vector, compute the l1 norm of
-            // the old page ranks.
-            double oldL1Norm = 0;
-
-            // Compute the initial page rank values for each vertex in the
-            // graph.  This is normally done by multiplying the transpose of the
-            // full transition matrix by the page rank vector.  Since computing
-            // this with the synset structure, we do the multiplcation in a
-            // different order.  The transition probabilities for each synset
-            // are multiplied by the by the probability of page rank of that
-            // synset and having followed a synset link.  Each probability
-            // accumulates towards the page rank of the outgoing synset.
-            for (int index : pageRanks.getNonZeroIndices()) {
-                // Compute the probability of following a link from a synset and
-                // having landed at a particular synset.
-                double oldRank = pageRanks.get(index);
-                double oldScore = oldRank * weight;
-
-                // Update the l1 norm.
-                oldL1Norm += Math.abs(oldRank);
-
-                // Get the transition probabilities.
-                Synset synset = synsetList.get(index);
-                Attribute attribute = synset.getAttribute(TRANSITION_ATTRIBUTE);
-                SparseDoubleVector transitionProbs =
-                    (SparseDoubleVector) attribute.object();
-
-                // Increase the page rank for each outgoing link based on the
-                // probability of following that link.
-                for (int rankIndex : transitionProbs.getNonZeroIndices())
-                    newRanks.add(rankIndex, 
-                                 oldScore * transitionProbs.get(rankIndex));
-            }
-
-            // Compute the difference in L1 norms for the old and new rank
-            // values.
-            double newL1Norm = 0;
-            for (int index : newRanks.getNonZeroIndices())
-                newL1Norm += Math.abs(newRanks.get(index));
-            double gamma = (1-weight);//oldL1Norm - newL1Norm;
-
-            // Add in random surfer probabilities.
-            for (int index : newRanks.getNonZeroIndices())
-                newRanks.add(index, gamma * sourceWeights.get(index));
-
-            // Compute the change in rank scores.  This is simply the l1 norm of
-            // the difference between the two page rank vectors.  We compute
-            // this by first computing the difference between indices in the old
-            // page rank scores and the new page rank scores.  We then simply
-            // add in the l1 norm of all the indices in the new page rank scores
-            // that were not in the old page rank scores.
-            double delta = 0;
-            Set<Integer> oldIndices = new HashSet<Integer>();
-            for (int index : pageRanks.getNonZeroIndices()) {
-                oldIndices.add(index);
-                delta += Math.abs(newRanks.get(index) - pageRanks.get(index));
-            }
-            for (int index : newRanks.getNonZeroIndices()) {
-                if (!oldIndices.contains(index))
-                    delta += Math.abs(newRanks.get(index));
-            }
-
-            // Save the new page rank scores.
-            pageRanks = newRanks;
-        }
+        return computePageRank(synsetList, sourceWeights, weight,
+                               new PageRankSolver());
+    }
 
+    /**
+     * Returns a {@link SparseDoubleVector} representing the page rank scores of
+     * each synset in {@code synsetList}, as computed by {@code solver}.  This
+     * behaves exactly like {@link #computePageRank(List, SparseDoubleVector,
+     * double)} but lets the caller choose the tolerance, iteration limit, and
+     * number of threads used.
+     */
+    public static SparseDoubleVector computePageRank(
+            List<Synset> synsetList,
+            SparseDoubleVector sourceWeights,
+            double weight,
+            PageRankSolver solver) {
+        int size = synsetList.size();
+        double[] teleport = new double[size];
+        for (int index : sourceWeights.getNonZeroIndices())
+            if (index < size)
+                teleport[index] = sourceWeights.get(index);
+
+        PageRankSolver.Result result = solver.solve(
+                TransitionMatrix.fromAttributes(synsetList), teleport, weight);
+
+        double[] ranks = result.getRanks();
+        SparseDoubleVector pageRanks = new CompactSparseVector(size);
+        for (int i = 0; i < size; ++i)
+            if (ranks[i] != 0)
+                pageRanks.set(i, ranks[i]);
         return pageRanks;
     }
 }
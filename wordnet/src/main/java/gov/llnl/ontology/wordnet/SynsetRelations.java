@@ -30,6 +30,7 @@ import edu.ucla.sspace.util.Duple;
 import edu.ucla.sspace.util.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -94,32 +95,91 @@ public class SynsetRelations {
         if (ancestorSynsets == null || ancestorSynsets.length == 0)
             return HypernymStatus.NOVEL_HYPONYM;
 
-        // Compute the set of known ancestors for all synsets of the child term.
-        Set<Synset> knownParents = new HashSet<Synset>();
-        for (Synset childSynset : childSynsets)
-            for (List<Synset> parents : childSynset.getParentPaths())
-                knownParents.addAll(parents);
-
-        // Remove the child synsets.
-        for (Synset childSynset : childSynsets)
-            knownParents.remove(childSynset);
+        // Check every pair of senses at once when all of them are indexed.
+        HypernymIndex index = HypernymIndex.of(childSynsets[0]);
+        if (index != null) {
+            int[] childIds = indicesOf(index, childSynsets);
+            int[] ancestorIds = indicesOf(index, ancestorSynsets);
+            if (childIds != null && ancestorIds != null)
+                return (index.isHypernym(childIds, ancestorIds))
+                    ? HypernymStatus.KNOWN_HYPERNYM
+                    : HypernymStatus.KNOWN_NON_HYPERNYM;
+        }
 
-        // If any of the synsets for the possible ancestor term are in the known
-        // ancestor set, report that these words are an instance of a known
-        // hypernym relation.
-        for (Synset ancestorSynset : ancestorSynsets)
-            if (knownParents.contains(ancestorSynset))
-                return HypernymStatus.KNOWN_HYPERNYM;
+        // If any of the synsets for the possible ancestor term is an ancestor
+        // of some synset of the child term, report that these words are an
+        // instance of a known hypernym relation.  Synsets of the child term
+        // are never counted as ancestors.
+        Set<Synset> children = new HashSet<Synset>(Arrays.asList(childSynsets));
+        for (Synset ancestorSynset : ancestorSynsets) {
+            if (children.contains(ancestorSynset))
+                continue;
+            for (Synset childSynset : childSynsets)
+                if (isAncestor(ancestorSynset, childSynset))
+                    return HypernymStatus.KNOWN_HYPERNYM;
+        }
 
         // Otherwise, report that no valid relationship was found.
         return HypernymStatus.KNOWN_NON_HYPERNYM;
     }
 
+    /**
+     * Returns the ids of {@code synsets} in {@code index}, or {@code null} if
+     * any of them is not indexed.
+     */
+    private static int[] indicesOf(HypernymIndex index, Synset[] synsets) {
+        int[] ids = new int[synsets.length];
+        for (int i = 0; i < synsets.length; ++i) {
+            ids[i] = index.indexOf(synsets[i]);
+            if (ids[i] < 0)
+                return null;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns {@code true} if {@code ancestor} lies on some path from {@code
+     * synset} to the root of the hierarchy.  A {@link Synset} is never it's
+     * own ancestor.  This is answered by the {@link HypernymIndex} holding
+     * both {@link Synset}s when one is current, and by a search through the
+     * parents of {@code synset} otherwise.
+     */
+    public static boolean isAncestor(Synset ancestor, Synset synset) {
+        HypernymIndex index = HypernymIndex.of(synset);
+        if (index != null) {
+            int ancestorId = index.indexOf(ancestor);
+            if (ancestorId >= 0)
+                return index.isAncestor(ancestorId, index.indexOf(synset));
+        }
+
+        Set<Synset> visited = new HashSet<Synset>();
+        List<Synset> toVisit = new ArrayList<Synset>(synset.getParents());
+        while (!toVisit.isEmpty()) {
+            Synset parent = toVisit.remove(toVisit.size() - 1);
+            if (parent == ancestor)
+                return true;
+            if (visited.add(parent))
+                toVisit.addAll(parent.getParents());
+        }
+        return false;
+    }
+
     /**
      * Returns the deepest {@link Synset} that subsumes both {@code synset1} and
      * {@code synset2}.
      */
     public static Synset lowestCommonHypernym(Synset synset1, Synset synset2) {
+        // Use the precomputed closures when both synsets are indexed.
+        HypernymIndex index = HypernymIndex.of(synset1);
+        if (index != null) {
+            int id2 = index.indexOf(synset2);
+            if (id2 >= 0) {
+                int subsumer = index.lowestCommonHypernym(
+                        index.indexOf(synset1), id2);
+                return (subsumer < 0) ? null : index.getSynset(subsumer);
+            }
+        }
+
         List<Synset> subsumers = lowestCommonHypernyms(synset1, synset2);
         return (subsumers.size() == 0) ? null : subsumers.get(0);
     }
@@ -131,6 +191,15 @@ public class SynsetRelations {
      */
     public static List<Synset> lowestCommonHypernyms(Synset synset1,
                                                      Synset synset2) {
+        // Use the precomputed closures when both synsets are indexed.
+        HypernymIndex index = HypernymIndex.of(synset1);
+        if (index != null) {
+            int id2 = index.indexOf(synset2);
+            if (id2 >= 0)
+                return index.lowestCommonHypernyms(
+                        index.indexOf(synset1), id2);
+        }
+
         // Get the set of full parent paths for both synsets.
         List<List<Synset>> synset1Parents = synset1.getParentPaths();
         List<List<Synset>> synset2Parents = synset2.getParentPaths();
@@ -324,6 +393,15 @@ public class SynsetRelations {
         if (synset1 == null || synset2 == null)
             return -1;
 
+        // Walk the precomputed closures when both synsets are indexed.
+        HypernymIndex index = HypernymIndex.of(synset1);
+        if (index != null) {
+            int id2 = index.indexOf(synset2);
+            if (id2 >= 0)
+                return HypernymDistances.pathDistance(
+                        index, index.indexOf(synset1), id2, computeMax);
+        }
+
         // Compute the distance from each synset to all of it's ancestors.  The
         // resulting maps will include only the largest (or smallest) distance
         // from the synset to the ancestor.
@@ -365,6 +443,11 @@ public class SynsetRelations {
      */
     public static Map<Synset, Integer> parentDistances(Synset synset,
                                                        boolean findMax) {
+        HypernymIndex index = HypernymIndex.of(synset);
+        if (index != null)
+            return HypernymDistances.parentDistances(
+                    index, index.indexOf(synset), findMax);
+
         Map<Synset, Integer> distanceMap = new HashMap<Synset, Integer>();
         Set<Synset> seenNodes = new HashSet<Synset>();
         seenNodes.add(synset);
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import edu.ucla.sspace.vector.SparseDoubleVector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An immutable transition matrix over a graph of {@link Synset}s, stored in
+ * compressed sparse row form by target.  Row {@code j} lists every {@link
+ * Synset} with a link to {@link Synset} {@code j} along with the probability
+ * of following that link, so a PageRank step can pull each new score from
+ * it's incoming links without writing to any other row.  {@link Synset}s
+ * without any outgoing links are recorded as dangling.
+ *
+ * </p>
+ *
+ * The same links are also available by source, for solvers that push scores
+ * forward along outgoing links.  These are built from the incoming links the
+ * first time they are requested.
+ *
+ * @author Keith Stevens
+ */
+public class TransitionMatrix {
+
+    /**
+     * The number of {@link Synset}s in the graph.
+     */
+    private final int size;
+
+    /**
+     * The offset into {@link #sources} of the incoming links for each {@link
+     * Synset}.  The final entry is the total number of links.
+     */
+    private final int[] rowStarts;
+
+    /**
+     * The source {@link Synset} of each incoming link.
+     */
+    private final int[] sources;
+
+    /**
+     * The probability of following each incoming link.
+     */
+    private final double[] probabilities;
+
+    /**
+     * The {@link Synset}s without any outgoing links.
+     */
+    private final int[] danglingRows;
+
+    /**
+     * The links of the matrix stored by source.  This is {@code null} until it
+     * is first requested.
+     */
+    private volatile Outgoing outgoing;
+
+    /**
+     * Creates a new {@link TransitionMatrix} from the outgoing links of each
+     * {@link Synset}.  {@code outLinks[i]} holds the targets of {@link Synset}
+     * {@code i}, in increasing order, and {@code outProbabilities[i]} holds
+     * the probability of following each link.
+     */
+    public TransitionMatrix(int[][] outLinks, double[][] outProbabilities) {
+        size = outLinks.length;
+
+        // Count the incoming links for each target and the dangling sources.
+        int[] inDegrees = new int[size];
+        int numDangling = 0;
+        for (int i = 0; i < size; ++i) {
+            if (outLinks[i].length == 0)
+                numDangling++;
+            for (int target : outLinks[i])
+                inDegrees[target]++;
+        }
+
+        rowStarts = new int[size + 1];
+        for (int j = 0; j < size; ++j)
+            rowStarts[j + 1] = rowStarts[j] + inDegrees[j];
+
+        // Fill in the incoming links.  Sources are visited in increasing
+        // order, so each row is sorted by source.
+        sources = new int[rowStarts[size]];
+        probabilities = new double[rowStarts[size]];
+        danglingRows = new int[numDangling];
+        int[] next = Arrays.copyOf(rowStarts, size);
+        int d = 0;
+        for (int i = 0; i < size; ++i) {
+            if (outLinks[i].length == 0)
+                danglingRows[d++] = i;
+            for (int l = 0; l < outLinks[i].length; ++l) {
+                int slot = next[outLinks[i][l]]++;
+                sources[slot] = i;
+                probabilities[slot] = outProbabilities[i][l];
+            }
+        }
+    }
+
+    /**
+     * Returns a new {@link TransitionMatrix} over {@code synsetList} where
+     * each {@link Synset} links to every related {@link Synset} with
+     * probability one over it's number of relations.  {@code synsetMap}
+     * provides the index of each {@link Synset}.  This gives the same
+     * probabilities as {@link SynsetPagerank#setTransitionAttribute}.
+     *
+     * @throws NullPointerException if {@code synsetMap} does not contain a
+     *         mapping for an outward link in any {@link Synset}
+     */
+    public static TransitionMatrix build(List<Synset> synsetList,
+                                         Map<Synset, Integer> synsetMap) {
+        int size = synsetList.size();
+        int[][] outLinks = new int[size][];
+        double[][] outProbabilities = new double[size][];
+        for (int i = 0; i < size; ++i) {
+            Synset synset = synsetList.get(i);
+            double numRelations = synset.getNumRelations();
+
+            // Each related synset is linked once, no matter how many
+            // relations connect them.
+            int[] targets = new int[synset.allRelations().size()];
+            int numTargets = 0;
+            for (Synset related : synset.allRelations())
+                targets[numTargets++] = synsetMap.get(related).intValue();
+            Arrays.sort(targets, 0, numTargets);
+            int unique = 0;
+            for (int t = 0; t < numTargets; ++t)
+                if (unique == 0 || targets[unique - 1] != targets[t])
+                    targets[unique++] = targets[t];
+
+            outLinks[i] = Arrays.copyOf(targets, unique);
+            outProbabilities[i] = new double[unique];
+            Arrays.fill(outProbabilities[i], 1d / numRelations);
+        }
+        return new TransitionMatrix(outLinks, outProbabilities);
+    }
+
+    /**
+     * Returns a new {@link TransitionMatrix} over {@code synsetList} using the
+     * transition probabilities stored in each {@link Synset}'s {@link
+     * SynsetPagerank#TRANSITION_ATTRIBUTE}.
+     */
+    public static TransitionMatrix fromAttributes(List<Synset> synsetList) {
+        int size = synsetList.size();
+        int[][] outLinks = new int[size][];
+        double[][] outProbabilities = new double[size][];
+        for (int i = 0; i < size; ++i) {
+            Attribute attribute = synsetList.get(i).getAttribute(
+                    SynsetPagerank.TRANSITION_ATTRIBUTE);
+            SparseDoubleVector transitionProbs =
+                (SparseDoubleVector) attribute.object();
+            int[] targets = transitionProbs.getNonZeroIndices().clone();
+            Arrays.sort(targets);
+            outLinks[i] = targets;
+            outProbabilities[i] = new double[targets.length];
+            for (int t = 0; t < targets.length; ++t)
+                outProbabilities[i][t] = transitionProbs.get(targets[t]);
+        }
+        return new TransitionMatrix(outLinks, outProbabilities);
+    }
+
+    /**
+     * Returns the number of {@link Synset}s in the graph.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of each row's incoming links.
+     */
+    public int[] getRowStarts() {
+        return rowStarts;
+    }
+
+    /**
+     * Returns the source of each incoming link.
+     */
+    public int[] getSources() {
+        return sources;
+    }
+
+    /**
+     * Returns the probability of following each incoming link.
+     */
+    public double[] getProbabilities() {
+        return probabilities;
+    }
+
+    /**
+     * Returns the {@link Synset}s without any outgoing links.
+     */
+    public int[] getDanglingRows() {
+        return danglingRows;
+    }
+
+    /**
+     * Returns the offset into {@link #getOutTargets} of the outgoing links for
+     * each {@link Synset}.  The final entry is the total number of links.
+     */
+    public int[] getOutStarts() {
+        return outgoing().starts;
+    }
+
+    /**
+     * Returns the target of each outgoing link, in increasing order for each
+     * {@link Synset}.
+     */
+    public int[] getOutTargets() {
+        return outgoing().targets;
+    }
+
+    /**
+     * Returns the probability of following each outgoing link.
+     */
+    public double[] getOutProbabilities() {
+        return outgoing().probabilities;
+    }
+
+    /**
+     * Returns the links stored by source, building them if needed.  Two
+     * threads may both build the links, but they will build equal copies.
+     */
+    private Outgoing outgoing() {
+        Outgoing out = outgoing;
+        if (out == null) {
+            out = new Outgoing(this);
+            outgoing = out;
+        }
+        return out;
+    }
+
+    /**
+     * The links of a {@link TransitionMatrix} in compressed sparse row form
+     * by source.
+     */
+    private static class Outgoing {
+
+        final int[] starts;
+
+        final int[] targets;
+
+        final double[] probabilities;
+
+        /**
+         * Transposes the incoming links of {@code matrix}.  Rows are visited
+         * in increasing order, so each source lists it's targets in order.
+         */
+        Outgoing(TransitionMatrix matrix) {
+            int size = matrix.size;
+            starts = new int[size + 1];
+            for (int source : matrix.sources)
+                starts[source + 1]++;
+            for (int i = 0; i < size; ++i)
+                starts[i + 1] += starts[i];
+
+            targets = new int[matrix.sources.length];
+            probabilities = new double[matrix.sources.length];
+            int[] next = Arrays.copyOf(starts, size);
+            for (int j = 0; j < size; ++j)
+                for (int l = matrix.rowStarts[j];
+                         l < matrix.rowStarts[j + 1]; ++l) {
+                    int slot = next[matrix.sources[l]]++;
+                    targets[slot] = j;
+                    probabilities[slot] = matrix.probabilities[l];
+                }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A small set of extra nodes layered on top of an immutable {@link
+ * TransitionMatrix}.  Extra nodes are numbered after the rows of the base
+ * matrix and may link to any base row or to any other extra node.  The base
+ * matrix is never copied or modified, so a single base matrix can be built
+ * once and shared by many overlays, each holding only the links that are
+ * specific to one context.  This is how pseudo {@link Synset}s, such as the
+ * term nodes in personalized page rank, are added to the wordnet graph.
+ *
+ * </p>
+ *
+ * The links of the extra nodes are stored by target, in the same form as the
+ * base matrix, so that a {@link PageRankSolver} can add them to each row it
+ * computes.  Note that links only leave the extra nodes, links from base rows
+ * to extra nodes can not be added, as they would change the transition
+ * probabilities of the base row.
+ *
+ * </p>
+ *
+ * This class is <b>not</b> thread safe.  Each context should build it's own
+ * overlay.
+ *
+ * @author Keith Stevens
+ */
+public class TransitionOverlay {
+
+    /**
+     * The shared base transition matrix.
+     */
+    private final TransitionMatrix base;
+
+    /**
+     * The targets of each extra node, in increasing order.
+     */
+    private final List<int[]> outLinks;
+
+    /**
+     * The probability of following each link of each extra node.
+     */
+    private final List<double[]> outProbabilities;
+
+    /**
+     * The rows with at least one incoming overlay link, in increasing order.
+     * This is {@code null} whenever a node has been added since the links were
+     * last indexed.
+     */
+    private int[] targets;
+
+    /**
+     * The offset into {@link #sources} of the incoming overlay links for each
+     * entry in {@link #targets}.  The final entry is the total number of
+     * links.
+     */
+    private int[] targetStarts;
+
+    /**
+     * The source node of each incoming overlay link.
+     */
+    private int[] sources;
+
+    /**
+     * The probability of following each incoming overlay link.
+     */
+    private double[] probabilities;
+
+    /**
+     * The extra nodes without any outgoing links.
+     */
+    private int[] danglingNodes;
+
+    /**
+     * Creates a new, empty {@link TransitionOverlay} on top of {@code base}.
+     */
+    public TransitionOverlay(TransitionMatrix base) {
+        this.base = base;
+        outLinks = new ArrayList<int[]>();
+        outProbabilities = new ArrayList<double[]>();
+    }
+
+    /**
+     * Adds a new node that links to each of the {@code targets} with an equal
+     * probability and returns it's index.  Repeated targets are linked once.
+     */
+    public int addNode(int[] targets) {
+        int[] unique = targets.clone();
+        Arrays.sort(unique);
+        int numUnique = 0;
+        for (int t = 0; t < unique.length; ++t)
+            if (numUnique == 0 || unique[numUnique - 1] != unique[t])
+                unique[numUnique++] = unique[t];
+        unique = Arrays.copyOf(unique, numUnique);
+
+        double[] probs = new double[numUnique];
+        Arrays.fill(probs, 1d / numUnique);
+        return addNode(unique, probs);
+    }
+
+    /**
+     * Adds a new node that links to each of the {@code targets}, which must be
+     * in increasing order, with the matching probability in {@code
+     * probabilities}, and returns it's index.
+     *
+     * @throws IllegalArgumentException if the two arrays are of different
+     *         lengths or a target is negative
+     */
+    public int addNode(int[] targets, double[] probabilities) {
+        if (targets.length != probabilities.length)
+            throw new IllegalArgumentException(
+                    "Each target must have a probability");
+        for (int target : targets)
+            if (target < 0)
+                throw new IllegalArgumentException(
+                        "Invalid target: " + target);
+        outLinks.add(targets);
+        outProbabilities.add(probabilities);
+        this.targets = null;
+        return base.size() + outLinks.size() - 1;
+    }
+
+    /**
+     * Returns the shared base transition matrix.
+     */
+    public TransitionMatrix getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the number of extra nodes.
+     */
+    public int numNodes() {
+        return outLinks.size();
+    }
+
+    /**
+     * Returns the number of rows in the base matrix plus the number of extra
+     * nodes.
+     */
+    public int size() {
+        return base.size() + outLinks.size();
+    }
+
+    /**
+     * Returns the targets of the extra node {@code node}, which is numbered
+     * after the base rows, in increasing order.
+     */
+    public int[] getOutLinks(int node) {
+        return outLinks.get(node - base.size());
+    }
+
+    /**
+     * Returns the probability of following each link of the extra node {@code
+     * node}.
+     */
+    public double[] getOutProbabilities(int node) {
+        return outProbabilities.get(node - base.size());
+    }
+
+    /**
+     * Returns the rows with at least one incoming overlay link, in increasing
+     * order.
+     */
+    public int[] getTargets() {
+        index();
+        return targets;
+    }
+
+    /**
+     * Returns the offset of the incoming overlay links for each entry in
+     * {@link #getTargets}.
+     */
+    public int[] getTargetStarts() {
+        index();
+        return targetStarts;
+    }
+
+    /**
+     * Returns the source of each incoming overlay link.
+     */
+    public int[] getSources() {
+        index();
+        return sources;
+    }
+
+    /**
+     * Returns the probability of following each incoming overlay link.
+     */
+    public double[] getProbabilities() {
+        index();
+        return probabilities;
+    }
+
+    /**
+     * Returns the extra nodes without any outgoing links.
+     */
+    public int[] getDanglingNodes() {
+        index();
+        return danglingNodes;
+    }
+
+    /**
+     * Indexes the overlay links by target if a node has been added since they
+     * were last indexed.
+     *
+     * @throws IllegalStateException if a link points past the last node
+     */
+    private void index() {
+        if (targets != null)
+            return;
+
+        // Sort each link by it's target.  Links are numbered in order of their
+        // source, so ties keep each target's sources in increasing order.
+        int size = size();
+        int numLinks = 0;
+        int numDangling = 0;
+        for (int[] links : outLinks) {
+            numLinks += links.length;
+            if (links.length == 0)
+                numDangling++;
+        }
+        long[] keys = new long[numLinks];
+        int[] linkSources = new int[numLinks];
+        double[] linkProbabilities = new double[numLinks];
+        danglingNodes = new int[numDangling];
+        int l = 0;
+        int d = 0;
+        for (int n = 0; n < outLinks.size(); ++n) {
+            int[] links = outLinks.get(n);
+            double[] probs = outProbabilities.get(n);
+            if (links.length == 0)
+                danglingNodes[d++] = base.size() + n;
+            for (int i = 0; i < links.length; ++i, ++l) {
+                if (links[i] >= size)
+                    throw new IllegalStateException(
+                            "Link to a missing node: " + links[i]);
+                keys[l] = ((long) links[i] << 32) | l;
+                linkSources[l] = base.size() + n;
+                linkProbabilities[l] = probs[i];
+            }
+        }
+        Arrays.sort(keys);
+
+        int[] uniqueTargets = new int[numLinks];
+        int[] starts = new int[numLinks + 1];
+        sources = new int[numLinks];
+        probabilities = new double[numLinks];
+        int numTargets = 0;
+        for (int k = 0; k < numLinks; ++k) {
+            int target = (int) (keys[k] >>> 32);
+            int link = (int) keys[k];
+            if (numTargets == 0 || uniqueTargets[numTargets - 1] != target) {
+                uniqueTargets[numTargets] = target;
+                starts[numTargets++] = k;
+            }
+            sources[k] = linkSources[link];
+            probabilities[k] = linkProbabilities[link];
+        }
+        starts[numTargets] = numLinks;
+        targetStarts = Arrays.copyOf(starts, numTargets + 1);
+        targets = Arrays.copyOf(uniqueTargets, numTargets);
+    }
+}
@@ -145,6 +145,13 @@ public class UnsupportedOntologyReader implements OntologyReader {
         throw new UnsupportedOperationException("Cannot perform this action");
     }
 
+    /**
+     * @throws UnsupportedOperationException
+     */
+    public Synset getSynsetBySenseKey(String senseKey) {
+        throw new UnsupportedOperationException("Cannot perform this action");
+    }
+
     /**
      * @throws UnsupportedOperationException
      */
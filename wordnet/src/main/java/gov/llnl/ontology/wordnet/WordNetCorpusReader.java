@@ -24,6 +24,7 @@
 package gov.llnl.ontology.wordnet;
 
 import gov.llnl.ontology.util.StreamUtil;
+import gov.llnl.ontology.util.WorkQueueUtil;
 import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
 import gov.llnl.ontology.wordnet.Synset.Relation;
 
@@ -34,20 +35,31 @@ import com.google.common.collect.Sets;
 import edu.ucla.sspace.util.CombinedIterator;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOError;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.FileReader;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import java.util.logging.Logger;
 
 
@@ -63,6 +75,17 @@ import java.util.logging.Logger;
  *
  * This reader is heavily based on the NLTK WordNet corpus reader.
  *
+ * </p>
+ *
+ * A single reader may be shared by many threads.  Lookups never block and may
+ * run while another thread modifies the dictionary.  Modifications are
+ * serialized with each other.  Each change to a lemma's {@link Synset} list,
+ * and each change to a {@link Synset}'s relations, is published atomically,
+ * so readers always see either the old or the new version of that list or
+ * relation set.  A compound change, such as {@link #removeSynset(Synset)},
+ * which updates several lemmas and relations, is not atomic as a whole and
+ * readers may observe it half way through.
+ *
  * @author Keith Stevens
  */
 public class WordNetCorpusReader implements OntologyReader {
@@ -128,12 +151,30 @@ public class WordNetCorpusReader implements OntologyReader {
     public static final String[] FILE_EXTENSIONS =
             {"noun", "verb", "adj", "adv", ""};
 
+    /**
+     * The name of the binary snapshot file that, if present in the dictionary
+     * directory, will be loaded instead of the text dictionary files.
+     */
+    public static final String SNAPSHOT_FILE = WordNetSnapshot.FILE_NAME;
+
+    /**
+     * The number of data file lines parsed by a single loading task.
+     */
+    private static final int LINES_PER_TASK = 2048;
+
+    /**
+     * The system property used to set the maximum number of surface forms
+     * held by the morphy cache.
+     */
+    public static final String MORPHY_CACHE_SIZE_PROPERTY =
+        "gov.llnl.ontology.wordnet.morphyCacheSize";
+
     private static String UTF8 = "utf-8";
 
     /**
      * A singleton instance of a {@link WordNetCorpusReader}.
      */
-    private static WordNetCorpusReader corpusReader;
+    private static volatile WordNetCorpusReader corpusReader;
 
     /**
      * The path that specifies the location of the WordNet dictionary files.
@@ -158,14 +199,46 @@ public class WordNetCorpusReader implements OntologyReader {
 
     /**
      * A mapping from lemmas and parts of speech to possible {@link Synset}s.
+     * The arrays stored in this map are never modified once they have been
+     * published; changes replace the mapping for a lemma with a new copy.
      */
     private Map<String, Synset[][]> lemmaPosOffsetMap;
 
+    /**
+     * The number of lemma mappings that refer to each {@link Synset}, for
+     * each part of speech.  The keys for a part of speech are exactly the
+     * {@link Synset}s returned by {@link #allSynsets(PartsOfSpeech)}.
+     */
+    private List<Map<Synset, Integer>> posSynsetCounts;
+
+    /**
+     * The number of lemma mappings that refer to each {@link Synset} for any
+     * part of speech.
+     */
+    private Map<Synset, Integer> synsetCounts;
+
+    /**
+     * The lemmas that map to at least one {@link Synset} for each part of
+     * speech.
+     */
+    private List<Set<String>> posTerms;
+
+    /**
+     * A trie over every lemma in {@code lemmaPosOffsetMap}, or {@code null}
+     * if it needs to be rebuilt.
+     */
+    private volatile LemmaTrie lemmaTrie;
+
+    /**
+     * The mapping from each sense key to the {@link Synset} it identifies.
+     */
+    private ConcurrentMap<String, Synset> senseKeyMap;
+
     /**
      * The mapping from an offset to it's {@link Synset} for each part of
      * speech.
      */
-    private List<Map<Integer, Synset>> posOffsetToSynsetMap;
+    private List<SynsetOffsetTable> posOffsetToSynsetMap;
 
     /**
      * The list of valid verb frames.
@@ -173,9 +246,17 @@ public class WordNetCorpusReader implements OntologyReader {
     private List<String> verbFrames;
 
     /**
-     * The maximum depth of the IS-A hierarchy for each part of speech.
+     * The depths and hypernym closure of every {@link Synset}.  This is
+     * extended as new leaf {@link Synset}s are added and rebuilt on demand
+     * once it is no longer current.
      */
-    private int[] maxDepths;
+    private volatile HypernymIndex hypernymIndex;
+
+    /**
+     * The cache of morphological lookups from surface forms to {@link
+     * Synset}s.
+     */
+    private MorphyCache morphyCache;
 
     /**
      * {@inheritDoc}
@@ -205,24 +286,20 @@ public class WordNetCorpusReader implements OntologyReader {
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to the dictionary.
      */
     public Set<Synset> allSynsets() {
-        Set<Synset> allSynsets = Sets.newHashSet();
-        for (Synset[][] lemmaSynsets : lemmaPosOffsetMap.values())
-            for (Synset[] posSynsets : lemmaSynsets)
-                allSynsets.addAll(Arrays.asList(posSynsets));
-        return allSynsets;
+        return Collections.unmodifiableSet(synsetCounts.keySet());
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to the dictionary.
      */
     public Set<Synset> allSynsets(PartsOfSpeech pos) {
-        Set<Synset> allSynsets = Sets.newHashSet();
-        for (Synset[][] lemmaSynsets : lemmaPosOffsetMap.values())
-            allSynsets.addAll(Arrays.asList(lemmaSynsets[pos.ordinal()]));
-        return allSynsets;
+        return Collections.unmodifiableSet(
+                posSynsetCounts.get(pos.ordinal()).keySet());
     }
 
     /**
@@ -235,9 +312,21 @@ public class WordNetCorpusReader implements OntologyReader {
     /**
      * {@inheritDoc}
      */
-    public void addSynset(Synset synset, int index) {
+    public synchronized void addSynset(Synset synset, int index) {
         int pos = synset.getPartOfSpeech().ordinal();
 
+        // Any cached lookups may now be missing the new synset.
+        morphyCache.clear();
+        if (synset instanceof BaseSynset)
+            ((BaseSynset) synset).setMorphyCache(morphyCache);
+        for (String senseKey : synset.getSenseKeys())
+            senseKeyMap.put(senseKey, synset);
+
+        // Extend the hypernym index in place when the new synset's parents
+        // are already indexed, otherwise rebuild it on the next request.
+        if (!hypernymIndex.add(synset))
+            hypernymIndex.invalidate();
+
         Set<String> seenLemmas = Sets.newHashSet();
 
         for (Lemma lemma : synset.getLemmas()) {
@@ -248,13 +337,14 @@ public class WordNetCorpusReader implements OntologyReader {
 
             Synset[][] lemmaSynsets = lemmaPosOffsetMap.get(lemmaName);
 
-            // Add the lemma if it does not already have a mapping.
+            // Add the lemma if it does not already have a mapping, otherwise
+            // copy the mapping so that readers never see a partial update.
             if (lemmaSynsets == null) {
                 lemmaSynsets = new Synset[POS_TAGS.length][];
                 for (int i = 0; i < POS_TAGS.length; ++i)
                     lemmaSynsets[i] = new Synset[0];
-                lemmaPosOffsetMap.put(lemmaName, lemmaSynsets);
-            }
+            } else
+                lemmaSynsets = lemmaSynsets.clone();
 
             // Check that the index is valid.
             if (index > lemmaSynsets[pos].length || index < -1)
@@ -277,14 +367,25 @@ public class WordNetCorpusReader implements OntologyReader {
                              lemmaSynsets[pos].length - index);
 
             lemmaSynsets[pos] = newPosSynsets;
+            updateLemma(lemmaName, lemmaSynsets);
         }
+
+        // Drop any lookups resolved while the mappings were changing.
+        morphyCache.clear();
     }
+
     /**
      * {@inheritDoc}
      */
-    public void removeSynset(Synset synset) {
+    public synchronized void removeSynset(Synset synset) {
         int pos = synset.getPartOfSpeech().ordinal();
 
+        // Any cached lookups may still refer to the removed synset.
+        morphyCache.clear();
+        hypernymIndex.invalidate();
+        for (String senseKey : synset.getSenseKeys())
+            senseKeyMap.remove(senseKey, synset);
+
         Set<String> seenLemmas = Sets.newHashSet();
 
         // Remove reflexive relations from other synsets to this synset.  This
@@ -326,19 +427,38 @@ public class WordNetCorpusReader implements OntologyReader {
                 else
                     newPosSynsets[j] = lemmaSynsets[pos][i];
             }
+            lemmaSynsets = lemmaSynsets.clone();
             lemmaSynsets[pos] = newPosSynsets;
+            updateLemma(lemmaName, lemmaSynsets);
         }
+
+        // Drop any lookups resolved while the mappings were changing.
+        morphyCache.clear();
     }
 
     /**
      * {@inheritDoc}
      */
-    public void replaceSynset(Synset synset, Synset replacement) {
+    public synchronized void replaceSynset(Synset synset,
+                                           Synset replacement) {
         if (synset.getPartOfSpeech() != replacement.getPartOfSpeech())
             throw new IllegalArgumentException(
                     "Cannot replace a synset with another synset having a " +
                     "different part of speech.");
 
+        // Any cached lookups may still refer to the replaced synset.
+        morphyCache.clear();
+        hypernymIndex.invalidate();
+        if (replacement instanceof BaseSynset)
+            ((BaseSynset) replacement).setMorphyCache(morphyCache);
+
+        // Sense keys of the old synset now refer to the replacement, so that
+        // keys from annotated corpora still resolve after a merge.
+        for (String senseKey : synset.getSenseKeys())
+            senseKeyMap.replace(senseKey, synset, replacement);
+        for (String senseKey : replacement.getSenseKeys())
+            senseKeyMap.put(senseKey, replacement);
+
         // Create the set of lemmas that the replacement synset knows about.
         // This will be used to determine when the replacement synset is in the
         // same lemma mapping as the old synset.
@@ -359,8 +479,9 @@ public class WordNetCorpusReader implements OntologyReader {
                 continue;
             seenLemmas.add(lemmaName);
 
-            // Get all of the synsets for this lemma.
-            Synset[][] posSynsets = lemmaPosOffsetMap.get(lemmaName);
+            // Get all of the synsets for this lemma.  The mapping is copied
+            // so that readers never see a partial update.
+            Synset[][] posSynsets = lemmaPosOffsetMap.get(lemmaName).clone();
             Synset[] synsets = posSynsets[synset.getPartOfSpeech().ordinal()];
 
             // If the replacement synset is in this lemma mapping, then we have
@@ -392,30 +513,151 @@ public class WordNetCorpusReader implements OntologyReader {
             } else {
                 // Otherwise we just have to replace the old synset mapping with
                 // a pointer to the new synset.
+                synsets = synsets.clone();
                 for (int s = 0; s < synsets.length; ++s) {
                     if (synsets[s] == synset)
                         synsets[s] = replacement;
                 }
+                posSynsets[synset.getPartOfSpeech().ordinal()] = synsets;
             }
+            updateLemma(lemmaName, posSynsets);
         }
+
+        // Drop any lookups resolved while the mappings were changing.
+        morphyCache.clear();
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to the dictionary.
      */
     public Set<String> wordnetTerms() {
-        return lemmaPosOffsetMap.keySet();
+        return Collections.unmodifiableSet(lemmaPosOffsetMap.keySet());
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}  The returned set is a read only view that reflects later
+     * changes to the dictionary.
      */
     public Set<String> wordnetTerms(PartsOfSpeech pos) {
-        Set<String> posLemmas = Sets.newHashSet();
-        for (Map.Entry<String, Synset[][]> entry : lemmaPosOffsetMap.entrySet())
-            if (entry.getValue()[pos.ordinal()].length != 0)
-                posLemmas.add(entry.getKey());
-        return posLemmas;
+        return Collections.unmodifiableSet(posTerms.get(pos.ordinal()));
+    }
+
+    /**
+     * Returns a {@link LemmaTrie} over every lemma in the dictionary.  The
+     * trie is built on first use and rebuilt after new lemmas are added.
+     */
+    public LemmaTrie getLemmaTrie() {
+        LemmaTrie trie = lemmaTrie;
+        if (trie != null)
+            return trie;
+
+        // Build while holding the writer lock so that a concurrent update
+        // cannot be missed by the new trie.
+        synchronized (this) {
+            if (lemmaTrie == null)
+                lemmaTrie = new LemmaTrie(lemmaPosOffsetMap.keySet());
+            return lemmaTrie;
+        }
+    }
+
+    /**
+     * Returns the {@link HypernymIndex} over every {@link Synset} in the
+     * dictionary.  The index is rebuilt if the hierarchy has been modified
+     * in a way that could not be applied incrementally.
+     */
+    public HypernymIndex getHypernymIndex() {
+        HypernymIndex index = hypernymIndex;
+        if (index.isCurrent())
+            return index;
+
+        synchronized (this) {
+            if (!hypernymIndex.isCurrent())
+                hypernymIndex = HypernymIndex.build(allSynsets());
+            return hypernymIndex;
+        }
+    }
+
+    /**
+     * Replaces the {@link Synset}s mapped to {@code lemma} with {@code
+     * updated} and brings the part of speech indices up to date.  This must
+     * only be called by a thread holding the lock on this reader.
+     */
+    private void updateLemma(String lemma, Synset[][] updated) {
+        Synset[][] old = lemmaPosOffsetMap.put(lemma, updated);
+        if (old == null)
+            lemmaTrie = null;
+        for (int pos = 0; pos < POS_TAGS.length; ++pos) {
+            // Count the new mappings before dropping the old ones so that a
+            // synset kept by this lemma never disappears from the indices.
+            for (Synset synset : updated[pos])
+                countSynset(synset, pos, 1);
+            if (old != null)
+                for (Synset synset : old[pos])
+                    countSynset(synset, pos, -1);
+
+            if (updated[pos].length != 0)
+                posTerms.get(pos).add(lemma);
+            else
+                posTerms.get(pos).remove(lemma);
+        }
+    }
+
+    /**
+     * Builds the part of speech and sense key indices from the lemma mappings
+     * once the dictionary has been loaded.
+     */
+    private void indexLemmas() {
+        synsetCounts = new ConcurrentHashMap<Synset, Integer>();
+        posSynsetCounts = Lists.newArrayList();
+        posTerms = Lists.newArrayList();
+        for (int pos = 0; pos < POS_TAGS.length; ++pos) {
+            posSynsetCounts.add(new ConcurrentHashMap<Synset, Integer>());
+            posTerms.add(Collections.newSetFromMap(
+                        new ConcurrentHashMap<String, Boolean>()));
+        }
+
+        for (Map.Entry<String, Synset[][]> entry :
+                lemmaPosOffsetMap.entrySet()) {
+            Synset[][] lemmaSynsets = entry.getValue();
+            for (int pos = 0; pos < POS_TAGS.length; ++pos) {
+                for (Synset synset : lemmaSynsets[pos])
+                    countSynset(synset, pos, 1);
+                if (lemmaSynsets[pos].length != 0)
+                    posTerms.get(pos).add(entry.getKey());
+            }
+        }
+
+        senseKeyMap = new ConcurrentHashMap<String, Synset>(
+                synsetCounts.size() * 2);
+        for (Synset synset : synsetCounts.keySet())
+            for (String senseKey : synset.getSenseKeys())
+                senseKeyMap.put(senseKey, synset);
+    }
+
+    /**
+     * Adds {@code delta} to the number of lemma mappings that refer to {@code
+     * synset} with the part of speech {@code pos}, dropping it from the
+     * indices once no mapping refers to it.
+     */
+    private void countSynset(Synset synset, int pos, int delta) {
+        updateCount(posSynsetCounts.get(pos), synset, delta);
+        updateCount(synsetCounts, synset, delta);
+    }
+
+    /**
+     * Adds {@code delta} to the count for {@code synset} in {@code counts},
+     * removing the {@link Synset} once the count reaches zero.
+     */
+    private static void updateCount(Map<Synset, Integer> counts,
+                                    Synset synset,
+                                    int delta) {
+        Integer count = counts.get(synset);
+        int updated = ((count == null) ? 0 : count) + delta;
+        if (updated > 0)
+            counts.put(synset, updated);
+        else
+            counts.remove(synset);
     }
 
     /**
@@ -437,8 +679,9 @@ public class WordNetCorpusReader implements OntologyReader {
      * directory dict contains all the WordNet dictionary files and is as the
      * base directory of the jar.
      */
-    public static WordNetCorpusReader initialize(String dictPath,
-                                                 boolean readFromJar) {
+    public static synchronized WordNetCorpusReader initialize(
+            String dictPath,
+            boolean readFromJar) {
         if (corpusReader == null)
             corpusReader = new WordNetCorpusReader(dictPath, readFromJar);
         return corpusReader;
@@ -477,32 +720,61 @@ public class WordNetCorpusReader implements OntologyReader {
             return (termSynsets == null) ? null : termSynsets[pos.ordinal()];
         }
 
-        // If there are spaces, replace them with underscores, since no lemma
-        // has spaces in it.
-        String fixedLemma = lemma.replaceAll("\\s+", "_");
-
         // If pos is null, try searching with the fixed lemma.
         if (pos == null)
-            return getSynsets(fixedLemma);
+            return getSynsets(lemma.replaceAll("\\s+", "_"));
+
+        // The cached array is shared by every lookup, so callers get a copy.
+        return morphyCache.lookup(lemma, pos).synsets.clone();
+    }
 
+    /**
+     * Returns the {@link MorphyCache} used to resolve surface forms to {@link
+     * Synset}s.
+     */
+    public MorphyCache getMorphyCache() {
+        return morphyCache;
+    }
+
+    /**
+     * Resolves {@code lemma} to the {@link Synset}s with part of speech {@code
+     * pos}, applying morphological rules if needed.  This should only be
+     * called by the {@link MorphyCache}.
+     */
+    /* package private */ MorphyCache.Entry resolveMorphy(String lemma,
+                                                        PartsOfSpeech pos) {
         // Get the synsets for the original form, doing no morphological
-        // parsing.
-        Synset[][] lemmaSynsets = lemmaPosOffsetMap.get(fixedLemma);
-        if (lemmaSynsets != null && lemmaSynsets[pos.ordinal()].length > 0) {
-            for (Synset s : lemmaSynsets[pos.ordinal()])
-                s.addMorphyMapping(lemma, fixedLemma); 
-            return lemmaSynsets[pos.ordinal()];
+        // parsing.  Since no lemma has spaces in it, spaces are matched as
+        // underscores.  The lemma trie does this without building the
+        // replaced string.
+        LemmaTrie trie = getLemmaTrie();
+        int lemmaId = trie.indexOf(lemma, '_');
+        if (lemmaId >= 0) {
+            String knownLemma = trie.getLemma(lemmaId);
+            Synset[][] lemmaSynsets = lemmaPosOffsetMap.get(knownLemma);
+            if (lemmaSynsets[pos.ordinal()].length > 0) {
+                Synset[] synsets = lemmaSynsets[pos.ordinal()];
+                String[] lemmas = new String[synsets.length];
+                Arrays.fill(lemmas, knownLemma);
+                return new MorphyCache.Entry(synsets, lemmas);
+            }
         }
 
+        // If there are spaces, replace them with underscores for the
+        // morphological variations.
+        String fixedLemma = lemma.replaceAll("\\s+", "_");
+
         // Try getting the word with the full string as it is.
-        List<Synset> synsets = getWithMorphy(lemma, fixedLemma, "", pos);
+        List<Synset> synsets = Lists.newArrayList();
+        List<String> lemmas = Lists.newArrayList();
+        getWithMorphy(fixedLemma, "", pos, synsets, lemmas);
         // If that failed, try splitting the string based on underscores and
         // running morphy on just the first part.  The second part will no be
         // run through morphy and just be a post fix.
         if (synsets.size() == 0) {
             String[] parts = fixedLemma.split("_", 2);
             if (parts.length == 2)
-                synsets = getWithMorphy(lemma, parts[0], "_"+parts[1], pos);
+                getWithMorphy(parts[0], "_"+parts[1], pos, synsets, lemmas);
         }
 
         // If we couldn't find anything using underscores instead of spaces, try
@@ -510,22 +782,29 @@ public class WordNetCorpusReader implements OntologyReader {
         // haven't been tried, on the recursive call, this will check will fail
         // and it will return what we find, no matter what.
         if (synsets.size() == 0 && lemma.indexOf(" ") > -1)
-            return getSynsets(lemma.replaceAll("\\s+", "-"), pos);
+            return morphyCache.lookup(lemma.replaceAll("\\s+", "-"), pos);
         // Similarity, try the whole thing without any spaces, some words like
         // "guest room" are like this.
         if (synsets.size() == 0 && lemma.indexOf("-") > -1)
-            return getSynsets(lemma.replaceAll("-", ""), pos);
+            return morphyCache.lookup(lemma.replaceAll("-", ""), pos);
 
         // Otherwise return all that we have found.
-        return synsets.toArray(new Synset[synsets.size()]);
+        return new MorphyCache.Entry(
+                synsets.toArray(new Synset[synsets.size()]),
+                lemmas.toArray(new String[lemmas.size()]));
     }
 
-    private List<Synset> getWithMorphy(String lemma,
-                                       String fixedLemma,
-                                       String post,
-                                       PartsOfSpeech pos) {
+    /**
+     * Adds the {@link Synset}s for each morphological variation of {@code
+     * fixedLemma}, with {@code post} appended, to {@code synsets}.  The
+     * variation used to find each {@link Synset} is added to {@code lemmas}.
+     */
+    private void getWithMorphy(String fixedLemma,
+                               String post,
+                               PartsOfSpeech pos,
+                               List<Synset> synsets,
+                               List<String> lemmas) {
         // Find the Synsets for each morphological variation.
-        List<Synset> allSynsets = Lists.newArrayList();
         Iterator<String> formIter = morphy(fixedLemma, pos);
         Synset[][] lemmaSynsets;
         while (formIter.hasNext()) {
@@ -533,11 +812,10 @@ public class WordNetCorpusReader implements OntologyReader {
             lemmaSynsets = lemmaPosOffsetMap.get(alternative);
             if (lemmaSynsets != null && lemmaSynsets[pos.ordinal()].length > 0)
                 for (Synset s : lemmaSynsets[pos.ordinal()]) {
-                    s.addMorphyMapping(lemma, alternative);
-                    allSynsets.add(s);
+                    synsets.add(s);
+                    lemmas.add(alternative);
                 }
         }
-        return allSynsets;
     }
 
     /**
@@ -568,19 +846,18 @@ public class WordNetCorpusReader implements OntologyReader {
         return lemmaPosSynsets[senseNum-1];
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Synset getSynsetBySenseKey(String senseKey) {
+        return senseKeyMap.get(senseKey);
+    }
+
     /**
      * {@inheritDoc}
      */
     public int getMaxDepth(PartsOfSpeech pos) {
-        int pIndex = pos.ordinal();
-        if (maxDepths[pIndex] != 0)
-            return maxDepths[pIndex];
-
-        for (Synset[][] lemmaSynsets : lemmaPosOffsetMap.values())
-            for (Synset synset : lemmaSynsets[pIndex])
-                maxDepths[pIndex] = Math.max(
-                        maxDepths[pIndex], synset.getMaxDepth());
-        return maxDepths[pIndex];
+        return getHypernymIndex().getMaxDepth(pos);
     }
 
     /**
@@ -594,40 +871,137 @@ public class WordNetCorpusReader implements OntologyReader {
     }
 
     /**
-     * Creates a new {@link WordNetCorpusReader}.
+     * Returns the lexicographer file names.
+     */
+    /* package private */ String[] getLexicographerNames() {
+        return lexNames;
+    }
+
+    /**
+     * Returns the verb frame format strings.
      */
-    private WordNetCorpusReader(String dictPath, boolean readFromJar) {
+    /* package private */ List<String> getVerbFrames() {
+        return verbFrames;
+    }
+
+    /**
+     * Returns the morphological exceptions for {@code pos}.
+     */
+    /* package private */ Map<String, String> getExceptionMap(
+            PartsOfSpeech pos) {
+        return posExceptionMap.get(pos.ordinal());
+    }
+
+    /**
+     * Creates a new {@link WordNetCorpusReader}.  If a {@link #SNAPSHOT_FILE}
+     * exists in {@code dictPath}, the dictionary is loaded from the snapshot,
+     * otherwise the text dictionary files are parsed.
+     */
+    /* package private */ WordNetCorpusReader(String dictPath,
+                                              boolean readFromJar) {
         // Store the values that specify how dictionary files will be read.
         this.dictPath = dictPath;
         this.readFromJar = readFromJar;
-        this.maxDepths = new int[POS_TAGS.length];
-
-        // Initialzie basic data structures.
-        lemmaPosOffsetMap = Maps.newHashMap();
-        posExceptionMap = Lists.newArrayList();
-        verbFrames = Lists.newArrayList();
-        posOffsetToSynsetMap = Lists.newArrayList();
-        for (int i = 0; i < POS_TAGS.length; ++i)
-            posExceptionMap.add(new HashMap<String, String>());
 
         try {
-            LOG.info("parsing lexicographer names");
-            lexNames = parseLexNames();
+            // Load the snapshot if one is available and readable, otherwise
+            // parse the text dictionary files.
+            if (!loadSnapshot()) {
+                // Initialzie basic data structures.
+                lemmaPosOffsetMap = new ConcurrentHashMap<String, Synset[][]>();
+                posExceptionMap = Lists.newArrayList();
+                verbFrames = Lists.newArrayList();
+                posOffsetToSynsetMap = Lists.newArrayList();
+                for (int i = 0; i < POS_TAGS.length; ++i)
+                    posExceptionMap.add(new HashMap<String, String>());
+
+                LOG.info("parsing lexicographer names");
+                lexNames = parseLexNames();
 
-            LOG.info("loading lemma offsets");
-            loadLemmaPosOffsetMap();
-             
-            LOG.info("loading verb frames");
-            loadVerbFrames();
+                LOG.info("loading lemma offsets");
+                loadLemmaPosOffsetMap();
+                 
+                LOG.info("loading verb frames");
+                loadVerbFrames();
 
-            LOG.info("loading exception map");
-            loadExceptionMap();
+                LOG.info("loading exception map");
+                loadExceptionMap();
 
-            LOG.info("loading synset tree");
-            loadSynsetTree();
+                LOG.info("loading synset tree");
+                loadSynsetTree();
+            }
         } catch (IOException ioe) {
             throw new IOError(ioe);
         } 
+
+        LOG.info("indexing lemmas");
+        indexLemmas();
+
+        LOG.info("compacting synset relations");
+        compactRelations();
+
+        LOG.info("indexing hypernyms");
+        hypernymIndex = HypernymIndex.build(allSynsets());
+
+        // Setup the morphy cache and let every synset consult it when
+        // selecting a sense key for a surface form.
+        morphyCache = new MorphyCache(this, Integer.parseInt(
+                    System.getProperty(MORPHY_CACHE_SIZE_PROPERTY,
+                                       "" + MorphyCache.DEFAULT_CAPACITY)));
+        for (Synset synset : allSynsets())
+            if (synset instanceof BaseSynset)
+                ((BaseSynset) synset).setMorphyCache(morphyCache);
+    }
+
+    /**
+     * Loads the dictionary from the snapshot file in the dictionary path.
+     * Returns {@code false} if there is no snapshot, the snapshot cannot be
+     * read by this version of the reader, or the text files in the dictionary
+     * path have changed since the snapshot was written.  Snapshots within a
+     * jar are not checked against the text files.
+     */
+    private boolean loadSnapshot() throws IOException {
+        ByteBuffer snapshotBuffer = getSnapshotBuffer();
+        if (snapshotBuffer == null)
+            return false;
+        if (!WordNetSnapshot.isReadable(snapshotBuffer)) {
+            LOG.warning("ignoring unreadable wordnet snapshot");
+            return false;
+        }
+
+        WordNetSnapshot snapshot;
+        try {
+            File dictDir = new File(dictPath);
+            if (!readFromJar &&
+                !WordNetSnapshot.isCurrent(snapshotBuffer, dictDir)) {
+                LOG.warning("ignoring out of date wordnet snapshot");
+                return false;
+            }
+
+            LOG.info("loading wordnet snapshot");
+            snapshot = WordNetSnapshot.read(snapshotBuffer);
+        } catch (RuntimeException re) {
+            LOG.warning("ignoring corrupt wordnet snapshot: " + re);
+            return false;
+        }
+        lexNames = snapshot.lexNames;
+        verbFrames = snapshot.verbFrames;
+        posExceptionMap = snapshot.posExceptionMap;
+        lemmaPosOffsetMap = snapshot.lemmaPosOffsetMap;
+        posOffsetToSynsetMap = snapshot.posOffsetToSynsetMap;
+        return true;
+    }
+
+    /**
+     * Moves the relations of every {@link Synset} in the dictionary into a
+     * single, immutable {@link SynsetGraph} and returns it.  This is done
+     * automatically when the dictionary is loaded.  Modifying the relations of
+     * any {@link Synset} afterwards invalidates the graph, so applications that
+     * extend WordNet should call this again once they are done making changes
+     * to regain compact storage and fast traversals.
+     */
+    public SynsetGraph compactRelations() {
+        return SynsetGraph.build(allSynsets());
     }
 
     /**
@@ -655,86 +1029,52 @@ public class WordNetCorpusReader implements OntologyReader {
 
     /**
      * Loads the lemma, part of speech to {@link Synset} map.  This also returns
-     * a mapping from offset values to the relevant {@link Synset}s.
+     * a mapping from offset values to the relevant {@link Synset}s.  The index
+     * file for each part of speech is parsed concurrently.
      */
     private void loadLemmaPosOffsetMap() throws IOException {
-        // Evaluate the index for for each part of speech.
+        // Create a task for the index file of each part of speech.  Each task
+        // fills in it's own offset and lemma maps so that no locking is
+        // needed.
+        final List<Map<String, Synset[]>> posLemmaSynsets =
+            Lists.newArrayList();
+        List<Runnable> tasks = Lists.newArrayList();
         for (String suffix : FILE_EXTENSIONS) {
             // Initialize the part of speech to Synset map.
-            Map<Integer, Synset> offsetToSynset = Maps.newHashMap();
+            final SynsetOffsetTable offsetToSynset = new SynsetOffsetTable();
             posOffsetToSynsetMap.add(offsetToSynset);
+            final Map<String, Synset[]> lemmaSynsets = Maps.newHashMap();
+            posLemmaSynsets.add(lemmaSynsets);
 
             // Skip parts of speech that do not have an index file.
             if (suffix.equals(""))
                 continue;
 
-            // Read each line in the index file.
-            BufferedReader br = getReader("index." + suffix);
-            for (String line = null; (line = br.readLine()) != null; ) {
-                // Skip lines that begin with a space, these are for the
-                // license.
-                if (line.startsWith(" "))
-                    continue;
-
-                // parse the line into individual tokens according to
-                // whitespace.
-                int index = 0;
-                String[] tokens = line.split("\\s+");
-
-                // Extract the lemma and part of speech.
-                String lemma = tokens[index++].intern();
-                String pos = tokens[index++];
-                PartsOfSpeech posTag = POS_MAP.get(pos);
-
-                // Extract the number of synsets for this lemma.
-                int numSynsets = Integer.parseInt(tokens[index++]);
-
-                // Skip the pointers.  These will be parsed in the data file.
-                int numPointers = Integer.parseInt(tokens[index++]);
-                index += numPointers;
-
-                // Skip the number of senses.
-                index++;
-                // Skip the number of senses ranked according to frequency.
-                index++;
-
-                // Get the offset values.  These correspond to the possible
-                // Synsets for the given lemma.  For each offset, get the Synset
-                // from the offset to synset map, if it exists, or create a new
-                // Synset for the offset.
-                String[] offsets = Arrays.copyOfRange(tokens, index,
-                        tokens.length);
-                Synset[] synsets = new Synset[offsets.length];
-                for (int s = 0; s < offsets.length; ++s) {
-                    int offset = Integer.parseInt(offsets[s]);
-                    synsets[s] = offsetToSynset.get(offset);
-                    if (synsets[s] == null) {
-                        synsets[s] = new BaseSynset(offset, posTag);
-                        synsets[s].setSenseNumber(s+1);
-                        synsets[s].addLemma(
-                                new BaseLemma(synsets[s], lemma, pos));
-                        offsetToSynset.put(offset, synsets[s]);
+            final BufferedReader br = getReader("index." + suffix);
+            tasks.add(new Runnable() {
+                public void run() {
+                    try {
+                        loadIndexFile(br, offsetToSynset, lemmaSynsets);
+                    } catch (IOException ioe) {
+                        throw new IOError(ioe);
                     }
                 }
-
-                // Store the synsets for this lemma in the lemma, part of speech
-                // to synset map.
-                Synset[][] posToOffsets = lemmaPosOffsetMap.get(lemma);
+            });
+        }
+        WorkQueueUtil.run(tasks);
+
+        // Store the synsets for each lemma in the lemma, part of speech to
+        // synset map.
+        for (int pos = 0; pos < posLemmaSynsets.size(); ++pos) {
+            for (Map.Entry<String, Synset[]> entry :
+                    posLemmaSynsets.get(pos).entrySet()) {
+                Synset[][] posToOffsets = lemmaPosOffsetMap.get(entry.getKey());
                 if (posToOffsets == null) {
                     posToOffsets = new Synset[POS_TAGS.length][0];
-                    lemmaPosOffsetMap.put(lemma, posToOffsets);
+                    lemmaPosOffsetMap.put(entry.getKey(), posToOffsets);
                 }
-                posToOffsets[posTag.ordinal()] = synsets;
-
-                // The adjective satalite part of speech does not have an index
-                // file but requries the same mappings as the adjective data, so
-                // add anything added to the adjective part of speech to the
-                // adjective satalite part of speech mappings.
-                //if (posTag == PartsOfSpeech.ADJECTIVE)
-                //    posToOffsets[PartsOfSpeech.ADJECTIVE_SAT.ordinal()] = 
-                //        synsets;
+                posToOffsets[pos] = entry.getValue();
             }
-
         }
 
         // The adjective satalite part of speech does not have an index file but
@@ -746,6 +1086,63 @@ public class WordNetCorpusReader implements OntologyReader {
                 posOffsetToSynsetMap.get(PartsOfSpeech.ADJECTIVE.ordinal()));
     }
 
+    /**
+     * Parses a single index file, creating a {@link Synset} for each new
+     * offset in {@code offsetToSynset} and storing the {@link Synset}s for each
+     * lemma in {@code lemmaSynsets}.
+     */
+    private void loadIndexFile(BufferedReader br,
+                               SynsetOffsetTable offsetToSynset,
+                               Map<String, Synset[]> lemmaSynsets)
+            throws IOException {
+        // Read each line in the index file.
+        for (String line = null; (line = br.readLine()) != null; ) {
+            // Skip lines that begin with a space, these are for the license.
+            if (line.startsWith(" "))
+                continue;
+
+            // parse the line into individual tokens according to whitespace.
+            int index = 0;
+            String[] tokens = line.split("\\s+");
+
+            // Extract the lemma and part of speech.
+            String lemma = tokens[index++].intern();
+            String pos = tokens[index++];
+            PartsOfSpeech posTag = POS_MAP.get(pos);
+
+            // Extract the number of synsets for this lemma.
+            int numSynsets = Integer.parseInt(tokens[index++]);
+
+            // Skip the pointers.  These will be parsed in the data file.
+            int numPointers = Integer.parseInt(tokens[index++]);
+            index += numPointers;
+
+            // Skip the number of senses.
+            index++;
+            // Skip the number of senses ranked according to frequency.
+            index++;
+
+            // Get the offset values.  These correspond to the possible Synsets
+            // for the given lemma.  For each offset, get the Synset from the
+            // offset to synset map, if it exists, or create a new Synset for
+            // the offset.
+            String[] offsets = Arrays.copyOfRange(tokens, index, tokens.length);
+            Synset[] synsets = new Synset[offsets.length];
+            for (int s = 0; s < offsets.length; ++s) {
+                int offset = Integer.parseInt(offsets[s]);
+                synsets[s] = offsetToSynset.get(offset);
+                if (synsets[s] == null) {
+                    synsets[s] = new BaseSynset(offset, posTag);
+                    synsets[s].setSenseNumber(s+1);
+                    synsets[s].addLemma(new BaseLemma(synsets[s], lemma, pos));
+                    offsetToSynset.put(offset, synsets[s]);
+                }
+            }
+            lemmaSynsets.put(lemma, synsets);
+        }
+        br.close();
+    }
+
     /**
      * Loads the morphological exception map.
      */
@@ -773,173 +1170,37 @@ public class WordNetCorpusReader implements OntologyReader {
     /**
      * Loads the entire {@link Synset} tree into memory by parsing the data
      * files and filling in the existing {@link Synset}s that were created while
-     * loading the index files.
+     * loading the index files.  Since every {@link Synset} was already created
+     * by the index files, and each data line only modifies the {@link Synset}
+     * it describes, the data lines are split into chunks that are parsed
+     * concurrently.  Pointers to other parts of speech are resolved with read
+     * only lookups into the completed offset maps.
      */
     private void loadSynsetTree() throws IOException {
-        // Read the data file for each part of speech.
+        // Read the data file for each part of speech and split the lines into
+        // chunks.
+        List<Runnable> tasks = Lists.newArrayList();
         for (int pos = 0; pos < FILE_EXTENSIONS.length; pos++) {
             // Skip parts of speech that do not have data files.
             if (FILE_EXTENSIONS[pos].length() == 0)
                 continue;
 
-            // Get the offset to synset map for this part of speech.
-            Map<Integer, Synset> offsetToSynsetMap = 
-                posOffsetToSynsetMap.get(pos);
-
-            // Read each line in the data file.  Each line will contain the
-            // synset offset, related lemmas, a set of relational links, a
-            // gloss, and for verbs, a set of verb frames.
             BufferedReader br = getReader("data." + FILE_EXTENSIONS[pos]);
+            List<String> lines = Lists.newArrayList();
             for (String line = null; (line = br.readLine()) != null; ) {
                 if (line.startsWith(" "))
                     continue;
-
-                // The data columns and gloss information are separated by a
-                // pipe.
-                String[] columnAndGloss = line.split("\\|");
-
-                // Extract the lemma terms for the synset and relational links
-                // by examining the columns prior to the gloss.
-                int index = 0;
-                String[] columns = columnAndGloss[0].split("\\s+");
-
-                // Get the synset corresponding to this offset.
-                int offset = Integer.parseInt(columns[index++]);
-                Synset synset = offsetToSynsetMap.get(offset);
-                if (synset == null) {
-                    throw new IllegalArgumentException(
-                            "A synset offset was missing from the index file " +
-                            "for line: " + line + " \n, which generated " +
-                            "offset: " + offset);
-                }
-
-                // Extract the gloss.  Glosses contain both examples and
-                // definitions.  Examples start with quotes and definitions do
-                // not.
-                String gloss = columnAndGloss[1].trim();
-                StringBuilder defBuilder = new StringBuilder();
-                for (String glossPart : gloss.split(";")) {
-                    glossPart = glossPart.trim();
-                    if (glossPart.startsWith("\""))
-                        synset.addExample(glossPart.replace('"', ' ').trim());
-                    else
-                        defBuilder.append(glossPart).append("; ");
-                }
-                gloss = defBuilder.toString();
-
-                // In WordNet-2.1, some adjectives lack a definition.  In these
-                // cases, simply save an empty defition, otherwise save a copy
-                // of the definition that lacks the final ";" character.
-                if (gloss.length() < 2)
-                    synset.setDefinition("");
-                else 
-                    synset.setDefinition(gloss.substring(0, gloss.length() - 2));
-
-                // Extract the lexicographer file name and part of speech.
-                int lexNameIndex = Integer.parseInt(columns[index++]);
-                String lexName = lexNames[lexNameIndex];
-                String posTag = columns[index++];
-
-                // Extract the lemmas that are attached to this synset.
-                int numLemmas = Integer.parseInt(columns[index++], 16);
-                BaseLemma[] lemmas = new BaseLemma[numLemmas];
-                for (int l = 0; l < numLemmas; ++l) {
-                    // Lemmas sometimes have syntactic markers in the form of
-                    // (pos).  Extract this additional marker and keep it
-                    // separate from the base name.
-                    String lemmaName = columns[index++];
-                    String[] lemmaAndMarker = lemmaName.split("\\(");
-                    lemmaName = lemmaAndMarker[0];
-                    String marker = (lemmaAndMarker.length == 1)
-                        ? ""
-                        : lemmaAndMarker[1].replaceAll("[\\(\\)]", "");
-
-                    // Create a new lemma object that maps to this synset.
-                    int lexId = Integer.parseInt(columns[index++], 16);
-                    lemmas[l] = new BaseLemma(synset, lemmaName, lexName, 
-                                              lexNameIndex, lexId, marker);
-                }
-
-                // Extract the relations that this synset has with other
-                // synsets.  Add in a relational link to the Synset graph
-                // connectring this synset to other specified synsets.
-                int numPointers = Integer.parseInt(columns[index++]);
-                for (int p = 0; p < numPointers; ++p) {
-                    String symbol = columns[index++].intern();
-
-                    // Get the pointed to synset based on it's offset and part
-                    // of speech.
-                    int pointerOffset = Integer.parseInt(columns[index++]);
-                    int pointerPos = POS_MAP.get(columns[index++]).ordinal();
-                    Synset pointerSynset =
-                        posOffsetToSynsetMap.get(pointerPos).get(pointerOffset);
-
-                    // Add the relation link.
-                    synset.addRelation(symbol, pointerSynset);
-
-                    // When the lemma id is non zero it is a derivationally
-                    // related lemma.  Since not all lemmas have been added
-                    // to their Synsets yet, just add in a link based on the
-                    // Synset and the lemma index that corresponds to the
-                    // related form.
-                    String lemmaId = columns[index++];
-                    if (!lemmaId.equals("0000")) {
-                        int sourceIndex = Integer.parseInt(
-                                lemmaId.substring(0, 2), 16);
-                        int targetIndex = Integer.parseInt(
-                                lemmaId.substring(2), 16);
-                        synset.addDerivationallyRelatedForm(
-                                pointerSynset, new SimpleRelatedForm(
-                                    sourceIndex, targetIndex));
-                    }
-                }
-
-                // Read off the verb frames if we are parsing the verb data.
-                if (POS_TAGS[pos].equals("v")) {
-                    int frameCount = Integer.parseInt(columns[index++]);
-                    int[] frameIds = new int[frameCount];
-                    int[] lemmaIds = new int[frameCount];
-                    for (int f = 0; f < frameCount; ++f) {
-                        // Read off the +.
-                        index++;
-
-                        // Store the frame number.
-                        int frameNumber = Integer.parseInt(columns[index++]);
-                        frameIds[f] = frameNumber;
-
-                        // Get the frame format of this verb.
-                        String frame = verbFrames.get(frameNumber-1);
-
-                        // Embed the specified lemmas into the verb frame and
-                        // attach it to each lemma object.  A lemma number of 0
-                        // signifies that all lemmas should be embedded in the
-                        // frame.
-                        int lemmaNumber = Integer.parseInt(columns[index++], 16);
-                        lemmaIds[f] = lemmaNumber;
-                        if (lemmaNumber == 0) {
-                            // Embed every lemma into the frame.
-                            for (BaseLemma lemma : lemmas)
-                                lemma.addFrameString(String.format(
-                                            frame, lemma.getLemmaName()));
-                        }
-                        else
-                            // Embed only the specified lemma into the frame.
-                            lemmas[lemmaNumber-1].addFrameString(String.format(
-                                        frame, lemmas[lemmaNumber-1].getLemmaName()));
-                    }
-                    synset.setFrameInfo(frameIds, lemmaIds);
-                }
-
-                // Add in lemma keys for each of the lemmas.
-                for (BaseLemma lemma : lemmas) {
-                    lemma.setKey(String.format("%s%%%d:%02d:%02d::",
-                                 lemma.getLemmaName(), pos+1, 
-                                 lemma.getLexNameIndex(),
-                                 lemma.getLexicalId()).toLowerCase());
-                    synset.addLemma(lemma);
+                lines.add(line);
+                if (lines.size() == LINES_PER_TASK) {
+                    tasks.add(new DataFileTask(lines, pos));
+                    lines = Lists.newArrayList();
                 }
             }
+            br.close();
+            if (lines.size() > 0)
+                tasks.add(new DataFileTask(lines, pos));
         }
+        WorkQueueUtil.run(tasks);
 
         BufferedReader senseReader = getReader("index.sense");
         for (String line = null; (line = senseReader.readLine()) != null; ) {
@@ -947,7 +1208,7 @@ public class WordNetCorpusReader implements OntologyReader {
             String[] lemmaAndLexSense = tokens[0].split("%");
             String[] lexSense = lemmaAndLexSense[1].split(":");
             int posIndex = Integer.parseInt(lexSense[0]) - 1;
-            Map<Integer, Synset> offsetToSynsetMap = posOffsetToSynsetMap.get(
+            SynsetOffsetTable offsetToSynsetMap = posOffsetToSynsetMap.get(
                     posIndex);
 
             int offset = Integer.parseInt(tokens[1]);
@@ -956,6 +1217,195 @@ public class WordNetCorpusReader implements OntologyReader {
         }
     }
 
+    /**
+     * Parses a single line from the data file for part of speech {@code pos}
+     * and fills in the {@link Synset} it describes.  Each line contains the
+     * synset offset, related lemmas, a set of relational links, a gloss, and
+     * for verbs, a set of verb frames.
+     */
+    private void parseDataLine(String line, int pos) {
+        // Get the offset to synset map for this part of speech.
+        SynsetOffsetTable offsetToSynsetMap = posOffsetToSynsetMap.get(pos);
+
+        // The data columns and gloss information are separated by a
+        // pipe.
+        String[] columnAndGloss = line.split("\\|");
+
+        // Extract the lemma terms for the synset and relational links
+        // by examining the columns prior to the gloss.
+        int index = 0;
+        String[] columns = columnAndGloss[0].split("\\s+");
+
+        // Get the synset corresponding to this offset.
+        int offset = Integer.parseInt(columns[index++]);
+        Synset synset = offsetToSynsetMap.get(offset);
+        if (synset == null) {
+            throw new IllegalArgumentException(
+                    "A synset offset was missing from the index file " +
+                    "for line: " + line + " \n, which generated " +
+                    "offset: " + offset);
+        }
+
+        // Extract the gloss.  Glosses contain both examples and
+        // definitions.  Examples start with quotes and definitions do
+        // not.
+        String gloss = columnAndGloss[1].trim();
+        StringBuilder defBuilder = new StringBuilder();
+        for (String glossPart : gloss.split(";")) {
+            glossPart = glossPart.trim();
+            if (glossPart.startsWith("\""))
+                synset.addExample(glossPart.replace('"', ' ').trim());
+            else
+                defBuilder.append(glossPart).append("; ");
+        }
+        gloss = defBuilder.toString();
+
+        // In WordNet-2.1, some adjectives lack a definition.  In these
+        // cases, simply save an empty defition, otherwise save a copy
+        // of the definition that lacks the final ";" character.
+        if (gloss.length() < 2)
+            synset.setDefinition("");
+        else 
+            synset.setDefinition(gloss.substring(0, gloss.length() - 2));
+
+        // Extract the lexicographer file name and part of speech.
+        int lexNameIndex = Integer.parseInt(columns[index++]);
+        String lexName = lexNames[lexNameIndex];
+        String posTag = columns[index++];
+
+        // Extract the lemmas that are attached to this synset.
+        int numLemmas = Integer.parseInt(columns[index++], 16);
+        BaseLemma[] lemmas = new BaseLemma[numLemmas];
+        for (int l = 0; l < numLemmas; ++l) {
+            // Lemmas sometimes have syntactic markers in the form of
+            // (pos).  Extract this additional marker and keep it
+            // separate from the base name.
+            String lemmaName = columns[index++];
+            String[] lemmaAndMarker = lemmaName.split("\\(");
+            lemmaName = lemmaAndMarker[0];
+            String marker = (lemmaAndMarker.length == 1)
+                ? ""
+                : lemmaAndMarker[1].replaceAll("[\\(\\)]", "");
+
+            // Create a new lemma object that maps to this synset.
+            int lexId = Integer.parseInt(columns[index++], 16);
+            lemmas[l] = new BaseLemma(synset, lemmaName, lexName, 
+                                      lexNameIndex, lexId, marker);
+        }
+
+        // Extract the relations that this synset has with other
+        // synsets.  Add in a relational link to the Synset graph
+        // connectring this synset to other specified synsets.
+        int numPointers = Integer.parseInt(columns[index++]);
+        for (int p = 0; p < numPointers; ++p) {
+            String symbol = columns[index++].intern();
+
+            // Get the pointed to synset based on it's offset and part
+            // of speech.
+            int pointerOffset = Integer.parseInt(columns[index++]);
+            int pointerPos = POS_MAP.get(columns[index++]).ordinal();
+            Synset pointerSynset =
+                posOffsetToSynsetMap.get(pointerPos).get(pointerOffset);
+
+            // Add the relation link.
+            synset.addRelation(symbol, pointerSynset);
+
+            // When the lemma id is non zero it is a derivationally
+            // related lemma.  Since not all lemmas have been added
+            // to their Synsets yet, just add in a link based on the
+            // Synset and the lemma index that corresponds to the
+            // related form.
+            String lemmaId = columns[index++];
+            if (!lemmaId.equals("0000")) {
+                int sourceIndex = Integer.parseInt(
+                        lemmaId.substring(0, 2), 16);
+                int targetIndex = Integer.parseInt(
+                        lemmaId.substring(2), 16);
+                synset.addDerivationallyRelatedForm(
+                        pointerSynset, new SimpleRelatedForm(
+                            sourceIndex, targetIndex));
+            }
+        }
+
+        // Read off the verb frames if we are parsing the verb data.
+        if (POS_TAGS[pos].equals("v")) {
+            int frameCount = Integer.parseInt(columns[index++]);
+            int[] frameIds = new int[frameCount];
+            int[] lemmaIds = new int[frameCount];
+            for (int f = 0; f < frameCount; ++f) {
+                // Read off the +.
+                index++;
+
+                // Store the frame number.
+                int frameNumber = Integer.parseInt(columns[index++]);
+                frameIds[f] = frameNumber;
+
+                // Get the frame format of this verb.
+                String frame = verbFrames.get(frameNumber-1);
+
+                // Embed the specified lemmas into the verb frame and
+                // attach it to each lemma object.  A lemma number of 0
+                // signifies that all lemmas should be embedded in the
+                // frame.
+                int lemmaNumber = Integer.parseInt(columns[index++], 16);
+                lemmaIds[f] = lemmaNumber;
+                if (lemmaNumber == 0) {
+                    // Embed every lemma into the frame.
+                    for (BaseLemma lemma : lemmas)
+                        lemma.addFrameString(String.format(
+                                    frame, lemma.getLemmaName()));
+                }
+                else
+                    // Embed only the specified lemma into the frame.
+                    lemmas[lemmaNumber-1].addFrameString(String.format(
+                                frame, lemmas[lemmaNumber-1].getLemmaName()));
+            }
+            synset.setFrameInfo(frameIds, lemmaIds);
+        }
+
+        // Add in lemma keys for each of the lemmas.
+        for (BaseLemma lemma : lemmas) {
+            lemma.setKey(String.format("%s%%%d:%02d:%02d::",
+                         lemma.getLemmaName(), pos+1, 
+                         lemma.getLexNameIndex(),
+                         lemma.getLexicalId()).toLowerCase());
+            synset.addLemma(lemma);
+        }
+    }
+
+    /**
+     * Returns a {@link ByteBuffer} over the contents of the snapshot file in
+     * the dictionary path, or {@code null} if there is no snapshot.  Snapshots
+     * on the file system are memory mapped, while snapshots within a jar are
+     * read into memory.
+     */
+    private ByteBuffer getSnapshotBuffer() throws IOException {
+        String filename = dictPath + "/" + SNAPSHOT_FILE;
+        if (readFromJar) {
+            InputStream in = StreamUtil.fromJar(this.getClass(), filename);
+            if (in == null)
+                return null;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1 << 16];
+            for (int read = 0; (read = in.read(chunk)) != -1; )
+                bytes.write(chunk, 0, read);
+            in.close();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+
+        File file = new File(filename);
+        if (!file.isFile())
+            return null;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
     /**
      * Returns a {@link BufferedReader} for the requested {@code filename}.
      * {@code dictPath} is used as the base path for all files.  If {@code
@@ -981,6 +1431,38 @@ public class WordNetCorpusReader implements OntologyReader {
         return new BufferedReader(reader);
     }
 
+    /**
+     * A task that parses a chunk of lines from a single data file.
+     */
+    private class DataFileTask implements Runnable {
+
+        /**
+         * The data lines to parse.
+         */
+        private final List<String> lines;
+
+        /**
+         * The part of speech of the data file.
+         */
+        private final int pos;
+
+        /**
+         * Creates a new {@link DataFileTask}.
+         */
+        public DataFileTask(List<String> lines, int pos) {
+            this.lines = lines;
+            this.pos = pos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run() {
+            for (String line : lines)
+                parseDataLine(line, pos);
+        }
+    }
+
     /**
      * A morphological iterator over possible word form variants.  Given a base
      * lemma, such as "geese" it will return the base form "goose", which may or
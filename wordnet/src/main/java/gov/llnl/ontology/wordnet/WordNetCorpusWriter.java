@@ -31,6 +31,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOError;
 import java.io.IOException;
 import java.io.FileOutputStream;
@@ -67,6 +68,8 @@ public class WordNetCorpusWriter implements OntologyWriter {
      * particular order and have no license information.  Users should not
      * modify these files after they have been created as that will more than
      * likely corrupt offset values which are used by other WordNet interfaces.
+     * Any {@link WordNetCorpusReader#SNAPSHOT_FILE} in {@code outputDir} is
+     * deleted, since it no longer matches the new files.
      */
     public void saveOntology(OntologyReader reader, String outputDir) {
         int numPartsOfSpeech = WordNetCorpusReader.POS_TAGS.length;
@@ -444,6 +447,29 @@ public class WordNetCorpusWriter implements OntologyWriter {
                 throw new IOError(ioe);
             }
         }
+
+        // A snapshot in the output directory describes the old files, so it
+        // is removed rather than left for a reader to load.
+        File snapshot = new File(outputDir, WordNetCorpusReader.SNAPSHOT_FILE);
+        if (snapshot.exists() && !snapshot.delete())
+            throw new IOError(new IOException(
+                        "Could not remove the stale snapshot " + snapshot));
+    }
+
+    /**
+     * Saves a binary snapshot of the {@link Synset} graph, lemma mappings, and
+     * morphological exceptions in {@code reader} to {@code filename}.  When
+     * the snapshot is stored as {@code wordnet.snapshot} in a dictionary
+     * directory, {@link WordNetCorpusReader} will load the snapshot instead of
+     * parsing the text files, which is considerably faster.  Unlike {@link
+     * #saveOntology}, the offsets of every {@link Synset} are left unchanged.
+     */
+    public void saveSnapshot(OntologyReader reader, String filename) {
+        try {
+            WordNetSnapshot.write(reader, filename);
+        } catch (IOException ioe) {
+            throw new IOError(ioe);
+        }
     }
 
     /*
@@ -0,0 +1,799 @@
+/*
+ * Copyright (c) 2010, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved.
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A compact binary image of a loaded WordNet dictionary.  Parsing the plain
+ * text WordNet files requires splitting every line with regular expressions,
+ * which dominates start up time for every job that needs the dictionary.  A
+ * snapshot instead stores every {@link Synset}, {@link Lemma}, relation, and
+ * morphological exception as length prefixed records in a single file that
+ * can be memory mapped and decoded with one sequential pass.  Relations are
+ * stored as dense synset indices into the snapshot and relation labels are
+ * stored once in a small symbol table.  Definitions and examples, the bulk of
+ * the file, are left in the buffer and only decoded when a {@link Synset}'s
+ * gloss is first requested.
+ *
+ * </p>
+ *
+ * A snapshot is written with {@link WordNetCorpusWriter#saveSnapshot} and is
+ * picked up automatically by {@link WordNetCorpusReader} whenever a file named
+ * {@link #FILE_NAME} exists in the dictionary directory.  The header records
+ * the size and modification time of each text file in that directory, and a
+ * snapshot whose text files have since changed is ignored.  The format is
+ * versioned; a snapshot with an unknown version, or one that cannot be
+ * decoded, is ignored and the text files are parsed instead.
+ *
+ * @author Keith Stevens
+ */
+class WordNetSnapshot {
+
+    /**
+     * The name of the snapshot file within a WordNet dictionary directory.
+     */
+    public static final String FILE_NAME = "wordnet.snapshot";
+
+    /**
+     * The magic number that starts every snapshot file, "CCWN".
+     */
+    static final int MAGIC = 0x4343574e;
+
+    /**
+     * The current version of the snapshot format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The text files whose sizes and modification times are recorded in a
+     * snapshot.
+     */
+    static final String[] SOURCE_FILES = {
+        "lexnames", "frames.vrb", "index.sense",
+        "index.noun", "data.noun", "noun.exc",
+        "index.verb", "data.verb", "verb.exc",
+        "index.adj", "data.adj", "adj.exc",
+        "index.adv", "data.adv", "adv.exc",
+    };
+
+    /**
+     * The character set used for all strings in the snapshot.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The lexicographer file names.
+     */
+    String[] lexNames;
+
+    /**
+     * The verb frame format strings.
+     */
+    List<String> verbFrames;
+
+    /**
+     * The morphological exceptions, ordered by part of speech.
+     */
+    List<Map<String, String>> posExceptionMap;
+
+    /**
+     * A mapping from lemmas and parts of speech to possible {@link Synset}s.
+     */
+    Map<String, Synset[][]> lemmaPosOffsetMap;
+
+    /**
+     * The mapping from an offset to it's {@link Synset} for each part of
+     * speech.
+     */
+    List<SynsetOffsetTable> posOffsetToSynsetMap;
+
+    /**
+     * The buffer holding the raw snapshot data while decoding.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * A view of the snapshot data, shared by every {@link SnapshotSynset},
+     * whose position is never changed.
+     */
+    private ByteBuffer glossBuffer;
+
+    /**
+     * A scratch array used for decoding strings from the buffer.
+     */
+    private byte[] scratch;
+
+    /**
+     * A pool of small, frequently repeated strings such as lexicographer names
+     * and syntactic markers so that each distinct value is only stored once.
+     */
+    private Map<String, String> stringPool;
+
+    /**
+     * The index of the next synset to be filled in by {@link #readSynset}.
+     */
+    private int nextSynset;
+
+    /**
+     * Returns {@code true} if {@code buffer} starts with a snapshot header
+     * whose version can be decoded by this class.  The position of {@code
+     * buffer} is not changed.
+     */
+    static boolean isReadable(ByteBuffer buffer) {
+        return buffer.remaining() >= 8 &&
+               buffer.getInt(buffer.position()) == MAGIC &&
+               buffer.getInt(buffer.position() + 4) == VERSION;
+    }
+
+    /**
+     * Returns {@code true} if the text files in {@code dictDir} have the same
+     * sizes and modification times as when the snapshot in {@code buffer} was
+     * written.  The position of {@code buffer} is not changed.
+     */
+    static boolean isCurrent(ByteBuffer buffer, File dictDir) {
+        WordNetSnapshot snapshot = new WordNetSnapshot(buffer.duplicate());
+        snapshot.buffer.position(snapshot.buffer.position() + 8);
+        List<File> sources = sourceFiles(dictDir);
+        if (snapshot.readCount() != sources.size())
+            return false;
+        for (File source : sources)
+            if (!source.getName().equals(snapshot.readString()) ||
+                snapshot.buffer.getLong() != source.length() ||
+                snapshot.buffer.getLong() != source.lastModified())
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the text files in {@code dictDir} that are recorded in a
+     * snapshot.
+     */
+    private static List<File> sourceFiles(File dictDir) {
+        List<File> sources = Lists.newArrayList();
+        for (String name : SOURCE_FILES) {
+            File source = new File(dictDir, name);
+            if (source.isFile())
+                sources.add(source);
+        }
+        return sources;
+    }
+
+    /**
+     * Writes a snapshot of all the {@link Synset}s in {@code reader} to {@code
+     * filename}.  Lexicographer names, verb frames, and morphological
+     * exceptions are only available when {@code reader} is, or wraps, a {@link
+     * WordNetCorpusReader}; otherwise empty tables are written.  The snapshot
+     * is written to a temporary file which then replaces {@code filename}, so
+     * a reader that has mapped an older snapshot keeps it's own copy.
+     */
+    static void write(OntologyReader reader, String filename)
+            throws IOException {
+        // Find the underlying WordNetCorpusReader, if there is one, so that the
+        // non-graph tables can be saved as well.
+        OntologyReader base = reader;
+        while (base instanceof OntologyReaderAdaptor)
+            base = ((OntologyReaderAdaptor) base).reader;
+        WordNetCorpusReader wordnet = (base instanceof WordNetCorpusReader)
+            ? (WordNetCorpusReader) base
+            : null;
+
+        // Assign a dense index to every synset reachable from the lemma
+        // mapping, including any synsets that are only reachable through a
+        // relation.
+        Map<Synset, Integer> synsetIds = Maps.newHashMap();
+        List<Synset> synsets = Lists.newArrayList();
+        for (Synset synset : reader.allSynsets())
+            addSynsetId(synset, synsetIds, synsets);
+        for (int i = 0; i < synsets.size(); ++i)
+            for (Synset related : synsets.get(i).allRelations())
+                addSynsetId(related, synsetIds, synsets);
+
+        // Collect the relation labels into a symbol table.
+        Map<String, Integer> labelIds = Maps.newHashMap();
+        List<String> labels = Lists.newArrayList();
+        for (Synset synset : synsets)
+            for (String label : synset.getKnownRelationTypes())
+                if (!labelIds.containsKey(label)) {
+                    labelIds.put(label, labels.size());
+                    labels.add(label);
+                }
+
+        File file = new File(filename).getAbsoluteFile();
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        // Record the text files the snapshot is checked against.
+        List<File> sources = sourceFiles(file.getParentFile());
+        out.writeInt(sources.size());
+        for (File source : sources) {
+            writeString(out, source.getName());
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+        }
+
+        // Write the lexicographer names and verb frames.
+        String[] lexNames = (wordnet == null)
+            ? new String[0]
+            : wordnet.getLexicographerNames();
+        out.writeInt(lexNames.length);
+        for (String lexName : lexNames)
+            writeString(out, lexName);
+
+        List<String> verbFrames = (wordnet == null)
+            ? Lists.<String>newArrayList()
+            : wordnet.getVerbFrames();
+        out.writeInt(verbFrames.size());
+        for (String frame : verbFrames)
+            writeString(out, frame);
+
+        // Write the exceptions for each part of speech that has an exception
+        // file.
+        for (int pos = 0; pos < WordNetCorpusReader.FILE_EXTENSIONS.length;
+                ++pos) {
+            if (WordNetCorpusReader.FILE_EXTENSIONS[pos].length() == 0)
+                continue;
+            Map<String, String> exceptions = (wordnet == null)
+                ? new HashMap<String, String>()
+                : wordnet.getExceptionMap(PartsOfSpeech.values()[pos]);
+            out.writeInt(exceptions.size());
+            for (Map.Entry<String, String> e : exceptions.entrySet()) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue());
+            }
+        }
+
+        // Write the relation symbol table.
+        out.writeInt(labels.size());
+        for (String label : labels)
+            writeString(out, label);
+
+        // Write each synset.
+        out.writeInt(synsets.size());
+        for (Synset synset : synsets) {
+            out.writeByte(synset.getPartOfSpeech().ordinal());
+            out.writeInt(synset.getId());
+            out.writeInt(synset.getSenseNumber());
+            writeString(out, synset.getDefinition());
+
+            out.writeInt(synset.getExamples().size());
+            for (String example : synset.getExamples())
+                writeString(out, example);
+
+            out.writeInt(synset.getLemmas().size());
+            for (Lemma lemma : synset.getLemmas()) {
+                writeString(out, lemma.getLemmaName());
+                writeString(out, lemma.getLexicographerName());
+                out.writeInt(lemma.getLexNameIndex());
+                out.writeInt(lemma.getLexicalId());
+                writeString(out, (lemma instanceof BaseLemma)
+                        ? ((BaseLemma) lemma).getSyntacticMarker()
+                        : "");
+                writeString(out, lemma.getKey());
+            }
+
+            out.writeInt(synset.getSenseKeys().size());
+            for (String senseKey : synset.getSenseKeys())
+                writeString(out, senseKey);
+
+            int[] frameIds = synset.getFrameIds();
+            int[] lemmaIds = synset.getLemmaIds();
+            int numFrames = (frameIds == null || lemmaIds == null)
+                ? 0
+                : frameIds.length;
+            out.writeInt(numFrames);
+            for (int f = 0; f < numFrames; ++f) {
+                out.writeInt(frameIds[f]);
+                out.writeInt(lemmaIds[f]);
+            }
+
+            // Write the relations as (label, target) pairs and keep track of
+            // any derivationally related forms attached to the targets.
+            int numRelations = 0;
+            for (String label : synset.getKnownRelationTypes())
+                numRelations += synset.getRelations(label).size();
+            out.writeInt(numRelations);
+            List<Synset> formTargets = Lists.newArrayList();
+            for (String label : synset.getKnownRelationTypes()) {
+                int labelId = labelIds.get(label);
+                for (Synset related : synset.getRelations(label)) {
+                    out.writeShort(labelId);
+                    out.writeInt(synsetIds.get(related));
+                    if (synset.getDerivationallyRelatedForm(related) != null &&
+                        !formTargets.contains(related))
+                        formTargets.add(related);
+                }
+            }
+
+            out.writeInt(formTargets.size());
+            for (Synset related : formTargets) {
+                RelatedForm form = synset.getDerivationallyRelatedForm(related);
+                out.writeInt(synsetIds.get(related));
+                out.writeInt(form.sourceIndex());
+                out.writeInt(form.otherIndex());
+            }
+        }
+
+        // Write the lemma mapping.
+        Set<String> terms = reader.wordnetTerms();
+        out.writeInt(terms.size());
+        for (String term : terms) {
+            writeString(out, term);
+            for (PartsOfSpeech pos : PartsOfSpeech.values()) {
+                Synset[] posSynsets = reader.getSynsets(term, pos, false);
+                if (posSynsets == null)
+                    posSynsets = new Synset[0];
+                out.writeInt(posSynsets.length);
+                for (Synset synset : posSynsets)
+                    out.writeInt(synsetIds.get(synset));
+            }
+        }
+
+        // Mark the end of the snapshot so that a truncated file is noticed.
+        out.writeInt(MAGIC);
+        out.close();
+
+        if (!tempFile.renameTo(file) &&
+            !(file.delete() && tempFile.renameTo(file)))
+            throw new IOException("Could not replace " + file);
+    }
+
+    /**
+     * Decodes a snapshot from {@code buffer}.  The buffer is read sequentially
+     * from it's current position, and is kept by the decoded {@link Synset}s
+     * to read their glosses.  A {@link RuntimeException} is thrown if the
+     * snapshot is truncated or corrupt.
+     */
+    static WordNetSnapshot read(ByteBuffer buffer) {
+        WordNetSnapshot snapshot = new WordNetSnapshot(buffer);
+        snapshot.decode();
+        return snapshot;
+    }
+
+    /**
+     * Creates a new {@link WordNetSnapshot} that will decode {@code buffer}.
+     */
+    private WordNetSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Decodes every table in the snapshot.
+     */
+    private void decode() {
+        glossBuffer = buffer.duplicate();
+        stringPool = Maps.newHashMap();
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a WordNet snapshot");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException(
+                    "Unsupported WordNet snapshot version: " + version);
+
+        // Skip the text file records, which are checked by isCurrent.
+        int numSources = readCount();
+        for (int i = 0; i < numSources; ++i) {
+            skipString();
+            buffer.position(buffer.position() + 16);
+        }
+
+        // Read the lexicographer names and verb frames.
+        lexNames = new String[readCount()];
+        for (int i = 0; i < lexNames.length; ++i)
+            lexNames[i] = readPooledString();
+
+        int numFrames = readCount();
+        verbFrames = Lists.newArrayListWithCapacity(numFrames);
+        for (int i = 0; i < numFrames; ++i)
+            verbFrames.add(readString());
+
+        // Read the exception maps.  Adjective satellites share the adjective
+        // exceptions.
+        int numPos = WordNetCorpusReader.POS_TAGS.length;
+        posExceptionMap = Lists.newArrayListWithCapacity(numPos);
+        for (int pos = 0; pos < numPos; ++pos) {
+            if (WordNetCorpusReader.FILE_EXTENSIONS[pos].length() == 0) {
+                posExceptionMap.add(new HashMap<String, String>());
+                continue;
+            }
+            int numExceptions = readCount();
+            Map<String, String> exceptions =
+                new HashMap<String, String>(numExceptions * 2);
+            for (int i = 0; i < numExceptions; ++i)
+                exceptions.put(readString(), readString());
+            posExceptionMap.add(exceptions);
+        }
+        posExceptionMap.set(
+                PartsOfSpeech.ADJECTIVE_SAT.ordinal(),
+                posExceptionMap.get(PartsOfSpeech.ADJECTIVE.ordinal()));
+
+        // Read the relation labels.
+        String[] labels = new String[readCount()];
+        for (int i = 0; i < labels.length; ++i)
+            labels[i] = readString().intern();
+
+        // Create every synset up front so that relations can point forward in
+        // the file.
+        PartsOfSpeech[] partsOfSpeech = PartsOfSpeech.values();
+        int numSynsets = readCount();
+        Synset[] synsets = new Synset[numSynsets];
+        int start = buffer.position();
+        for (int s = 0; s < numSynsets; ++s) {
+            PartsOfSpeech pos = partsOfSpeech[buffer.get()];
+            synsets[s] = new SnapshotSynset(buffer.getInt(), pos, glossBuffer);
+            skipSynsetBody();
+        }
+        buffer.position(start);
+
+        // Fill in each synset.
+        posOffsetToSynsetMap = Lists.newArrayListWithCapacity(numPos);
+        for (int pos = 0; pos < numPos; ++pos)
+            posOffsetToSynsetMap.add(new SynsetOffsetTable());
+        for (int s = 0; s < numSynsets; ++s)
+            readSynset(synsets, labels);
+
+        // The adjective satalite part of speech shares the adjective offsets.
+        SynsetOffsetTable adjOffsets = posOffsetToSynsetMap.get(
+                PartsOfSpeech.ADJECTIVE.ordinal());
+        adjOffsets.putAll(posOffsetToSynsetMap.get(
+                PartsOfSpeech.ADJECTIVE_SAT.ordinal()));
+        posOffsetToSynsetMap.set(PartsOfSpeech.ADJECTIVE_SAT.ordinal(),
+                                 adjOffsets);
+
+        // Read the lemma mapping.
+        int numTerms = readCount();
+        lemmaPosOffsetMap =
+            new ConcurrentHashMap<String, Synset[][]>(numTerms * 2);
+        for (int t = 0; t < numTerms; ++t) {
+            String term = readString().intern();
+            Synset[][] posSynsets = new Synset[numPos][];
+            for (int pos = 0; pos < numPos; ++pos) {
+                posSynsets[pos] = new Synset[readCount()];
+                for (int i = 0; i < posSynsets[pos].length; ++i)
+                    posSynsets[pos][i] = synsets[buffer.getInt()];
+            }
+            lemmaPosOffsetMap.put(term, posSynsets);
+        }
+
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalArgumentException("Truncated WordNet snapshot");
+
+        buffer = null;
+        scratch = null;
+        stringPool = null;
+    }
+
+    /**
+     * Reads the body of the next synset record into it's pre-allocated {@link
+     * Synset}.
+     */
+    private void readSynset(Synset[] synsets, String[] labels) {
+        buffer.get();
+        buffer.getInt();
+        int senseNumber = buffer.getInt();
+
+        // The synsets were created in file order, so the next record always
+        // belongs to the next synset.  The gloss is left in the buffer.
+        SnapshotSynset synset = (SnapshotSynset) synsets[nextSynset++];
+        synset.setSenseNumber(senseNumber);
+        synset.glossPosition = buffer.position();
+        skipString();
+        skipStrings(readCount());
+
+        int numLemmas = readCount();
+        BaseLemma[] lemmas = new BaseLemma[numLemmas];
+        for (int l = 0; l < numLemmas; ++l) {
+            String lemmaName = readString().intern();
+            String lexName = readPooledString();
+            int lexNameIndex = buffer.getInt();
+            int lexId = buffer.getInt();
+            String marker = readPooledString();
+            lemmas[l] = new BaseLemma(synset, lemmaName, lexName,
+                                      lexNameIndex, lexId, marker);
+            lemmas[l].setKey(readString());
+            synset.addLemma(lemmas[l]);
+        }
+
+        int numSenseKeys = readCount();
+        for (int i = 0; i < numSenseKeys; ++i)
+            synset.addSenseKey(readString());
+
+        // Restore the verb frames and rebuild the frame strings for each
+        // lemma.  The first lemma is the index lemma and is excluded from the
+        // numbering, matching the data files.
+        int numFrames = readCount();
+        if (numFrames > 0) {
+            int[] frameIds = new int[numFrames];
+            int[] lemmaIds = new int[numFrames];
+            for (int f = 0; f < numFrames; ++f) {
+                frameIds[f] = buffer.getInt();
+                lemmaIds[f] = buffer.getInt();
+                addFrameStrings(lemmas, frameIds[f], lemmaIds[f]);
+            }
+            synset.setFrameInfo(frameIds, lemmaIds);
+        }
+
+        int numRelations = readCount();
+        for (int r = 0; r < numRelations; ++r) {
+            String label = labels[buffer.getShort()];
+            synset.addRelation(label, synsets[buffer.getInt()]);
+        }
+
+        int numForms = readCount();
+        for (int f = 0; f < numForms; ++f) {
+            Synset related = synsets[buffer.getInt()];
+            int sourceIndex = buffer.getInt();
+            int otherIndex = buffer.getInt();
+            synset.addDerivationallyRelatedForm(
+                    related, new SimpleRelatedForm(sourceIndex, otherIndex));
+        }
+
+        posOffsetToSynsetMap.get(synset.getPartOfSpeech().ordinal()).put(
+                synset.getId(), synset);
+    }
+
+    /**
+     * Embeds the lemmas in {@code lemmas} into the verb frame {@code frameId}.
+     * A {@code lemmaId} of 0 signifies that every lemma is used, otherwise the
+     * id is a 1 based index over the data file lemmas.
+     */
+    private void addFrameStrings(BaseLemma[] lemmas, int frameId, int lemmaId) {
+        if (frameId < 1 || frameId > verbFrames.size() || lemmas.length < 2)
+            return;
+        String frame = verbFrames.get(frameId - 1);
+        if (lemmaId == 0) {
+            for (int l = 1; l < lemmas.length; ++l)
+                lemmas[l].addFrameString(String.format(
+                            frame, lemmas[l].getLemmaName()));
+        } else if (lemmaId < lemmas.length) {
+            lemmas[lemmaId].addFrameString(String.format(
+                        frame, lemmas[lemmaId].getLemmaName()));
+        }
+    }
+
+    /**
+     * Advances the buffer past the remainder of a synset record whose part of
+     * speech and offset have already been read.
+     */
+    private void skipSynsetBody() {
+        buffer.getInt();
+        skipString();
+        skipStrings(readCount());
+        int numLemmas = readCount();
+        for (int l = 0; l < numLemmas; ++l) {
+            skipStrings(2);
+            buffer.position(buffer.position() + 8);
+            skipStrings(2);
+        }
+        skipStrings(readCount());
+        skipRecords(8);
+        skipRecords(6);
+        skipRecords(12);
+    }
+
+    /**
+     * Advances the buffer past a count prefixed list of fixed size records.
+     */
+    private void skipRecords(int recordSize) {
+        int count = readCount();
+        buffer.position(buffer.position() + count * recordSize);
+    }
+
+    /**
+     * Advances the buffer past {@code count} strings.
+     */
+    private void skipStrings(int count) {
+        for (int i = 0; i < count; ++i)
+            skipString();
+    }
+
+    /**
+     * Advances the buffer past a single string.
+     */
+    private void skipString() {
+        int length = buffer.getInt();
+        if (length > buffer.remaining())
+            throw new IllegalArgumentException("Corrupt WordNet snapshot");
+        if (length > 0)
+            buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Reads the number of entries in a list from the buffer.  Every entry takes
+     * at least one byte, so a count larger than the rest of the buffer can
+     * only come from a corrupt snapshot.
+     */
+    private int readCount() {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining())
+            throw new IllegalArgumentException("Corrupt WordNet snapshot");
+        return count;
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string from the buffer.  A negative length
+     * denotes a {@code null} string.
+     */
+    private String readString() {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        if (length == 0)
+            return "";
+        if (length > buffer.remaining())
+            throw new IllegalArgumentException("Corrupt WordNet snapshot");
+        if (scratch == null || length > scratch.length)
+            scratch = new byte[Math.max(length, 256)];
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, UTF8);
+    }
+
+    /**
+     * Reads a string and returns the shared instance for it's value.
+     */
+    private String readPooledString() {
+        String value = readString();
+        if (value == null)
+            return null;
+        String pooled = stringPool.get(value);
+        if (pooled == null) {
+            stringPool.put(value, value);
+            pooled = value;
+        }
+        return pooled;
+    }
+
+    /**
+     * Writes {@code value} as a length prefixed UTF-8 string.
+     */
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Assigns the next dense index to {@code synset} if it does not already
+     * have one.
+     */
+    private static void addSynsetId(Synset synset,
+                                    Map<Synset, Integer> synsetIds,
+                                    List<Synset> synsets) {
+        if (synsetIds.containsKey(synset))
+            return;
+        synsetIds.put(synset, synsets.size());
+        synsets.add(synset);
+    }
+
+    /**
+     * A {@link BaseSynset} whose definition and examples stay in the snapshot
+     * buffer until they are first needed.
+     */
+    private static class SnapshotSynset extends BaseSynset {
+
+        /**
+         * The snapshot data.  Only duplicates of this buffer are ever read.
+         */
+        private final ByteBuffer glossBuffer;
+
+        /**
+         * The position of this {@link Synset}'s definition in the buffer.
+         */
+        private int glossPosition;
+
+        /**
+         * Set to {@code true} once the definition and examples are decoded.
+         */
+        private volatile boolean glossLoaded;
+
+        /**
+         * Creates a new {@link SnapshotSynset} whose gloss is read from {@code
+         * glossBuffer}.
+         */
+        SnapshotSynset(int offset, PartsOfSpeech pos, ByteBuffer glossBuffer) {
+            super(offset, pos);
+            this.glossBuffer = glossBuffer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public String getDefinition() {
+            loadGloss();
+            return super.getDefinition();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<String> getExamples() {
+            loadGloss();
+            return super.getExamples();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void setDefinition(String definition) {
+            loadGloss();
+            super.setDefinition(definition);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void addExample(String example) {
+            loadGloss();
+            super.addExample(example);
+        }
+
+        /**
+         * Decodes the definition and examples the first time they are needed.
+         */
+        private void loadGloss() {
+            if (glossLoaded)
+                return;
+            synchronized (this) {
+                if (glossLoaded)
+                    return;
+                WordNetSnapshot reader =
+                    new WordNetSnapshot(glossBuffer.duplicate());
+                reader.buffer.position(glossPosition);
+                super.setDefinition(reader.readString());
+                int numExamples = reader.readCount();
+                for (int i = 0; i < numExamples; ++i)
+                    super.addExample(reader.readString());
+                glossLoaded = true;
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import edu.ucla.sspace.util.Duple;
 
 import gov.llnl.ontology.wordnet.BaseLemma;
 import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.wordnet.OntologyOverlay;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.SynsetRelations;
 import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
@@ -105,11 +106,14 @@ public class DepthFirstBnBWordNetBuilder implements WordNetBuilder {
         Deque<Synset> addList = new LinkedList<Synset>();
         List<Synset> finalList = new ArrayList<Synset>(termsToAdd.size());
 
-        // Do the search with nothing added.
-        addTerm(wordnet, seen, addList, finalList, Integer.MAX_VALUE, 0, scorer);
+        // Do the search with nothing added.  Each branch of the search adds
+        // it's synset to a fork of the current overlay, so wordnet itself is
+        // never modified and backtracking is simply dropping the fork.
+        addTerm(new OntologyOverlay(wordnet), seen, addList, finalList,
+                Integer.MAX_VALUE, 0, scorer);
     }
 
-    private double addTerm(OntologyReader wordnet, 
+    private double addTerm(OntologyOverlay wordnet, 
                            Set<TermToAdd> seen, 
                            Deque<Synset> addList,
                            List<Synset> finalList,
@@ -155,20 +159,20 @@ public class DepthFirstBnBWordNetBuilder implements WordNetBuilder {
                                              "", 0, 0, "n"));
             newSynset.addRelation(Relation.HYPERNYM, bestAttachment.x);
 
-            // Add this synset.
-            wordnet.addSynset(newSynset);
+            // Add this synset to a fork of the current ontology.
+            OntologyOverlay withSynset = wordnet.fork();
+            withSynset.addSynset(newSynset);
             seen.add(termToAdd);
             addList.push(newSynset);
 
             // Recursively try to add the rest of the synsets.
-            newCost = addTerm(wordnet, seen, addList, 
+            newCost = addTerm(withSynset, seen, addList, 
                               finalList, maxCost, newCost, scorer);
 
-            // Remove the synset from the tree so that the next call does not
-            // observe this addition.
+            // Discard the fork so that the next call does not observe this
+            // addition.
             addList.pop();
             seen.remove(termToAdd);
-            wordnet.removeSynset(newSynset);
 
             // Update the best cost found so far.
             maxCost = Math.min(newCost, maxCost);
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.util.WorkQueueUtil;
+import gov.llnl.ontology.wordnet.BatchSynsetSimilarity;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetSimilarity;
+
+import edu.ucla.sspace.util.Duple;
+import edu.ucla.sspace.util.WorkQueue;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+
+/**
+ * A base {@link BatchSynsetSimilarity} for measures that can summarize each
+ * {@link Synset} with a profile, such as it's gloss tokens or information
+ * content, and then compare two profiles.  Batch comparisons compute the
+ * profile of each row and column once.  Batches with at least {@link
+ * #PARALLEL_THRESHOLD_PROPERTY} pairs are split into blocks that are scored
+ * concurrently on the shared {@link WorkQueue}.
+ *
+ * </p>
+ *
+ * Any other {@link SynsetSimilarity} can be given the batch methods with
+ * {@link #of}, which scores every pair with the original measure.  Such
+ * measures are only scored in parallel when the caller asks for it, since
+ * they were not written to be thread safe.
+ *
+ * @author Keith Stevens
+ */
+public abstract class AbstractBatchSimilarity<P>
+        implements BatchSynsetSimilarity {
+
+    /**
+     * The system property used to set the smallest number of pairs in a batch
+     * that will be scored in parallel.
+     */
+    public static final String PARALLEL_THRESHOLD_PROPERTY =
+        "gov.llnl.ontology.wordnet.sim.parallelThreshold";
+
+    /**
+     * The smallest number of pairs in a batch that will be scored in parallel.
+     */
+    private static final long PARALLEL_THRESHOLD =
+        Long.parseLong(System.getProperty(PARALLEL_THRESHOLD_PROPERTY, "4096"));
+
+    /**
+     * The smallest number of pairs in a batch that will be scored in parallel
+     * by this instance.
+     */
+    private final long parallelThreshold;
+
+    /**
+     * The number of threads that large batches are split between.
+     */
+    private final int numThreads;
+
+    /**
+     * Creates a new {@link AbstractBatchSimilarity} that uses the {@link
+     * #PARALLEL_THRESHOLD_PROPERTY} and every thread in the shared {@link
+     * WorkQueue}.
+     */
+    protected AbstractBatchSimilarity() {
+        this(PARALLEL_THRESHOLD, WorkQueue.getWorkQueue().numThreads());
+    }
+
+    /**
+     * Creates a new {@link AbstractBatchSimilarity} that splits batches with
+     * at least {@code parallelThreshold} pairs into blocks for {@code
+     * numThreads} threads.  Batches are always scored in the calling thread
+     * when {@code numThreads} is less than two.
+     */
+    protected AbstractBatchSimilarity(long parallelThreshold, int numThreads) {
+        this.parallelThreshold = parallelThreshold;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns {@code sim} if it already supports batch comparisons, and
+     * otherwise a {@link BatchSynsetSimilarity} that compares each pair with
+     * {@code sim} in the calling thread.
+     */
+    public static BatchSynsetSimilarity of(SynsetSimilarity sim) {
+        return of(sim, 1);
+    }
+
+    /**
+     * Returns {@code sim} if it already supports batch comparisons, and
+     * otherwise a {@link BatchSynsetSimilarity} that compares each pair with
+     * {@code sim}, splitting large batches between {@code numThreads}
+     * threads.  {@code sim} will be called from several threads at once when
+     * {@code numThreads} is greater than one, so it must be thread safe.
+     */
+    public static BatchSynsetSimilarity of(final SynsetSimilarity sim,
+                                           int numThreads) {
+        if (sim instanceof BatchSynsetSimilarity)
+            return (BatchSynsetSimilarity) sim;
+        return new AbstractBatchSimilarity<Synset>(
+                PARALLEL_THRESHOLD, numThreads) {
+            protected Synset profile(Synset synset) {
+                return synset;
+            }
+
+            public double similarity(Synset synset1, Synset synset2) {
+                return sim.similarity(synset1, synset2);
+            }
+        };
+    }
+
+    /**
+     * Returns the data needed to compare {@code synset} with other {@link
+     * Synset}s.  Profiles may be used by several threads at once, so they
+     * must not be modified by {@link #similarity(Object, Object)}.
+     */
+    protected abstract P profile(Synset synset);
+
+    /**
+     * Returns the similarity between two {@link Synset}s given their
+     * profiles.
+     */
+    protected abstract double similarity(P profile1, P profile2);
+
+    /**
+     * {@inheritDoc}
+     */
+    public double similarity(Synset synset1, Synset synset2) {
+        return similarity(profile(synset1), profile(synset2));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double[][] similarity(Synset[] rows, Synset[] cols) {
+        List<P> rowProfiles = profiles(rows);
+        List<P> colProfiles = (cols == rows) ? rowProfiles : profiles(cols);
+        double[][] sims = new double[rows.length][cols.length];
+        score(rowProfiles, colProfiles, sims);
+        return sims;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double[][] pairwiseSimilarity(Synset[] synsets) {
+        final List<P> profiles = profiles(synsets);
+        final int n = synsets.length;
+        final double[][] sims = new double[n][];
+        for (int i = 0; i < n; ++i)
+            sims[i] = new double[n - i - 1];
+
+        long numPairs = (long) n * (n - 1) / 2;
+        if (numPairs < parallelThreshold || numThreads < 2) {
+            scoreTriangle(profiles, sims, 0, n);
+            return sims;
+        }
+
+        // Earlier rows hold more pairs, so the rows are split into blocks
+        // with roughly the same number of pairs instead of the same number of
+        // rows.
+        int numBlocks = (int) Math.min(numPairs, 4 * numThreads);
+        List<Runnable> tasks = Lists.newArrayList();
+        long pairsBefore = 0;
+        int start = 0;
+        for (int b = 1; b <= numBlocks && start < n; ++b) {
+            long target = numPairs * b / numBlocks;
+            int end = start;
+            while (end < n && (end == start || pairsBefore < target))
+                pairsBefore += n - ++end;
+            final int blockStart = start;
+            final int blockEnd = (b == numBlocks) ? n : end;
+            tasks.add(new Runnable() {
+                public void run() {
+                    scoreTriangle(profiles, sims, blockStart, blockEnd);
+                }
+            });
+            start = blockEnd;
+        }
+        WorkQueueUtil.run(tasks);
+        return sims;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Duple<Synset, Double>> topK(Synset synset,
+                                            Synset[] candidates,
+                                            int k) {
+        List<P> rowProfiles = Collections.singletonList(profile(synset));
+        final double[][] sims = new double[1][candidates.length];
+        score(rowProfiles, profiles(candidates), sims);
+
+        // Keep the best k candidates in a heap whose head is the worst of
+        // them.  Among equal scores, later candidates are dropped first.
+        PriorityQueue<Integer> best = new PriorityQueue<Integer>(
+                Math.max(1, k + 1), new Comparator<Integer>() {
+                    public int compare(Integer i, Integer j) {
+                        int c = Double.compare(sims[0][i], sims[0][j]);
+                        return (c != 0) ? c : j.compareTo(i);
+                    }
+                });
+        for (int i = 0; i < candidates.length && k > 0; ++i) {
+            best.add(i);
+            if (best.size() > k)
+                best.poll();
+        }
+
+        List<Duple<Synset, Double>> result = Lists.newArrayList();
+        while (!best.isEmpty()) {
+            int i = best.poll();
+            result.add(new Duple<Synset, Double>(candidates[i], sims[0][i]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Returns the profile of each {@link Synset} in {@code synsets}.
+     */
+    private List<P> profiles(Synset[] synsets) {
+        List<P> profiles = Lists.newArrayListWithCapacity(synsets.length);
+        for (Synset synset : synsets)
+            profiles.add(profile(synset));
+        return profiles;
+    }
+
+    /**
+     * Fills {@code sims} with the similarity between every row and column
+     * profile.  Large batches are split along their longer side into blocks
+     * that are scored concurrently.
+     */
+    private void score(final List<P> rowProfiles,
+                       final List<P> colProfiles,
+                       final double[][] sims) {
+        final int numRows = rowProfiles.size();
+        final int numCols = colProfiles.size();
+        if ((long) numRows * numCols < parallelThreshold || numThreads < 2) {
+            scoreBlock(rowProfiles, colProfiles, sims, 0, numRows, 0, numCols);
+            return;
+        }
+
+        final boolean splitRows = numRows >= numCols;
+        int length = (splitRows) ? numRows : numCols;
+        int numBlocks = Math.min(length, 4 * numThreads);
+        List<Runnable> tasks = Lists.newArrayList();
+        for (int b = 0; b < numBlocks; ++b) {
+            final int start = (int) ((long) length * b / numBlocks);
+            final int end = (int) ((long) length * (b + 1) / numBlocks);
+            tasks.add(new Runnable() {
+                public void run() {
+                    if (splitRows)
+                        scoreBlock(rowProfiles, colProfiles, sims,
+                                   start, end, 0, numCols);
+                    else
+                        scoreBlock(rowProfiles, colProfiles, sims,
+                                   0, numRows, start, end);
+                }
+            });
+        }
+        WorkQueueUtil.run(tasks);
+    }
+
+    /**
+     * Scores the rows in {@code [rowStart, rowEnd)} against the columns in
+     * {@code [colStart, colEnd)}.
+     */
+    private void scoreBlock(List<P> rowProfiles,
+                            List<P> colProfiles,
+                            double[][] sims,
+                            int rowStart, int rowEnd,
+                            int colStart, int colEnd) {
+        for (int r = rowStart; r < rowEnd; ++r) {
+            P rowProfile = rowProfiles.get(r);
+            for (int c = colStart; c < colEnd; ++c)
+                sims[r][c] = similarity(rowProfile, colProfiles.get(c));
+        }
+    }
+
+    /**
+     * Scores each row in {@code [rowStart, rowEnd)} against every later row,
+     * storing the similarity between rows {@code i} and {@code j} in {@code
+     * sims[i][j - i - 1]}.
+     */
+    private void scoreTriangle(List<P> profiles,
+                               double[][] sims,
+                               int rowStart, int rowEnd) {
+        int n = profiles.size();
+        for (int i = rowStart; i < rowEnd; ++i) {
+            P profile = profiles.get(i);
+            for (int j = i + 1; j < n; ++j)
+                sims[i][j - i - 1] = similarity(profile, profiles.get(j));
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.wordnet.HypernymIndex;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetSimilarity;
+
+import edu.ucla.sspace.util.ReflectionUtil;
+
+import java.util.Arrays;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link SynsetSimilarity} decorator that remembers the similarity of
+ * previously scored {@link Synset} pairs.  Pairs are keyed by the dense ids
+ * that the current {@link HypernymIndex} assigns to each {@link Synset}, packed
+ * into a single {@code long}, and the scores are kept in primitive arrays, so
+ * a cached lookup allocates nothing.  By default the pair is order
+ * independent, which is only correct for symmetric measures; measures such as
+ * {@link LeskSimilarity} that can score {@code (a, b)} differently from {@code
+ * (b, a)} should be cached with {@code symmetric} set to {@code false}.
+ *
+ * </p>
+ *
+ * The cache is split into a fixed number of segments, each guarded by it's own
+ * lock and holding a bounded number of entries.  Once a segment is full, the
+ * CLOCK algorithm evicts an entry that has not been read since the clock hand
+ * last passed it.  {@link Synset}s that are not part of a current {@link
+ * HypernymIndex} are scored directly, and the cache is cleared whenever the
+ * scored {@link Synset}s belong to a newer index or any {@link Synset} in the
+ * index has changed it's relations or gloss, so measures that read any
+ * relation or gloss, such as {@link HirstStOngeSimilarity} or {@link
+ * ExtendedLeskSimilarity}, can be cached safely.  Hit, miss, and eviction
+ * counts are tracked for reporting.
+ *
+ * </p>
+ *
+ * The no argument constructor configures the cache from system properties so
+ * that it can be created with {@link ReflectionUtil}:
+ *
+ * <ul>
+ *   <li>{@value #SIMILARITY_PROPERTY}: the class name of the {@link
+ *   SynsetSimilarity} to decorate.  This is required.</li>
+ *   <li>{@value #CACHE_SIZE_PROPERTY}: the maximum number of cached pairs,
+ *   {@value #DEFAULT_CAPACITY} by default.</li>
+ *   <li>{@value #SYMMETRIC_PROPERTY}: whether {@code (a, b)} and {@code (b,
+ *   a)} share an entry, {@code true} by default.</li>
+ * </ul>
+ *
+ * This class <b>is</b> thread safe if the decorated measure is.
+ *
+ * @author Keith Stevens
+ */
+public class CachingSynsetSimilarity implements SynsetSimilarity {
+
+    /**
+     * The system property naming the {@link SynsetSimilarity} class decorated
+     * by the no argument constructor.
+     */
+    public static final String SIMILARITY_PROPERTY =
+        "gov.llnl.ontology.wordnet.sim.cachedSimilarity";
+
+    /**
+     * The system property setting the capacity used by the no argument
+     * constructor.
+     */
+    public static final String CACHE_SIZE_PROPERTY =
+        "gov.llnl.ontology.wordnet.sim.similarityCacheSize";
+
+    /**
+     * The system property setting whether the no argument constructor caches
+     * pairs independent of their order.
+     */
+    public static final String SYMMETRIC_PROPERTY =
+        "gov.llnl.ontology.wordnet.sim.similarityCacheSymmetric";
+
+    /**
+     * The default maximum number of pairs held by a {@link
+     * CachingSynsetSimilarity}.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    /**
+     * The number of independently locked segments.
+     */
+    private static final int NUM_SEGMENTS = 16;
+
+    /**
+     * The decorated {@link SynsetSimilarity}.
+     */
+    private final SynsetSimilarity sim;
+
+    /**
+     * Set to {@code true} when {@code (a, b)} and {@code (b, a)} share an
+     * entry.
+     */
+    private final boolean symmetric;
+
+    /**
+     * The CLOCK segments of the cache.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The {@link HypernymIndex} whose ids key the cached entries.
+     */
+    private volatile HypernymIndex index;
+
+    /**
+     * The modification count of {@link #index} when the cached entries were
+     * scored.
+     */
+    private volatile long indexModifications;
+
+    /**
+     * The number of pairs answered from the cache.
+     */
+    private final AtomicLong hits;
+
+    /**
+     * The number of pairs scored by the decorated measure.
+     */
+    private final AtomicLong misses;
+
+    /**
+     * The number of entries evicted to keep the cache within it's capacity.
+     */
+    private final AtomicLong evictions;
+
+    /**
+     * The number of times the cache has been cleared.  Scores computed before
+     * a clear are not stored, as they may be keyed by stale ids.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Creates a new {@link CachingSynsetSimilarity} configured from the system
+     * properties described above.
+     */
+    public CachingSynsetSimilarity() {
+        this(createSimilarity(),
+             Integer.parseInt(System.getProperty(
+                     CACHE_SIZE_PROPERTY, Integer.toString(DEFAULT_CAPACITY))),
+             Boolean.parseBoolean(System.getProperty(
+                     SYMMETRIC_PROPERTY, "true")));
+    }
+
+    /**
+     * Creates a new {@link CachingSynsetSimilarity} that caches up to {@link
+     * #DEFAULT_CAPACITY} pairs scored by the symmetric measure {@code sim}.
+     */
+    public CachingSynsetSimilarity(SynsetSimilarity sim) {
+        this(sim, DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     * Creates a new {@link CachingSynsetSimilarity} that caches up to {@code
+     * capacity} pairs scored by {@code sim}.  If {@code symmetric} is {@code
+     * true}, a pair and it's reverse share a single entry.
+     */
+    public CachingSynsetSimilarity(SynsetSimilarity sim,
+                                   int capacity,
+                                   boolean symmetric) {
+        if (capacity < 1)
+            throw new IllegalArgumentException(
+                    "The similarity cache capacity must be positive");
+        this.sim = sim;
+        this.symmetric = symmetric;
+        int segmentCapacity = Math.max(1, capacity / NUM_SEGMENTS);
+        segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; ++i)
+            segments[i] = new Segment(segmentCapacity);
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+        generation = new AtomicLong();
+    }
+
+    /**
+     * Returns the {@link SynsetSimilarity} named by {@link
+     * #SIMILARITY_PROPERTY}.
+     */
+    private static SynsetSimilarity createSimilarity() {
+        String simName = System.getProperty(SIMILARITY_PROPERTY);
+        if (simName == null)
+            throw new IllegalArgumentException(
+                    "The " + SIMILARITY_PROPERTY + " property must name the " +
+                    "SynsetSimilarity to cache");
+        return ReflectionUtil.getObjectInstance(simName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double similarity(Synset synset1, Synset synset2) {
+        HypernymIndex synsetIndex = HypernymIndex.of(synset1);
+        int id1 = (synsetIndex == null) ? -1 : synsetIndex.indexOf(synset1);
+        int id2 = (synsetIndex == null) ? -1 : synsetIndex.indexOf(synset2);
+        if (id1 < 0 || id2 < 0) {
+            misses.incrementAndGet();
+            return sim.similarity(synset1, synset2);
+        }
+
+        // Entries keyed by the ids of an older index are meaningless, and
+        // entries scored before any relation or gloss changed may be stale,
+        // so drop them before using the new ids.
+        long modifications = synsetIndex.getModificationCount();
+        if (synsetIndex != index || modifications != indexModifications)
+            synchronized (this) {
+                if (synsetIndex != index ||
+                    modifications != indexModifications) {
+                    clear();
+                    index = synsetIndex;
+                    indexModifications = modifications;
+                }
+            }
+
+        long key = (symmetric && id2 < id1)
+            ? pack(id2, id1)
+            : pack(id1, id2);
+        long hash = hash(key);
+        Segment segment = segments[(int) (hash & (NUM_SEGMENTS - 1))];
+        synchronized (segment) {
+            int entry = segment.find(key, hash);
+            if (entry >= 0) {
+                segment.referenced[entry] = true;
+                hits.incrementAndGet();
+                return segment.values[entry];
+            }
+        }
+
+        // Score the pair without holding the lock.  Two threads may both
+        // score the same pair, but they will store equal values.  If the
+        // cache is cleared while scoring, the score is returned but not
+        // cached.
+        misses.incrementAndGet();
+        long scoredGeneration = generation.get();
+        double score = sim.similarity(synset1, synset2);
+        synchronized (segment) {
+            if (scoredGeneration == generation.get() && synsetIndex == index &&
+                modifications == indexModifications)
+                segment.put(key, hash, score);
+        }
+        return score;
+    }
+
+    /**
+     * Returns the decorated {@link SynsetSimilarity}.
+     */
+    public SynsetSimilarity getSimilarity() {
+        return sim;
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    /**
+     * Returns the number of cached pairs.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size;
+            }
+        return size;
+    }
+
+    /**
+     * Returns the number of pairs answered from the cache.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of pairs scored by the decorated measure.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted from the cache.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the fraction of pairs answered from the cache.
+     */
+    public double hitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total == 0) ? 0 : h / (double) total;
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     */
+    public String toString() {
+        return String.format(
+                "CachingSynsetSimilarity[%s, size=%d, hits=%d, misses=%d, " +
+                "evictions=%d, hitRate=%.3f]",
+                sim.getClass().getName(), size(), hits(), misses(),
+                evictions(), hitRate());
+    }
+
+    /**
+     * Returns the key for the ordered pair of ids.
+     */
+    private static long pack(int id1, int id2) {
+        return ((long) id1 << 32) | (id2 & 0xffffffffL);
+    }
+
+    /**
+     * Returns a well mixed hash of {@code key}.  The low bits select the
+     * segment and the remaining bits select the slot within the segment.
+     */
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * A single CLOCK segment of the cache.  Entries live in fixed arrays
+     * visited in a ring by the clock hand, and an open addressed table maps
+     * keys to entries.  All access must be synchronized on the segment.
+     */
+    private class Segment {
+
+        /**
+         * The key of each entry.
+         */
+        final long[] keys;
+
+        /**
+         * The score of each entry.
+         */
+        final double[] values;
+
+        /**
+         * Whether each entry has been read since the clock hand last passed
+         * it.
+         */
+        final boolean[] referenced;
+
+        /**
+         * A linear probing table holding one more than the index of each
+         * entry, or 0 for an empty slot.
+         */
+        final int[] table;
+
+        /**
+         * The mask used to wrap probes into {@code table}.
+         */
+        final int mask;
+
+        /**
+         * The number of entries in use.
+         */
+        int size;
+
+        /**
+         * The next entry considered for eviction.
+         */
+        int hand;
+
+        /**
+         * Creates a new {@link Segment} holding at most {@code capacity}
+         * entries.
+         */
+        Segment(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            referenced = new boolean[capacity];
+            int tableSize = Integer.highestOneBit(capacity) << 2;
+            table = new int[tableSize];
+            mask = tableSize - 1;
+        }
+
+        /**
+         * Returns the first slot probed for a key with {@code hash}.
+         */
+        int slot(long hash) {
+            return (int) (hash >>> 4) & mask;
+        }
+
+        /**
+         * Returns the entry holding {@code key}, or -1 if it is not cached.
+         */
+        int find(long key, long hash) {
+            for (int i = slot(hash); ; i = (i + 1) & mask) {
+                int entry = table[i] - 1;
+                if (entry < 0)
+                    return -1;
+                if (keys[entry] == key)
+                    return entry;
+            }
+        }
+
+        /**
+         * Stores {@code value} for {@code key}, evicting an entry if the
+         * segment is full.
+         */
+        void put(long key, long hash, double value) {
+            if (find(key, hash) >= 0)
+                return;
+
+            int entry = (size < keys.length) ? size++ : evict();
+            keys[entry] = key;
+            values[entry] = value;
+            referenced[entry] = false;
+
+            int i = slot(hash);
+            while (table[i] != 0)
+                i = (i + 1) & mask;
+            table[i] = entry + 1;
+        }
+
+        /**
+         * Advances the clock hand to the first entry that has not been read
+         * since the hand last passed it, removes that entry from the table,
+         * and returns it for reuse.
+         */
+        int evict() {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % keys.length;
+            }
+            int victim = hand;
+            hand = (hand + 1) % keys.length;
+            remove(victim);
+            evictions.incrementAndGet();
+            return victim;
+        }
+
+        /**
+         * Removes {@code entry} from the table, shifting back any later
+         * entries in the same probe run so that they remain reachable.
+         */
+        void remove(int entry) {
+            int i = slot(hash(keys[entry]));
+            while (table[i] != entry + 1)
+                i = (i + 1) & mask;
+            table[i] = 0;
+
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = slot(hash(keys[table[j] - 1]));
+                // Move the entry at j into the hole at i unless it's home
+                // slot lies cyclically within (i, j].
+                boolean reachable = (i <= j)
+                    ? (i < home && home <= j)
+                    : (i < home || home <= j);
+                if (!reachable) {
+                    table[i] = table[j];
+                    table[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * Removes every entry.
+         */
+        void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.wordnet.Synset;
+
+
+/**
+ * A {@link Synset} paired with it's information content, used by the
+ * information content based measures to look up the content of each row and
+ * column once per batch.
+ *
+ * @author Keith Stevens
+ */
+class ContentProfile {
+
+    /**
+     * The profiled {@link Synset}.
+     */
+    final Synset synset;
+
+    /**
+     * The information content of {@code synset}, or -1 if it is unknown.
+     */
+    final double ic;
+
+    /**
+     * Creates a new {@link ContentProfile}.
+     */
+    ContentProfile(Synset synset, double ic) {
+        this.synset = synset;
+        this.ic = ic;
+    }
+}
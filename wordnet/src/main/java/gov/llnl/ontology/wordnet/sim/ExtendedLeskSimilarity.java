@@ -23,43 +23,34 @@
 
 package gov.llnl.ontology.wordnet.sim;
 
+import gov.llnl.ontology.wordnet.GlossSignature;
 import gov.llnl.ontology.wordnet.Synset;
-import gov.llnl.ontology.wordnet.SynsetSimilarity;
-import gov.llnl.ontology.util.StringUtils;
-
-import com.google.common.collect.Sets;
-
-import java.util.Set;
 
 
 /**
+ * Scores two {@link Synset}s by the squared sequence overlap between the
+ * glosses of each {@link Synset} and every {@link Synset} related to it.  The
+ * extended glosses are compared as interned {@link GlossSignature}s, which
+ * each {@link Synset} gathers once until it's relations change.
+ *
  * @author Keith Stevens
  */
-public class ExtendedLeskSimilarity implements SynsetSimilarity {
+public class ExtendedLeskSimilarity
+        extends AbstractBatchSimilarity<GlossSignature[]> {
 
     /**
-     * {@inheritDoc}
+     * Returns the {@link GlossSignature}s of {@code synset} and of every
+     * {@link Synset} related to it.
      */
-    public double similarity(Synset synset1, Synset synset2) {
-        Set<Synset> synsets1 = Sets.newHashSet(synset1.allRelations()); 
-        synsets1.add(synset1);
-        Set<Synset> synsets2 = Sets.newHashSet(synset2.allRelations());
-        synsets2.add(synset2);
-
-        double score = 0;
-        for (Synset s1 : synsets1) 
-            for (Synset s2 : synsets2)
-                score += score(s1.getGloss(), s2.getGloss());
-        return score;
+    protected GlossSignature[] profile(Synset synset) {
+        return GlossSignature.extended(synset);
     }
 
     /**
-     * Computes the gloss overlap between two {@link Synset}s when splitting the
-     * tokens using whitespace.
+     * {@inheritDoc}
      */
-    private static double score(String gloss1, String gloss2) {
-        String[] gTokens1 = gloss1.split("\\s+");
-        String[] gTokens2 = gloss2.split("\\s+");
-        return StringUtils.tokenOverlapExp(gTokens1, gTokens2);
+    protected double similarity(GlossSignature[] glosses1,
+                                GlossSignature[] glosses2) {
+        return GlossSignature.overlapExp(glosses1, glosses2);
     }
 }
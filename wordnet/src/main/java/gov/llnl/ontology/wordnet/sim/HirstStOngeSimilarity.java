@@ -23,11 +23,19 @@
 
 package gov.llnl.ontology.wordnet.sim;
 
+import gov.llnl.ontology.wordnet.EpochScratch;
 import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetGraph;
 import gov.llnl.ontology.wordnet.SynsetSimilarity;
 
 import gov.llnl.ontology.wordnet.Synset.Relation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 
 /**
  * Implements a word net path similarity measure defined by Hirst and St-Onge.
@@ -48,6 +56,17 @@ import gov.llnl.ontology.wordnet.Synset.Relation;
  *   C - pathLength - k * |direction changes|
  * Since C and k are both constants, they are set to 1.
  *
+ * </p>
+ *
+ * The valid paths form a small state machine over the last direction taken
+ * and the number of direction changes, so the best path is found with a
+ * breadth first search over {@code (synset, state, changes)} triples that
+ * visits each triple at most once, at it's smallest depth.  When both {@link
+ * Synset}s are part of a current {@link SynsetGraph}, the search runs from
+ * both ends at once over the graph's outgoing and incoming edges and stops as
+ * soon as no longer path could score higher.  Otherwise only the forward
+ * search is used.
+ *
  * @author Keith Stevens
  */
 public class HirstStOngeSimilarity implements SynsetSimilarity {
@@ -57,6 +76,96 @@ public class HirstStOngeSimilarity implements SynsetSimilarity {
     */
     private static final double C = 8;
 
+    /**
+     * The maximum number of links in a valid path.
+     */
+    private static final int MAX_DEPTH = 5;
+
+    /**
+     * The direction of relations in {@link #UP_RELATION}.
+     */
+    private static final int UP = 0;
+
+    /**
+     * The direction of relations in {@link #DOWN_RELATION}.
+     */
+    private static final int DOWN = 1;
+
+    /**
+     * The direction of relations in {@link #SIDE_RELATION}.
+     */
+    private static final int SIDE = 2;
+
+    /**
+     * The state of the first {@link Synset}, before any link has been
+     * followed.  States 1 through 5 match the five kinds of valid paths: 1
+     * has only gone up, 2 may still go sideways or down, 3 started down and
+     * may still go sideways, 4 may only go down, and 5 may only go sideways.
+     */
+    private static final int START = 0;
+
+    /**
+     * The number of search states.
+     */
+    private static final int NUM_STATES = 6;
+
+    /**
+     * The most direction changes a valid path can make.
+     */
+    private static final int MAX_CHANGES = 2;
+
+    /**
+     * The number of {@code (state, changes)} combinations.
+     */
+    private static final int NUM_SLOTS = NUM_STATES * (MAX_CHANGES + 1);
+
+    /**
+     * The state reached by following a link in each direction from each
+     * state, or -1 if the link is not valid.
+     */
+    private static final int[][] NEXT_STATE = {
+        {  1,  3,  2 },
+        {  1,  4,  2 },
+        { -1,  4,  2 },
+        { -1,  4,  5 },
+        { -1,  4, -1 },
+        { -1, -1,  5 },
+    };
+
+    /**
+     * The number of direction changes made by following a link in each
+     * direction from each state.
+     */
+    private static final int[][] CHANGES = {
+        { 0, 0, 0 },
+        { 0, 1, 1 },
+        { 0, 1, 0 },
+        { 0, 0, 1 },
+        { 0, 0, 0 },
+        { 0, 0, 0 },
+    };
+
+    /**
+     * The relations in each direction.
+     */
+    private static final Relation[][] DIRECTION_RELATIONS;
+
+    /**
+     * The scratch buffers for each thread.
+     */
+    private static final ThreadLocal<Search> SEARCH =
+        new ThreadLocal<Search>() {
+            protected Search initialValue() {
+                return new Search();
+            }
+        };
+
+    /**
+     * The direction of each relation type in the most recently searched
+     * {@link SynsetGraph}.
+     */
+    private volatile GraphDirections graphDirections;
+
     /**
     * The set of relations with an upward direction.
     */
@@ -81,25 +190,22 @@ public class HirstStOngeSimilarity implements SynsetSimilarity {
         Relation.ANTONYM, Relation.SIMILAR_TO
     };
 
+    static {
+        DIRECTION_RELATIONS = new Relation[3][];
+        DIRECTION_RELATIONS[UP] = UP_RELATION;
+        DIRECTION_RELATIONS[DOWN] = DOWN_RELATION;
+        DIRECTION_RELATIONS[SIDE] = SIDE_RELATION;
+    }
+
     /**
      * {@inheritDoc}
      */
     public double similarity(Synset synset1, Synset synset2) {
-        double bestScore = 0;
-        for (Relation relation : UP_RELATION)
-            for (Synset related : synset1.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState1(1, 0, related, synset2));
-
-        for (Relation relation : DOWN_RELATION)
-            for (Synset related : synset1.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState3(1, 0, related, synset2));
-
-        for (Relation relation : SIDE_RELATION)
-            for (Synset related : synset1.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState2(1, 0, related, synset2));
+        SynsetGraph graph = SynsetGraph.of(synset1);
+        int target = (graph == null) ? -1 : graph.indexOf(synset2);
+        double bestScore = (target >= 0)
+            ? graphScore(graph, graph.indexOf(synset1), target)
+            : forwardScore(synset1, synset2);
 
         // With k == 1 the minimum score possible is 0 and the maximum
         // score is C.  Divide by C so that it's within a range of 0 to 1.
@@ -107,151 +213,355 @@ public class HirstStOngeSimilarity implements SynsetSimilarity {
     }
 
     /**
-    * Traverses valid outward links from {@code src} node.  If {@code src}
-    * equals {@code dest}, then a score is computed.  Of all possible paths from
-    * this state, the maximum score is returned.
-    *
-    * </p>
-    *
-    * From this state, all directions are valid.
-    */
-    private static double hsoState1(int depth, int dirChange,
-                                  Synset src, Synset dest) {
-        double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
-        depth++;
-
-        if (depth > 5)
-            return Math.max(bestScore, 0);
-
-        for (Relation relation : UP_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState1(depth, dirChange, related, dest));
-
-        dirChange++;
-        for (Relation relation : DOWN_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState4(depth, dirChange, related, dest));
-
-        for (Relation relation : SIDE_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState2(depth, dirChange, related, dest));
+     * Returns the best path score from {@code source} to {@code target} in
+     * {@code graph}, searching forward from {@code source} and backward from
+     * {@code target} until the two searches together cover every path of up
+     * to {@link #MAX_DEPTH} links.  A path is found when a {@code (synset,
+     * state)} pair reached by the forward search has been reached by the
+     * backward search, and it's score combines the depths and direction
+     * changes of both halves.  Since each half keeps the smallest depth for
+     * each {@code (synset, state, changes)} triple, the best combination is
+     * the best path.
+     */
+    private double graphScore(SynsetGraph graph, int source, int target) {
+        byte[] directions = directions(graph);
+        int[] rowStart = graph.getRowStarts();
+        int[] targets = graph.getTargets();
+        byte[] types = graph.getTypes();
+        int[] incomingRowStart = graph.getIncomingRowStarts();
+        int[] sources = graph.getSources();
+        byte[] sourceTypes = graph.getSourceTypes();
+
+        Search search = SEARCH.get();
+        search.reset(graph.size());
+        Side forward = search.forward;
+        Side backward = search.backward;
+
+        // Any state other than the start may end a path at the target.
+        forward.visit(source, slot(START, 0), 0);
+        for (int state = START + 1; state < NUM_STATES; ++state)
+            backward.visit(target, slot(state, 0), 0);
 
+        double bestScore = 0;
+        while (forward.depth + backward.depth < MAX_DEPTH &&
+               forward.frontierSize > 0 && backward.frontierSize > 0) {
+            // Every path with at most forward.depth + backward.depth links
+            // has been scored, so stop once no longer path could do better.
+            if (bestScore >= C - (forward.depth + backward.depth + 1))
+                break;
+
+            if (forward.frontierSize <= backward.frontierSize) {
+                int depth = forward.startLayer();
+                for (int f = 0; f < forward.frontierSize; ++f) {
+                    int key = forward.frontier[f];
+                    int id = key / NUM_SLOTS;
+                    int state = (key % NUM_SLOTS) / (MAX_CHANGES + 1);
+                    int changes = key % (MAX_CHANGES + 1);
+                    for (int e = rowStart[id]; e < rowStart[id+1]; ++e) {
+                        int direction = directions[types[e]];
+                        if (direction < 0)
+                            continue;
+                        int nextState = NEXT_STATE[state][direction];
+                        if (nextState < 0)
+                            continue;
+                        int nextChanges = changes + CHANGES[state][direction];
+                        int nextSlot = slot(nextState, nextChanges);
+                        int next = targets[e];
+                        if (forward.depth(next, nextSlot) >= 0)
+                            continue;
+                        forward.visit(next, nextSlot, depth);
+
+                        // Join this prefix with any suffix that ends at the
+                        // target.
+                        for (int c = 0; c <= MAX_CHANGES; ++c) {
+                            int suffix = backward.depth(
+                                    next, slot(nextState, c));
+                            if (suffix >= 0)
+                                bestScore = Math.max(
+                                        bestScore,
+                                        C - depth - suffix - nextChanges - c);
+                        }
+                    }
+                }
+                forward.endLayer();
+            } else {
+                int depth = backward.startLayer();
+                for (int b = 0; b < backward.frontierSize; ++b) {
+                    int key = backward.frontier[b];
+                    int id = key / NUM_SLOTS;
+                    int state = (key % NUM_SLOTS) / (MAX_CHANGES + 1);
+                    int changes = key % (MAX_CHANGES + 1);
+                    for (int e = incomingRowStart[id];
+                             e < incomingRowStart[id+1]; ++e) {
+                        int direction = directions[sourceTypes[e]];
+                        if (direction < 0)
+                            continue;
+                        int prev = sources[e];
+                        for (int prevState = 0; prevState < NUM_STATES;
+                                 ++prevState) {
+                            if (NEXT_STATE[prevState][direction] != state)
+                                continue;
+                            int prevChanges =
+                                changes + CHANGES[prevState][direction];
+                            int prevSlot = slot(prevState, prevChanges);
+                            if (backward.depth(prev, prevSlot) >= 0)
+                                continue;
+                            backward.visit(prev, prevSlot, depth);
+
+                            // Join this suffix with any prefix that starts at
+                            // the source.
+                            for (int c = 0; c <= MAX_CHANGES; ++c) {
+                                int prefix = forward.depth(
+                                        prev, slot(prevState, c));
+                                if (prefix >= 0)
+                                    bestScore = Math.max(
+                                            bestScore,
+                                            C - depth - prefix -
+                                            prevChanges - c);
+                            }
+                        }
+                    }
+                }
+                backward.endLayer();
+            }
+        }
         return bestScore;
     }
 
     /**
-    * Traverses valid outward links from {@code src} node.  If {@code src}
-    * equals {@code dest}, then a score is computed.  Of all possible paths from
-    * this state, the maximum score is returned.
-    *
-    * </p>
-    *
-    * From this state, only side and downward directions are valid.
-    */
-    private static double hsoState2(int depth, int dirChange, 
-                                  Synset src, Synset dest) {
-        double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
-        depth++;
-
-        if (depth > 5)
-            return Math.max(bestScore, 0);
-
-        for (Relation relation : SIDE_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState2(depth, dirChange, related, dest));
-
-        dirChange++;
-        for (Relation relation : DOWN_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState4(depth, dirChange, related, dest));
-
+     * Returns the best path score from {@code source} to {@code target} with a
+     * forward breadth first search over the {@link Synset} relations.  This is
+     * used when the {@link Synset}s are not part of a current {@link
+     * SynsetGraph}.
+     */
+    private static double forwardScore(Synset source, Synset target) {
+        // The slots of each synset that have been visited, as a bit set.
+        Map<Synset, Integer> visited = new IdentityHashMap<Synset, Integer>();
+        List<Synset> frontier = new ArrayList<Synset>();
+        List<Integer> frontierSlots = new ArrayList<Integer>();
+        frontier.add(source);
+        frontierSlots.add(slot(START, 0));
 
+        double bestScore = 0;
+        for (int depth = 1; depth <= MAX_DEPTH && !frontier.isEmpty(); 
+                 ++depth) {
+            if (bestScore >= C - depth)
+                break;
+
+            List<Synset> nextFrontier = new ArrayList<Synset>();
+            List<Integer> nextSlots = new ArrayList<Integer>();
+            for (int f = 0; f < frontier.size(); ++f) {
+                Synset synset = frontier.get(f);
+                int state = frontierSlots.get(f) / (MAX_CHANGES + 1);
+                int changes = frontierSlots.get(f) % (MAX_CHANGES + 1);
+                for (int direction = UP; direction <= SIDE; ++direction) {
+                    int nextState = NEXT_STATE[state][direction];
+                    if (nextState < 0)
+                        continue;
+                    int nextChanges = changes + CHANGES[state][direction];
+                    int nextSlot = slot(nextState, nextChanges);
+                    for (Relation relation : DIRECTION_RELATIONS[direction])
+                        for (Synset related : synset.getRelations(relation)) {
+                            Integer seen = visited.get(related);
+                            int slots = (seen == null) ? 0 : seen;
+                            if ((slots & (1 << nextSlot)) != 0)
+                                continue;
+                            visited.put(related, slots | (1 << nextSlot));
+                            nextFrontier.add(related);
+                            nextSlots.add(nextSlot);
+                            if (related.equals(target))
+                                bestScore = Math.max(
+                                        bestScore, C - depth - nextChanges);
+                        }
+                }
+            }
+            frontier = nextFrontier;
+            frontierSlots = nextSlots;
+        }
         return bestScore;
     }
 
     /**
-    * Traverses valid outward links from {@code src} node.  If {@code src}
-    * equals {@code dest}, then a score is computed.  Of all possible paths from
-    * this state, the maximum score is returned.
-    *
-    * </p>
-    *
-    * From this state, only side and downward directions are valid.
-    */
-    private static double hsoState3(int depth, int dirChange, 
-                                  Synset src, Synset dest) {
-        double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
-        depth++;
-
-        if (depth > 5)
-            return Math.max(bestScore, 0);
-
-        for (Relation relation : DOWN_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState4(depth, dirChange, related, dest));
-
-        dirChange++;
-        for (Relation relation : SIDE_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState5(depth, dirChange, related, dest));
+     * Returns the slot used for a path in {@code state} that has made {@code
+     * changes} direction changes.
+     */
+    private static int slot(int state, int changes) {
+        return state * (MAX_CHANGES + 1) + changes;
+    }
 
-        return bestScore;
+    /**
+     * Returns the direction of each relation type in {@code graph}, or -1 for
+     * relations that are not part of any valid path.
+     */
+    private byte[] directions(SynsetGraph graph) {
+        GraphDirections cached = graphDirections;
+        if (cached != null && cached.graph == graph)
+            return cached.directions;
+
+        byte[] directions = new byte[graph.numRelationTypes()];
+        Arrays.fill(directions, (byte) -1);
+        for (int direction = UP; direction <= SIDE; ++direction)
+            for (Relation relation : DIRECTION_RELATIONS[direction]) {
+                int type = graph.getRelationType(relation.toString());
+                if (type >= 0)
+                    directions[type] = (byte) direction;
+            }
+        graphDirections = new GraphDirections(graph, directions);
+        return directions;
     }
 
     /**
-    * Traverses valid outward links from {@code src} node.  If {@code src}
-    * equals {@code dest}, then a score is computed.  Of all possible paths from
-    * this state, the maximum score is returned.
-    *
-    * </p>
-    *
-    * From this state, only downward directions are valid.
-    */
-    private static double hsoState4(int depth, int dirChange, 
-                                  Synset src, Synset dest) {
-        double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
-        depth++;
+     * The relation directions for a single {@link SynsetGraph}.
+     */
+    private static class GraphDirections {
 
-        if (depth > 5)
-            return Math.max(bestScore, 0);
+        final SynsetGraph graph;
 
-        for (Relation relation : DOWN_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState4(depth, dirChange, related, dest));
+        final byte[] directions;
 
-        return bestScore;
+        GraphDirections(SynsetGraph graph, byte[] directions) {
+            this.graph = graph;
+            this.directions = directions;
+        }
     }
 
     /**
-    * Traverses valid outward links from {@code src} node.  If {@code src}
-    * equals {@code dest}, then a score is computed.  Of all possible paths from
-    * this state, the maximum score is returned.
-    *
-    * </p>
-    *
-    * From this state, only side directions are valid.
-    */
-    private static double hsoState5(int depth, int dirChange, 
-                                    Synset src, Synset dest) {
-        double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
-        depth++;
+     * The per thread state of a bidirectional search.
+     */
+    private static class Search {
 
-        if (depth > 5)
-            return Math.max(bestScore, 0);
+        final Side forward = new Side();
 
-        for (Relation relation : SIDE_RELATION)
-            for (Synset related : src.getRelations(relation))
-                bestScore = Math.max(
-                        bestScore, hsoState5(depth, dirChange, related, dest));
+        final Side backward = new Side();
 
-        return bestScore;
+        /**
+         * Prepares both sides for a new search over a graph with {@code size}
+         * {@link Synset}s.
+         */
+        void reset(int size) {
+            forward.reset(size);
+            backward.reset(size);
+        }
+    }
+
+    /**
+     * One half of a bidirectional search.  The depth at which each {@code
+     * (synset, slot)} pair was reached is packed into three bits per slot of
+     * a single {@code long} per {@link Synset}.
+     */
+    private static class Side extends EpochScratch {
+
+        /**
+         * The packed depths of each {@link Synset}.  A depth of 7 marks an
+         * unvisited slot.
+         */
+        long[] depths = new long[0];
+
+        /**
+         * The epoch in which each {@link Synset}'s depths were last written.
+         */
+        int[] stamps = new int[0];
+
+        /**
+         * The epoch of the current search.
+         */
+        int epoch;
+
+        /**
+         * The keys of the pairs reached in the last completed layer.
+         */
+        int[] frontier = new int[16];
+
+        int frontierSize;
+
+        /**
+         * The keys of the pairs reached in the layer being expanded.
+         */
+        int[] nextFrontier = new int[16];
+
+        int nextFrontierSize;
+
+        /**
+         * The depth of the last completed layer.
+         */
+        int depth;
+
+        /**
+         * Starts a new search, growing the arrays to hold at least {@code
+         * size} {@link Synset}s.
+         */
+        void reset(int size) {
+            ensureCapacity(size);
+            epoch = nextEpoch();
+            frontierSize = 0;
+            nextFrontierSize = 0;
+            depth = 0;
+        }
+
+        /**
+         * Returns the depth at which {@code slot} of {@link Synset} {@code id}
+         * was reached, or -1 if it has not been reached.
+         */
+        int depth(int id, int slot) {
+            if (stamps[id] != epoch)
+                return -1;
+            int d = (int) (depths[id] >>> (3 * slot)) & 7;
+            return (d == 7) ? -1 : d;
+        }
+
+        /**
+         * Records that {@code slot} of {@link Synset} {@code id} was reached
+         * at {@code d} and adds it to the layer being built.  The starting
+         * pairs are added directly to the frontier.
+         */
+        void visit(int id, int slot, int d) {
+            if (stamps[id] != epoch) {
+                stamps[id] = epoch;
+                depths[id] = -1L;
+            }
+            depths[id] &= ~(7L << (3 * slot));
+            depths[id] |= (long) d << (3 * slot);
+
+            int key = id * NUM_SLOTS + slot;
+            if (d == 0) {
+                if (frontierSize == frontier.length)
+                    frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                frontier[frontierSize++] = key;
+            } else {
+                if (nextFrontierSize == nextFrontier.length)
+                    nextFrontier = Arrays.copyOf(
+                            nextFrontier, nextFrontierSize * 2);
+                nextFrontier[nextFrontierSize++] = key;
+            }
+        }
+
+        /**
+         * Starts expanding the frontier and returns the depth of the pairs it
+         * will reach.
+         */
+        int startLayer() {
+            nextFrontierSize = 0;
+            return depth + 1;
+        }
+
+        /**
+         * Makes the pairs reached in the expanded layer the new frontier.
+         */
+        void endLayer() {
+            int[] swap = frontier;
+            frontier = nextFrontier;
+            frontierSize = nextFrontierSize;
+            nextFrontier = swap;
+            depth++;
+        }
+
+        protected void allocate(int capacity) {
+            depths = new long[capacity];
+            stamps = new int[capacity];
+        }
+
+        protected void clearStamps() {
+            Arrays.fill(stamps, 0);
+        }
     }
 }
@@ -37,7 +37,8 @@ import gov.llnl.ontology.wordnet.SynsetSimilarity;
  *
  * @author Keith Stevens
  */
-public class JiangConrathSimilarity implements SynsetSimilarity {
+public class JiangConrathSimilarity
+        extends AbstractBatchSimilarity<ContentProfile> {
 
     /**
      * The {@link InformationContent} responsible for reporting corpus
@@ -62,13 +63,33 @@ public class JiangConrathSimilarity implements SynsetSimilarity {
      * {@inheritDoc}
      */
     public double similarity(Synset synset1, Synset synset2) {
+        // Identical synsets are maximally similar without needing their
+        // information content.
         if (synset1.equals(synset2))
             return Double.MAX_VALUE;
-        double ic1 = ic.informationContent(synset1);
-        double ic2 = ic.informationContent(synset2);
+        return super.similarity(synset1, synset2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected ContentProfile profile(Synset synset) {
+        return new ContentProfile(synset, ic.informationContent(synset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected double similarity(ContentProfile profile1,
+                                ContentProfile profile2) {
+        if (profile1.synset.equals(profile2.synset))
+            return Double.MAX_VALUE;
+        double ic1 = profile1.ic;
+        double ic2 = profile2.ic;
         if (ic1 == -1 || ic2 == -1)
             return 0;
-        double icSubsumer = resSim.similarity(synset1, synset2);
+        double icSubsumer = resSim.similarity(
+                profile1.synset, profile2.synset);
         double  difference = ic1 + ic2 - 2 * icSubsumer;
         return (difference == 0) ? Double.MAX_VALUE : 1d / difference;
     }
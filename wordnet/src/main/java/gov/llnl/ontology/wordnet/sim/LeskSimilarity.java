@@ -23,22 +23,30 @@
 
 package gov.llnl.ontology.wordnet.sim;
 
+import gov.llnl.ontology.wordnet.GlossSignature;
 import gov.llnl.ontology.wordnet.Synset;
-import gov.llnl.ontology.wordnet.SynsetSimilarity;
-import gov.llnl.ontology.util.StringUtils;
 
 
 /**
+ * Scores two {@link Synset}s by the number of tokens in the first gloss that
+ * also occur in the second gloss.  Glosses are compared as interned {@link
+ * GlossSignature}s, which each {@link Synset} computes once.
+ *
  * @author Keith Stevens
  */
-public class LeskSimilarity implements SynsetSimilarity {
+public class LeskSimilarity extends AbstractBatchSimilarity<GlossSignature> {
+
+    /**
+     * {@inheritDoc}
+     */
+    protected GlossSignature profile(Synset synset) {
+        return GlossSignature.of(synset);
+    }
 
     /**
      * {@inheritDoc}
      */
-    public double similarity(Synset synset1, Synset synset2) {
-        String[] gloss1 = synset1.getGloss().split("\\s+");
-        String[] gloss2 = synset2.getGloss().split("\\s+");
-        return StringUtils.tokenOverlap(gloss1, gloss2);
+    protected double similarity(GlossSignature gloss1, GlossSignature gloss2) {
+        return gloss1.overlap(gloss2);
     }
 }
@@ -36,7 +36,7 @@ import gov.llnl.ontology.wordnet.SynsetSimilarity;
  *
  * @author Keith Stevens
  */
-public class LinSimilarity implements SynsetSimilarity {
+public class LinSimilarity extends AbstractBatchSimilarity<ContentProfile> {
 
     /**
      * The {@link InformationContent} responsible for reporting corpus
@@ -60,12 +60,21 @@ public class LinSimilarity implements SynsetSimilarity {
     /**
      * {@inheritDoc}
      */
-    public double similarity(Synset synset1, Synset synset2) {
-        double ic1 = ic.informationContent(synset1);
-        double ic2 = ic.informationContent(synset2);
+    protected ContentProfile profile(Synset synset) {
+        return new ContentProfile(synset, ic.informationContent(synset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected double similarity(ContentProfile profile1,
+                                ContentProfile profile2) {
+        double ic1 = profile1.ic;
+        double ic2 = profile2.ic;
         if (ic1 == -1 || ic2 == -1)
             return 0;
-        double icSubsumer = resSim.similarity(synset1, synset2);
+        double icSubsumer = resSim.similarity(
+                profile1.synset, profile2.synset);
         return (2d * icSubsumer) / (ic1 + ic2);
     }
 }
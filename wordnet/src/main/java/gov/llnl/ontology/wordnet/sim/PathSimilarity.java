@@ -23,6 +23,7 @@
 
 package gov.llnl.ontology.wordnet.sim;
 
+import gov.llnl.ontology.wordnet.LandmarkDistanceOracle;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.SynsetRelations;
 import gov.llnl.ontology.wordnet.SynsetSimilarity;
@@ -33,15 +34,46 @@ import gov.llnl.ontology.wordnet.SynsetSimilarity;
  * only parent and child links.  Scores range from 0 to 1, with 0 being returned
  * for {@link Synset}s that have no connecting path.
  *
+ * </p>
+ *
+ * When created with a {@link LandmarkDistanceOracle}, distances are taken from
+ * the oracle instead of being searched for on each call.  They are the same
+ * distances when the oracle has exact refinement enabled, and otherwise an
+ * upper bound on them.
+ *
  * @author Keith Stevens
  */
 public class PathSimilarity implements SynsetSimilarity {
 
+    /**
+     * The oracle providing distances, or {@code null} if distances are
+     * computed directly.
+     */
+    private final LandmarkDistanceOracle oracle;
+
+    /**
+     * Creates a new {@link PathSimilarity} that computes the shortest path
+     * through a common parent for each pair of {@link Synset}s.
+     */
+    public PathSimilarity() {
+        this(null);
+    }
+
+    /**
+     * Creates a new {@link PathSimilarity} that uses the distances estimated
+     * by {@code oracle}.
+     */
+    public PathSimilarity(LandmarkDistanceOracle oracle) {
+        this.oracle = oracle;
+    }
+
     /**
      * {@inheritDoc}
      */
     public double similarity(Synset synset1, Synset synset2) {
-        int distance = SynsetRelations.shortestPathDistance(synset1, synset2);
+        int distance = (oracle == null)
+            ? SynsetRelations.shortestPathDistance(synset1, synset2)
+            : oracle.distance(synset1, synset2);
         return (distance >= 0) ? 1d / (distance + 1) : 0;
     }
 }
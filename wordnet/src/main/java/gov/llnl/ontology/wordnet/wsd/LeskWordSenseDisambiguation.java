@@ -29,6 +29,7 @@ import gov.llnl.ontology.wordnet.OntologyReader;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
 import gov.llnl.ontology.wordnet.SynsetSimilarity;
+import gov.llnl.ontology.wordnet.sim.AbstractBatchSimilarity;
 import gov.llnl.ontology.wordnet.sim.LeskSimilarity;
 
 import edu.ucla.sspace.util.CombinedIterator;
@@ -87,14 +88,23 @@ public class LeskWordSenseDisambiguation extends SlidingWindowDisambiguation {
         if (focusSynsets == null || focusSynsets.length == 0)
             return;
 
-        double[] synsetScores = new double[focusSynsets.length];
-
-        // Compute the total similarity between each focus synset and the words
-        // in the previous and next context.
+        // Gather the senses of the words in the previous and next context so
+        // that the focus senses are compared to all of them in one batch.
+        List<Synset> contextSynsets = new ArrayList<Synset>();
         for (Annotation prev : prevWords)
-            computeScore(synsetScores, focusSynsets, prev);
+            addSynsets(contextSynsets, prev);
         for (Annotation next : nextWords)
-            computeScore(synsetScores, focusSynsets, next);
+            addSynsets(contextSynsets, next);
+
+        // Compute the total similarity between each focus synset and the
+        // context senses.
+        double[][] similarities = AbstractBatchSimilarity.of(sim).similarity(
+                focusSynsets, contextSynsets.toArray(
+                    new Synset[contextSynsets.size()]));
+        double[] synsetScores = new double[focusSynsets.length];
+        for (int i = 0; i < focusSynsets.length; ++i)
+            for (double similarity : similarities[i])
+                synsetScores[i] += similarity;
 
         // Select the target sense with the highest similarity.
         double maxScore = 0;
@@ -109,16 +119,11 @@ public class LeskWordSenseDisambiguation extends SlidingWindowDisambiguation {
     }
 
     /**
-     * Computes the total similarity each focus synset has with the possible
-     * senses of given word.
+     * Adds the possible senses of the given word to {@code synsets}.
      */
-    private void computeScore(double[] synsetScores,
-                              Synset[] focusSynsets,
-                              Annotation word) {
-        Synset[] others = getSynsets(reader, word);
-        for (int i = 0; i < focusSynsets.length; ++i)
-            for (Synset other : others)
-                synsetScores[i] += sim.similarity(focusSynsets[i], other);
+    private void addSynsets(List<Synset> synsets, Annotation word) {
+        for (Synset other : getSynsets(reader, word))
+            synsets.add(other);
     }
 
     /**
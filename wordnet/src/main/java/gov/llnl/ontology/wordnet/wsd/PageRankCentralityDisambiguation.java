@@ -25,6 +25,7 @@ package gov.llnl.ontology.wordnet.wsd;
 
 import gov.llnl.ontology.text.Annotation;
 import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.wordnet.PageRankSolver;
 import gov.llnl.ontology.wordnet.Synset;
 import gov.llnl.ontology.wordnet.SynsetPagerank;
 
@@ -62,7 +63,9 @@ import java.util.Set;
  *
  * </p>
  *
- * This class <b>is</b> thread safe.
+ * This class <b>is</b> thread safe.  The number of threads used for each page
+ * rank computation is set by {@link #NUM_THREADS_PROPERTY}, falling back to
+ * {@link PageRankSolver#NUM_THREADS_PROPERTY}.
  *
  * @author Keith Stevens
  */
@@ -75,6 +78,20 @@ public class PageRankCentralityDisambiguation
      */
     public static final String LINK = "relation";
 
+    /**
+     * The system property used to set the number of threads that compute each
+     * page rank.
+     */
+    public static final String NUM_THREADS_PROPERTY =
+        "gov.llnl.ontology.wordnet.wsd.PageRankCentralityDisambiguation." +
+        "numThreads";
+
+    /**
+     * The {@link PageRankSolver} used for each sentence graph.
+     */
+    private final PageRankSolver solver =
+        PageRankSolver.configure(NUM_THREADS_PROPERTY);
+
     /**
      * {@InheritDoc}
      */
@@ -113,7 +130,8 @@ public class PageRankCentralityDisambiguation
 
         // Initialze the page rank algorithm and compute the page rank.
         SynsetPagerank.setupTransitionAttributes(synsetList, synsetMap);
-        ranks = SynsetPagerank.computePageRank(synsetList, ranks, .15);
+        ranks = SynsetPagerank.computePageRank(
+                synsetList, ranks, .15, solver);
 
         // Find the target synset for each word that has the highest page rank
         // and mark the result annotation with that sense.
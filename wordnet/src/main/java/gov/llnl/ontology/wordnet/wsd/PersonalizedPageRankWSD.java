@@ -24,21 +24,21 @@
 package gov.llnl.ontology.wordnet.wsd;
 
 import gov.llnl.ontology.text.Annotation;
-import gov.llnl.ontology.util.ExtendedList;
-import gov.llnl.ontology.util.ExtendedMap;
-import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.text.Sentence;
+import gov.llnl.ontology.text.SimpleAnnotation;
 import gov.llnl.ontology.wordnet.OntologyReader;
+import gov.llnl.ontology.wordnet.PageRankSolver;
+import gov.llnl.ontology.wordnet.PersonalizedPageRank;
+import gov.llnl.ontology.wordnet.PushPageRankSolver;
 import gov.llnl.ontology.wordnet.Synset;
-import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
-import gov.llnl.ontology.wordnet.SynsetPagerank;
+import gov.llnl.ontology.wordnet.TransitionMatrix;
+import gov.llnl.ontology.wordnet.TransitionOverlay;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
-import edu.ucla.sspace.vector.CompactSparseVector;
-import edu.ucla.sspace.vector.SparseDoubleVector;
-
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap;
@@ -72,9 +72,32 @@ import java.util.Set;
  *
  * </p>
  *
- * This class <b>is</b> thread safe.  It modifies the {@link Synsets} in the
- * wordnet graph ones with a {@link #LINK} tag during setup.  Afterwords, no
- * changes are made to the graph structure.
+ * This class <b>is</b> thread safe.  The transition matrix of the wordnet
+ * graph is built once during setup and never modified.  Each context adds it's
+ * pseudo {@link Synset}s as a small {@link TransitionOverlay}, so no changes
+ * are made to the graph structure or to the shared matrix.
+ *
+ * </p>
+ *
+ * By default each context is solved exactly over the full wordnet graph with a
+ * {@link PageRankSolver}.  The number of threads used for each solve is set by
+ * {@link #NUM_THREADS_PROPERTY}, falling back to {@link
+ * PageRankSolver#NUM_THREADS_PROPERTY}.  Setting {@link #SOLVER_PROPERTY} to
+ * {@code push} instead uses a {@link PushPageRankSolver}, which only visits
+ * the neighborhood of the context words and is much faster on large graphs.
+ *
+ * </p>
+ *
+ * When {@link #SENTENCE_MODE_PROPERTY} is {@code true}, every word in a
+ * sentence is disambiguated at once.  A single overlay holds a pseudo {@link
+ * Synset} for each word, and each focus word teleports to the pseudo {@link
+ * Synset}s within the same window used by {@link SlidingWindowDisambiguation}.
+ * The personalizations for up to {@link #BLOCK_SIZE_PROPERTY} focus words are
+ * given to the solver together, which lets the {@link PageRankSolver} read the
+ * graph once per iteration for the whole block.  The pseudo {@link Synset}s
+ * outside of a focus word's window have no incoming links, so they never
+ * gain any score and each word is given the same sense as in the default
+ * mode.
  *
  * @see GraphConnectivityDisambiguation
  * @author Keith Stevens
@@ -87,6 +110,45 @@ public class PersonalizedPageRankWSD extends SlidingWindowDisambiguation {
      */
     public static final String LINK = "related";
 
+    /**
+     * The system property used to set the number of threads that compute each
+     * page rank.
+     */
+    public static final String NUM_THREADS_PROPERTY =
+        "gov.llnl.ontology.wordnet.wsd.PersonalizedPageRankWSD.numThreads";
+
+    /**
+     * The system property used to select the page rank solver, either {@code
+     * power} for exact power iteration or {@code push} for the approximate push
+     * solver.  The default is {@code power}.
+     */
+    public static final String SOLVER_PROPERTY =
+        "gov.llnl.ontology.wordnet.wsd.PersonalizedPageRankWSD.solver";
+
+    /**
+     * The system property used to disambiguate whole sentences at once.
+     */
+    public static final String SENTENCE_MODE_PROPERTY =
+        "gov.llnl.ontology.wordnet.wsd.PersonalizedPageRankWSD.sentenceMode";
+
+    /**
+     * The system property used to set the largest number of focus words
+     * solved together in sentence mode.
+     */
+    public static final String BLOCK_SIZE_PROPERTY =
+        "gov.llnl.ontology.wordnet.wsd.PersonalizedPageRankWSD.blockSize";
+
+    /**
+     * The default number of focus words solved together in sentence mode.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+
+    /**
+     * The number of words before and after a focus word that form it's
+     * context, matching {@link SlidingWindowDisambiguation}.
+     */
+    private static final int WINDOW_SIZE = 5;
+
     /**
      * The {@link OntologyReader} used to determine the link structure.
      */
@@ -98,21 +160,82 @@ public class PersonalizedPageRankWSD extends SlidingWindowDisambiguation {
     private Map<Synset, Integer> synsetMap;
 
     /**
-     * A list of the original {@link Synset}s in the wordnet graph.
+     * The transition matrix over the original {@link Synset}s in the wordnet
+     * graph.  This is shared by every context.
      */
-    private List<Synset> synsetList;
+    private TransitionMatrix transitions;
+
+    /**
+     * The {@link PersonalizedPageRank} used for each context.
+     */
+    private PersonalizedPageRank solver;
+
+    /**
+     * Set to {@code true} if whole sentences are disambiguated at once.
+     */
+    private final boolean sentenceMode;
+
+    /**
+     * The largest number of focus words solved together in sentence mode.
+     */
+    private final int blockSize;
+
+    /**
+     * Creates a new {@link PersonalizedPageRankWSD} whose solver is selected
+     * by {@link #SOLVER_PROPERTY} during setup and whose mode is set by {@link
+     * #SENTENCE_MODE_PROPERTY}.
+     */
+    public PersonalizedPageRankWSD() {
+        this(null);
+    }
+
+    /**
+     * Creates a new {@link PersonalizedPageRankWSD} that ranks each context
+     * with {@code solver} and whose mode is set by {@link
+     * #SENTENCE_MODE_PROPERTY}.
+     */
+    public PersonalizedPageRankWSD(PersonalizedPageRank solver) {
+        this(solver, Boolean.parseBoolean(
+                    System.getProperty(SENTENCE_MODE_PROPERTY, "false")));
+    }
+
+    /**
+     * Creates a new {@link PersonalizedPageRankWSD} that ranks each context
+     * with {@code solver}, disambiguating whole sentences at once if {@code
+     * sentenceMode} is {@code true}.
+     */
+    public PersonalizedPageRankWSD(PersonalizedPageRank solver,
+                                   boolean sentenceMode) {
+        this.solver = solver;
+        this.sentenceMode = sentenceMode;
+        blockSize = Integer.parseInt(System.getProperty(
+                    BLOCK_SIZE_PROPERTY, "" + DEFAULT_BLOCK_SIZE));
+        if (blockSize < 1)
+            throw new IllegalArgumentException(
+                    "The block size must be positive");
+    }
 
     /**
      * {@inheritDoc}
      */
     public void setup(OntologyReader wordnet) {
         this.wordnet = wordnet;
+        if (solver == null) {
+            String solverName = System.getProperty(SOLVER_PROPERTY, "power");
+            if (solverName.equals("push"))
+                solver = new PushPageRankSolver();
+            else if (solverName.equals("power"))
+                solver = PageRankSolver.configure(NUM_THREADS_PROPERTY);
+            else
+                throw new IllegalArgumentException(
+                        "Unknown page rank solver: " + solverName);
+        }
 
         // Create the list of synsets that should serve as the base graph during
         // Word Sense Dismabiguation.  This requires creating the list of
         // synsets and a mapping from each synset to it's index in the list.
         synsetMap = Maps.newHashMap();
-        synsetList = Lists.newArrayList();
+        List<Synset> synsetList = Lists.newArrayList();
         for (String lemma : wordnet.wordnetTerms()) {
             for (Synset synset : wordnet.getSynsets(lemma))
                 if (!synsetMap.containsKey(synset)) {
@@ -120,7 +243,7 @@ public class PersonalizedPageRankWSD extends SlidingWindowDisambiguation {
                     synsetList.add(synset);
                 }
         }
-        SynsetPagerank.setupTransitionAttributes(synsetList, synsetMap);
+        transitions = TransitionMatrix.build(synsetList, synsetMap);
     }
 
     /**
@@ -130,43 +253,135 @@ public class PersonalizedPageRankWSD extends SlidingWindowDisambiguation {
                                   Annotation result,
                                   Queue<Annotation> prevWords,
                                   Queue<Annotation> nextWords) {
-        Map<Synset, Integer> localMap = new ExtendedMap<Synset, Integer>(
-                synsetMap);
-        List<Synset> localList = new ExtendedList<Synset>(synsetList);
+        TransitionOverlay overlay = new TransitionOverlay(transitions);
 
-        // Create an artificial synset for each word in the given sentence that
+        // Create an artificial node for each word in the given sentence that
         // should be disambiguated. Start by adding the focus term itself.  If
         // that cannot be added, return and skip disambiguating this context.
-        if (addTermNode(localList, localMap, focus) == 0)
+        Synset[] focusSenses = getSynsets(wordnet, focus);
+        if (addTermNode(overlay, focusSenses) == 0)
             return;
 
-        // Add the artificial synsets for each of the context words.
+        // Add the artificial nodes for each of the context words.
         for (Annotation prev : prevWords)
-            addTermNode(localList, localMap, prev);
+            addTermNode(overlay, getSynsets(wordnet, prev));
         for (Annotation next: nextWords)
-            addTermNode(localList, localMap, next);
+            addTermNode(overlay, getSynsets(wordnet, next));
+
+        // Place an even random surfer probability on each artificial node.
+        int numTerms = overlay.numNodes();
+        int[] seeds = new int[numTerms];
+        double[] seedWeights = new double[numTerms];
+        for (int i = 0; i < numTerms; ++i) {
+            seeds[i] = transitions.size() + i;
+            seedWeights[i] = 1d/numTerms;
+        }
+
+        // Run the page rank algorithm over the wordnet graph extended with the
+        // artificial nodes, scoring only the senses of the focus word.
+        Synset[] senses = knownSenses(focusSenses);
+        double[] pageRanks = solver.score(
+                overlay, seeds, seedWeights, .85, senseIndices(senses));
+        setBestSense(focus, result, senses, pageRanks);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * </p>
+     *
+     * In sentence mode, the focus words of {@code sentence} are disambiguated
+     * in blocks that share a single graph.
+     */
+    public Sentence disambiguate(Sentence sentence, Set<Integer> focusIndices) {
+        if (!sentenceMode)
+            return super.disambiguate(sentence, focusIndices);
+
+        // Create the result annotations and a pseudo synset for each word
+        // with senses in wordnet.
+        Sentence resultSent = new Sentence(
+                sentence.start(), sentence.end(), sentence.numTokens());
+        TransitionOverlay overlay = new TransitionOverlay(transitions);
+        List<Annotation> words = new ArrayList<Annotation>();
+        List<Annotation> results = new ArrayList<Annotation>();
+        List<Synset[]> wordSenses = new ArrayList<Synset[]>();
+        List<Integer> termNodes = new ArrayList<Integer>();
+        int index = 0;
+        for (Annotation word : sentence) {
+            Annotation result = new SimpleAnnotation("");
+            resultSent.addAnnotation(index++, result);
+            result.setSpan(word.start(), word.end());
+            words.add(word);
+            results.add(result);
+
+            Synset[] synsets = getSynsets(wordnet, word);
+            wordSenses.add(synsets);
+            termNodes.add((addTermNode(overlay, synsets) == 0)
+                    ? -1
+                    : overlay.size() - 1);
+        }
 
-        // Place an even random surfer probability on each artificial synset.
-        double numTerms = localList.size() - synsetList.size();
-        SparseDoubleVector sourceWeights = new CompactSparseVector();
-        for (int i = synsetList.size(); i < localList.size(); ++i)
-            sourceWeights.set(i, 1d/numTerms);
+        // Select the words to disambiguate.
+        List<Integer> focusWords = new ArrayList<Integer>();
+        for (int i = 0; i < words.size(); ++i)
+            if (termNodes.get(i) >= 0 &&
+                (focusIndices == null ||
+                 focusIndices.isEmpty() ||
+                 focusIndices.contains(i)))
+                focusWords.add(i);
 
-        // Run the page rank algorithm over the created graph.
-        SynsetPagerank.setupTransitionAttributes(localList, localMap);
-        SparseDoubleVector pageRanks = SynsetPagerank.computePageRank(
-                localList, sourceWeights, .85);
+        for (int b = 0; b < focusWords.size(); b += blockSize) {
+            int numColumns = Math.min(blockSize, focusWords.size() - b);
+            int[][] seeds = new int[numColumns][];
+            double[][] seedWeights = new double[numColumns][];
+            Synset[][] senses = new Synset[numColumns][];
+            int[][] queries = new int[numColumns][];
+            for (int k = 0; k < numColumns; ++k) {
+                // Teleport evenly to each pseudo synset in the window around
+                // the focus word.
+                int focus = focusWords.get(b + k);
+                int start = Math.max(0, focus - WINDOW_SIZE);
+                int end = Math.min(words.size(), focus + WINDOW_SIZE + 1);
+                int[] window = new int[end - start];
+                int numTerms = 0;
+                for (int i = start; i < end; ++i)
+                    if (termNodes.get(i) >= 0)
+                        window[numTerms++] = termNodes.get(i);
+                seeds[k] = Arrays.copyOf(window, numTerms);
+                seedWeights[k] = new double[numTerms];
+                Arrays.fill(seedWeights[k], 1d/numTerms);
 
+                senses[k] = knownSenses(wordSenses.get(focus));
+                queries[k] = senseIndices(senses[k]);
+            }
+
+            double[][] pageRanks = solver.score(
+                    overlay, seeds, seedWeights, .85, queries);
+            for (int k = 0; k < numColumns; ++k) {
+                int focus = focusWords.get(b + k);
+                setBestSense(words.get(focus), results.get(focus),
+                             senses[k], pageRanks[k]);
+            }
+        }
+
+        return resultSent;
+    }
+
+    /**
+     * Sets the sense of {@code result} to the {@link Synset} in {@code senses}
+     * with the highest score in {@code pageRanks}.
+     */
+    private static void setBestSense(Annotation focus,
+                                     Annotation result,
+                                     Synset[] senses,
+                                     double[] pageRanks) {
         // Determine the best sense for the focus word. 
-        int focusIndex = synsetList.size();
         Synset maxSynset = null;
         double maxRank = 0;
-        for (Synset related : localList.get(focusIndex).getRelations(LINK)) {
-            int index = localMap.get(related);
-            double rank = pageRanks.get(index);
-            if (maxRank <= rank) {
-                maxRank = rank;
-                maxSynset = related;
+        for (int i = 0; i < senses.length; ++i) {
+            if (maxRank <= pageRanks[i]) {
+                maxRank = pageRanks[i];
+                maxSynset = senses[i];
             }
         }
 
@@ -176,28 +391,45 @@ public class PersonalizedPageRankWSD extends SlidingWindowDisambiguation {
     }
 
     /**
-     * Adds a new artificial {@link Synset} corresponding to the word in {@code
-     * word}.  This new {@link Synset} will be connected to each of it's
-     * possible word senses via a fake "related" link.  Returns 1 if the word
-     * was added to {@code localMap} and 0 otherwise.
+     * Returns the {@link Synset}s in {@code synsets} that are part of the base
+     * graph.
      */
-    private int addTermNode(List<Synset> localList,
-                            Map<Synset, Integer> localMap, 
-                            Annotation annot) {
+    private Synset[] knownSenses(Synset[] synsets) {
+        Synset[] senses = new Synset[synsets.length];
+        int numSenses = 0;
+        for (Synset synset : synsets)
+            if (synsetMap.containsKey(synset))
+                senses[numSenses++] = synset;
+        return Arrays.copyOf(senses, numSenses);
+    }
+
+    /**
+     * Returns the index of each {@link Synset} in {@code senses}, which must
+     * all be part of the base graph.
+     */
+    private int[] senseIndices(Synset[] senses) {
+        int[] indices = new int[senses.length];
+        for (int i = 0; i < senses.length; ++i)
+            indices[i] = synsetMap.get(senses[i]);
+        return indices;
+    }
+
+    /**
+     * Adds a new artificial node to {@code overlay} for a word with the
+     * possible word senses in {@code synsets}.  This new node will be linked
+     * to each of it's possible word senses.  Returns 1 if the word was added
+     * to {@code overlay} and 0 otherwise.
+     */
+    private int addTermNode(TransitionOverlay overlay, Synset[] synsets) {
         // Ignore words without senses in word net.
-        Synset[] synsets = getSynsets(wordnet, annot);
         if (synsets == null || synsets.length == 0)
             return 0;
 
-        // Create a link for each artificial synset to the word's possible
-        // senses.  Note that the part of speech doesn't matter for these nodes.
-        BaseSynset termSynset = new BaseSynset(PartsOfSpeech.NOUN);
-        for (Synset possibleSense : synsets)
-            termSynset.addRelation(LINK, possibleSense);
+        int[] senses = senseIndices(knownSenses(synsets));
+        if (senses.length == 0)
+            return 0;
 
-        // Add the word to the list of known synsets.
-        localList.add(termSynset);
-        localMap.put(termSynset, localMap.size());
+        overlay.addNode(senses);
         return 1;
     }
 
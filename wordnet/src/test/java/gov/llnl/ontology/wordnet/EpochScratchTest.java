@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class EpochScratchTest {
+
+    private static class TestScratch extends EpochScratch {
+
+        int[] stamps = new int[0];
+
+        int allocations;
+
+        int clears;
+
+        protected void allocate(int capacity) {
+            stamps = new int[capacity];
+            allocations++;
+        }
+
+        protected void clearStamps() {
+            clears++;
+        }
+    }
+
+    @Test public void testEpochsIncrease() {
+        TestScratch scratch = new TestScratch();
+        scratch.ensureCapacity(4);
+        assertEquals(1, scratch.nextEpoch());
+        assertEquals(2, scratch.nextEpoch());
+        assertEquals(0, scratch.clears);
+    }
+
+    @Test public void testGrowsOnlyWhenNeeded() {
+        TestScratch scratch = new TestScratch();
+        scratch.ensureCapacity(10);
+        assertEquals(1, scratch.allocations);
+        assertEquals(10, scratch.stamps.length);
+        scratch.ensureCapacity(10);
+        scratch.ensureCapacity(3);
+        assertEquals(1, scratch.allocations);
+
+        scratch.ensureCapacity(11);
+        assertEquals(2, scratch.allocations);
+        assertEquals(15, scratch.stamps.length);
+    }
+
+    @Test public void testGrowingRestartsEpochs() {
+        TestScratch scratch = new TestScratch();
+        scratch.ensureCapacity(2);
+        scratch.nextEpoch();
+        scratch.nextEpoch();
+        scratch.ensureCapacity(100);
+        assertEquals(1, scratch.nextEpoch());
+    }
+}
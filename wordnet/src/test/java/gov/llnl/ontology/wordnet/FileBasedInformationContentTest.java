@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class FileBasedInformationContentTest {
+
+    private static final String[] CONTENT = {
+        "wnver::test",
+        "00000001n 10",
+        "00000002n 6",
+        "00000003n 2",
+        "00000010v 4",
+    };
+
+    private static String writeContent() throws Exception {
+        File file = File.createTempFile("content", ".dat");
+        file.deleteOnExit();
+        PrintWriter writer = new PrintWriter(file);
+        for (String line : CONTENT)
+            writer.println(line);
+        writer.close();
+        return file.getPath();
+    }
+
+    @Test public void testContent() throws Exception {
+        WordNetCorpusReader reader = new WordNetCorpusReader(
+                MockDictionary.create(), false);
+        InformationContent ic = new FileBasedInformationContent(
+                writeContent(), reader);
+
+        assertEquals(18, ic.contentForPartOfSpeech(PartsOfSpeech.NOUN), .001);
+        assertEquals(4, ic.contentForPartOfSpeech(PartsOfSpeech.VERB), .001);
+
+        Synset animal = reader.getSynset("animal.n.1");
+        assertEquals(6, ic.contentForSynset(animal), .001);
+        assertEquals(-Math.log(6/18.0), ic.informationContent(animal), .0001);
+
+        Synset run = reader.getSynset("run.v.1");
+        assertEquals(0, ic.informationContent(run), .0001);
+
+        Synset dog = reader.getSynset("dog.n.1");
+        assertEquals(-1, ic.contentForSynset(dog), .001);
+        assertEquals(-1, ic.informationContent(dog), .001);
+    }
+
+    @Test public void testContentKey() throws Exception {
+        WordNetCorpusReader reader = new WordNetCorpusReader(
+                MockDictionary.create(), false);
+        assertEquals("00000002n", FileBasedInformationContent.contentKey(
+                    reader.getSynset("animal.n.1")));
+        assertEquals("00000010v", FileBasedInformationContent.contentKey(
+                    reader.getSynset("run.v.1")));
+    }
+
+    @Test public void testModifiedHierarchy() throws Exception {
+        WordNetCorpusReader reader = new WordNetCorpusReader(
+                MockDictionary.create(), false);
+        InformationContent ic = new FileBasedInformationContent(
+                writeContent(), reader);
+
+        // Moving the spiteful cat under entity invalidates the index the
+        // content was first stored with.
+        Synset entity = reader.getSynset("entity.n.1");
+        Synset animal = reader.getSynset("animal.n.1");
+        Synset cat = reader.getSynset("cat.n.2");
+        HypernymIndex index = reader.getHypernymIndex();
+        cat.removeRelation(Relation.HYPERNYM, animal);
+        cat.addRelation(Relation.HYPERNYM, entity);
+        assertTrue(index != reader.getHypernymIndex());
+
+        assertEquals(-Math.log(6/18.0), ic.informationContent(animal), .0001);
+        assertEquals(-Math.log(2/18.0),
+                     ic.informationContent(reader.getSynset("cat.n.1")),
+                     .0001);
+        assertEquals(-1, ic.informationContent(cat), .001);
+
+        // A synset outside of any index is still looked up.
+        Synset other = new BaseSynset(PartsOfSpeech.NOUN);
+        assertEquals(-1, ic.contentForSynset(other), .001);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.util.StringUtils;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class GlossSignatureTest {
+
+    private static String randomGloss(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean())
+            sb.append(" ");
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; ++i)
+            sb.append("w").append(random.nextInt(5)).append(" ");
+        return sb.toString();
+    }
+
+    @Test public void testOverlapMatchesStringUtils() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 500; ++trial) {
+            String gloss1 = randomGloss(random);
+            String gloss2 = randomGloss(random);
+            String[] tokens1 = gloss1.split("\\s+");
+            String[] tokens2 = gloss2.split("\\s+");
+            GlossSignature s1 = GlossSignature.create(gloss1);
+            GlossSignature s2 = GlossSignature.create(gloss2);
+
+            assertEquals(tokens1.length, s1.size());
+            assertEquals(StringUtils.tokenOverlap(tokens1, tokens2),
+                         s1.overlap(s2));
+            assertEquals(StringUtils.tokenOverlapExp(tokens1, tokens2),
+                         s1.overlapExp(s2));
+        }
+    }
+
+    @Test public void testRunScores() {
+        GlossSignature s1 = GlossSignature.create("a b c d");
+        GlossSignature s2 = GlossSignature.create("x a b c");
+        // The run a b c scores 9, b c scores 4 and c scores 1.
+        assertEquals(14, s1.overlapExp(s2));
+        assertEquals(3, s1.overlap(s2));
+    }
+
+    @Test public void testGlossChangesReplaceSignature() {
+        BaseSynset synset = new BaseSynset(PartsOfSpeech.NOUN);
+        synset.setDefinition("how now brown cow");
+        GlossSignature first = GlossSignature.of(synset);
+        assertSame(first, GlossSignature.of(synset));
+
+        synset.addExample("a brown cow");
+        GlossSignature second = GlossSignature.of(synset);
+        assertTrue(first != second);
+        assertEquals(synset.getGloss().split("\\s+").length, second.size());
+
+        synset.setDefinition("sad meow");
+        assertTrue(second != GlossSignature.of(synset));
+    }
+
+    @Test public void testExtendedGloss() {
+        Synset synset = new BaseSynset(PartsOfSpeech.NOUN);
+        Synset parent = new BaseSynset(PartsOfSpeech.NOUN);
+        synset.setDefinition("a cat");
+        parent.setDefinition("an animal");
+
+        GlossSignature[] extended = GlossSignature.extended(synset);
+        assertEquals(1, extended.length);
+        assertSame(extended, GlossSignature.extended(synset));
+
+        synset.addRelation(Relation.HYPERNYM, parent);
+        extended = GlossSignature.extended(synset);
+        assertEquals(2, extended.length);
+        assertSame(extended, GlossSignature.extended(synset));
+
+        // A change to the gloss of a related synset is also seen.
+        parent.setDefinition("a furry animal");
+        GlossSignature[] updated = GlossSignature.extended(synset);
+        assertTrue(extended != updated);
+        boolean found = false;
+        for (GlossSignature signature : updated)
+            found |= signature == GlossSignature.of(parent);
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class HypernymDistancesTest {
+
+    private static Synset child(Synset... parents) {
+        Synset synset = new BaseSynset(PartsOfSpeech.NOUN);
+        for (Synset parent : parents)
+            synset.addRelation(Relation.HYPERNYM, parent);
+        return synset;
+    }
+
+    @Test public void testDiamond() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset c = child(root);
+        Synset leaf = child(b, c);
+        Synset other = child(c);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(leaf, other));
+        int leafId = index.indexOf(leaf);
+        int otherId = index.indexOf(other);
+        assertEquals(2, HypernymDistances.pathDistance(
+                    index, leafId, otherId, false));
+        assertEquals(5, HypernymDistances.pathDistance(
+                    index, leafId, otherId, true));
+        assertEquals(0, HypernymDistances.pathDistance(
+                    index, leafId, leafId, false));
+
+        Map<Synset, Integer> shortest = HypernymDistances.parentDistances(
+                index, leafId, false);
+        assertEquals(5, shortest.size());
+        assertEquals(2, shortest.get(root).intValue());
+        Map<Synset, Integer> longest = HypernymDistances.parentDistances(
+                index, leafId, true);
+        assertEquals(3, longest.get(root).intValue());
+        assertEquals(0, longest.get(leaf).intValue());
+    }
+
+    @Test public void testNoCommonAncestor() {
+        Synset a = child(child());
+        Synset b = child(child());
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(a, b));
+        assertEquals(-1, HypernymDistances.pathDistance(
+                    index, index.indexOf(a), index.indexOf(b), false));
+        assertEquals(0, HypernymDistances.pathDistance(
+                    index, index.indexOf(a), index.indexOf(b), true));
+    }
+
+    @Test public void testMatchesPathSearch() {
+        Random random = new Random(3);
+        List<Synset> synsets = new ArrayList<Synset>();
+        for (int i = 0; i < 60; ++i) {
+            int numParents = (i < 2) ? 0 : 1 + random.nextInt(3);
+            Synset[] parents = new Synset[numParents];
+            for (int p = 0; p < numParents; ++p)
+                parents[p] = synsets.get(random.nextInt(i));
+            synsets.add(child(parents));
+        }
+
+        // Compute the expected values by searching every path before the
+        // synsets are indexed.
+        int n = synsets.size();
+        int[][] shortest = new int[n][n];
+        int[][] longest = new int[n][n];
+        List<Map<Synset, Integer>> maxDistances =
+            new ArrayList<Map<Synset, Integer>>();
+        for (int i = 0; i < n; ++i) {
+            maxDistances.add(SynsetRelations.parentDistances(
+                        synsets.get(i), true));
+            for (int j = 0; j < n; ++j) {
+                shortest[i][j] = SynsetRelations.shortestPathDistance(
+                        synsets.get(i), synsets.get(j));
+                longest[i][j] = SynsetRelations.longestPathDistance(
+                        synsets.get(i), synsets.get(j));
+            }
+        }
+
+        HypernymIndex index = HypernymIndex.build(synsets);
+        for (int i = 0; i < n; ++i) {
+            assertSame(index, HypernymIndex.of(synsets.get(i)));
+            assertEquals(maxDistances.get(i), SynsetRelations.parentDistances(
+                        synsets.get(i), true));
+            for (int j = 0; j < n; ++j) {
+                assertEquals(shortest[i][j],
+                             SynsetRelations.shortestPathDistance(
+                                 synsets.get(i), synsets.get(j)));
+                assertEquals(longest[i][j],
+                             SynsetRelations.longestPathDistance(
+                                 synsets.get(i), synsets.get(j)));
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+import gov.llnl.ontology.wordnet.SynsetRelations.HypernymStatus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class HypernymIndexTest {
+
+    private static Synset child(Synset... parents) {
+        Synset synset = new BaseSynset(PartsOfSpeech.NOUN);
+        for (Synset parent : parents)
+            synset.addRelation(Relation.HYPERNYM, parent);
+        return synset;
+    }
+
+    @Test public void testDepthsWithMultipleParents() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset c = child(root);
+        Synset leaf = child(b, c);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(leaf));
+        assertEquals(5, index.size());
+        assertEquals(3, index.getMaxDepth(index.indexOf(leaf)));
+        assertEquals(2, index.getMinDepth(index.indexOf(leaf)));
+        assertEquals(0, index.getMaxDepth(index.indexOf(root)));
+        assertEquals(3, index.getMaxDepth(PartsOfSpeech.NOUN));
+        assertEquals(0, index.getMaxDepth(PartsOfSpeech.VERB));
+
+        assertSame(index, HypernymIndex.of(leaf));
+        assertEquals(3, leaf.getMaxDepth());
+        assertEquals(2, leaf.getMinDepth());
+        assertEquals(4, index.getAncestors(index.indexOf(leaf)).size());
+    }
+
+    @Test public void testIsAncestor() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset other = child(root);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(b, other));
+        assertTrue(index.isAncestor(root, b));
+        assertTrue(index.isAncestor(a, b));
+        assertFalse(index.isAncestor(b, a));
+        assertFalse(index.isAncestor(b, b));
+        assertFalse(index.isAncestor(other, b));
+        assertFalse(index.isAncestor(child(), b));
+    }
+
+    private static Set<Synset> ancestors(Synset synset) {
+        Set<Synset> ancestors = new HashSet<Synset>();
+        List<Synset> toVisit = new ArrayList<Synset>(synset.getParents());
+        while (!toVisit.isEmpty()) {
+            Synset parent = toVisit.remove(toVisit.size() - 1);
+            if (ancestors.add(parent))
+                toVisit.addAll(parent.getParents());
+        }
+        return ancestors;
+    }
+
+    @Test public void testIntervalLabelsMatchClosures() {
+        // Build a random hierarchy with plenty of multiple inheritance.
+        Random random = new Random(7);
+        List<Synset> synsets = new ArrayList<Synset>();
+        for (int i = 0; i < 300; ++i) {
+            int numParents = (i < 3) ? 0 : 1 + random.nextInt(3);
+            Synset[] parents = new Synset[numParents];
+            for (int p = 0; p < numParents; ++p)
+                parents[p] = synsets.get(random.nextInt(i));
+            synsets.add(child(parents));
+        }
+
+        HypernymIndex index = HypernymIndex.build(synsets);
+        for (Synset synset : synsets) {
+            Set<Synset> expected = ancestors(synset);
+            for (Synset other : synsets)
+                assertEquals(expected.contains(other),
+                             index.isAncestor(other, synset));
+        }
+    }
+
+    @Test public void testIsHypernym() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset c = child(root);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(b, c));
+        int[] children = {index.indexOf(b), index.indexOf(c)};
+        assertTrue(index.isHypernym(children, new int[] {index.indexOf(a)}));
+        assertTrue(index.isHypernym(
+                    children, new int[] {index.indexOf(c), index.indexOf(a)}));
+        assertFalse(index.isHypernym(children, new int[] {index.indexOf(c)}));
+        assertFalse(index.isHypernym(
+                    new int[] {index.indexOf(a)}, children));
+
+        // A sense of the child term is never counted as an ancestor.
+        int[] withParent = {index.indexOf(b), index.indexOf(a)};
+        assertFalse(index.isHypernym(
+                    withParent, new int[] {index.indexOf(a)}));
+    }
+
+    @Test public void testLowestCommonHypernyms() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset c = child(a);
+        Synset d = child(root);
+        Synset e = child(c, d);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(b, e));
+        List<Synset> subsumers = index.lowestCommonHypernyms(
+                index.indexOf(b), index.indexOf(e));
+        assertEquals(1, subsumers.size());
+        assertSame(a, subsumers.get(0));
+
+        subsumers = index.lowestCommonHypernyms(
+                index.indexOf(c), index.indexOf(e));
+        assertEquals(1, subsumers.size());
+        assertSame(c, subsumers.get(0));
+
+        subsumers = index.lowestCommonHypernyms(
+                index.indexOf(e), index.indexOf(e));
+        assertEquals(1, subsumers.size());
+        assertSame(e, subsumers.get(0));
+
+        assertSame(a, SynsetRelations.lowestCommonHypernym(b, e));
+    }
+
+    @Test public void testLowestCommonHypernymIds() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(root);
+        Synset x = child(a, b);
+        Synset y = child(a, b);
+        Synset other = child();
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(x, y, other));
+        int xId = index.indexOf(x);
+        int yId = index.indexOf(y);
+        int[] subsumers = new int[4];
+        assertEquals(2, index.lowestCommonHypernyms(xId, yId, subsumers));
+        assertEquals(2, index.lowestCommonHypernyms(yId, xId, new int[1]));
+        List<Synset> found = Arrays.asList(index.getSynset(subsumers[0]),
+                                           index.getSynset(subsumers[1]));
+        assertTrue(found.contains(a));
+        assertTrue(found.contains(b));
+
+        int subsumer = index.lowestCommonHypernym(xId, yId);
+        assertTrue(subsumer == index.indexOf(a) ||
+                   subsumer == index.indexOf(b));
+        assertEquals(index.indexOf(a),
+                     index.lowestCommonHypernym(index.indexOf(a), yId));
+        assertEquals(index.indexOf(root), index.lowestCommonHypernym(
+                    index.indexOf(a), index.indexOf(b)));
+
+        int otherId = index.indexOf(other);
+        assertEquals(-1, index.lowestCommonHypernym(xId, otherId));
+        assertEquals(0, index.lowestCommonHypernyms(xId, otherId, subsumers));
+        assertNull(SynsetRelations.lowestCommonHypernym(x, other));
+    }
+
+    @Test public void testAncestorsAreOrderedByDepth() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+        Synset c = child(b, root);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(c));
+        assertEquals(Arrays.asList(b, a, root),
+                     index.getAncestors(index.indexOf(c)));
+
+        int[] expected = {
+            index.indexOf(b), index.indexOf(a), index.indexOf(root)};
+        assertTrue(Arrays.equals(expected,
+                                 index.ancestorIds(index.indexOf(c))));
+    }
+
+    @Test public void testHypernymChangeInvalidates() {
+        Synset root = child();
+        Synset a = child(root);
+        Synset b = child(a);
+
+        HypernymIndex index = HypernymIndex.build(Arrays.asList(b));
+        assertEquals(2, b.getMaxDepth());
+
+        // Hyponym links do not change any closure.
+        a.addRelation(Relation.HYPONYM, b);
+        assertTrue(index.isCurrent());
+
+        b.removeRelation(Relation.HYPERNYM, a);
+        b.addRelation(Relation.HYPERNYM, root);
+        assertFalse(index.isCurrent());
+        assertNull(HypernymIndex.of(b));
+        assertEquals(1, b.getMaxDepth());
+        assertEquals(1, b.getMinDepth());
+        assertFalse(SynsetRelations.isAncestor(a, b));
+        assertTrue(SynsetRelations.isAncestor(root, b));
+    }
+
+    @Test public void testReaderExtendsIndex() throws Exception {
+        WordNetCorpusReader reader = new WordNetCorpusReader(
+                MockDictionary.create(), false);
+        HypernymIndex index = reader.getHypernymIndex();
+        Synset cat = reader.getSynset("cat.n.1");
+        Synset kitten = child(cat);
+        kitten.addLemma(new BaseLemma(kitten, "kitten", "", 0, 0, "n"));
+        reader.addSynset(kitten);
+
+        assertSame(index, reader.getHypernymIndex());
+        assertTrue(index.indexOf(kitten) >= 0);
+        assertEquals(3, kitten.getMaxDepth());
+        assertEquals(3, reader.getMaxDepth(PartsOfSpeech.NOUN));
+        assertTrue(index.isAncestor(reader.getSynset("entity.n.1"), kitten));
+        assertTrue(index.isAncestor(cat, kitten));
+        assertFalse(index.isAncestor(kitten, cat));
+        assertFalse(index.isAncestor(reader.getSynset("dog.n.1"), kitten));
+
+        reader.removeSynset(kitten);
+        assertFalse(index.isCurrent());
+        assertTrue(index != reader.getHypernymIndex());
+        assertEquals(2, reader.getMaxDepth(PartsOfSpeech.NOUN));
+    }
+
+    @Test public void testHypernymStatus() throws Exception {
+        WordNetCorpusReader reader = new WordNetCorpusReader(
+                MockDictionary.create(), false);
+        Synset[] cats = reader.getSynsets("cat", PartsOfSpeech.NOUN);
+        Synset[] animals = reader.getSynsets("animal", PartsOfSpeech.NOUN);
+        Synset[] dogs = reader.getSynsets("dog", PartsOfSpeech.NOUN);
+        assertEquals(HypernymStatus.KNOWN_HYPERNYM,
+                     SynsetRelations.getHypernymStatus(cats, animals));
+        assertEquals(HypernymStatus.KNOWN_NON_HYPERNYM,
+                     SynsetRelations.getHypernymStatus(animals, cats));
+        assertEquals(HypernymStatus.KNOWN_NON_HYPERNYM,
+                     SynsetRelations.getHypernymStatus(cats, dogs));
+        assertEquals(HypernymStatus.KNOWN_NON_HYPERNYM,
+                     SynsetRelations.getHypernymStatus(cats, cats));
+    }
+}
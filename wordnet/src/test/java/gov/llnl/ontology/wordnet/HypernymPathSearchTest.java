@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class HypernymPathSearchTest {
+
+    private static Synset[] randomHierarchy(Random random, int size) {
+        Synset[] synsets = new Synset[size];
+        for (int i = 0; i < size; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].setId(i + 1);
+        }
+        for (int i = 1; i < size; ++i) {
+            if (i % 10 == 0)
+                continue;
+            synsets[i].addRelation(
+                    Relation.HYPERNYM, synsets[random.nextInt(i)]);
+            if (random.nextInt(3) == 0)
+                synsets[i].addRelation(
+                        Relation.HYPERNYM, synsets[random.nextInt(i)]);
+        }
+        return synsets;
+    }
+
+    @Test public void testMatchesShortestPathDistance() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 5; ++trial) {
+            Synset[] synsets = randomHierarchy(random, 40);
+            HypernymPathSearch search =
+                HypernymPathSearch.build(Arrays.asList(synsets));
+            assertEquals(synsets.length, search.size());
+
+            int[] distances = new int[search.size()];
+            for (Synset source : synsets) {
+                int reached = search.distances(
+                        search.indexOf(source), distances);
+                int expectedReached = 0;
+                for (Synset target : synsets) {
+                    int expected = SynsetRelations.shortestPathDistance(
+                            source, target);
+                    assertEquals(expected,
+                                 distances[search.indexOf(target)]);
+                    if (expected >= 0)
+                        expectedReached++;
+                }
+                assertEquals(expectedReached, reached);
+            }
+        }
+    }
+
+    @Test public void testIdsAreDeterministic() {
+        Synset[] synsets = randomHierarchy(new Random(19), 30);
+        List<Synset> shuffled = new ArrayList<Synset>(Arrays.asList(synsets));
+        Collections.shuffle(shuffled, new Random(23));
+
+        HypernymPathSearch search1 =
+            HypernymPathSearch.build(Arrays.asList(synsets));
+        HypernymPathSearch search2 = HypernymPathSearch.build(shuffled);
+        for (int id = 0; id < search1.size(); ++id) {
+            assertSame(search1.getSynset(id), search2.getSynset(id));
+            assertEquals(id, search1.getSynset(id).getId() - 1);
+        }
+    }
+
+    @Test public void testIncludesAncestors() {
+        Synset root = new BaseSynset(PartsOfSpeech.NOUN);
+        Synset child = new BaseSynset(PartsOfSpeech.NOUN);
+        child.addRelation(Relation.HYPERNYM, root);
+        HypernymPathSearch search =
+            HypernymPathSearch.build(Arrays.asList(child));
+        assertEquals(2, search.size());
+        assertTrue(search.indexOf(root) >= 0);
+        assertEquals(-1, search.indexOf(new BaseSynset(PartsOfSpeech.NOUN)));
+    }
+}
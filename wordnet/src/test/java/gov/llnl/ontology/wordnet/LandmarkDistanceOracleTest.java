@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class LandmarkDistanceOracleTest {
+
+    private static Synset[] randomHierarchy(Random random, int size) {
+        Synset[] synsets = new Synset[size];
+        for (int i = 0; i < size; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].addLemma(new BaseLemma(
+                        synsets[i], "s" + i, "", 0, 0, "n"));
+        }
+        // Every tenth synset is a root, and the others have one or two
+        // parents that were created before them.
+        for (int i = 1; i < size; ++i) {
+            if (i % 10 == 0)
+                continue;
+            synsets[i].addRelation(
+                    Relation.HYPERNYM, synsets[random.nextInt(i)]);
+            if (random.nextInt(4) == 0)
+                synsets[i].addRelation(
+                        Relation.HYPERNYM, synsets[random.nextInt(i)]);
+        }
+        return synsets;
+    }
+
+    private static int[] upDistances(Synset[] synsets, int from) {
+        int[] depths = new int[synsets.length];
+        Arrays.fill(depths, -1);
+        depths[from] = 0;
+        Deque<Integer> queue = new ArrayDeque<Integer>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            for (int other = 0; other < synsets.length; ++other)
+                if (depths[other] < 0 &&
+                    synsets[id].getParents().contains(synsets[other])) {
+                    depths[other] = depths[id] + 1;
+                    queue.add(other);
+                }
+        }
+        return depths;
+    }
+
+    private static int referenceDistance(Synset[] synsets, int from, int to) {
+        int[] fromDepths = upDistances(synsets, from);
+        int[] toDepths = upDistances(synsets, to);
+        int best = -1;
+        for (int shared = 0; shared < synsets.length; ++shared)
+            if (fromDepths[shared] >= 0 && toDepths[shared] >= 0 &&
+                (best < 0 || fromDepths[shared] + toDepths[shared] < best))
+                best = fromDepths[shared] + toDepths[shared];
+        return best;
+    }
+
+    private static void assertBounds(Synset[] synsets,
+                                     LandmarkDistanceOracle oracle) {
+        for (int i = 0; i < synsets.length; ++i)
+            for (int j = 0; j < synsets.length; ++j) {
+                int expected = referenceDistance(synsets, i, j);
+                assertEquals(expected,
+                             oracle.exactDistance(synsets[i], synsets[j]));
+                assertEquals(expected, SynsetRelations.shortestPathDistance(
+                            synsets[i], synsets[j]));
+
+                int upper = oracle.upperBound(synsets[i], synsets[j]);
+                if (expected < 0)
+                    assertEquals(-1, upper);
+                else
+                    assertTrue(upper >= expected);
+            }
+    }
+
+    @Test public void testBounds() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 5; ++trial) {
+            Synset[] synsets = randomHierarchy(random, 40);
+            LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                    HypernymIndex.build(Arrays.asList(synsets)), 3);
+            assertTrue(oracle.numLandmarks() >= 3);
+            assertBounds(synsets, oracle);
+        }
+    }
+
+    @Test public void testExactRefinement() {
+        Synset[] synsets = randomHierarchy(new Random(5), 40);
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                HypernymIndex.build(Arrays.asList(synsets)), 2);
+        assertFalse(oracle.isExactRefinement());
+        oracle.setExactRefinement(true);
+        for (Synset s1 : synsets)
+            for (Synset s2 : synsets)
+                assertEquals(oracle.exactDistance(s1, s2),
+                             oracle.distance(s1, s2));
+    }
+
+    @Test public void testUnknownSynset() {
+        Synset[] synsets = randomHierarchy(new Random(9), 20);
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                HypernymIndex.build(Arrays.asList(synsets)), 2);
+        Synset other = new BaseSynset(PartsOfSpeech.NOUN);
+        assertEquals(-1, oracle.distance(synsets[0], other));
+        assertEquals(-1, oracle.exactDistance(other, synsets[0]));
+        assertEquals(-1, oracle.upperBound(other, synsets[0]));
+    }
+
+    @Test public void testSharedChildDoesNotConnect() {
+        Synset[] synsets = new Synset[3];
+        for (int i = 0; i < synsets.length; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].addLemma(new BaseLemma(
+                        synsets[i], "s" + i, "", 0, 0, "n"));
+        }
+        synsets[2].addRelation(Relation.HYPERNYM, synsets[0]);
+        synsets[2].addRelation(Relation.HYPERNYM, synsets[1]);
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                HypernymIndex.build(Arrays.asList(synsets)), 3);
+        assertEquals(-1, oracle.exactDistance(synsets[0], synsets[1]));
+        assertEquals(-1, oracle.upperBound(synsets[0], synsets[1]));
+        assertEquals(1, oracle.exactDistance(synsets[0], synsets[2]));
+        assertEquals(1, oracle.upperBound(synsets[2], synsets[1]));
+    }
+
+    @Test public void testRootsAreLandmarks() {
+        Synset[] synsets = new Synset[9];
+        for (int i = 0; i < synsets.length; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].addLemma(new BaseLemma(
+                        synsets[i], "s" + i, "", 0, 0, "n"));
+        }
+        // s0 -> s1 -> {s2, s3}, and a second root s4 with more children.
+        synsets[1].addRelation(Relation.HYPERNYM, synsets[0]);
+        synsets[2].addRelation(Relation.HYPERNYM, synsets[1]);
+        synsets[3].addRelation(Relation.HYPERNYM, synsets[1]);
+        for (int i = 5; i < synsets.length; ++i)
+            synsets[i].addRelation(Relation.HYPERNYM, synsets[4]);
+
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                HypernymIndex.build(Arrays.asList(synsets)), 1);
+        assertEquals(2, oracle.numLandmarks());
+        assertFalse(Arrays.asList(oracle.getLandmarkNames()).contains(
+                    synsets[1].getName()));
+        assertEquals(4, oracle.upperBound(synsets[2], synsets[3]));
+        assertEquals(2, oracle.exactDistance(synsets[2], synsets[3]));
+        assertEquals(-1, oracle.upperBound(synsets[2], synsets[5]));
+    }
+
+    @Test public void testSerialization() throws Exception {
+        Synset[] synsets = randomHierarchy(new Random(13), 40);
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.build(
+                HypernymIndex.build(Arrays.asList(synsets)), 4);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(oracle);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        LandmarkDistanceOracle copy = (LandmarkDistanceOracle) in.readObject();
+
+        assertEquals(oracle.size(), copy.size());
+        assertEquals(Arrays.asList(oracle.getLandmarkNames()),
+                     Arrays.asList(copy.getLandmarkNames()));
+        for (Synset s1 : synsets)
+            for (Synset s2 : synsets) {
+                assertEquals(oracle.upperBound(s1, s2),
+                             copy.upperBound(s1, s2));
+                assertEquals(oracle.exactDistance(s1, s2),
+                             copy.exactDistance(s1, s2));
+            }
+    }
+}
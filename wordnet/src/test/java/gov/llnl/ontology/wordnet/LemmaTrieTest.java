@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class LemmaTrieTest {
+
+    private static final LemmaTrie TRIE = new LemmaTrie(Arrays.asList(
+                "cat", "cats", "catalog", "dog", "hot_dog", "hot", "new_york",
+                "new_york_city", "guest_room", "cat"));
+
+    private static String[] lemmas(int[] ids) {
+        String[] lemmas = new String[ids.length];
+        for (int i = 0; i < ids.length; ++i)
+            lemmas[i] = TRIE.getLemma(ids[i]);
+        return lemmas;
+    }
+
+    @Test public void testExact() {
+        assertEquals(9, TRIE.size());
+        assertEquals("cat", TRIE.getLemma(TRIE.indexOf("cat")));
+        assertEquals("catalog", TRIE.getLemma(TRIE.indexOf("catalog")));
+        assertEquals(-1, TRIE.indexOf("ca"));
+        assertEquals(-1, TRIE.indexOf("catalogs"));
+        assertEquals(-1, TRIE.indexOf(""));
+        assertEquals(-1, TRIE.indexOf("hot dog"));
+    }
+
+    @Test public void testIdsAreSorted() {
+        for (int id = 1; id < TRIE.size(); ++id)
+            assertTrue(TRIE.getLemma(id-1).compareTo(TRIE.getLemma(id)) < 0);
+    }
+
+    @Test public void testSeparator() {
+        assertEquals(TRIE.indexOf("hot_dog"), TRIE.indexOf("hot dog", '_'));
+        assertEquals(TRIE.indexOf("new_york_city"),
+                     TRIE.indexOf("new  york\tcity", '_'));
+        assertEquals(TRIE.indexOf("cat"), TRIE.indexOf("cat", '_'));
+        assertEquals(-1, TRIE.indexOf("hot dog ", '_'));
+        assertEquals(-1, TRIE.indexOf("hot-dog", '_'));
+    }
+
+    @Test public void testPrefix() {
+        assertArrayEquals(new String[] {"cat", "catalog", "cats"},
+                          lemmas(TRIE.withPrefix("cat")));
+        assertArrayEquals(new String[] {"new_york", "new_york_city"},
+                          lemmas(TRIE.withPrefix("new")));
+        assertArrayEquals(new String[] {"hot_dog"},
+                          lemmas(TRIE.withPrefix("hot_")));
+        assertEquals(0, TRIE.withPrefix("zebra").length);
+        assertEquals(TRIE.size(), TRIE.withPrefix("").length);
+    }
+
+    @Test public void testWithinDistance() {
+        assertArrayEquals(new String[] {"cat", "cats"},
+                          lemmas(TRIE.withinDistance("cat", 1)));
+        assertArrayEquals(new String[] {"cat", "cats", "dog", "hot"},
+                          lemmas(TRIE.withinDistance("cot", 2)));
+        assertArrayEquals(new String[] {"catalog"},
+                          lemmas(TRIE.withinDistance("catolog", 1)));
+        assertEquals(0, TRIE.withinDistance("xyz", 1).length);
+    }
+
+    @Test public void testLongestMatch() {
+        int id = TRIE.longestMatch(
+                Arrays.asList("in", "new", "york", "city", "today"), 1, '_');
+        assertEquals("new_york_city", TRIE.getLemma(id));
+        id = TRIE.longestMatch(Arrays.asList("new", "york", "state"), 0, '_');
+        assertEquals("new_york", TRIE.getLemma(id));
+        id = TRIE.longestMatch(Arrays.asList("hot", "soup"), 0, '_');
+        assertEquals("hot", TRIE.getLemma(id));
+        assertEquals(-1, TRIE.longestMatch(Arrays.asList("new", "jersey"),
+                                           0, '_'));
+    }
+
+    @Test public void testEmpty() {
+        LemmaTrie empty = new LemmaTrie(Arrays.<String>asList());
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.indexOf("cat"));
+        assertEquals(0, empty.withPrefix("").length);
+        assertEquals(0, empty.withinDistance("cat", 2).length);
+    }
+}
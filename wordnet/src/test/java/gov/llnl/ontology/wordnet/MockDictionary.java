@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+
+/**
+ * Writes a tiny WordNet dictionary in the standard text format to a temporary
+ * directory so that {@link WordNetCorpusReader} can be tested without the full
+ * dictionary.  Offsets are simply unique ids.
+ *
+ * @author Keith Stevens
+ */
+public class MockDictionary {
+
+    public static final String[] LEXNAMES = {
+        "00\tnoun.Tops\t1",
+        "01\tnoun.animal\t1",
+        "02\tverb.motion\t2",
+        "03\tadj.all\t3",
+        "04\tadv.all\t4",
+    };
+
+    public static final String[] FRAMES = {
+        "1  Something ----s",
+        "2  Somebody ----s",
+    };
+
+    public static final String[] INDEX_NOUN = {
+        "  1 This is a license line",
+        "animal n 1 2 @ ~ 1 0 00000002",
+        "cat n 2 2 @ ~ 2 0 00000003 00000004",
+        "dog n 1 1 @ 1 0 00000005",
+        "entity n 1 1 ~ 1 0 00000001",
+        "feline n 1 2 @ ~ 1 0 00000003",
+    };
+
+    public static final String[] DATA_NOUN = {
+        "  1 This is a license line",
+        "00000001 00 n 01 entity 0 001 ~ 00000002 n 0000 | that which " +
+            "is perceived to exist",
+        "00000002 01 n 01 animal 0 004 @ 00000001 n 0000 ~ 00000003 n 0000 " +
+            "~ 00000005 n 0000 ~ 00000004 n 0000 | a living organism; " +
+            "\"the animal ran\"",
+        "00000003 01 n 02 cat 0 feline 0 001 @ 00000002 n 0000 | feline " +
+            "mammal",
+        "00000004 01 n 01 cat 1 001 @ 00000002 n 0000 | a spiteful woman",
+        "00000005 01 n 01 dog 0 002 @ 00000002 n 0000 + 00000010 v 0101 " +
+            "| a domestic canine",
+    };
+
+    public static final String[] INDEX_VERB = {
+        "run v 1 1 + 1 0 00000010",
+    };
+
+    public static final String[] DATA_VERB = {
+        "00000010 02 v 01 run 0 001 + 00000005 n 0101 02 + 01 00 + 02 01 " +
+            "| move fast; \"he ran home\"",
+    };
+
+    public static final String[] INDEX_ADJ = {
+        "fast a 1 0 1 0 00000020",
+    };
+
+    public static final String[] DATA_ADJ = {
+        "00000020 03 a 01 fast(p) 0 000 | acting quickly",
+    };
+
+    public static final String[] INDEX_ADV = {
+        "quickly r 1 1 \\ 1 0 00000030",
+    };
+
+    public static final String[] DATA_ADV = {
+        "00000030 04 r 01 quickly 0 001 \\ 00000020 a 0101 | with speed",
+    };
+
+    public static final String[] INDEX_SENSE = {
+        "animal%1:01:00:: 00000002 1 0",
+        "cat%1:01:00:: 00000003 1 0",
+        "cat%1:01:01:: 00000004 2 0",
+        "dog%1:01:00:: 00000005 1 0",
+        "entity%1:00:00:: 00000001 1 0",
+        "fast%3:03:00:: 00000020 1 0",
+        "feline%1:01:00:: 00000003 1 0",
+        "quickly%4:04:00:: 00000030 1 0",
+        "run%2:02:00:: 00000010 1 0",
+    };
+
+    public static final String[] NOUN_EXC = {
+        "kitties cat",
+    };
+
+    public static final String[] VERB_EXC = {
+        "ran run",
+    };
+
+    public static final String[] ADJ_EXC = {
+        "faster fast",
+    };
+
+    public static final String[] ADV_EXC = {
+    };
+
+    /**
+     * Writes the mock dictionary to a new temporary directory and returns the
+     * path to that directory.
+     */
+    public static String create() throws IOException {
+        File dir = File.createTempFile("mockDict", "");
+        dir.delete();
+        dir.mkdir();
+        dir.deleteOnExit();
+
+        write(dir, "lexnames", LEXNAMES);
+        write(dir, "frames.vrb", FRAMES);
+        write(dir, "index.noun", INDEX_NOUN);
+        write(dir, "data.noun", DATA_NOUN);
+        write(dir, "index.verb", INDEX_VERB);
+        write(dir, "data.verb", DATA_VERB);
+        write(dir, "index.adj", INDEX_ADJ);
+        write(dir, "data.adj", DATA_ADJ);
+        write(dir, "index.adv", INDEX_ADV);
+        write(dir, "data.adv", DATA_ADV);
+        write(dir, "index.sense", INDEX_SENSE);
+        write(dir, "noun.exc", NOUN_EXC);
+        write(dir, "verb.exc", VERB_EXC);
+        write(dir, "adj.exc", ADJ_EXC);
+        write(dir, "adv.exc", ADV_EXC);
+        return dir.getPath();
+    }
+
+    private static void write(File dir, String name, String[] lines)
+            throws IOException {
+        File file = new File(dir, name);
+        file.deleteOnExit();
+        PrintWriter writer = new PrintWriter(file);
+        for (String line : lines)
+            writer.println(line);
+        writer.close();
+    }
+}
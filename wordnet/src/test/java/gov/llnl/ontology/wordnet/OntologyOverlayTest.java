@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class OntologyOverlayTest {
+
+    private static WordNetCorpusReader load() throws Exception {
+        return new WordNetCorpusReader(MockDictionary.create(), false);
+    }
+
+    private static Synset newSynset(String term, Synset parent) {
+        Synset synset = new BaseSynset(PartsOfSpeech.NOUN);
+        synset.addLemma(new BaseLemma(synset, term, "", 0, 0, "n"));
+        synset.addRelation(Relation.HYPERNYM, parent);
+        return synset;
+    }
+
+    @Test public void testAddDoesNotModifyBase() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+        int numSynsets = reader.allSynsets().size();
+
+        OntologyOverlay overlay = new OntologyOverlay(reader);
+        Synset cow = newSynset("cow", animal);
+        overlay.addSynset(cow);
+
+        assertSame(cow, overlay.getSynset("cow.n.1"));
+        assertEquals(1, overlay.getSynsets("cows", PartsOfSpeech.NOUN).length);
+        assertTrue(overlay.wordnetTerms().contains("cow"));
+        assertTrue(overlay.wordnetTerms(PartsOfSpeech.NOUN).contains("cow"));
+        assertEquals(numSynsets + 1, overlay.allSynsets().size());
+        assertEquals(2, overlay.getMaxDepth(PartsOfSpeech.NOUN));
+
+        assertNull(reader.getSynset("cow.n.1"));
+        assertFalse(reader.wordnetTerms().contains("cow"));
+        assertEquals(numSynsets, reader.allSynsets().size());
+        assertEquals(2, reader.getMaxDepth(PartsOfSpeech.NOUN));
+
+        // Unchanged lemmas are answered by the base.
+        assertEquals(2, overlay.getSynsets("kitties", PartsOfSpeech.NOUN).length);
+        assertSame(reader.getSynset("cat.n.2"), overlay.getSynset("cat.n.2"));
+    }
+
+    @Test public void testForksAreIndependent() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+
+        OntologyOverlay root = new OntologyOverlay(reader);
+        Synset cow = newSynset("cow", animal);
+        root.addSynset(cow);
+
+        OntologyOverlay left = root.fork();
+        OntologyOverlay right = root.fork();
+        assertTrue(root.isFrozen());
+
+        Synset calf = newSynset("calf", cow);
+        left.addSynset(calf);
+        Synset kitten = newSynset("cat", reader.getSynset("cat.n.1"));
+        right.addSynset(kitten, 0);
+
+        assertSame(cow, left.getSynset("cow.n.1"));
+        assertSame(cow, right.getSynset("cow.n.1"));
+        assertSame(calf, left.getSynset("calf.n.1"));
+        assertNull(right.getSynset("calf.n.1"));
+        assertNull(root.getSynset("calf.n.1"));
+        assertEquals(3, left.getMaxDepth(PartsOfSpeech.NOUN));
+        assertEquals(2, root.getMaxDepth(PartsOfSpeech.NOUN));
+
+        assertEquals(3, right.getSynsets("cat", PartsOfSpeech.NOUN).length);
+        assertSame(kitten, right.getSynset("cat.n.1"));
+        assertEquals(2, left.getSynsets("cat", PartsOfSpeech.NOUN).length);
+        assertEquals(2, reader.getSynsets("cat", PartsOfSpeech.NOUN).length);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testForkedOverlayIsFrozen() throws Exception {
+        WordNetCorpusReader reader = load();
+        OntologyOverlay root = new OntologyOverlay(reader);
+        root.fork();
+        root.addSynset(newSynset("cow", reader.getSynset("animal.n.1")));
+    }
+
+    @Test public void testRemoveSynset() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+        Synset dog = reader.getSynset("dog.n.1");
+
+        OntologyOverlay overlay = new OntologyOverlay(reader);
+        overlay.removeSynset(dog);
+
+        assertEquals(0, overlay.getSynsets("dog", PartsOfSpeech.NOUN).length);
+        assertFalse(overlay.allSynsets().contains(dog));
+        assertFalse(overlay.getRelations(animal, Relation.HYPONYM)
+                           .contains(dog));
+        assertFalse(overlay.wordnetTerms(PartsOfSpeech.NOUN).contains("dog"));
+
+        assertSame(dog, reader.getSynset("dog.n.1"));
+        assertTrue(animal.getChildren().contains(dog));
+    }
+
+    @Test public void testViewsFollowChanges() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+        Synset dog = reader.getSynset("dog.n.1");
+        int numSynsets = reader.allSynsets().size();
+
+        OntologyOverlay root = new OntologyOverlay(reader);
+        Synset cow = newSynset("cow", animal);
+        root.addSynset(cow);
+        OntologyOverlay overlay = root.fork();
+
+        Set<Synset> synsets = overlay.allSynsets();
+        Set<Synset> nouns = overlay.allSynsets(PartsOfSpeech.NOUN);
+        Set<String> terms = overlay.wordnetTerms(PartsOfSpeech.NOUN);
+        assertEquals(numSynsets + 1, synsets.size());
+        assertTrue(terms.contains("dog"));
+
+        overlay.removeSynset(dog);
+        assertEquals(numSynsets, synsets.size());
+        assertFalse(synsets.contains(dog));
+        assertTrue(synsets.contains(cow));
+        assertFalse(terms.contains("dog"));
+        assertTrue(terms.contains("cow"));
+
+        Set<Synset> seen = new HashSet<Synset>();
+        for (Synset synset : nouns)
+            assertTrue(seen.add(synset));
+        assertEquals(nouns.size(), seen.size());
+        assertTrue(seen.contains(cow));
+        assertFalse(seen.contains(dog));
+        assertEquals(new HashSet<Synset>(nouns), nouns);
+
+        // The frozen layer and the base are unaffected.
+        assertTrue(root.allSynsets().contains(dog));
+        assertEquals(numSynsets, reader.allSynsets().size());
+    }
+
+    @Test public void testRelations() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+        Synset cow = newSynset("cow", animal);
+
+        OntologyOverlay overlay = new OntologyOverlay(reader);
+        overlay.addSynset(cow);
+        assertTrue(overlay.addRelation(animal, Relation.HYPONYM, cow));
+        assertFalse(overlay.addRelation(animal, Relation.HYPONYM, cow));
+        assertEquals(4, overlay.getRelations(animal, Relation.HYPONYM).size());
+        assertEquals(3, animal.getChildren().size());
+
+        OntologyOverlay fork = overlay.fork();
+        assertTrue(fork.removeRelation(animal, Relation.HYPONYM, cow));
+        assertEquals(3, fork.getRelations(animal, Relation.HYPONYM).size());
+        assertEquals(4, overlay.getRelations(animal, Relation.HYPONYM).size());
+    }
+}
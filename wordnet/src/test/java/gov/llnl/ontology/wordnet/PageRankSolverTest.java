@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.util.WorkQueueUtil;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import edu.ucla.sspace.util.WorkQueue;
+import edu.ucla.sspace.vector.CompactSparseVector;
+import edu.ucla.sspace.vector.SparseDoubleVector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class PageRankSolverTest {
+
+    private static List<Synset> randomGraph(Random random, int size, int edges) {
+        List<Synset> synsets = new ArrayList<Synset>();
+        for (int i = 0; i < size; ++i)
+            synsets.add(new BaseSynset(PartsOfSpeech.NOUN));
+        for (int e = 0; e < edges; ++e)
+            synsets.get(random.nextInt(size)).addRelation(
+                    "link", synsets.get(random.nextInt(size)));
+        return synsets;
+    }
+
+    private static Map<Synset, Integer> indexMap(List<Synset> synsets) {
+        Map<Synset, Integer> synsetMap = new HashMap<Synset, Integer>();
+        for (Synset synset : synsets)
+            synsetMap.put(synset, synsetMap.size());
+        return synsetMap;
+    }
+
+    private static double[] uniform(int size) {
+        double[] teleport = new double[size];
+        for (int i = 0; i < size; ++i)
+            teleport[i] = 1d / size;
+        return teleport;
+    }
+
+    @Test public void testCycle() {
+        // A directed cycle has a uniform stationary distribution.
+        double[][] probabilities = {{1}, {1}, {1}};
+        int[][] links = {{1}, {2}, {0}};
+        TransitionMatrix matrix = new TransitionMatrix(links, probabilities);
+        PageRankSolver.Result result = new PageRankSolver(1e-10, 1000).solve(
+                matrix, uniform(3), .85);
+        assertTrue(result.isConverged());
+        assertTrue(result.getResidual() <= 1e-10);
+        for (double rank : result.getRanks())
+            assertEquals(1 / 3.0, rank, 1e-9);
+    }
+
+    @Test public void testDanglingMassIsKept() {
+        // Synset 2 has no outgoing links.
+        int[][] links = {{1, 2}, {2}, {}};
+        double[][] probabilities = {{.5, .5}, {1}, {}};
+        TransitionMatrix matrix = new TransitionMatrix(links, probabilities);
+        assertEquals(1, matrix.getDanglingRows().length);
+        assertEquals(2, matrix.getDanglingRows()[0]);
+
+        PageRankSolver.Result result = new PageRankSolver(1e-12, 1000).solve(
+                matrix, uniform(3), .85);
+        assertTrue(result.isConverged());
+        double total = 0;
+        for (double rank : result.getRanks())
+            total += rank;
+        assertEquals(1, total, 1e-9);
+        assertTrue(result.getRanks()[2] > result.getRanks()[1]);
+        assertTrue(result.getRanks()[1] > result.getRanks()[0]);
+    }
+
+    @Test public void testMaxIterations() {
+        List<Synset> synsets = randomGraph(new Random(1), 20, 60);
+        TransitionMatrix matrix = TransitionMatrix.build(
+                synsets, indexMap(synsets));
+        PageRankSolver.Result result = new PageRankSolver(0, 3).solve(
+                matrix, uniform(20), .85);
+        assertEquals(3, result.getIterations());
+        assertFalse(result.isConverged());
+    }
+
+    @Test public void testAttributesMatchRelations() {
+        List<Synset> synsets = randomGraph(new Random(3), 30, 90);
+        Map<Synset, Integer> synsetMap = indexMap(synsets);
+        SynsetPagerank.setupTransitionAttributes(synsets, synsetMap);
+
+        PageRankSolver solver = new PageRankSolver(1e-12, 1000);
+        double[] expected = solver.solve(
+                TransitionMatrix.build(synsets, synsetMap),
+                uniform(30), .85).getRanks();
+        double[] ranks = solver.solve(
+                TransitionMatrix.fromAttributes(synsets),
+                uniform(30), .85).getRanks();
+        for (int i = 0; i < expected.length; ++i)
+            assertEquals(expected[i], ranks[i], 1e-12);
+    }
+
+    @Test public void testComputePageRank() {
+        List<Synset> synsets = randomGraph(new Random(5), 30, 90);
+        Map<Synset, Integer> synsetMap = indexMap(synsets);
+        SynsetPagerank.setupTransitionAttributes(synsets, synsetMap);
+
+        SparseDoubleVector sourceWeights = new CompactSparseVector();
+        sourceWeights.set(0, .5);
+        sourceWeights.set(7, .5);
+        SparseDoubleVector pageRanks = SynsetPagerank.computePageRank(
+                synsets, sourceWeights, .85);
+
+        double[] teleport = new double[30];
+        teleport[0] = .5;
+        teleport[7] = .5;
+        double[] expected = new PageRankSolver().solve(
+                TransitionMatrix.build(synsets, synsetMap),
+                teleport, .85).getRanks();
+        assertEquals(30, pageRanks.length());
+        for (int i = 0; i < expected.length; ++i)
+            assertEquals(expected[i], pageRanks.get(i), 1e-12);
+    }
+
+    @Test public void testThreadsGiveIdenticalRanks() {
+        int size = 3 * PageRankSolver.CHUNK_SIZE + 17;
+        List<Synset> synsets = randomGraph(new Random(11), size, 4 * size);
+        TransitionMatrix matrix = TransitionMatrix.build(
+                synsets, indexMap(synsets));
+        double[] teleport = new double[size];
+        teleport[3] = .5;
+        teleport[size - 1] = .5;
+
+        PageRankSolver.Result expected = new PageRankSolver(1e-8, 50, 1).solve(
+                matrix, teleport, .85);
+        for (int numThreads = 2; numThreads <= 5; ++numThreads) {
+            PageRankSolver.Result result =
+                new PageRankSolver(1e-8, 50, numThreads).solve(
+                        matrix, teleport, .85);
+            assertEquals(expected.getIterations(), result.getIterations());
+            assertEquals(expected.getResidual(), result.getResidual(), 0);
+            assertTrue(Arrays.equals(
+                        expected.getRanks(), result.getRanks()));
+        }
+    }
+
+    @Test(timeout=60000) public void testNestedSolveRunsInline() {
+        int size = 3 * PageRankSolver.CHUNK_SIZE + 17;
+        List<Synset> synsets = randomGraph(new Random(17), size, 4 * size);
+        final TransitionMatrix matrix = TransitionMatrix.build(
+                synsets, indexMap(synsets));
+        final double[] teleport = new double[size];
+        teleport[5] = 1;
+
+        // Every worker of the shared queue runs a multi-threaded solve.
+        final PageRankSolver solver = new PageRankSolver(1e-8, 50, 4);
+        final List<double[]> results =
+            Collections.synchronizedList(new ArrayList<double[]>());
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int t = 0; t < 2 * WorkQueue.getWorkQueue().numThreads(); ++t)
+            tasks.add(new Runnable() {
+                public void run() {
+                    results.add(
+                        solver.solve(matrix, teleport, .85).getRanks());
+                }
+            });
+        WorkQueueUtil.run(tasks);
+
+        double[] expected = solver.solve(matrix, teleport, .85).getRanks();
+        assertEquals(tasks.size(), results.size());
+        for (double[] ranks : results)
+            assertTrue(Arrays.equals(expected, ranks));
+    }
+
+    private static TransitionOverlay blockGraph(int size) {
+        List<Synset> synsets = randomGraph(new Random(13), size, 3 * size);
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(synsets, indexMap(synsets)));
+        overlay.addNode(new int[] {1, 4, 9});
+        overlay.addNode(new int[] {2, size - 1});
+        overlay.addNode(new int[] {0});
+        return overlay;
+    }
+
+    @Test public void testBlockWithOneColumn() {
+        TransitionOverlay overlay = blockGraph(50);
+        PageRankSolver solver = new PageRankSolver(1e-8, 100);
+        int[] seeds = {50, 52};
+        double[] seedWeights = {.5, .5};
+        int[] queries = {1, 2, 4, 9, 49, 50};
+        double[] expected = solver.score(
+                overlay, seeds, seedWeights, .85, queries);
+        double[][] scores = solver.score(
+                overlay, new int[][] {seeds}, new double[][] {seedWeights},
+                .85, new int[][] {queries});
+        assertEquals(1, scores.length);
+        assertTrue(Arrays.equals(expected, scores[0]));
+    }
+
+    @Test public void testBlockMatchesSeparateSolves() {
+        TransitionOverlay overlay = blockGraph(60);
+        PageRankSolver solver = new PageRankSolver(1e-12, 500);
+        int[][] seeds = {{60, 61}, {61, 62}, {60}};
+        double[][] seedWeights = {{.5, .5}, {.25, .75}, {1}};
+        int[][] queries = {{1, 4, 9}, {2, 59}, {0, 1, 2, 3}};
+        double[][] scores = solver.score(
+                overlay, seeds, seedWeights, .85, queries);
+        for (int k = 0; k < seeds.length; ++k) {
+            double[] expected = solver.score(
+                    overlay, seeds[k], seedWeights[k], .85, queries[k]);
+            assertEquals(expected.length, scores[k].length);
+            for (int q = 0; q < expected.length; ++q)
+                assertEquals(expected[q], scores[k][q], 1e-10);
+        }
+    }
+
+    @Test public void testBlockThreadsGiveIdenticalScores() {
+        int size = 2 * PageRankSolver.CHUNK_SIZE + 3;
+        TransitionOverlay overlay = blockGraph(size);
+        int[][] seeds = {{size, size + 1}, {size + 2}};
+        double[][] seedWeights = {{.5, .5}, {1}};
+        int[] nodes = new int[overlay.size()];
+        for (int i = 0; i < nodes.length; ++i)
+            nodes[i] = i;
+        int[][] queries = {nodes, nodes};
+
+        double[][] expected = new PageRankSolver(1e-8, 50, 1).score(
+                overlay, seeds, seedWeights, .85, queries);
+        double[][] scores = new PageRankSolver(1e-8, 50, 3).score(
+                overlay, seeds, seedWeights, .85, queries);
+        for (int k = 0; k < seeds.length; ++k)
+            assertTrue(Arrays.equals(expected[k], scores[k]));
+    }
+}
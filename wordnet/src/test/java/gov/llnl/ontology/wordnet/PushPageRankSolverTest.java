@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class PushPageRankSolverTest {
+
+    private static List<Synset> randomGraph(Random random, int size, int edges) {
+        List<Synset> synsets = new ArrayList<Synset>();
+        for (int i = 0; i < size; ++i)
+            synsets.add(new BaseSynset(PartsOfSpeech.NOUN));
+        for (int e = 0; e < edges; ++e)
+            synsets.get(random.nextInt(size)).addRelation(
+                    "link", synsets.get(random.nextInt(size)));
+        return synsets;
+    }
+
+    private static TransitionOverlay overlay(List<Synset> synsets) {
+        Map<Synset, Integer> synsetMap = new HashMap<Synset, Integer>();
+        for (Synset synset : synsets)
+            synsetMap.put(synset, synsetMap.size());
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(synsets, synsetMap));
+        overlay.addNode(new int[] {1, 5, 9});
+        overlay.addNode(new int[] {2, 30});
+        return overlay;
+    }
+
+    private static int[] allNodes(int size) {
+        int[] nodes = new int[size];
+        for (int i = 0; i < size; ++i)
+            nodes[i] = i;
+        return nodes;
+    }
+
+    private static double error(double[] expected, double[] scores) {
+        double error = 0;
+        for (int i = 0; i < expected.length; ++i)
+            error += Math.abs(expected[i] - scores[i]);
+        return error;
+    }
+
+    @Test public void testOutgoingLinks() {
+        List<Synset> synsets = randomGraph(new Random(2), 20, 50);
+        TransitionMatrix matrix = overlay(synsets).getBase();
+        int[] outStarts = matrix.getOutStarts();
+        int[] outTargets = matrix.getOutTargets();
+        double[] outProbabilities = matrix.getOutProbabilities();
+        int[] rowStarts = matrix.getRowStarts();
+        int[] sources = matrix.getSources();
+        double[] probabilities = matrix.getProbabilities();
+
+        assertEquals(sources.length, outStarts[matrix.size()]);
+        for (int j = 0; j < matrix.size(); ++j)
+            for (int l = rowStarts[j]; l < rowStarts[j + 1]; ++l) {
+                boolean found = false;
+                for (int o = outStarts[sources[l]];
+                         o < outStarts[sources[l] + 1]; ++o)
+                    if (outTargets[o] == j) {
+                        assertEquals(probabilities[l], outProbabilities[o], 0);
+                        found = true;
+                    }
+                assertTrue(found);
+            }
+    }
+
+    @Test public void testApproachesPowerIteration() {
+        List<Synset> synsets = randomGraph(new Random(7), 200, 600);
+        TransitionOverlay overlay = overlay(synsets);
+        int[] seeds = {200, 201};
+        double[] seedWeights = {.5, .5};
+        int[] queries = allNodes(overlay.size());
+
+        double[] expected = new PageRankSolver(1e-12, 500).score(
+                overlay, seeds, seedWeights, .85, queries);
+        double coarse = error(expected, new PushPageRankSolver(1e-4).score(
+                    overlay, seeds, seedWeights, .85, queries));
+        double fine = error(expected, new PushPageRankSolver(1e-8).score(
+                    overlay, seeds, seedWeights, .85, queries));
+        assertTrue(fine < coarse);
+        assertTrue(fine < 1e-5);
+    }
+
+    @Test public void testRepeatedSolvesMatch() {
+        List<Synset> synsets = randomGraph(new Random(8), 100, 300);
+        TransitionOverlay overlay = overlay(synsets);
+        PushPageRankSolver solver = new PushPageRankSolver(1e-6);
+        int[] queries = {1, 2, 5, 9, 30, 100, 101};
+        double[] first = solver.score(
+                overlay, new int[] {100}, new double[] {1}, .85, queries);
+        solver.score(overlay, new int[] {101}, new double[] {1}, .85, queries);
+        double[] second = solver.score(
+                overlay, new int[] {100}, new double[] {1}, .85, queries);
+        assertTrue(Arrays.equals(first, second));
+        assertEquals(0, first[6], 0);
+    }
+
+    @Test public void testDanglingMassReturnsToSeeds() {
+        // A single pseudo node linking to a base synset without any links.
+        List<Synset> synsets = randomGraph(new Random(9), 1, 0);
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(synsets,
+                                       new HashMap<Synset, Integer>()));
+        overlay.addNode(new int[] {0});
+        int[] queries = {0, 1};
+        double[] expected = new PageRankSolver(1e-12, 500).score(
+                overlay, new int[] {1}, new double[] {1}, .85, queries);
+        double[] scores = new PushPageRankSolver(1e-10).score(
+                overlay, new int[] {1}, new double[] {1}, .85, queries);
+        assertEquals(expected[0], scores[0], 1e-8);
+        assertEquals(expected[1], scores[1], 1e-8);
+        assertEquals(1, scores[0] + scores[1], 1e-8);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Set;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class SynsetGraphTest {
+
+    private static Synset[] makeTree() {
+        Synset[] synsets = new Synset[4];
+        for (int i = 0; i < synsets.length; ++i)
+            synsets[i] = new BaseSynset(i, PartsOfSpeech.NOUN);
+        for (int i = 1; i < synsets.length; ++i) {
+            synsets[i].addRelation(Relation.HYPERNYM, synsets[0]);
+            synsets[0].addRelation(Relation.HYPONYM, synsets[i]);
+        }
+        synsets[1].addRelation(Relation.ANTONYM, synsets[2]);
+        synsets[1].addRelation("related", synsets[3]);
+        return synsets;
+    }
+
+    @Test public void testViews() {
+        Synset[] synsets = makeTree();
+        SynsetGraph graph = SynsetGraph.build(Arrays.asList(synsets));
+
+        assertEquals(4, graph.size());
+        assertEquals(8, graph.numEdges());
+        assertSame(graph, SynsetGraph.of(synsets[0]));
+
+        assertEquals(Sets.newHashSet(synsets[1], synsets[2], synsets[3]),
+                     synsets[0].getChildren());
+        assertEquals(Sets.newHashSet(synsets[0]), synsets[1].getParents());
+        assertEquals(Sets.newHashSet(synsets[2]),
+                     synsets[1].getRelations(Relation.ANTONYM));
+        assertEquals(Sets.newHashSet("@", "!", "related"),
+                     synsets[1].getKnownRelationTypes());
+        assertEquals(3, synsets[1].allRelations().size());
+        assertTrue(synsets[1].getRelations("unknown").isEmpty());
+        assertTrue(synsets[0].getParents().isEmpty());
+    }
+
+    @Test public void testPrimitiveRows() {
+        Synset[] synsets = makeTree();
+        SynsetGraph graph = SynsetGraph.build(Arrays.asList(synsets));
+
+        int id = graph.indexOf(synsets[0]);
+        int type = graph.getRelationType(Relation.HYPONYM.toString());
+        int start = graph.typeStart(id, type);
+        int end = graph.typeEnd(id, type);
+        assertEquals(3, end - start);
+
+        Set<Synset> children = Sets.newHashSet();
+        for (int e = start; e < end; ++e)
+            children.add(graph.getSynset(graph.getTargets()[e]));
+        assertEquals(synsets[0].getChildren(), children);
+        assertEquals(-1, graph.indexOf(new BaseSynset(PartsOfSpeech.NOUN)));
+        assertEquals(-1, graph.getRelationType("missing"));
+    }
+
+    @Test public void testIncomingRows() {
+        Synset[] synsets = makeTree();
+        SynsetGraph graph = SynsetGraph.build(Arrays.asList(synsets));
+
+        int[] starts = graph.getIncomingRowStarts();
+        int[] sources = graph.getSources();
+        byte[] sourceTypes = graph.getSourceTypes();
+        assertEquals(graph.numEdges(), sources.length);
+
+        // Every outgoing edge appears exactly once among the incoming edges
+        // of it's target.
+        int[] rowStarts = graph.getRowStarts();
+        for (int i = 0; i < graph.size(); ++i)
+            for (int e = rowStarts[i]; e < rowStarts[i+1]; ++e) {
+                int target = graph.getTargets()[e];
+                int matches = 0;
+                for (int r = starts[target]; r < starts[target+1]; ++r)
+                    if (sources[r] == i &&
+                        sourceTypes[r] == graph.getTypes()[e])
+                        matches++;
+                assertEquals(1, matches);
+            }
+
+        int id = graph.indexOf(synsets[0]);
+        assertEquals(3, starts[id+1] - starts[id]);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() {
+        Synset[] synsets = makeTree();
+        SynsetGraph.build(Arrays.asList(synsets));
+        synsets[0].getChildren().add(synsets[0]);
+    }
+
+    @Test public void testModificationInvalidates() {
+        Synset[] synsets = makeTree();
+        SynsetGraph graph = SynsetGraph.build(Arrays.asList(synsets));
+
+        assertTrue(synsets[1].removeRelation(Relation.ANTONYM, synsets[2]));
+        assertFalse(graph.isCurrent());
+        assertNull(SynsetGraph.of(synsets[0]));
+        assertNull(SynsetGraph.of(synsets[1]));
+        assertEquals(Sets.newHashSet("@", "related"),
+                     synsets[1].getKnownRelationTypes());
+
+        // Unmodified synsets still read from the old graph.
+        assertEquals(3, synsets[0].getChildren().size());
+    }
+
+    @Test public void testRebuild() {
+        Synset[] synsets = makeTree();
+        SynsetGraph first = SynsetGraph.build(Arrays.asList(synsets));
+        synsets[3].addRelation(Relation.ANTONYM, synsets[1]);
+
+        SynsetGraph second = SynsetGraph.build(Arrays.asList(synsets));
+        assertFalse(first.isCurrent());
+        assertTrue(second.isCurrent());
+        assertEquals(9, second.numEdges());
+        assertEquals(Sets.newHashSet(synsets[1]),
+                     synsets[3].getRelations(Relation.ANTONYM));
+    }
+
+    @Test public void testMerge() {
+        Synset[] synsets = makeTree();
+        SynsetGraph.build(Arrays.asList(synsets));
+
+        synsets[2].merge(synsets[3]);
+        assertTrue(synsets[0].getChildren().contains(synsets[2]));
+        assertFalse(synsets[0].getChildren().contains(synsets[3]));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class SynsetOffsetTableTest {
+
+    @Test public void testPutAndGet() {
+        SynsetOffsetTable table = new SynsetOffsetTable();
+        Synset[] synsets = new Synset[1000];
+        for (int i = 0; i < synsets.length; ++i) {
+            // Use offsets that share low order bits, like byte offsets.
+            synsets[i] = new BaseSynset(i * 64, PartsOfSpeech.NOUN);
+            assertNull(table.put(i * 64, synsets[i]));
+        }
+        assertEquals(synsets.length, table.size());
+        for (int i = 0; i < synsets.length; ++i)
+            assertSame(synsets[i], table.get(i * 64));
+        assertNull(table.get(1));
+        assertNull(table.get(-1));
+    }
+
+    @Test public void testReplace() {
+        SynsetOffsetTable table = new SynsetOffsetTable();
+        Synset first = new BaseSynset(0, PartsOfSpeech.NOUN);
+        Synset second = new BaseSynset(0, PartsOfSpeech.NOUN);
+        table.put(0, first);
+        assertSame(first, table.put(0, second));
+        assertSame(second, table.get(0));
+        assertEquals(1, table.size());
+    }
+
+    @Test public void testPutAll() {
+        SynsetOffsetTable adj = new SynsetOffsetTable();
+        SynsetOffsetTable sat = new SynsetOffsetTable();
+        Synset a = new BaseSynset(10, PartsOfSpeech.ADJECTIVE);
+        Synset s = new BaseSynset(20, PartsOfSpeech.ADJECTIVE_SAT);
+        adj.put(10, a);
+        sat.put(20, s);
+        adj.putAll(sat);
+        assertSame(a, adj.get(10));
+        assertSame(s, adj.get(20));
+        assertEquals(2, adj.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeOffset() {
+        new SynsetOffsetTable().put(-5, new BaseSynset(PartsOfSpeech.NOUN));
+    }
+}
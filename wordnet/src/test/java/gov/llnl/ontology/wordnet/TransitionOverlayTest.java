@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class TransitionOverlayTest {
+
+    private static List<Synset> randomGraph(Random random, int size, int edges) {
+        List<Synset> synsets = new ArrayList<Synset>();
+        for (int i = 0; i < size; ++i)
+            synsets.add(new BaseSynset(PartsOfSpeech.NOUN));
+        for (int e = 0; e < edges; ++e)
+            synsets.get(random.nextInt(size)).addRelation(
+                    "link", synsets.get(random.nextInt(size)));
+        return synsets;
+    }
+
+    private static Map<Synset, Integer> indexMap(List<Synset> synsets) {
+        Map<Synset, Integer> synsetMap = new HashMap<Synset, Integer>();
+        for (Synset synset : synsets)
+            synsetMap.put(synset, synsetMap.size());
+        return synsetMap;
+    }
+
+    /**
+     * Solves the overlay and the same graph built as a single matrix, adding a
+     * pseudo synset for each entry in {@code senses}.
+     */
+    private static void assertSameRanks(List<Synset> base,
+                                        int[][] senses,
+                                        int numThreads) {
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(base, indexMap(base)));
+        List<Synset> full = new ArrayList<Synset>(base);
+        for (int[] nodeSenses : senses) {
+            overlay.addNode(nodeSenses);
+            Synset pseudo = new BaseSynset(PartsOfSpeech.NOUN);
+            for (int sense : nodeSenses)
+                pseudo.addRelation("link", base.get(sense));
+            full.add(pseudo);
+        }
+        assertEquals(full.size(), overlay.size());
+        assertEquals(senses.length, overlay.numNodes());
+
+        double[] teleport = new double[full.size()];
+        for (int i = base.size(); i < full.size(); ++i)
+            teleport[i] = 1d / senses.length;
+
+        PageRankSolver solver = new PageRankSolver(1e-10, 100, numThreads);
+        double[] expected = solver.solve(
+                TransitionMatrix.build(full, indexMap(full)),
+                teleport, .85).getRanks();
+        double[] ranks = solver.solve(overlay, teleport, .85).getRanks();
+        assertEquals(expected.length, ranks.length);
+        for (int i = 0; i < expected.length; ++i)
+            assertEquals(expected[i], ranks[i], 1e-12);
+    }
+
+    @Test public void testMatchesFullMatrix() {
+        List<Synset> base = randomGraph(new Random(3), 40, 120);
+        int[][] senses = {{3, 7, 7, 12}, {0}, {39, 1}};
+        assertSameRanks(base, senses, 1);
+    }
+
+    @Test public void testMatchesFullMatrixWithThreads() {
+        int size = 2 * PageRankSolver.CHUNK_SIZE + 5;
+        List<Synset> base = randomGraph(new Random(4), size, 3 * size);
+        int[][] senses = {{1, PageRankSolver.CHUNK_SIZE, size - 1}, {2, 9}};
+        assertSameRanks(base, senses, 3);
+    }
+
+    @Test public void testLinksBetweenNodes() {
+        List<Synset> base = randomGraph(new Random(6), 10, 30);
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(base, indexMap(base)));
+        int first = overlay.addNode(new int[] {2, 4});
+        int second = overlay.addNode(new int[] {first, 5});
+        int dangling = overlay.addNode(new int[0]);
+        assertEquals(10, first);
+        assertEquals(11, second);
+        assertEquals(12, dangling);
+
+        assertArrayEquals(new int[] {2, 4, 5, 10}, overlay.getTargets());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4},
+                          overlay.getTargetStarts());
+        assertArrayEquals(new int[] {10, 10, 11, 11}, overlay.getSources());
+        assertArrayEquals(new int[] {12}, overlay.getDanglingNodes());
+        assertEquals(.5, overlay.getProbabilities()[0], 0);
+
+        // The ranks should still sum to one.
+        double[] teleport = new double[overlay.size()];
+        teleport[second] = 1;
+        double[] ranks = new PageRankSolver().solve(
+                overlay, teleport, .85).getRanks();
+        double total = 0;
+        for (double rank : ranks)
+            total += rank;
+        assertEquals(1, total, 1e-6);
+        assertTrue(ranks[first] > 0);
+    }
+
+    @Test (expected=IllegalStateException.class)
+    public void testMissingTarget() {
+        List<Synset> base = randomGraph(new Random(6), 10, 30);
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(base, indexMap(base)));
+        overlay.addNode(new int[] {11});
+        overlay.getTargets();
+    }
+
+    @Test (expected=IllegalArgumentException.class)
+    public void testMismatchedProbabilities() {
+        List<Synset> base = randomGraph(new Random(6), 10, 30);
+        TransitionOverlay overlay = new TransitionOverlay(
+                TransitionMatrix.build(base, indexMap(base)));
+        overlay.addNode(new int[] {1, 2}, new double[] {1});
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class WordNetCorpusReaderTest {
+
+    private static WordNetCorpusReader load() throws Exception {
+        return new WordNetCorpusReader(MockDictionary.create(), false);
+    }
+
+    @Test public void testLemmaMapping() throws Exception {
+        WordNetCorpusReader reader = load();
+        assertEquals(8, reader.wordnetTerms().size());
+        assertEquals(5, reader.wordnetTerms(PartsOfSpeech.NOUN).size());
+        assertEquals(2, reader.getSynsets("cat", PartsOfSpeech.NOUN).length);
+        assertEquals(1, reader.getSynsets("run", PartsOfSpeech.VERB).length);
+        assertEquals(0, reader.getSynsets("run", PartsOfSpeech.NOUN).length);
+        assertSame(reader.getSynset("cat.n.1"), reader.getSynset("feline.n.1"));
+    }
+
+    @Test public void testDataFile() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset animal = reader.getSynset("animal.n.1");
+        assertEquals("a living organism", animal.getDefinition());
+        assertEquals(1, animal.getExamples().size());
+        assertEquals("the animal ran", animal.getExamples().get(0));
+        assertEquals(4, animal.getNumRelations());
+        assertEquals(3, animal.getChildren().size());
+        assertEquals("animal%1:01:00::", animal.getSenseKey());
+
+        Synset cat = reader.getSynset("cat.n.1");
+        assertEquals(3, cat.getLemmas().size());
+        assertEquals("feline", cat.getLemmas().get(2).getLemmaName());
+        assertEquals("noun.animal",
+                     cat.getLemmas().get(1).getLexicographerName());
+        assertEquals(2, cat.getSenseKeys().size());
+    }
+
+    @Test public void testCrossPartOfSpeechPointers() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset dog = reader.getSynset("dog.n.1");
+        Synset run = reader.getSynset("run.v.1");
+        assertTrue(dog.getRelations(Relation.DERIVATIONALLY_RELATED_FORMS)
+                      .contains(run));
+        assertTrue(run.getRelations(Relation.DERIVATIONALLY_RELATED_FORMS)
+                      .contains(dog));
+        assertEquals(1, dog.getDerivationallyRelatedForm(run).sourceIndex());
+
+        Synset quickly = reader.getSynset("quickly.r.1");
+        Synset fast = reader.getSynset("fast.a.1");
+        assertTrue(quickly.getRelations("\\").contains(fast));
+    }
+
+    @Test public void testVerbFrames() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset run = reader.getSynset("run.v.1");
+        assertArrayEquals(new int[] {1, 2}, run.getFrameIds());
+        assertArrayEquals(new int[] {0, 1}, run.getLemmaIds());
+    }
+
+    @Test public void testMaxDepth() throws Exception {
+        WordNetCorpusReader reader = load();
+        assertEquals(2, reader.getMaxDepth(PartsOfSpeech.NOUN));
+    }
+
+    @Test public void testMorphyCache() throws Exception {
+        WordNetCorpusReader reader = load();
+        MorphyCache cache = reader.getMorphyCache();
+        Synset[] first = reader.getSynsets("kitties", PartsOfSpeech.NOUN);
+        Synset[] second = reader.getSynsets("kitties", PartsOfSpeech.NOUN);
+        assertEquals(2, first.length);
+        assertTrue(Arrays.equals(first, second));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.5, cache.hitRate(), .0001);
+
+        // Changing a returned array must not change the cached entry.
+        assertNotSame(first, second);
+        Synset expected = second[0];
+        first[0] = null;
+        assertSame(expected,
+                   reader.getSynsets("kitties", PartsOfSpeech.NOUN)[0]);
+    }
+
+    @Test public void testSenseKeyForSurfaceForm() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset cat = reader.getSynsets("kitties", PartsOfSpeech.NOUN)[0];
+        assertEquals("cat%1:01:00::", cat.getSenseKey("kitties"));
+        assertEquals("feline%1:01:00::", cat.getSenseKey("felines"));
+        assertEquals("cat%1:01:00::", cat.getSenseKey("cat"));
+    }
+
+    @Test public void testMorphyCacheIsBounded() throws Exception {
+        WordNetCorpusReader reader = load();
+        MorphyCache cache = new MorphyCache(reader, 16);
+        for (int i = 0; i < 100; ++i)
+            cache.lookup("cats" + i, PartsOfSpeech.NOUN);
+        assertTrue(cache.size() <= 16);
+        assertEquals(100 - cache.size(), cache.evictions());
+        assertEquals(100, cache.misses());
+    }
+
+    @Test public void testMorphyCacheClearedOnUpdate() throws Exception {
+        WordNetCorpusReader reader = load();
+        assertEquals(0, reader.getSynsets("cow", PartsOfSpeech.NOUN).length);
+
+        Synset cow = new BaseSynset(PartsOfSpeech.NOUN);
+        cow.addLemma(new BaseLemma(cow, "cow", "n"));
+        reader.addSynset(cow);
+        assertEquals(1, reader.getSynsets("cows", PartsOfSpeech.NOUN).length);
+        assertEquals(1, reader.getSynsets("cow", PartsOfSpeech.NOUN).length);
+
+        reader.removeSynset(cow);
+        assertEquals(0, reader.getSynsets("cow", PartsOfSpeech.NOUN).length);
+    }
+
+    @Test public void testSynsetBySenseKey() throws Exception {
+        WordNetCorpusReader reader = load();
+        Synset cat = reader.getSynset("cat.n.1");
+        assertSame(cat, reader.getSynsetBySenseKey("cat%1:01:00::"));
+        assertSame(cat, reader.getSynsetBySenseKey("feline%1:01:00::"));
+        assertSame(reader.getSynset("cat.n.2"),
+                   reader.getSynsetBySenseKey("cat%1:01:01::"));
+        assertNull(reader.getSynsetBySenseKey("cow%1:01:00::"));
+
+        Synset cow = new BaseSynset(PartsOfSpeech.NOUN);
+        cow.addLemma(new BaseLemma(cow, "cow", "n"));
+        cow.addSenseKey("cow%1:01:00::");
+        reader.addSynset(cow);
+        assertSame(cow, reader.getSynsetBySenseKey("cow%1:01:00::"));
+
+        Synset dog = reader.getSynset("dog.n.1");
+        reader.replaceSynset(dog, cow);
+        assertSame(cow, reader.getSynsetBySenseKey("dog%1:01:00::"));
+
+        reader.removeSynset(cow);
+        assertNull(reader.getSynsetBySenseKey("cow%1:01:00::"));
+    }
+
+    @Test public void testLemmaTrie() throws Exception {
+        WordNetCorpusReader reader = load();
+        LemmaTrie trie = reader.getLemmaTrie();
+        assertEquals(reader.wordnetTerms().size(), trie.size());
+        assertTrue(trie.indexOf("cat") >= 0);
+        assertSame(trie, reader.getLemmaTrie());
+
+        Synset hotDog = new BaseSynset(PartsOfSpeech.NOUN);
+        hotDog.addLemma(new BaseLemma(hotDog, "hot_dog", "n"));
+        reader.addSynset(hotDog);
+        assertTrue(reader.getLemmaTrie().indexOf("hot_dog") >= 0);
+        assertSame(hotDog, reader.getSynsets("hot dog", PartsOfSpeech.NOUN)[0]);
+        assertSame(hotDog,
+                   reader.getSynsets("hot  dogs", PartsOfSpeech.NOUN)[0]);
+    }
+
+    @Test public void testIndexedViews() throws Exception {
+        WordNetCorpusReader reader = load();
+        Set<Synset> nouns = reader.allSynsets(PartsOfSpeech.NOUN);
+        Set<String> nounTerms = reader.wordnetTerms(PartsOfSpeech.NOUN);
+        Set<Synset> all = reader.allSynsets();
+        int numNouns = nouns.size();
+        int numAll = all.size();
+        assertEquals(5, nounTerms.size());
+
+        Synset cow = new BaseSynset(PartsOfSpeech.NOUN);
+        cow.addLemma(new BaseLemma(cow, "cow", "n"));
+        cow.addLemma(new BaseLemma(cow, "cattle", "n"));
+        reader.addSynset(cow);
+        assertEquals(numNouns + 1, nouns.size());
+        assertEquals(numAll + 1, all.size());
+        assertTrue(nouns.contains(cow));
+        assertTrue(nounTerms.contains("cattle"));
+        assertFalse(reader.wordnetTerms(PartsOfSpeech.VERB).contains("cow"));
+
+        // A synset stays indexed until no lemma maps to it.
+        Synset dog = reader.getSynset("dog.n.1");
+        Synset hound = new BaseSynset(PartsOfSpeech.NOUN);
+        hound.addLemma(new BaseLemma(hound, "hound", "n"));
+        reader.replaceSynset(dog, hound);
+        assertFalse(nouns.contains(dog));
+        assertTrue(nouns.contains(hound));
+
+        reader.removeSynset(cow);
+        assertEquals(numNouns, nouns.size());
+        assertFalse(all.contains(cow));
+        assertFalse(nounTerms.contains("cow"));
+        assertEquals(5, nounTerms.size());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() throws Exception {
+        load().allSynsets().clear();
+    }
+
+    @Test public void testConcurrentReadsDuringUpdates() throws Exception {
+        final WordNetCorpusReader reader = load();
+        final Synset animal = reader.getSynset("animal.n.1");
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<Throwable> failure =
+            new AtomicReference<Throwable>();
+
+        List<Thread> readers = new ArrayList<Thread>();
+        for (int t = 0; t < 4; ++t) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        while (!done.get()) {
+                            for (String form : new String[] {"cow", "cows"})
+                                for (Synset s : reader.getSynsets(
+                                            form, PartsOfSpeech.NOUN))
+                                    assertNotNull(s);
+                            for (Synset child : animal.getChildren())
+                                assertNotNull(child.getName());
+                            for (Synset s : reader.allSynsets())
+                                assertNotNull(s);
+                            assertTrue(reader.wordnetTerms().contains("cat"));
+                            assertTrue(
+                                reader.getMaxDepth(PartsOfSpeech.NOUN) >= 2);
+                        }
+                    } catch (Throwable th) {
+                        failure.compareAndSet(null, th);
+                    }
+                }
+            };
+            readers.add(thread);
+            thread.start();
+        }
+
+        for (int i = 0; i < 500; ++i) {
+            Synset cow = new BaseSynset(PartsOfSpeech.NOUN);
+            cow.addLemma(new BaseLemma(cow, "cow", "n"));
+            cow.addRelation(Relation.HYPERNYM, animal);
+            animal.addRelation(Relation.HYPONYM, cow);
+            reader.addSynset(cow);
+            reader.removeSynset(cow);
+        }
+        done.set(true);
+        for (Thread thread : readers)
+            thread.join();
+
+        assertNull(failure.get());
+        assertEquals(0, reader.getSynsets("cow", PartsOfSpeech.NOUN).length);
+        assertEquals(3, animal.getChildren().size());
+    }
+}
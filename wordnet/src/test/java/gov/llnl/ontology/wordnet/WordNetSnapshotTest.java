@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet;
+
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class WordNetSnapshotTest {
+
+    private WordNetCorpusReader saveAndLoad(WordNetCorpusReader reader,
+                                            String dictPath) {
+        String snapshot = dictPath + "/" + WordNetCorpusReader.SNAPSHOT_FILE;
+        new File(snapshot).deleteOnExit();
+        new WordNetCorpusWriter().saveSnapshot(reader, snapshot);
+        return new WordNetCorpusReader(dictPath, false);
+    }
+
+    private static List<String> names(Set<Synset> synsets) {
+        List<String> names = Lists.newArrayList();
+        for (Synset synset : synsets)
+            names.add(synset.getName());
+        Collections.sort(names);
+        return names;
+    }
+
+    private static List<String> forms(Iterator<String> iter) {
+        List<String> forms = Lists.newArrayList();
+        while (iter.hasNext())
+            forms.add(iter.next());
+        return forms;
+    }
+
+    private static void assertSameSynset(Synset expected, Synset actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getPartOfSpeech(), actual.getPartOfSpeech());
+        assertEquals(expected.getSenseNumber(), actual.getSenseNumber());
+        assertEquals(expected.getDefinition(), actual.getDefinition());
+        assertEquals(expected.getExamples(), actual.getExamples());
+        assertEquals(expected.getSenseKeys(), actual.getSenseKeys());
+        assertEquals(expected.getNumRelations(), actual.getNumRelations());
+        assertEquals(expected.getKnownRelationTypes(),
+                     actual.getKnownRelationTypes());
+        for (String relation : expected.getKnownRelationTypes())
+            assertEquals(names(expected.getRelations(relation)),
+                         names(actual.getRelations(relation)));
+        assertTrue(Arrays.equals(
+                    expected.getFrameIds(), actual.getFrameIds()));
+        assertTrue(Arrays.equals(
+                    expected.getLemmaIds(), actual.getLemmaIds()));
+
+        assertEquals(expected.getLemmas().size(), actual.getLemmas().size());
+        for (int i = 0; i < expected.getLemmas().size(); ++i) {
+            Lemma e = expected.getLemmas().get(i);
+            Lemma a = actual.getLemmas().get(i);
+            assertEquals(e.getLemmaName(), a.getLemmaName());
+            assertEquals(e.getLexicographerName(), a.getLexicographerName());
+            assertEquals(e.getLexNameIndex(), a.getLexNameIndex());
+            assertEquals(e.getLexicalId(), a.getLexicalId());
+            assertEquals(e.getKey(), a.getKey());
+        }
+
+        for (Synset related : expected.allRelations()) {
+            RelatedForm form = expected.getDerivationallyRelatedForm(related);
+            if (form == null)
+                continue;
+            Synset other = null;
+            for (Synset s : actual.allRelations())
+                if (s.getName().equals(related.getName()))
+                    other = s;
+            RelatedForm otherForm = actual.getDerivationallyRelatedForm(other);
+            assertNotNull(otherForm);
+            assertEquals(form.sourceIndex(), otherForm.sourceIndex());
+            assertEquals(form.otherIndex(), otherForm.otherIndex());
+        }
+    }
+
+    @Test public void testRoundTrip() throws Exception {
+        String dictPath = MockDictionary.create();
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        WordNetCorpusReader binary = saveAndLoad(text, dictPath);
+
+        assertEquals(text.wordnetTerms(), binary.wordnetTerms());
+        assertEquals(names(text.allSynsets()), names(binary.allSynsets()));
+        for (String term : text.wordnetTerms()) {
+            for (PartsOfSpeech pos : PartsOfSpeech.values()) {
+                Synset[] expected = text.getSynsets(term, pos, false);
+                Synset[] actual = binary.getSynsets(term, pos, false);
+                assertEquals(expected.length, actual.length);
+                for (int i = 0; i < expected.length; ++i)
+                    assertSameSynset(expected[i], actual[i]);
+            }
+        }
+    }
+
+    @Test public void testOffsets() throws Exception {
+        String dictPath = MockDictionary.create();
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        WordNetCorpusReader binary = saveAndLoad(text, dictPath);
+
+        assertSameSynset(text.getSynsetFromOffset(3, PartsOfSpeech.NOUN),
+                         binary.getSynsetFromOffset(3, PartsOfSpeech.NOUN));
+        assertSameSynset(text.getSynsetFromOffset(10, PartsOfSpeech.VERB),
+                         binary.getSynsetFromOffset(10, PartsOfSpeech.VERB));
+        assertSame(binary.getSynsetFromOffset(20, PartsOfSpeech.ADJECTIVE),
+                   binary.getSynsetFromOffset(
+                       20, PartsOfSpeech.ADJECTIVE_SAT));
+    }
+
+    @Test public void testMorphy() throws Exception {
+        String dictPath = MockDictionary.create();
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        WordNetCorpusReader binary = saveAndLoad(text, dictPath);
+
+        assertEquals(forms(text.morphy("kitties", PartsOfSpeech.NOUN)),
+                     forms(binary.morphy("kitties", PartsOfSpeech.NOUN)));
+        assertEquals("run", binary.getSynsets(
+                    "ran", PartsOfSpeech.VERB)[0].getLemmas().get(0)
+                    .getLemmaName());
+        assertEquals(
+                text.getSynsets("faster", PartsOfSpeech.ADJECTIVE).length,
+                binary.getSynsets("faster", PartsOfSpeech.ADJECTIVE).length);
+        assertEquals(2, binary.getSynsets("cats", PartsOfSpeech.NOUN).length);
+    }
+
+    @Test public void testMaxDepth() throws Exception {
+        String dictPath = MockDictionary.create();
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        WordNetCorpusReader binary = saveAndLoad(text, dictPath);
+
+        assertEquals(text.getMaxDepth(PartsOfSpeech.NOUN),
+                     binary.getMaxDepth(PartsOfSpeech.NOUN));
+        assertEquals(2, binary.getMaxDepth(PartsOfSpeech.NOUN));
+    }
+
+    @Test public void testUnreadableSnapshotIsIgnored() throws Exception {
+        String dictPath = MockDictionary.create();
+        File snapshot = new File(dictPath, WordNetCorpusReader.SNAPSHOT_FILE);
+        snapshot.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(snapshot);
+        out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        out.close();
+
+        WordNetCorpusReader reader = new WordNetCorpusReader(dictPath, false);
+        assertEquals(5, reader.wordnetTerms(PartsOfSpeech.NOUN).size());
+    }
+
+    /**
+     * Saves a snapshot in which the definition of noun 3 differs from the
+     * text files, so that the tests can tell which one was loaded.
+     */
+    private File saveChangedSnapshot(String dictPath) {
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        text.getSynsetFromOffset(3, PartsOfSpeech.NOUN).setDefinition(
+                "changed");
+        File snapshot = new File(dictPath, WordNetCorpusReader.SNAPSHOT_FILE);
+        snapshot.deleteOnExit();
+        new WordNetCorpusWriter().saveSnapshot(text, snapshot.getPath());
+        return snapshot;
+    }
+
+    private static String nounDefinition(String dictPath) {
+        WordNetCorpusReader reader = new WordNetCorpusReader(dictPath, false);
+        return reader.getSynsetFromOffset(3, PartsOfSpeech.NOUN)
+                     .getDefinition();
+    }
+
+    @Test public void testSnapshotIsLoaded() throws Exception {
+        String dictPath = MockDictionary.create();
+        saveChangedSnapshot(dictPath);
+        assertEquals("changed", nounDefinition(dictPath));
+    }
+
+    @Test public void testGlossEditsBeforeFirstRead() throws Exception {
+        String dictPath = MockDictionary.create();
+        WordNetCorpusReader text = new WordNetCorpusReader(dictPath, false);
+        Synset expected = text.getSynsetFromOffset(3, PartsOfSpeech.NOUN);
+        WordNetCorpusReader binary = saveAndLoad(text, dictPath);
+
+        Synset synset = binary.getSynsetFromOffset(3, PartsOfSpeech.NOUN);
+        synset.addExample("another example");
+        List<String> examples = Lists.newArrayList(expected.getExamples());
+        examples.add("another example");
+        assertEquals(examples, synset.getExamples());
+        assertEquals(expected.getDefinition(), synset.getDefinition());
+    }
+
+    @Test public void testStaleSnapshotIsIgnored() throws Exception {
+        String dictPath = MockDictionary.create();
+        saveChangedSnapshot(dictPath);
+        File data = new File(dictPath, "data.noun");
+        assertTrue(data.setLastModified(data.lastModified() + 10000));
+        assertFalse("changed".equals(nounDefinition(dictPath)));
+    }
+
+    @Test public void testTruncatedSnapshotIsIgnored() throws Exception {
+        String dictPath = MockDictionary.create();
+        File snapshot = saveChangedSnapshot(dictPath);
+        RandomAccessFile raf = new RandomAccessFile(snapshot, "rw");
+        raf.setLength(raf.length() / 2);
+        raf.close();
+        assertFalse("changed".equals(nounDefinition(dictPath)));
+    }
+
+    @Test public void testSaveOntologyRemovesSnapshot() throws Exception {
+        String dictPath = MockDictionary.create();
+        File snapshot = saveChangedSnapshot(dictPath);
+        WordNetCorpusReader reader = new WordNetCorpusReader(dictPath, false);
+        new WordNetCorpusWriter().saveOntology(reader, dictPath);
+        assertFalse(snapshot.exists());
+    }
+}
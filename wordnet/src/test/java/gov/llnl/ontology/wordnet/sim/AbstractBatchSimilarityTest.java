@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.util.WorkQueueUtil;
+import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.wordnet.BatchSynsetSimilarity;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.SynsetSimilarity;
+
+import edu.ucla.sspace.util.Duple;
+import edu.ucla.sspace.util.WorkQueue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class AbstractBatchSimilarityTest {
+
+    private static final String[] GLOSSES = {
+        "how now brown cow",
+        "how now sad meow",
+        "a brown cow is a cow",
+        "nothing in common",
+        "how now brown cow said the cow",
+    };
+
+    private static Synset[] synsets() {
+        Synset[] synsets = new Synset[GLOSSES.length];
+        for (int i = 0; i < GLOSSES.length; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].setDefinition(GLOSSES[i]);
+        }
+        synsets[0].addRelation("also", synsets[2]);
+        return synsets;
+    }
+
+    private static void assertMatchesPairwise(SynsetSimilarity sim,
+                                              Synset[] rows,
+                                              Synset[] cols,
+                                              double[][] sims) {
+        assertEquals(rows.length, sims.length);
+        for (int r = 0; r < rows.length; ++r) {
+            assertEquals(cols.length, sims[r].length);
+            for (int c = 0; c < cols.length; ++c)
+                assertEquals(sim.similarity(rows[r], cols[c]),
+                             sims[r][c], .00001);
+        }
+    }
+
+    @Test public void testLeskMatrix() {
+        Synset[] synsets = synsets();
+        BatchSynsetSimilarity sim = new LeskSimilarity();
+        double[][] sims = sim.similarity(synsets, synsets);
+        assertMatchesPairwise(sim, synsets, synsets, sims);
+        assertEquals(2, sims[0][1], .00001);
+        assertEquals(4, sims[0][4], .00001);
+        assertEquals(0, sims[0][3], .00001);
+    }
+
+    @Test public void testExtendedLeskMatrix() {
+        Synset[] synsets = synsets();
+        Synset[] rows = {synsets[0], synsets[1]};
+        BatchSynsetSimilarity sim = new ExtendedLeskSimilarity();
+        assertMatchesPairwise(sim, rows, synsets,
+                              sim.similarity(rows, synsets));
+    }
+
+    @Test public void testPairwiseAdapter() {
+        final Synset[] synsets = synsets();
+        SynsetSimilarity sim = new SynsetSimilarity() {
+            public double similarity(Synset s1, Synset s2) {
+                return s1.getGloss().length() - s2.getGloss().length();
+            }
+        };
+        BatchSynsetSimilarity batchSim = AbstractBatchSimilarity.of(sim);
+        assertTrue(batchSim != sim);
+        assertMatchesPairwise(sim, synsets, synsets,
+                              batchSim.similarity(synsets, synsets));
+
+        BatchSynsetSimilarity lesk = new LeskSimilarity();
+        assertSame(lesk, AbstractBatchSimilarity.of(lesk));
+    }
+
+    @Test public void testEmptyMatrix() {
+        BatchSynsetSimilarity sim = new LeskSimilarity();
+        assertEquals(0, sim.similarity(new Synset[0], synsets()).length);
+        double[][] sims = sim.similarity(synsets(), new Synset[0]);
+        assertEquals(GLOSSES.length, sims.length);
+        assertEquals(0, sims[0].length);
+    }
+
+    @Test public void testPairwiseSimilarity() {
+        Synset[] synsets = synsets();
+        BatchSynsetSimilarity sim = new LeskSimilarity();
+        double[][] sims = sim.pairwiseSimilarity(synsets);
+        assertEquals(synsets.length, sims.length);
+        for (int i = 0; i < synsets.length; ++i) {
+            assertEquals(synsets.length - i - 1, sims[i].length);
+            for (int j = i + 1; j < synsets.length; ++j)
+                assertEquals(sim.similarity(synsets[i], synsets[j]),
+                             sims[i][j - i - 1], .00001);
+        }
+        assertEquals(0, sim.pairwiseSimilarity(new Synset[0]).length);
+    }
+
+    @Test public void testParallelMatchesSerial() {
+        Synset[] synsets = new Synset[150];
+        for (int i = 0; i < synsets.length; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].setDefinition(GLOSSES[i % GLOSSES.length] + " " + i);
+        }
+        Synset[] rows = Arrays.copyOf(synsets, 7);
+
+        final LeskSimilarity lesk = new LeskSimilarity();
+        BatchSynsetSimilarity parallel =
+            new AbstractBatchSimilarity<Synset>(1, 4) {
+                protected Synset profile(Synset synset) {
+                    return synset;
+                }
+
+                public double similarity(Synset s1, Synset s2) {
+                    return lesk.similarity(s1, s2);
+                }
+            };
+
+        assertMatchesPairwise(lesk, synsets, synsets,
+                              parallel.similarity(synsets, synsets));
+        assertMatchesPairwise(lesk, rows, synsets,
+                              parallel.similarity(rows, synsets));
+
+        double[][] expected = lesk.pairwiseSimilarity(synsets);
+        double[][] sims = parallel.pairwiseSimilarity(synsets);
+        assertEquals(expected.length, sims.length);
+        for (int i = 0; i < sims.length; ++i)
+            assertTrue(Arrays.equals(expected[i], sims[i]));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testParallelFailureIsRethrown() {
+        Synset[] synsets = synsets();
+        final Synset bad = synsets[3];
+        BatchSynsetSimilarity sim =
+            new AbstractBatchSimilarity<Synset>(1, 4) {
+                protected Synset profile(Synset synset) {
+                    return synset;
+                }
+
+                public double similarity(Synset s1, Synset s2) {
+                    if (s1 == bad || s2 == bad)
+                        throw new IllegalStateException();
+                    return 0;
+                }
+            };
+        sim.pairwiseSimilarity(synsets);
+    }
+
+    @Test public void testAdapterIsSequential() {
+        Synset[] synsets = new Synset[100];
+        for (int i = 0; i < synsets.length; ++i)
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+        final Set<Thread> threads = new HashSet<Thread>();
+        SynsetSimilarity sim = new SynsetSimilarity() {
+            public double similarity(Synset s1, Synset s2) {
+                threads.add(Thread.currentThread());
+                return 1;
+            }
+        };
+        AbstractBatchSimilarity.of(sim).similarity(synsets, synsets);
+        AbstractBatchSimilarity.of(sim).pairwiseSimilarity(synsets);
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test(timeout=60000) public void testNestedBatchRunsInline() {
+        final Synset[] synsets = new Synset[100];
+        for (int i = 0; i < synsets.length; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].setDefinition(GLOSSES[i % GLOSSES.length]);
+        }
+        final LeskSimilarity lesk = new LeskSimilarity();
+        final BatchSynsetSimilarity parallel =
+            new AbstractBatchSimilarity<Synset>(1, 4) {
+                protected Synset profile(Synset synset) {
+                    return synset;
+                }
+
+                public double similarity(Synset s1, Synset s2) {
+                    return lesk.similarity(s1, s2);
+                }
+            };
+
+        // Every worker of the shared queue waits on a nested batch, which
+        // must not wait for another worker to become free.
+        final List<double[][]> results =
+            Collections.synchronizedList(new ArrayList<double[][]>());
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int t = 0; t < 2 * WorkQueue.getWorkQueue().numThreads(); ++t)
+            tasks.add(new Runnable() {
+                public void run() {
+                    results.add(parallel.pairwiseSimilarity(synsets));
+                }
+            });
+        WorkQueueUtil.run(tasks);
+
+        double[][] expected = lesk.pairwiseSimilarity(synsets);
+        assertEquals(tasks.size(), results.size());
+        for (double[][] sims : results)
+            for (int i = 0; i < sims.length; ++i)
+                assertTrue(Arrays.equals(expected[i], sims[i]));
+    }
+
+    @Test public void testTopK() {
+        Synset[] synsets = synsets();
+        BatchSynsetSimilarity sim = new LeskSimilarity();
+        List<Duple<Synset, Double>> top = sim.topK(synsets[0], synsets, 3);
+        assertEquals(3, top.size());
+        assertSame(synsets[0], top.get(0).x);
+        assertEquals(4, top.get(0).y, .00001);
+        assertSame(synsets[4], top.get(1).x);
+        assertEquals(4, top.get(1).y, .00001);
+        assertSame(synsets[1], top.get(2).x);
+        assertEquals(2, top.get(2).y, .00001);
+
+        assertEquals(GLOSSES.length,
+                     sim.topK(synsets[0], synsets, 10).size());
+        assertTrue(sim.topK(synsets[0], synsets, 0).isEmpty());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.wordnet.HypernymIndex;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.SynsetSimilarity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class CachingSynsetSimilarityTest {
+
+    /**
+     * An asymmetric measure that counts how often it is called.
+     */
+    static class CountingSimilarity implements SynsetSimilarity {
+        int calls;
+
+        public double similarity(Synset s1, Synset s2) {
+            calls++;
+            return s1.getGloss().length() * 100 + s2.getGloss().length();
+        }
+    }
+
+    private static Synset[] indexedSynsets(int count) {
+        Synset[] synsets = new Synset[count];
+        for (int i = 0; i < count; ++i) {
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+            synsets[i].setDefinition(new String(new char[i+1]));
+        }
+        HypernymIndex.build(Arrays.asList(synsets));
+        return synsets;
+    }
+
+    @Test public void testSymmetricHits() {
+        Synset[] synsets = indexedSynsets(3);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim = new CachingSynsetSimilarity(counter);
+
+        assertEquals(102, sim.similarity(synsets[0], synsets[1]), .00001);
+        assertEquals(102, sim.similarity(synsets[0], synsets[1]), .00001);
+        assertEquals(102, sim.similarity(synsets[1], synsets[0]), .00001);
+        assertEquals(1, counter.calls);
+        assertEquals(2, sim.hits());
+        assertEquals(1, sim.misses());
+        assertEquals(1, sim.size());
+    }
+
+    @Test public void testAsymmetric() {
+        Synset[] synsets = indexedSynsets(3);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim =
+            new CachingSynsetSimilarity(counter, 100, false);
+
+        assertEquals(102, sim.similarity(synsets[0], synsets[1]), .00001);
+        assertEquals(201, sim.similarity(synsets[1], synsets[0]), .00001);
+        assertEquals(201, sim.similarity(synsets[1], synsets[0]), .00001);
+        assertEquals(2, counter.calls);
+        assertEquals(1, sim.hits());
+    }
+
+    @Test public void testUnindexedSynsetsAreNotCached() {
+        Synset s1 = new BaseSynset(PartsOfSpeech.NOUN);
+        Synset s2 = new BaseSynset(PartsOfSpeech.NOUN);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim = new CachingSynsetSimilarity(counter);
+
+        sim.similarity(s1, s2);
+        sim.similarity(s1, s2);
+        assertEquals(2, counter.calls);
+        assertEquals(0, sim.size());
+    }
+
+    @Test public void testEviction() {
+        Synset[] synsets = indexedSynsets(40);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim =
+            new CachingSynsetSimilarity(counter, 64, false);
+
+        for (int round = 0; round < 3; ++round)
+            for (Synset s1 : synsets)
+                for (Synset s2 : synsets)
+                    assertEquals(counter.similarity(s1, s2),
+                                 sim.similarity(s1, s2), .00001);
+        assertTrue(sim.size() <= 64);
+        assertTrue(sim.evictions() > 0);
+        assertEquals(sim.size() + sim.evictions(), sim.misses());
+    }
+
+    @Test public void testRecentlyReadEntriesSurvive() {
+        Synset[] synsets = indexedSynsets(40);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim =
+            new CachingSynsetSimilarity(counter, 16 * 4, true);
+
+        // Keep reading one pair while streaming many others through the
+        // cache.  The pair should only ever be scored once.
+        sim.similarity(synsets[0], synsets[1]);
+        for (int i = 2; i < synsets.length; ++i)
+            for (int j = i; j < synsets.length; ++j) {
+                sim.similarity(synsets[i], synsets[j]);
+                sim.similarity(synsets[0], synsets[1]);
+            }
+        counter.calls = 0;
+        sim.similarity(synsets[1], synsets[0]);
+        assertEquals(0, counter.calls);
+    }
+
+    @Test public void testNewIndexClearsCache() {
+        Synset[] synsets = indexedSynsets(3);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim = new CachingSynsetSimilarity(counter);
+
+        sim.similarity(synsets[0], synsets[1]);
+        assertEquals(1, sim.size());
+
+        HypernymIndex.build(Arrays.asList(synsets));
+        sim.similarity(synsets[0], synsets[1]);
+        assertEquals(2, counter.calls);
+        assertEquals(1, sim.size());
+    }
+
+    @Test public void testGlossAndRelationChangesClearCache() {
+        Synset[] synsets = indexedSynsets(3);
+        CountingSimilarity counter = new CountingSimilarity();
+        CachingSynsetSimilarity sim = new CachingSynsetSimilarity(
+                counter, 64, false);
+        assertEquals(102, sim.similarity(synsets[0], synsets[1]), 0);
+
+        synsets[1].setDefinition("longer");
+        assertEquals(106, sim.similarity(synsets[0], synsets[1]), 0);
+        synsets[0].addExample("abc");
+        assertEquals(synsets[0].getGloss().length() * 100 + 6,
+                     sim.similarity(synsets[0], synsets[1]), 0);
+        assertEquals(3, counter.calls);
+
+        synsets[2].addRelation("also", synsets[0]);
+        sim.similarity(synsets[0], synsets[1]);
+        assertEquals(4, counter.calls);
+        sim.similarity(synsets[0], synsets[1]);
+        assertEquals(4, counter.calls);
+    }
+
+    @Test public void testExtendedLeskFollowsNewLinks() {
+        Synset[] synsets = indexedSynsets(3);
+        synsets[0].setDefinition("red apple");
+        synsets[1].setDefinition("green pear");
+        synsets[2].setDefinition("ripe apple");
+        ExtendedLeskSimilarity lesk = new ExtendedLeskSimilarity();
+        CachingSynsetSimilarity sim = new CachingSynsetSimilarity(
+                lesk, 64, false);
+
+        double before = sim.similarity(synsets[0], synsets[1]);
+        synsets[1].addRelation("also", synsets[2]);
+        double after = lesk.similarity(synsets[0], synsets[1]);
+        assertTrue(before != after);
+        assertEquals(after, sim.similarity(synsets[0], synsets[1]), 0);
+    }
+
+    @Test public void testReflectionConstructor() {
+        System.setProperty(CachingSynsetSimilarity.SIMILARITY_PROPERTY,
+                           LeskSimilarity.class.getName());
+        try {
+            CachingSynsetSimilarity sim = new CachingSynsetSimilarity();
+            assertTrue(sim.getSimilarity() instanceof LeskSimilarity);
+        } finally {
+            System.clearProperty(CachingSynsetSimilarity.SIMILARITY_PROPERTY);
+        }
+    }
+}
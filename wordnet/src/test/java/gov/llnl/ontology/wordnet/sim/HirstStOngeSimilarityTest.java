@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2011, Lawrence Livermore National Security, LLC. Produced at
+ * the Lawrence Livermore National Laboratory. Written by Keith Stevens,
+ * kstevens@cs.ucla.edu OCEC-10-073 All rights reserved. 
+ *
+ * This file is part of the C-Cat package and is covered under the terms and
+ * conditions therein.
+ *
+ * The C-Cat package is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation and distributed hereunder to you.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS" AND NO REPRESENTATIONS OR WARRANTIES,
+ * EXPRESS OR IMPLIED ARE MADE.  BY WAY OF EXAMPLE, BUT NOT LIMITATION, WE MAKE
+ * NO REPRESENTATIONS OR WARRANTIES OF MERCHANT- ABILITY OR FITNESS FOR ANY
+ * PARTICULAR PURPOSE OR THAT THE USE OF THE LICENSED SOFTWARE OR DOCUMENTATION
+ * WILL NOT INFRINGE ANY THIRD PARTY PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER
+ * RIGHTS.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package gov.llnl.ontology.wordnet.sim;
+
+import gov.llnl.ontology.wordnet.BaseSynset;
+import gov.llnl.ontology.wordnet.Synset;
+import gov.llnl.ontology.wordnet.SynsetGraph;
+import gov.llnl.ontology.wordnet.SynsetSimilarity;
+import gov.llnl.ontology.wordnet.Synset.PartsOfSpeech;
+import gov.llnl.ontology.wordnet.Synset.Relation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Keith Stevens
+ */
+public class HirstStOngeSimilarityTest {
+
+    private static final Relation[] RELATIONS = {
+        Relation.HYPERNYM, Relation.HYPONYM, Relation.PART_MERONYM,
+        Relation.PART_HOLONYM, Relation.CAUSE, Relation.ALSO_SEE,
+        Relation.ANTONYM, Relation.SIMILAR_TO, Relation.DERIVATIONALLY_RELATED_FORMS,
+    };
+
+    private static Synset[] randomGraph(Random random, int size, int edges) {
+        Synset[] synsets = new Synset[size];
+        for (int i = 0; i < size; ++i)
+            synsets[i] = new BaseSynset(PartsOfSpeech.NOUN);
+        for (int e = 0; e < edges; ++e)
+            synsets[random.nextInt(size)].addRelation(
+                    RELATIONS[random.nextInt(RELATIONS.length)],
+                    synsets[random.nextInt(size)]);
+        return synsets;
+    }
+
+    private static void assertMatchesReference(Synset[] synsets) {
+        SynsetSimilarity expected = new ReferenceSimilarity();
+        SynsetSimilarity sim = new HirstStOngeSimilarity();
+        for (Synset s1 : synsets)
+            for (Synset s2 : synsets)
+                assertEquals(expected.similarity(s1, s2),
+                             sim.similarity(s1, s2), 0);
+    }
+
+    @Test public void testPathScores() {
+        Synset s1 = new BaseSynset(PartsOfSpeech.NOUN);
+        Synset s2 = new BaseSynset(PartsOfSpeech.NOUN);
+        Synset parent = new BaseSynset(PartsOfSpeech.NOUN);
+        s1.addRelation(Relation.HYPERNYM, parent);
+        parent.addRelation(Relation.HYPONYM, s2);
+
+        SynsetSimilarity sim = new HirstStOngeSimilarity();
+        // Up then down: two links and one change of direction.
+        assertEquals(5 / 8.0, sim.similarity(s1, s2), .00001);
+        // Down is never followed by up.
+        assertEquals(0, sim.similarity(s2, s1), .00001);
+        // The synset itself is only reached by following a path back to it.
+        assertEquals(0, sim.similarity(s1, s1), .00001);
+        parent.addRelation(Relation.HYPONYM, s1);
+        assertEquals(5 / 8.0, sim.similarity(s1, s1), .00001);
+        assertEquals(7 / 8.0, sim.similarity(s1, parent), .00001);
+    }
+
+    @Test public void testForwardSearchMatchesReference() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 5; ++trial)
+            assertMatchesReference(randomGraph(random, 30, 60));
+    }
+
+    @Test public void testGraphSearchMatchesReference() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 5; ++trial) {
+            Synset[] synsets = randomGraph(random, 30, 60);
+            SynsetGraph graph = SynsetGraph.build(Arrays.asList(synsets));
+            assertMatchesReference(synsets);
+            assertTrue(graph.isCurrent());
+        }
+    }
+
+    /**
+     * The original recursive implementation of the Hirst and St-Onge
+     * measure, which explores every valid path.
+     */
+    static class ReferenceSimilarity implements SynsetSimilarity {
+
+        /**
+        * The fixed value for C when computing the best score.
+        */
+        private static final double C = 8;
+
+        /**
+        * The set of relations with an upward direction.
+        */
+        private static Relation[] UP_RELATION = {
+            Relation.HYPERNYM, Relation.MEMBER_MERONYM,
+            Relation.SUBSTANCE_MERONYM, Relation.PART_MERONYM
+        };
+
+        /**
+        * The set of relations with a downward direction.
+        */
+        private static Relation[] DOWN_RELATION = {
+            Relation.HYPONYM, Relation.MEMBER_HOLONYM, Relation.SUBSTANCE_HOLONYM, 
+            Relation.PART_HOLONYM, Relation.CAUSE, Relation.ENTAILMENT
+        };
+
+        /**
+        * The set of relations with a side direction.
+        */
+        private static Relation[] SIDE_RELATION = {
+            Relation.ALSO_SEE, Relation.ATTRIBUTE, 
+            Relation.ANTONYM, Relation.SIMILAR_TO
+        };
+
+        /**
+         * {@inheritDoc}
+         */
+        public double similarity(Synset synset1, Synset synset2) {
+            double bestScore = 0;
+            for (Relation relation : UP_RELATION)
+                for (Synset related : synset1.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState1(1, 0, related, synset2));
+
+            for (Relation relation : DOWN_RELATION)
+                for (Synset related : synset1.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState3(1, 0, related, synset2));
+
+            for (Relation relation : SIDE_RELATION)
+                for (Synset related : synset1.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState2(1, 0, related, synset2));
+
+            // With k == 1 the minimum score possible is 0 and the maximum
+            // score is C.  Divide by C so that it's within a range of 0 to 1.
+            return bestScore / C;
+        }
+
+        /**
+        * Traverses valid outward links from {@code src} node.  If {@code src}
+        * equals {@code dest}, then a score is computed.  Of all possible paths from
+        * this state, the maximum score is returned.
+        *
+        * </p>
+        *
+        * From this state, all directions are valid.
+        */
+        private static double hsoState1(int depth, int dirChange,
+                                      Synset src, Synset dest) {
+            double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
+            depth++;
+
+            if (depth > 5)
+                return Math.max(bestScore, 0);
+
+            for (Relation relation : UP_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState1(depth, dirChange, related, dest));
+
+            dirChange++;
+            for (Relation relation : DOWN_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState4(depth, dirChange, related, dest));
+
+            for (Relation relation : SIDE_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState2(depth, dirChange, related, dest));
+
+            return bestScore;
+        }
+
+        /**
+        * Traverses valid outward links from {@code src} node.  If {@code src}
+        * equals {@code dest}, then a score is computed.  Of all possible paths from
+        * this state, the maximum score is returned.
+        *
+        * </p>
+        *
+        * From this state, only side and downward directions are valid.
+        */
+        private static double hsoState2(int depth, int dirChange, 
+                                      Synset src, Synset dest) {
+            double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
+            depth++;
+
+            if (depth > 5)
+                return Math.max(bestScore, 0);
+
+            for (Relation relation : SIDE_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState2(depth, dirChange, related, dest));
+
+            dirChange++;
+            for (Relation relation : DOWN_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState4(depth, dirChange, related, dest));
+
+
+            return bestScore;
+        }
+
+        /**
+        * Traverses valid outward links from {@code src} node.  If {@code src}
+        * equals {@code dest}, then a score is computed.  Of all possible paths from
+        * this state, the maximum score is returned.
+        *
+        * </p>
+        *
+        * From this state, only side and downward directions are valid.
+        */
+        private static double hsoState3(int depth, int dirChange, 
+                                      Synset src, Synset dest) {
+            double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
+            depth++;
+
+            if (depth > 5)
+                return Math.max(bestScore, 0);
+
+            for (Relation relation : DOWN_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState4(depth, dirChange, related, dest));
+
+            dirChange++;
+            for (Relation relation : SIDE_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState5(depth, dirChange, related, dest));
+
+            return bestScore;
+        }
+
+        /**
+        * Traverses valid outward links from {@code src} node.  If {@code src}
+        * equals {@code dest}, then a score is computed.  Of all possible paths from
+        * this state, the maximum score is returned.
+        *
+        * </p>
+        *
+        * From this state, only downward directions are valid.
+        */
+        private static double hsoState4(int depth, int dirChange, 
+                                      Synset src, Synset dest) {
+            double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
+            depth++;
+
+            if (depth > 5)
+                return Math.max(bestScore, 0);
+
+            for (Relation relation : DOWN_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState4(depth, dirChange, related, dest));
+
+            return bestScore;
+        }
+
+        /**
+        * Traverses valid outward links from {@code src} node.  If {@code src}
+        * equals {@code dest}, then a score is computed.  Of all possible paths from
+        * this state, the maximum score is returned.
+        *
+        * </p>
+        *
+        * From this state, only side directions are valid.
+        */
+        private static double hsoState5(int depth, int dirChange, 
+                                        Synset src, Synset dest) {
+            double bestScore = (src.equals(dest)) ? C - depth - dirChange : 0;
+            depth++;
+
+            if (depth > 5)
+                return Math.max(bestScore, 0);
+
+            for (Relation relation : SIDE_RELATION)
+                for (Synset related : src.getRelations(relation))
+                    bestScore = Math.max(
+                            bestScore, hsoState5(depth, dirChange, related, dest));
+
+            return bestScore;
+        }
+    }
+}
@@ -26,6 +26,8 @@ package gov.llnl.ontology.wordnet.wsd;
 import gov.llnl.ontology.text.Annotation;
 import gov.llnl.ontology.text.Sentence;
 import gov.llnl.ontology.wordnet.LinkedMockReader;
+import gov.llnl.ontology.wordnet.PageRankSolver;
+import gov.llnl.ontology.wordnet.PushPageRankSolver;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -83,6 +85,46 @@ public class PersonalizedPageRankWSDTest
         assertEquals(SYNSET_DATA[2][0], word.sense());
     }
 
+    @Test public void testPushDisambiguation() {
+        WordSenseDisambiguation wsdAlg = new PersonalizedPageRankWSD(
+                new PushPageRankSolver(1e-8));
+        Sentence sentences = getSentences(TEST_SENTENCE, TEST_POS);
+        LinkedMockReader reader = new LinkedMockReader(SYNSET_DATA);
+        for (String[] synsetLink : SYNSET_LINKS)
+            reader.connectSynsets(synsetLink[0], synsetLink[1], "r");
+
+        wsdAlg.setup(reader);
+        Sentence sent = wsdAlg.disambiguate(sentences);
+
+        Annotation word = sent.getAnnotation(1);
+        assertNotNull(word);
+        assertEquals(SYNSET_DATA[2][0], word.sense());
+    }
+
+    @Test public void testSentenceMode() {
+        LinkedMockReader reader = new LinkedMockReader(SYNSET_DATA);
+        for (String[] synsetLink : SYNSET_LINKS)
+            reader.connectSynsets(synsetLink[0], synsetLink[1], "r");
+
+        WordSenseDisambiguation wordAlg = new PersonalizedPageRankWSD(
+                new PageRankSolver(1e-10, 200), false);
+        WordSenseDisambiguation sentenceAlg = new PersonalizedPageRankWSD(
+                new PageRankSolver(1e-10, 200), true);
+        wordAlg.setup(reader);
+        sentenceAlg.setup(reader);
+
+        Sentence sentences = getSentences(TEST_SENTENCE, TEST_POS);
+        Sentence expected = wordAlg.disambiguate(sentences);
+        Sentence sent = sentenceAlg.disambiguate(sentences);
+        assertEquals(expected.numTokens(), sent.numTokens());
+        assertEquals(expected.start(), sent.start());
+        assertEquals(expected.end(), sent.end());
+        for (int i = 0; i < sent.numTokens(); ++i)
+            assertEquals(expected.getAnnotation(i).sense(),
+                         sent.getAnnotation(i).sense());
+        assertEquals(SYNSET_DATA[2][0], sent.getAnnotation(1).sense());
+    }
+
     // TODO: Add test with multiple sentences to handle some interesting use
     // cases.
 }